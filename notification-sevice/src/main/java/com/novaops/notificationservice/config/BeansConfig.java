@@ -1,6 +1,6 @@
 package com.novaops.notificationservice.config;
 
-import com.novaops.userservice.config.audit.ApplicationAuditAware;
+import com.novaops.notificationservice.config.audit.ApplicationAuditAware;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.cache.annotation.EnableCaching;
@@ -8,9 +8,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableJpaAuditing(auditorAwareRef = "auditorAware")
 @EnableCaching
+@EnableScheduling
 @RequiredArgsConstructor
 @Log4j2
 @Configuration
@@ -1,5 +1,6 @@
 package com.novaops.notificationservice.config;
 
+import java.time.Duration;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -14,4 +15,46 @@ public class WebSocketProperties {
   private String applicationDestinationPrefix;
   private String userDestinationPrefix;
   private String[] broker;
+  private FanOut fanOut = new FanOut();
+  private Cluster cluster = new Cluster();
+
+  /** How a notification sent to many users is dispatched. */
+  @Getter
+  @Setter
+  public static class FanOut {
+
+    /** Number of users a worker sends to in one go. */
+    private int batchSize = 500;
+
+    /** Number of workers sending batches side by side. */
+    private int parallelism = 4;
+
+    /** Batches waiting for a worker before the dispatch waits too. */
+    private int queueCapacity = 64;
+  }
+
+  /**
+   * How the instances deliver to the users connected to another one. Each instance records in
+   * Redis which users have sessions on it, and receives the messages of those users from the
+   * other instances on its own pub/sub channel.
+   */
+  @Getter
+  @Setter
+  public static class Cluster {
+
+    /** Off on a single instance: every user is connected to it. */
+    private boolean enabled = false;
+
+    /** Id of this instance, random when not set. */
+    private String nodeId;
+
+    /** How often the instance tells the others it is alive. */
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+    /**
+     * How long an instance that stopped beating is still sent messages, and the routes of the users
+     * of instances that all stopped are kept.
+     */
+    private Duration nodeTtl = Duration.ofSeconds(30);
+  }
 }
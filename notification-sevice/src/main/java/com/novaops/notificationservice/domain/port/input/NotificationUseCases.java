@@ -2,9 +2,12 @@ package com.novaops.notificationservice.domain.port.input;
 
 import com.novaops.notificationservice.domain.enums.NotificationType;
 import com.novaops.notificationservice.domain.model.Notification;
+import com.novaops.notificationservice.shared.pagination.Cursor;
+import com.novaops.notificationservice.shared.pagination.CursorPage;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,7 +21,15 @@ public interface NotificationUseCases {
    */
   Notification createNotification(Notification notification);
 
-  void notifyUsersWithWsNotification(
+  /**
+   * Stores a notification for every user and pushes it to their WebSocket sessions
+   *
+   * @param data the data of the notification
+   * @param type the type of the notification
+   * @param usersToNotify the users
+   * @return completes once the notification has been pushed to every user
+   */
+  CompletableFuture<Void> notifyUsersWithWsNotification(
       Map<String, Object> data, NotificationType type, List<UUID> usersToNotify);
 
   /**
@@ -36,6 +47,26 @@ public interface NotificationUseCases {
    */
   Page<Notification> getAllByUserId(UUID userId, Pageable pageable);
 
+  /**
+   * Get the notifications of a user, newest first, without counting them
+   *
+   * @param userId the user
+   * @param after continues after this position, null to start with the newest notification
+   * @param size the maximum number of notifications
+   * @return the notifications
+   */
+  CursorPage<Notification> getFeedByUserId(UUID userId, Cursor after, int size);
+
+  /**
+   * Get the notifications a user received after a position, oldest first
+   *
+   * @param userId the user
+   * @param since the position, usually the latest cursor of an earlier page
+   * @param size the maximum number of notifications
+   * @return the notifications
+   */
+  CursorPage<Notification> getFeedSince(UUID userId, Cursor since, int size);
+
   /**
    * Mark a notification as read
    *
@@ -2,7 +2,11 @@ package com.novaops.notificationservice.domain.port.output;
 
 import com.novaops.notificationservice.domain.enums.NotificationType;
 import com.novaops.notificationservice.domain.model.Notification;
+import com.novaops.notificationservice.shared.pagination.Cursor;
+import com.novaops.notificationservice.shared.pagination.CursorPage;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
@@ -38,6 +42,26 @@ public interface Notifications {
    */
   Page<Notification> getAllByUserId(UUID userId, Pageable pageable);
 
+  /**
+   * Get the notifications of a user, newest first, without counting them
+   *
+   * @param userId the user
+   * @param after continues after this position, null to start with the newest notification
+   * @param size the maximum number of notifications
+   * @return the notifications
+   */
+  CursorPage<Notification> getFeedByUserId(UUID userId, Cursor after, int size);
+
+  /**
+   * Get the notifications a user received after a position, oldest first
+   *
+   * @param userId the user
+   * @param since the position, usually the latest cursor of an earlier page
+   * @param size the maximum number of notifications
+   * @return the notifications
+   */
+  CursorPage<Notification> getFeedSince(UUID userId, Cursor since, int size);
+
   /**
    * Get all notifications by talent id
    *
@@ -58,8 +82,9 @@ public interface Notifications {
    * Delete a notification by id
    *
    * @param id
+   * @return the deleted notification, if it existed
    */
-  void deleteById(UUID id);
+  Optional<Notification> deleteById(UUID id);
 
   /**
    * Delete all notifications by talent id
@@ -71,6 +96,14 @@ public interface Notifications {
 
   Long getUnreadNotificationsCount(UUID id);
 
+  /**
+   * Get the unread notifications count of many users at once
+   *
+   * @param userIds the users
+   * @return the count of every user, zero for a user without unread notifications
+   */
+  Map<UUID, Long> getUnreadNotificationsCounts(Collection<UUID> userIds);
+
   /**
    * Finds a notification by type, a key-value pair in its JSON data, and user ID.
    *
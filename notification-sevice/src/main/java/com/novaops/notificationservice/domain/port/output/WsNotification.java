@@ -1,5 +1,8 @@
 package com.novaops.notificationservice.domain.port.output;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Output port interface for WebSocket notification operations. Defines the contract for sending
  * real-time notifications via WebSocket in the hexagonal architecture.
@@ -13,4 +16,22 @@ public interface WsNotification {
    * @param payload the notification payload to send
    */
   void send(String userId, Object payload);
+
+  /**
+   * Sends the unread notifications count of a user to their WebSocket sessions, on a destination
+   * of its own so it is not taken for a notification.
+   *
+   * @param userId the unique identifier of the user
+   * @param unreadCount the number of unread notifications of the user
+   */
+  void sendUnreadCount(String userId, long unreadCount);
+
+  /**
+   * Sends a real-time notification to many users via WebSocket, without blocking the caller.
+   *
+   * @param payload the part of the payload shared by every user
+   * @param userFields the fields of the payload that differ for each user, by user id
+   * @return completes once the notification has been handed to every user's sessions
+   */
+  CompletableFuture<Void> sendToAll(Object payload, Map<String, Map<String, Object>> userFields);
 }
@@ -6,9 +6,14 @@ import com.novaops.notificationservice.domain.port.input.NotificationUseCases;
 import com.novaops.notificationservice.domain.port.output.Notifications;
 import com.novaops.notificationservice.domain.port.output.WsNotification;
 import com.novaops.notificationservice.shared.annotation.DomainService;
+import com.novaops.notificationservice.shared.pagination.Cursor;
+import com.novaops.notificationservice.shared.pagination.CursorPage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -24,11 +29,13 @@ public class NotificationService implements NotificationUseCases {
   // Create a new notification
   @Override
   public Notification createNotification(Notification notification) {
-    return notifications.create(notification);
+    Notification created = notifications.create(notification);
+    pushUnreadCount(created.getUserId());
+    return created;
   }
 
   @Override
-  public void notifyUsersWithWsNotification(
+  public CompletableFuture<Void> notifyUsersWithWsNotification(
       Map<String, Object> data, NotificationType type, List<UUID> usersToNotify) {
 
     if (data == null || type == null || usersToNotify == null) {
@@ -51,12 +58,25 @@ public class NotificationService implements NotificationUseCases {
     List<Notification> addedNotifications = this.notifications.createBulk(notifications);
 
     if (addedNotifications.isEmpty()) {
-      return;
+      return CompletableFuture.completedFuture(null);
     }
 
-    addedNotifications.forEach(
-        notificationToSend ->
-            wsNotification.send(notificationToSend.getUserId().toString(), notificationToSend));
+    Map<UUID, Long> unreadCounts =
+        this.notifications.getUnreadNotificationsCounts(
+            addedNotifications.stream().map(Notification::getUserId).toList());
+    // the notifications only differ by these fields, the rest is serialized once for everyone
+    Map<String, Map<String, Object>> userFields = new LinkedHashMap<>();
+    for (Notification added : addedNotifications) {
+      Map<String, Object> fields = new HashMap<>();
+      fields.put("id", added.getId());
+      fields.put("userId", added.getUserId());
+      fields.put("createdAt", added.getCreatedAt());
+      fields.put("updatedAt", added.getUpdatedAt());
+      // the clients update their badge from it, instead of polling the count
+      fields.put("unreadCount", unreadCounts.get(added.getUserId()));
+      userFields.put(added.getUserId().toString(), fields);
+    }
+    return wsNotification.sendToAll(addedNotifications.getFirst(), userFields);
   }
 
   public void notifyUsersWithNotificationSuppression(
@@ -66,7 +86,9 @@ public class NotificationService implements NotificationUseCases {
     }
     Map<String, Object> data = Map.of("removeNotification", true, "notificationId", notificationId);
 
-    usersToNotify.forEach(userId -> wsNotification.send(userId.toString(), data));
+    Map<String, Map<String, Object>> userFields = new LinkedHashMap<>();
+    usersToNotify.forEach(userId -> userFields.put(userId.toString(), Map.of()));
+    wsNotification.sendToAll(data, userFields);
   }
 
   // Create a list of notifications
@@ -81,32 +103,53 @@ public class NotificationService implements NotificationUseCases {
     return notifications.getAllByUserId(userId, pageable);
   }
 
+  @Override
+  public CursorPage<Notification> getFeedByUserId(UUID userId, Cursor after, int size) {
+    return notifications.getFeedByUserId(userId, after, size);
+  }
+
+  @Override
+  public CursorPage<Notification> getFeedSince(UUID userId, Cursor since, int size) {
+    return notifications.getFeedSince(userId, since, size);
+  }
+
   // mark a notification as read
   @Override
   public Notification markAsRead(UUID id) {
-    return notifications.markAsRead(id);
+    Notification notification = notifications.markAsRead(id);
+    pushUnreadCount(notification.getUserId());
+    return notification;
   }
 
   // mark all notifications as read
   @Override
   public boolean markAllAsRead(UUID userId) {
-    return notifications.markAllAsRead(userId);
+    boolean marked = notifications.markAllAsRead(userId);
+    pushUnreadCount(userId);
+    return marked;
   }
 
   // delete a notification by id
   @Override
   public void deleteById(UUID id) {
-    notifications.deleteById(id);
+    notifications.deleteById(id).ifPresent(deleted -> pushUnreadCount(deleted.getUserId()));
   }
 
   // delete all notifications by user id
   @Override
   public void deleteAll(UUID talentId) {
     notifications.deleteAll(talentId);
+    pushUnreadCount(talentId);
   }
 
   @Override
   public Long getUnreadNotificationsCount(UUID id) {
     return notifications.getUnreadNotificationsCount(id);
   }
+
+  /** Sends the unread count to the sessions of the user, once it has changed. */
+  private void pushUnreadCount(UUID userId) {
+    wsNotification.sendUnreadCount(
+        userId.toString(), notifications.getUnreadNotificationsCount(userId));
+  }
 }
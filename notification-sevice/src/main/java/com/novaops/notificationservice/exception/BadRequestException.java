@@ -0,0 +1,52 @@
+package com.novaops.notificationservice.exception;
+
+import java.io.Serial;
+
+public class BadRequestException extends ApplicationException {
+
+  @Serial private static final long serialVersionUID = 3160383587473905262L;
+
+  public BadRequestException(BadRequestExceptionType type) {
+    super(type);
+  }
+
+  public BadRequestException(BadRequestExceptionType type, Throwable cause) {
+    super(type, cause);
+  }
+
+  public BadRequestException(BadRequestExceptionType type, Object... valueParams) {
+    super(type, valueParams);
+  }
+
+  public enum BadRequestExceptionType implements ExceptionType {
+    INVALID_CURSOR(
+        "error.server.bad-request.invalid-cursor.title",
+        "error.server.bad-request.invalid-cursor.msg",
+        "Invalid pagination cursor");
+
+    private final String messageKey;
+    private final String titleKey;
+    private final String messageCause;
+
+    BadRequestExceptionType(String titleKey, String messageKey, String messageCause) {
+      this.messageKey = messageKey;
+      this.titleKey = titleKey;
+      this.messageCause = messageCause;
+    }
+
+    @Override
+    public String getTitleKey() {
+      return titleKey;
+    }
+
+    @Override
+    public String getMessageKey() {
+      return messageKey;
+    }
+
+    @Override
+    public String getMessageCause() {
+      return messageCause;
+    }
+  }
+}
@@ -73,6 +73,14 @@ public class GlobalExceptionHandler {
         new ExceptionResponse(ex.getTitleKey(), ex.getMessageKey(), ex), HttpStatus.NOT_FOUND);
   }
 
+  // Exception handler for BadRequestException
+  @ExceptionHandler(BadRequestException.class)
+  public ResponseEntity<Object> handleBadRequestException(BadRequestException ex) {
+    log.error("Bad request: {}", ex.getMessage(), ex);
+    return buildResponseEntity(
+        new ExceptionResponse(ex.getTitleKey(), ex.getMessageKey(), ex), HttpStatus.BAD_REQUEST);
+  }
+
   @ExceptionHandler(MissingServletRequestPartException.class)
   public ResponseEntity<Map<String, String>> handleMissingServletRequestPartException(
       MissingServletRequestPartException ex) {
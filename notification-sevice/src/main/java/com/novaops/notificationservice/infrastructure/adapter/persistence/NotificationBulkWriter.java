@@ -0,0 +1,114 @@
+package com.novaops.notificationservice.infrastructure.adapter.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novaops.notificationservice.config.audit.ApplicationAuditAware;
+import com.novaops.notificationservice.domain.model.Notification;
+import com.novaops.notificationservice.shared.TimeOrderedUuids;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inserts many notifications with one multi-row statement per chunk instead of one JPA {@code
+ * save} per notification. The rows are passed as arrays, so a chunk is a single round trip
+ * whatever its size.
+ *
+ * <p>The JPA lifecycle is bypassed: the ids are generated here, time-ordered, the auditing
+ * columns are set here, and the second-level cache is not involved. The new rows are not in it
+ * yet, so there is nothing to evict.
+ */
+@Component
+@Log4j2
+@RequiredArgsConstructor
+public class NotificationBulkWriter {
+
+  private static final int CHUNK_SIZE = 5_000;
+
+  private static final String INSERT_NOTIFICATIONS =
+      """
+      INSERT INTO notifications (id, type, data, user_id, is_read, created_by, created_at, version)
+      SELECT n.id, n.type, n.data::jsonb, n.user_id, n.is_read, ?, ?, 0
+      FROM unnest(?::uuid[], ?::varchar[], ?::text[], ?::uuid[], ?::boolean[])
+          AS n(id, type, data, user_id, is_read)
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AuditorAware<String> auditorAware;
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Inserts the notifications in the current transaction.
+   *
+   * @param notifications the notifications to insert; their ids, auditing fields and version are
+   *     set
+   * @return the same notifications
+   */
+  public List<Notification> insert(List<Notification> notifications) {
+    String auditor = auditorAware.getCurrentAuditor().orElse(ApplicationAuditAware.SYSTEM);
+    // truncated to what the column stores, so the returned notifications match the rows
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+    for (Notification notification : notifications) {
+      notification.setId(TimeOrderedUuids.next());
+      notification.setIsRead(Boolean.TRUE.equals(notification.getIsRead()));
+      notification.setCreatedBy(auditor);
+      notification.setCreatedAt(now);
+      notification.setVersion((short) 0);
+    }
+
+    for (int from = 0; from < notifications.size(); from += CHUNK_SIZE) {
+      List<Notification> chunk =
+          notifications.subList(from, Math.min(from + CHUNK_SIZE, notifications.size()));
+      jdbcTemplate.update(
+          INSERT_NOTIFICATIONS,
+          statement -> {
+            Connection connection = statement.getConnection();
+            statement.setString(1, auditor);
+            // created_at has no time zone, Hibernate writes it in UTC
+            statement.setObject(2, LocalDateTime.ofInstant(now, ZoneOffset.UTC));
+            statement.setArray(3, array(connection, "uuid", chunk, Notification::getId));
+            statement.setArray(
+                4,
+                array(connection, "varchar", chunk, notification -> notification.getType().name()));
+            statement.setArray(5, array(connection, "text", chunk, this::toJson));
+            statement.setArray(6, array(connection, "uuid", chunk, Notification::getUserId));
+            statement.setArray(7, array(connection, "boolean", chunk, Notification::getIsRead));
+          });
+    }
+
+    log.debug("Bulk inserted {} notifications", notifications.size());
+    return notifications;
+  }
+
+  private static Array array(
+      Connection connection,
+      String type,
+      List<Notification> chunk,
+      Function<Notification, Object> column)
+      throws SQLException {
+    return connection.createArrayOf(type, chunk.stream().map(column).toArray());
+  }
+
+  private String toJson(Notification notification) {
+    if (notification.getData() == null) {
+      return null;
+    }
+    try {
+      return objectMapper.writeValueAsString(notification.getData());
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Could not serialize the notification data", e);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.novaops.notificationservice.infrastructure.adapter.persistence;
+
+import java.sql.Array;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The unread counters of the users, in {@code notification_counters}. They are updated in the
+ * transaction of the notifications they count; the rows of several users are always written in
+ * the order of their ids, so concurrent bulk inserts cannot deadlock on them.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationCounterStore {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Adds to the counters of the users, in one statement.
+   *
+   * @param deltas the number of new unread notifications, by user
+   * @return the new counters of the users
+   */
+  public Map<UUID, Long> increment(Map<UUID, Long> deltas) {
+    if (deltas.isEmpty()) {
+      return Map.of();
+    }
+    List<Map.Entry<UUID, Long>> sorted =
+        deltas.entrySet().stream().sorted(Map.Entry.comparingByKey()).toList();
+    Map<UUID, Long> counts = new HashMap<>();
+    jdbcTemplate.query(
+        """
+        INSERT INTO notification_counters (user_id, unread_count)
+        SELECT * FROM unnest(?::uuid[], ?::bigint[])
+        ON CONFLICT (user_id)
+            DO UPDATE SET unread_count = notification_counters.unread_count + EXCLUDED.unread_count
+        RETURNING user_id, unread_count
+        """,
+        statement -> {
+          Array userIds =
+              statement
+                  .getConnection()
+                  .createArrayOf("uuid", sorted.stream().map(Map.Entry::getKey).toArray());
+          Array increments =
+              statement
+                  .getConnection()
+                  .createArrayOf("bigint", sorted.stream().map(Map.Entry::getValue).toArray());
+          statement.setArray(1, userIds);
+          statement.setArray(2, increments);
+        },
+        row -> {
+          counts.put(row.getObject("user_id", UUID.class), row.getLong("unread_count"));
+        });
+    return counts;
+  }
+
+  /**
+   * Subtracts from the counter of the user, rather than setting it, so the notifications counted
+   * by concurrent transactions are kept.
+   *
+   * @param count the number of unread notifications that were read or deleted
+   * @return the new counter of the user
+   */
+  public long decrement(UUID userId, long count) {
+    if (count <= 0) {
+      return get(userId);
+    }
+    List<Long> counts =
+        jdbcTemplate.queryForList(
+            """
+            UPDATE notification_counters
+            SET unread_count = GREATEST(unread_count - ?, 0)
+            WHERE user_id = ?
+            RETURNING unread_count
+            """,
+            Long.class,
+            count,
+            userId);
+    return counts.isEmpty() ? 0 : counts.getFirst();
+  }
+
+  public long get(UUID userId) {
+    List<Long> counts =
+        jdbcTemplate.queryForList(
+            "SELECT unread_count FROM notification_counters WHERE user_id = ?", Long.class, userId);
+    return counts.isEmpty() ? 0 : counts.getFirst();
+  }
+
+  /**
+   * @return the counters of the users, zero for a user without one
+   */
+  public Map<UUID, Long> get(Collection<UUID> userIds) {
+    Map<UUID, Long> counts = new HashMap<>();
+    userIds.forEach(userId -> counts.put(userId, 0L));
+    jdbcTemplate.query(
+        "SELECT user_id, unread_count FROM notification_counters WHERE user_id = ANY (?::uuid[])",
+        statement ->
+            statement.setArray(
+                1, statement.getConnection().createArrayOf("uuid", userIds.toArray())),
+        row -> {
+          counts.put(row.getObject("user_id", UUID.class), row.getLong("unread_count"));
+        });
+    return counts;
+  }
+
+  /**
+   * Recounts the unread notifications of every user and fixes the counters that drifted, e.g.
+   * after a notification was written outside of this service.
+   *
+   * <p>It is one statement: the recount and the counters are read from the same snapshot, and a
+   * counter is only fixed if it still holds the value it was recounted against. A counter updated
+   * since, by a transaction that commits meanwhile, is left to the next run instead of being
+   * overwritten with a stale count. The drifted counters are locked in the order of their users,
+   * like {@link #increment}, so the two cannot deadlock.
+   *
+   * @return the fixed counters
+   */
+  public Map<UUID, Long> reconcile() {
+    Map<UUID, Long> fixed = new HashMap<>();
+    jdbcTemplate.query(
+        """
+        WITH actual AS (
+            SELECT u.user_id, u.seen, count(n.id) AS unread_count
+            FROM (SELECT user_id, unread_count AS seen FROM notification_counters
+                  UNION ALL
+                  SELECT DISTINCT n.user_id, NULL FROM notifications n
+                  WHERE n.is_read = false
+                    AND NOT EXISTS (SELECT 1 FROM notification_counters c
+                                    WHERE c.user_id = n.user_id)) u
+            LEFT JOIN notifications n ON n.user_id = u.user_id AND n.is_read = false
+            GROUP BY u.user_id, u.seen
+        ),
+        drifted AS (
+            SELECT c.user_id, a.unread_count
+            FROM notification_counters c
+            JOIN actual a ON a.user_id = c.user_id
+            WHERE c.unread_count = a.seen AND a.seen <> a.unread_count
+            ORDER BY c.user_id
+            FOR UPDATE OF c
+        ),
+        corrected AS (
+            UPDATE notification_counters c
+            SET unread_count = d.unread_count
+            FROM drifted d
+            WHERE c.user_id = d.user_id
+            RETURNING c.user_id, c.unread_count
+        ),
+        created AS (
+            INSERT INTO notification_counters (user_id, unread_count)
+            SELECT user_id, unread_count FROM actual WHERE seen IS NULL ORDER BY user_id
+            ON CONFLICT (user_id) DO NOTHING
+            RETURNING user_id, unread_count
+        )
+        SELECT user_id, unread_count FROM corrected
+        UNION ALL
+        SELECT user_id, unread_count FROM created
+        """,
+        row -> {
+          fixed.put(row.getObject("user_id", UUID.class), row.getLong("unread_count"));
+        });
+    return fixed;
+  }
+}
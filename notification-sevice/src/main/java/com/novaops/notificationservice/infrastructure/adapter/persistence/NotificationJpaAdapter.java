@@ -8,11 +8,17 @@ import com.novaops.notificationservice.infrastructure.entity.NotificationEntity;
 import com.novaops.notificationservice.infrastructure.mapper.NotificationMapper;
 import com.novaops.notificationservice.infrastructure.repository.NotificationRepository;
 import com.novaops.notificationservice.shared.annotation.PersistenceAdapter;
+import com.novaops.notificationservice.shared.pagination.Cursor;
+import com.novaops.notificationservice.shared.pagination.CursorPage;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -25,24 +31,37 @@ public class NotificationJpaAdapter implements Notifications {
 
   private final NotificationRepository notificationRepository;
   private final NotificationMapper notificationMapper;
+  private final NotificationCounterStore counters;
+  private final NotificationBulkWriter bulkWriter;
 
   // Create a new notification
   @Override
+  @Transactional
   public Notification create(Notification notification) {
     NotificationEntity notificationEntity = notificationMapper.toEntity(notification);
     // need to set version to 0 to avoid detached entity passed to persist exception
     NotificationEntity savedNotification = notificationRepository.save(notificationEntity);
-    return notificationMapper.toNotification(savedNotification);
+    Notification created = notificationMapper.toNotification(savedNotification);
+    countUnread(List.of(created));
+    return created;
   }
 
   // Create a list of notifications
   @Override
+  @Transactional
   public List<Notification> createBulk(List<Notification> notifications) {
-    List<NotificationEntity> notificationEntities = notificationMapper.toEntities(notifications);
-    // need to set version to 0 to avoid detached entity passed to persist exception
-    List<NotificationEntity> savedNotifications =
-        notificationRepository.saveAll(notificationEntities);
-    return notificationMapper.toNotifications(savedNotifications);
+    // plain multi-row inserts: saveAll would write, audit and cache them one by one
+    List<Notification> created = bulkWriter.insert(notifications);
+    countUnread(created);
+    return created;
+  }
+
+  private void countUnread(List<Notification> created) {
+    Map<UUID, Long> unreadByUser =
+        created.stream()
+            .filter(notification -> !Boolean.TRUE.equals(notification.getIsRead()))
+            .collect(Collectors.groupingBy(Notification::getUserId, Collectors.counting()));
+    counters.increment(unreadByUser);
   }
 
   // Get all notifications by user id
@@ -53,9 +72,45 @@ public class NotificationJpaAdapter implements Notifications {
     return notificationEntities.map(notificationMapper::toNotification);
   }
 
+  @Override
+  public CursorPage<Notification> getFeedByUserId(UUID userId, Cursor after, int size) {
+    // one row more than asked tells whether there is a next page, without counting
+    Limit limit = Limit.of(size + 1);
+    List<NotificationEntity> found =
+        after == null
+            ? notificationRepository.findFeed(userId, limit)
+            : notificationRepository.findFeedBefore(userId, after.createdAt(), after.id(), limit);
+    List<Notification> content =
+        notificationMapper.toNotifications(found.subList(0, Math.min(size, found.size())));
+    String nextCursor = found.size() > size ? cursorOf(content.getLast()) : null;
+    // only the first page starts at the newest notification
+    String latestCursor =
+        after == null && !content.isEmpty() ? cursorOf(content.getFirst()) : null;
+    return new CursorPage<>(content, nextCursor, latestCursor);
+  }
+
+  @Override
+  public CursorPage<Notification> getFeedSince(UUID userId, Cursor since, int size) {
+    List<NotificationEntity> found =
+        notificationRepository.findFeedAfter(
+            userId, since.createdAt(), since.id(), Limit.of(size + 1));
+    List<Notification> content =
+        notificationMapper.toNotifications(found.subList(0, Math.min(size, found.size())));
+    String latestCursor = content.isEmpty() ? since.encode() : cursorOf(content.getLast());
+    String nextCursor = found.size() > size ? latestCursor : null;
+    return new CursorPage<>(content, nextCursor, latestCursor);
+  }
+
+  private static String cursorOf(Notification notification) {
+    return new Cursor(notification.getCreatedAt(), notification.getId()).encode();
+  }
+
   // mark a notification as read
   @Override
+  @Transactional
   public Notification markAsRead(UUID id) {
+    // only the request that actually changes the state counts it, when several race
+    int markedAsRead = this.notificationRepository.markAsReadById(id);
     NotificationEntity notificationsEntity =
         this.notificationRepository
             .findById(id)
@@ -64,35 +119,56 @@ public class NotificationJpaAdapter implements Notifications {
                     new NotFoundException(
                         NotFoundException.NotFoundExceptionType.NOTIFICATION_NOT_FOUND,
                         id.toString()));
-    notificationsEntity.setIsRead(true);
-    NotificationEntity savedNotification = this.notificationRepository.save(notificationsEntity);
-    return this.notificationMapper.toNotification(savedNotification);
+    if (markedAsRead > 0) {
+      counters.decrement(notificationsEntity.getUserId(), 1);
+    }
+    return this.notificationMapper.toNotification(notificationsEntity);
   }
 
   // mark all notifications as read
   @Override
   @Transactional
   public boolean markAllAsRead(UUID userId) {
-    notificationRepository.markAllAsReadByUserId(userId);
+    // notifications created meanwhile are counted by their own transaction
+    int markedAsRead = notificationRepository.markAllAsReadByUserId(userId);
+    counters.decrement(userId, markedAsRead);
     return true;
   }
 
   // delete a notification by id
   @Override
   @Transactional
-  public void deleteById(UUID id) {
-    this.notificationRepository.deleteById(id);
+  public Optional<Notification> deleteById(UUID id) {
+    // locked, so a concurrent read or delete of the notification cannot count it as well
+    Optional<NotificationEntity> notification = this.notificationRepository.findByIdForUpdate(id);
+    notification.ifPresent(
+        deleted -> {
+          this.notificationRepository.delete(deleted);
+          if (!Boolean.TRUE.equals(deleted.getIsRead())) {
+            counters.decrement(deleted.getUserId(), 1);
+          }
+        });
+    return notification.map(notificationMapper::toNotification);
   }
 
   // delete all notifications by user id
   @Override
+  @Transactional
   public void deleteAll(UUID userId) {
-    this.notificationRepository.deleteAllByUserId(userId);
+    // the notifications created meanwhile are left, as they were not there to be deleted
+    int markedAsRead = this.notificationRepository.markAllAsReadByUserId(userId);
+    this.notificationRepository.deleteReadByUserId(userId);
+    counters.decrement(userId, markedAsRead);
   }
 
   @Override
   public Long getUnreadNotificationsCount(UUID id) {
-    return this.notificationRepository.countByUserIdAndIsReadFalse(id);
+    return counters.get(id);
+  }
+
+  @Override
+  public Map<UUID, Long> getUnreadNotificationsCounts(Collection<UUID> userIds) {
+    return counters.get(userIds);
   }
 
   @Override
@@ -0,0 +1,42 @@
+package com.novaops.notificationservice.infrastructure.adapter.persistence;
+
+import com.novaops.notificationservice.domain.port.output.WsNotification;
+import java.util.Map;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recounts the unread notifications now and then, and pushes the corrected counts to the users
+ * whose counter had drifted.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class UnreadCounterReconciler {
+
+  private final NotificationCounterStore counters;
+  private final WsNotification wsNotification;
+
+  @Scheduled(
+      initialDelayString = "${application.unread-counters.reconcile-interval:PT10M}",
+      fixedDelayString = "${application.unread-counters.reconcile-interval:PT10M}")
+  public void reconcile() {
+    Map<UUID, Long> fixed;
+    try {
+      fixed = counters.reconcile();
+    } catch (DataAccessException e) {
+      log.warn("Could not reconcile the unread counters: {}", e.getMessage());
+      return;
+    }
+    if (fixed.isEmpty()) {
+      return;
+    }
+    log.info("Fixed the unread counters of {} users", fixed.size());
+    fixed.forEach(
+        (userId, count) -> wsNotification.sendUnreadCount(userId.toString(), count));
+  }
+}
@@ -0,0 +1,80 @@
+package com.novaops.notificationservice.infrastructure.adapter.websocket;
+
+import java.security.Principal;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Joins this instance to the WebSocket cluster: records the sessions of its users for the other
+ * instances to route to, and receives the notifications they forward on its channel.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Log4j2
+@ConditionalOnProperty(name = "application.websocket.cluster.enabled", havingValue = "true")
+public class WsClusterListener {
+
+  private final WsClusterRouter router;
+  // a disconnect may be published more than once for the same session
+  private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+
+  @Bean
+  public RedisMessageListenerContainer wsClusterListenerContainer(
+      RedisConnectionFactory connectionFactory) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(
+        (message, pattern) -> router.receive(message.getBody()),
+        new ChannelTopic(WsClusterRouter.CHANNEL_PREFIX + router.nodeId()));
+    return container;
+  }
+
+  @EventListener
+  public void onConnected(SessionConnectedEvent event) {
+    String userId = userIdOf(event);
+    if (userId == null || !sessions.add(sessionIdOf(event))) {
+      return;
+    }
+    try {
+      router.sessionConnected(userId);
+    } catch (DataAccessException e) {
+      log.warn("Could not record the session of user {}: {}", userId, e.getMessage());
+    }
+  }
+
+  @EventListener
+  public void onDisconnected(SessionDisconnectEvent event) {
+    String userId = userIdOf(event);
+    if (userId == null || !sessions.remove(event.getSessionId())) {
+      return;
+    }
+    try {
+      router.sessionDisconnected(userId);
+    } catch (DataAccessException e) {
+      log.warn("Could not forget the session of user {}: {}", userId, e.getMessage());
+    }
+  }
+
+  private static String sessionIdOf(SessionConnectedEvent event) {
+    return SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+  }
+
+  private static String userIdOf(AbstractSubProtocolEvent event) {
+    Principal user = event.getUser();
+    return user == null ? null : user.getName();
+  }
+}
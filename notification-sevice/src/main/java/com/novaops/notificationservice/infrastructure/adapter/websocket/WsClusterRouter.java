@@ -0,0 +1,347 @@
+package com.novaops.notificationservice.infrastructure.adapter.websocket;
+
+import com.novaops.notificationservice.config.WebSocketProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Delivers serialized notifications to the users, wherever they are connected.
+ *
+ * <p>A user's sessions are tracked in the Redis hash {@code ws:routes:<userId>}, counting the
+ * sessions of the user on each instance. A notification is sent straight to the sessions of this
+ * instance, and published to the {@code ws:deliver:<nodeId>} channel of every other instance the
+ * user is connected to, one message per instance and batch. Instances beat in the {@code ws:nodes}
+ * sorted set; the routes to an instance that stopped beating are dropped as they are found. The
+ * heartbeat also extends the routes of the users connected to the instance, so the routes of users
+ * whose instances all stopped expire on their own.
+ *
+ * <p>With the cluster disabled, every user is expected on this instance and Redis is not used.
+ */
+@Component
+@Log4j2
+public class WsClusterRouter {
+
+  static final String CHANNEL_PREFIX = "ws:deliver:";
+  private static final String ROUTES_PREFIX = "ws:routes:";
+  private static final String NODES_KEY = "ws:nodes";
+
+  /** User destination of the notifications. */
+  public static final String NOTIFICATIONS = "/notifications";
+
+  /** User destination of the unread notifications count, apart from the notifications. */
+  public static final String UNREAD_COUNT = "/notifications/unread-count";
+
+  private final SimpMessagingTemplate simpMessagingTemplate;
+  private final SimpUserRegistry simpUserRegistry;
+  private final StringRedisTemplate redis;
+  private final WebSocketProperties.Cluster properties;
+  private final String nodeId;
+  private volatile Set<String> aliveNodes = Set.of();
+
+  /** A serialized message for one user, on one of the user destinations. */
+  public record Delivery(String userId, String destination, byte[] json) {}
+
+  public WsClusterRouter(
+      SimpMessagingTemplate simpMessagingTemplate,
+      SimpUserRegistry simpUserRegistry,
+      StringRedisTemplate redis,
+      WebSocketProperties webSocketProperties) {
+    this.simpMessagingTemplate = simpMessagingTemplate;
+    this.simpUserRegistry = simpUserRegistry;
+    this.redis = redis;
+    this.properties = webSocketProperties.getCluster();
+    this.nodeId =
+        StringUtils.hasText(properties.getNodeId())
+            ? properties.getNodeId()
+            : UUID.randomUUID().toString();
+  }
+
+  @PostConstruct
+  public void init() {
+    if (properties.isEnabled()) {
+      log.info("WebSocket cluster enabled, this instance is node {}", nodeId);
+      heartbeat();
+    }
+  }
+
+  public String nodeId() {
+    return nodeId;
+  }
+
+  /**
+   * Delivers the notifications to the sessions of their users, on this instance or another one.
+   *
+   * @param deliveries the notifications
+   * @return the number of notifications that could not be delivered
+   */
+  public int deliver(List<Delivery> deliveries) {
+    if (!properties.isEnabled()) {
+      return deliverLocally(deliveries);
+    }
+
+    List<Delivery> local = new ArrayList<>();
+    Map<String, List<Delivery>> remote = new HashMap<>();
+    List<Object> routes;
+    try {
+      routes = lookUpRoutes(deliveries);
+    } catch (DataAccessException e) {
+      // Redis is down: at least the users of this instance are notified
+      log.warn("Could not look up WebSocket routes: {}", e.getMessage());
+      return deliverLocally(deliveries);
+    }
+    Set<String> alive = aliveNodes;
+    Map<String, List<String>> staleRoutes = new HashMap<>();
+    for (int i = 0; i < deliveries.size(); i++) {
+      Delivery delivery = deliveries.get(i);
+      if (simpUserRegistry.getUser(delivery.userId()) != null) {
+        local.add(delivery);
+      }
+      for (Object node : (Set<?>) routes.get(i)) {
+        String routedNode = (String) node;
+        if (routedNode.equals(nodeId)) {
+          continue;
+        }
+        if (alive.contains(routedNode)) {
+          remote.computeIfAbsent(routedNode, ignored -> new ArrayList<>()).add(delivery);
+        } else {
+          staleRoutes
+              .computeIfAbsent(ROUTES_PREFIX + delivery.userId(), ignored -> new ArrayList<>())
+              .add(routedNode);
+        }
+      }
+    }
+
+    int failures = deliverLocally(local);
+    for (Map.Entry<String, List<Delivery>> node : remote.entrySet()) {
+      try {
+        publish(node.getKey(), node.getValue());
+      } catch (DataAccessException e) {
+        log.warn(
+            "Could not forward {} notifications to node {}: {}",
+            node.getValue().size(),
+            node.getKey(),
+            e.getMessage());
+        failures += node.getValue().size();
+      }
+    }
+    pruneRoutes(staleRoutes);
+    return failures;
+  }
+
+  /**
+   * Delivers the notifications another instance forwarded to this one.
+   *
+   * @param body the batch, as published
+   */
+  public void receive(byte[] body) {
+    deliverLocally(decode(body));
+  }
+
+  /** Records a session of the user on this instance. */
+  public void sessionConnected(String userId) {
+    String key = ROUTES_PREFIX + userId;
+    redis.opsForHash().increment(key, nodeId, 1);
+    redis.expire(key, properties.getNodeTtl());
+  }
+
+  /** Forgets a session of the user on this instance. */
+  public void sessionDisconnected(String userId) {
+    String key = ROUTES_PREFIX + userId;
+    Long sessions = redis.opsForHash().increment(key, nodeId, -1);
+    if (sessions == null || sessions <= 0) {
+      redis.opsForHash().delete(key, nodeId);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${application.websocket.cluster.heartbeat-interval:PT10S}")
+  public void heartbeat() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    long oldest = now - properties.getNodeTtl().toMillis();
+    try {
+      redis.opsForZSet().add(NODES_KEY, nodeId, now);
+      redis.opsForZSet().removeRangeByScore(NODES_KEY, Double.NEGATIVE_INFINITY, oldest);
+      Set<String> nodes =
+          redis.opsForZSet().rangeByScore(NODES_KEY, oldest, Double.POSITIVE_INFINITY);
+      aliveNodes = nodes == null ? Set.of() : new HashSet<>(nodes);
+    } catch (DataAccessException e) {
+      log.warn("Could not refresh the WebSocket cluster nodes: {}", e.getMessage());
+    }
+    refreshRoutes();
+  }
+
+  @PreDestroy
+  public void leave() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    try {
+      redis.opsForZSet().remove(NODES_KEY, nodeId);
+    } catch (DataAccessException e) {
+      log.warn("Could not leave the WebSocket cluster: {}", e.getMessage());
+    }
+  }
+
+  /** @return the nodes of each user, as sets, in the order of the deliveries */
+  private List<Object> lookUpRoutes(List<Delivery> deliveries) {
+    return redis.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              for (Delivery delivery : deliveries) {
+                connection
+                    .hashCommands()
+                    .hKeys((ROUTES_PREFIX + delivery.userId()).getBytes(StandardCharsets.UTF_8));
+              }
+              return null;
+            });
+  }
+
+  /** Extends the routes of the users connected to this instance. */
+  private void refreshRoutes() {
+    List<String> keys = new ArrayList<>();
+    simpUserRegistry.getUsers().forEach(user -> keys.add(ROUTES_PREFIX + user.getName()));
+    if (keys.isEmpty()) {
+      return;
+    }
+    long ttl = properties.getNodeTtl().toMillis();
+    try {
+      redis.executePipelined(
+          (RedisCallback<Object>)
+              connection -> {
+                for (String key : keys) {
+                  connection.keyCommands().pExpire(key.getBytes(StandardCharsets.UTF_8), ttl);
+                }
+                return null;
+              });
+    } catch (DataAccessException e) {
+      log.warn("Could not refresh the WebSocket routes: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Drops the routes to instances that stopped beating. Best effort: they are found again on the
+   * next delivery, or expire.
+   *
+   * @param staleRoutes the nodes to drop, by route key
+   */
+  private void pruneRoutes(Map<String, List<String>> staleRoutes) {
+    if (staleRoutes.isEmpty()) {
+      return;
+    }
+    try {
+      redis.executePipelined(
+          (RedisCallback<Object>)
+              connection -> {
+                staleRoutes.forEach(
+                    (key, nodes) ->
+                        connection
+                            .hashCommands()
+                            .hDel(
+                                key.getBytes(StandardCharsets.UTF_8),
+                                nodes.stream()
+                                    .map(node -> node.getBytes(StandardCharsets.UTF_8))
+                                    .toArray(byte[][]::new)));
+                return null;
+              });
+    } catch (DataAccessException e) {
+      log.warn("Could not drop {} stale WebSocket routes: {}", staleRoutes.size(), e.getMessage());
+    }
+  }
+
+  private int deliverLocally(List<Delivery> deliveries) {
+    int failures = 0;
+    for (Delivery delivery : deliveries) {
+      try {
+        simpMessagingTemplate.send(
+            simpMessagingTemplate.getUserDestinationPrefix()
+                + delivery.userId()
+                + delivery.destination(),
+            message(delivery.json()));
+      } catch (RuntimeException e) {
+        failures++;
+        log.warn("Could not send notification to user {}: {}", delivery.userId(), e.getMessage());
+      }
+    }
+    return failures;
+  }
+
+  private void publish(String node, List<Delivery> deliveries) {
+    byte[] channel = (CHANNEL_PREFIX + node).getBytes(StandardCharsets.UTF_8);
+    byte[] body = encode(deliveries);
+    redis.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+  }
+
+  /**
+   * A batch is its size, then the user id, the destination and the length-prefixed JSON of every
+   * delivery.
+   */
+  private static byte[] encode(List<Delivery> deliveries) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(deliveries.size());
+      for (Delivery delivery : deliveries) {
+        out.writeUTF(delivery.userId());
+        out.writeUTF(delivery.destination());
+        out.writeInt(delivery.json().length);
+        out.write(delivery.json());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static List<Delivery> decode(byte[] body) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+      int count = in.readInt();
+      List<Delivery> deliveries = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        String userId = in.readUTF();
+        String destination = in.readUTF();
+        byte[] json = new byte[in.readInt()];
+        in.readFully(json);
+        deliveries.add(new Delivery(userId, destination, json));
+      }
+      return deliveries;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Malformed forwarded notifications", e);
+    }
+  }
+
+  private static Message<byte[]> message(byte[] json) {
+    SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+    headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+    headers.setLeaveMutable(true);
+    return MessageBuilder.createMessage(json, headers.getMessageHeaders());
+  }
+}
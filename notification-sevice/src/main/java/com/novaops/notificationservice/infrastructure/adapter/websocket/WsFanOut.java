@@ -0,0 +1,192 @@
+package com.novaops.notificationservice.infrastructure.adapter.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.novaops.notificationservice.config.WebSocketProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends one payload to many users over their WebSocket sessions.
+ *
+ * <p>The shared part of the payload is serialized once; each user only gets their own fields
+ * serialized and spliced in front of it, and the resulting bytes are handed to the {@link
+ * WsClusterRouter} without going through the message converters again. The users are split into
+ * batches, dispatched on a fixed number of workers. When every worker is busy and the queue is
+ * full, the dispatching thread sends the batch itself, which slows the dispatch down instead of
+ * queuing without bound. The caller gets a future and is never the one dispatching.
+ */
+@Component
+@Log4j2
+public class WsFanOut {
+
+  private final WsClusterRouter router;
+  private final ObjectMapper objectMapper;
+  private final WebSocketProperties.FanOut properties;
+  private final ThreadPoolExecutor workers;
+  private final Timer batchTimer;
+  private final Counter sent;
+  private final Counter failed;
+
+  public WsFanOut(
+      WsClusterRouter router,
+      ObjectMapper objectMapper,
+      WebSocketProperties webSocketProperties,
+      MeterRegistry meterRegistry) {
+    this.router = router;
+    this.objectMapper = objectMapper;
+    this.properties = webSocketProperties.getFanOut();
+    AtomicInteger threads = new AtomicInteger();
+    this.workers =
+        new ThreadPoolExecutor(
+            properties.getParallelism(),
+            properties.getParallelism(),
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+            task -> new Thread(task, "ws-fan-out-" + threads.incrementAndGet()),
+            // the dispatching thread sends the batch itself, also once shutting down
+            (task, executor) -> task.run());
+    this.batchTimer =
+        Timer.builder("ws.fanout.batch")
+            .description("Time to send one batch of a notification fan-out")
+            .register(meterRegistry);
+    this.sent =
+        Counter.builder("ws.fanout.messages").tag("outcome", "sent").register(meterRegistry);
+    this.failed =
+        Counter.builder("ws.fanout.messages").tag("outcome", "failed").register(meterRegistry);
+  }
+
+  /**
+   * Sends the payload to every user, with their own fields.
+   *
+   * @param payload the part of the payload shared by every user
+   * @param userFields the fields of each user, by user id; they replace the shared fields of the
+   *     same name
+   * @return completes once every batch has been sent; a user whose message could not be sent is
+   *     logged and counted, not failed
+   */
+  public CompletableFuture<Void> send(Object payload, Map<String, Map<String, Object>> userFields) {
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    if (userFields.isEmpty()) {
+      result.complete(null);
+      return result;
+    }
+    Thread.ofVirtual()
+        .name("ws-fan-out-dispatch")
+        .start(
+            () -> {
+              try {
+                dispatch(sharedBody(payload, userFields), List.copyOf(userFields.entrySet()))
+                    .whenComplete(
+                        (ignored, e) -> {
+                          if (e != null) {
+                            result.completeExceptionally(e);
+                          } else {
+                            result.complete(null);
+                          }
+                        });
+              } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+              }
+            });
+    return result;
+  }
+
+  private CompletableFuture<Void> dispatch(
+      byte[] sharedBody, List<Map.Entry<String, Map<String, Object>>> users) {
+    int batchSize = Math.max(1, properties.getBatchSize());
+    List<CompletableFuture<Void>> batches = new ArrayList<>();
+    for (int from = 0; from < users.size(); from += batchSize) {
+      List<Map.Entry<String, Map<String, Object>>> batch =
+          users.subList(from, Math.min(from + batchSize, users.size()));
+      batches.add(CompletableFuture.runAsync(() -> sendBatch(sharedBody, batch), workers));
+    }
+    log.debug("Dispatched {} users in {} batches", users.size(), batches.size());
+    return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new));
+  }
+
+  private void sendBatch(byte[] sharedBody, List<Map.Entry<String, Map<String, Object>>> batch) {
+    batchTimer.record(
+        () -> {
+          List<WsClusterRouter.Delivery> deliveries = new ArrayList<>(batch.size());
+          for (Map.Entry<String, Map<String, Object>> user : batch) {
+            deliveries.add(
+                new WsClusterRouter.Delivery(
+                    user.getKey(),
+                    WsClusterRouter.NOTIFICATIONS,
+                    splice(user.getValue(), sharedBody)));
+          }
+          int failures = router.deliver(deliveries);
+          sent.increment(batch.size() - failures);
+          failed.increment(failures);
+        });
+  }
+
+  /**
+   * @return the shared payload without its opening brace, and without the fields of the users
+   */
+  private byte[] sharedBody(Object payload, Map<String, Map<String, Object>> userFields) {
+    ObjectNode shared = objectMapper.valueToTree(payload);
+    Set<String> userFieldNames =
+        userFields.values().stream()
+            .flatMap(fields -> fields.keySet().stream())
+            .collect(Collectors.toSet());
+    shared.remove(userFieldNames);
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(shared);
+      byte[] body = new byte[json.length - 1];
+      System.arraycopy(json, 1, body, 0, body.length);
+      return body;
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Could not serialize the notification", e);
+    }
+  }
+
+  /**
+   * @return the JSON of the user's fields followed by the shared ones
+   */
+  private byte[] splice(Map<String, Object> fields, byte[] sharedBody) {
+    if (fields.isEmpty()) {
+      byte[] json = new byte[sharedBody.length + 1];
+      json[0] = '{';
+      System.arraycopy(sharedBody, 0, json, 1, sharedBody.length);
+      return json;
+    }
+    try {
+      byte[] own = objectMapper.writeValueAsBytes(fields);
+      ByteArrayOutputStream json = new ByteArrayOutputStream(own.length + sharedBody.length);
+      // the user's object without its closing brace
+      json.write(own, 0, own.length - 1);
+      // the shared body is just "}" when every field is the user's
+      if (sharedBody.length > 1) {
+        json.write(',');
+      }
+      json.write(sharedBody, 0, sharedBody.length);
+      return json.toByteArray();
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Could not serialize the notification", e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    workers.shutdown();
+  }
+}
@@ -1,20 +1,49 @@
 package com.novaops.notificationservice.infrastructure.adapter.websocket;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.novaops.notificationservice.domain.port.output.WsNotification;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
 @Log4j2
 public class WsNotificationSender implements WsNotification {
-  private final SimpMessagingTemplate simpMessagingTemplate;
+  private final WsClusterRouter router;
+  private final WsFanOut wsFanOut;
+  private final ObjectMapper objectMapper;
 
   @Override
   public void send(String userId, Object payload) {
-    log.info("Sending message to user: {}", userId);
-    simpMessagingTemplate.convertAndSendToUser(userId, "/notifications", payload);
+    log.debug("Sending message to user: {}", userId);
+    deliver(userId, WsClusterRouter.NOTIFICATIONS, payload);
+  }
+
+  @Override
+  public void sendUnreadCount(String userId, long unreadCount) {
+    deliver(userId, WsClusterRouter.UNREAD_COUNT, Map.of("unreadCount", unreadCount));
+  }
+
+  @Override
+  public CompletableFuture<Void> sendToAll(
+      Object payload, Map<String, Map<String, Object>> userFields) {
+    log.info("Sending message to {} users", userFields.size());
+    return wsFanOut.send(payload, userFields);
+  }
+
+  private void deliver(String userId, String destination, Object payload) {
+    try {
+      router.deliver(
+          List.of(
+              new WsClusterRouter.Delivery(
+                  userId, destination, objectMapper.writeValueAsBytes(payload))));
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Could not serialize the notification", e);
+    }
   }
 }
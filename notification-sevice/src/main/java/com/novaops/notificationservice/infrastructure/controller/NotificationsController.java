@@ -5,8 +5,11 @@ import static com.novaops.notificationservice.shared.pagination.PaginationUtils.
 
 import com.novaops.notificationservice.domain.model.Notification;
 import com.novaops.notificationservice.domain.port.input.NotificationUseCases;
+import com.novaops.notificationservice.exception.BadRequestException;
 import com.novaops.notificationservice.infrastructure.dto.response.NotificationDto;
 import com.novaops.notificationservice.infrastructure.mapper.NotificationMapper;
+import com.novaops.notificationservice.shared.pagination.Cursor;
+import com.novaops.notificationservice.shared.pagination.CursorPage;
 import com.novaops.notificationservice.shared.pagination.CustomPage;
 import com.novaops.notificationservice.shared.pagination.PageMapper;
 import io.swagger.v3.oas.annotations.Operation;
@@ -36,6 +39,8 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class NotificationsController {
 
+  private static final int MAX_FEED_SIZE = 100;
+
   private final NotificationUseCases notificationsUseCases;
   private final NotificationMapper notificationMapper;
 
@@ -71,6 +76,80 @@ public class NotificationsController {
     return new ResponseEntity<>(PageMapper.toCustomPage(notificationDtos), HttpStatus.OK);
   }
 
+  @GetMapping("/feed")
+  @Operation(
+      summary = "Get the notification feed",
+      description =
+          "Retrieves the notifications of the current user, newest first, a page at a time."
+              + " Pass the nextCursor of a page to get the following one.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successful retrieval",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content)
+      })
+  public ResponseEntity<CursorPage<NotificationDto>> getFeed(
+      @Parameter(description = "Page size", example = "20") @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(description = "The nextCursor of the previous page, none for the first page")
+          @RequestParam(required = false)
+          String cursor) {
+    UUID id = getCurrentAuthenticatedUserId();
+    CursorPage<Notification> notifications =
+        this.notificationsUseCases.getFeedByUserId(
+            id, Cursor.decode(cursor), Math.clamp(size, 1, MAX_FEED_SIZE));
+    return new ResponseEntity<>(notifications.map(notificationMapper::toDto), HttpStatus.OK);
+  }
+
+  @GetMapping("/feed/since")
+  @Operation(
+      summary = "Get the notifications received since a cursor",
+      description =
+          "Retrieves the notifications the current user received after a cursor, oldest first."
+              + " Pass the latestCursor of the first feed page, or of the last page read since, to"
+              + " refresh it.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successful retrieval",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content)
+      })
+  public ResponseEntity<CursorPage<NotificationDto>> getFeedSince(
+      @Parameter(description = "Page size", example = "20") @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(description = "The latestCursor of an earlier page", required = true)
+          @RequestParam
+          String cursor) {
+    UUID id = getCurrentAuthenticatedUserId();
+    Cursor since = Cursor.decode(cursor);
+    if (since == null) {
+      throw new BadRequestException(BadRequestException.BadRequestExceptionType.INVALID_CURSOR);
+    }
+    CursorPage<Notification> notifications =
+        this.notificationsUseCases.getFeedSince(id, since, Math.clamp(size, 1, MAX_FEED_SIZE));
+    return new ResponseEntity<>(notifications.map(notificationMapper::toDto), HttpStatus.OK);
+  }
+
   @GetMapping("/unread-count")
   @Operation(
       summary = "Get unread notifications count",
@@ -26,8 +26,9 @@ import org.springframework.cache.annotation.Cacheable;
 @Table(
     name = "notifications",
     indexes = {
-      @Index(name = "idx_user_id_on_notifications", columnList = "userId"),
-      @Index(name = "idx_is_read", columnList = "is_read")
+      @Index(name = "idx_feed_on_notifications", columnList = "userId, createdAt DESC, id DESC"),
+      // partial, on is_read = false, see V2__notification_counters.sql
+      @Index(name = "idx_unread_on_notifications", columnList = "userId")
     })
 @Cacheable("notifications")
 @org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
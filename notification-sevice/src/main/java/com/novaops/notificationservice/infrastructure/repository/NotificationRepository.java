@@ -1,11 +1,16 @@
 package com.novaops.notificationservice.infrastructure.repository;
 
 import com.novaops.notificationservice.infrastructure.entity.NotificationEntity;
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,10 +18,25 @@ import org.springframework.data.repository.query.Param;
 public interface NotificationRepository
     extends JpaRepository<NotificationEntity, UUID>, JpaSpecificationExecutor<NotificationEntity> {
 
+  /**
+   * @return 1 when the notification was unread, 0 when it was already read or does not exist
+   */
+  @Modifying
+  @Query("UPDATE NotificationEntity n SET n.isRead = true WHERE n.id = :id AND n.isRead = false")
+  int markAsReadById(@Param("id") UUID id);
+
+  /**
+   * @return the number of notifications that were unread
+   */
   @Modifying
   @Query(
       "UPDATE NotificationEntity n SET n.isRead = true WHERE n.userId = :userId AND n.isRead = false")
-  void markAllAsReadByUserId(@Param("userId") UUID userId);
+  int markAllAsReadByUserId(@Param("userId") UUID userId);
+
+  /** Reads the notification and locks it until the end of the transaction. */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT n FROM NotificationEntity n WHERE n.id = :id")
+  Optional<NotificationEntity> findByIdForUpdate(@Param("id") UUID id);
 
   @Transactional
   @Query(
@@ -30,8 +50,34 @@ public interface NotificationRepository
       @Param("userId") UUID userId);
 
   @Modifying
-  @Query("DELETE FROM NotificationEntity n WHERE n.userId = :userId")
-  void deleteAllByUserId(@Param("userId") UUID userId);
+  @Query("DELETE FROM NotificationEntity n WHERE n.userId = :userId AND n.isRead = true")
+  void deleteReadByUserId(@Param("userId") UUID userId);
+
+  @Query(
+      "SELECT n FROM NotificationEntity n WHERE n.userId = :userId ORDER BY n.createdAt DESC, n.id DESC")
+  List<NotificationEntity> findFeed(@Param("userId") UUID userId, Limit limit);
+
+  @Query(
+      """
+      SELECT n FROM NotificationEntity n
+      WHERE n.userId = :userId AND (n.createdAt, n.id) < (:createdAt, :id)
+      ORDER BY n.createdAt DESC, n.id DESC
+      """)
+  List<NotificationEntity> findFeedBefore(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Limit limit);
 
-  Long countByUserIdAndIsReadFalse(UUID id);
+  @Query(
+      """
+      SELECT n FROM NotificationEntity n
+      WHERE n.userId = :userId AND (n.createdAt, n.id) > (:createdAt, :id)
+      ORDER BY n.createdAt, n.id
+      """)
+  List<NotificationEntity> findFeedAfter(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Limit limit);
 }
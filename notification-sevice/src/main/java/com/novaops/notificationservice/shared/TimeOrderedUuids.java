@@ -0,0 +1,21 @@
+package com.novaops.notificationservice.shared;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Version 7 UUIDs: 48 bits of Unix milliseconds followed by random bits. Ids generated later sort
+ * after earlier ones, so inserts append to the end of the primary key index instead of touching
+ * random pages of it.
+ */
+public final class TimeOrderedUuids {
+
+  private TimeOrderedUuids() {}
+
+  public static UUID next() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long mostSigBits = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+    long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+    return new UUID(mostSigBits, leastSigBits);
+  }
+}
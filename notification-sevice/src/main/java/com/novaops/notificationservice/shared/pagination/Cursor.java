@@ -0,0 +1,44 @@
+package com.novaops.notificationservice.shared.pagination;
+
+import com.novaops.notificationservice.exception.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * A position in a feed sorted by creation date then id. Clients only see it as an opaque token,
+ * so the sort keys can change without breaking them.
+ *
+ * @param createdAt the creation date of the item at this position
+ * @param id the id of the item, which orders the items created at the same instant
+ */
+public record Cursor(Instant createdAt, UUID id) {
+
+  public String encode() {
+    String position = createdAt.getEpochSecond() + "." + createdAt.getNano() + "." + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param token a token returned by {@link #encode()}
+   * @return the position, or null without a token
+   * @throws BadRequestException if the token was not returned by {@link #encode()}
+   */
+  public static Cursor decode(String token) {
+    if (token == null || token.isBlank()) {
+      return null;
+    }
+    try {
+      String[] position =
+          new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\.", 3);
+      return new Cursor(
+          Instant.ofEpochSecond(Long.parseLong(position[0]), Long.parseLong(position[1])),
+          UUID.fromString(position[2]));
+    } catch (RuntimeException e) {
+      throw new BadRequestException(BadRequestException.BadRequestExceptionType.INVALID_CURSOR, e);
+    }
+  }
+}
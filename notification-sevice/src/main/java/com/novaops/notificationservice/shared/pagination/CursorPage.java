@@ -0,0 +1,19 @@
+package com.novaops.notificationservice.shared.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A slice of a feed, without a total count.
+ *
+ * @param content the items
+ * @param nextCursor continues after the last item, null once there is nothing more to read
+ * @param latestCursor the position of the newest item, to ask for what was added since; only set
+ *     on the first page of a feed and on the pages read since a cursor
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, String latestCursor) {
+
+  public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+    return new CursorPage<>(content.stream().<R>map(mapper).toList(), nextCursor, latestCursor);
+  }
+}
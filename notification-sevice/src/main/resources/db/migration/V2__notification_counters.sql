@@ -0,0 +1,20 @@
+-- Unread notifications of each user, kept up to date by the writes of the notifications so the
+-- badge of the frontend does not count them on every poll
+CREATE TABLE notification_counters
+(
+    user_id      UUID   NOT NULL,
+    unread_count BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT pk_notification_counters PRIMARY KEY (user_id)
+);
+
+INSERT INTO notification_counters (user_id, unread_count)
+SELECT user_id, count(*)
+FROM notifications
+WHERE is_read = false
+GROUP BY user_id;
+
+-- a boolean index does not narrow anything down; the unread notifications of a user are what the
+-- reconciliation counts
+DROP INDEX idx_is_read;
+
+CREATE INDEX idx_unread_on_notifications ON notifications (user_id) WHERE is_read = false;
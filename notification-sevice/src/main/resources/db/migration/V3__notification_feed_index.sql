@@ -0,0 +1,4 @@
+-- Serves the feed in keyset order; the user_id prefix also covers the lookups by user alone
+CREATE INDEX idx_feed_on_notifications ON notifications (user_id, created_at DESC, id DESC);
+
+DROP INDEX idx_user_id_on_notifications;
@@ -0,0 +1,134 @@
+package com.novaops.notificationservice.infrastructure.adapter.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.novaops.notificationservice.config.audit.ApplicationAuditAware;
+import com.novaops.notificationservice.domain.enums.NotificationType;
+import com.novaops.notificationservice.domain.model.Notification;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({NotificationBulkWriter.class, ApplicationAuditAware.class})
+class NotificationBulkWriterTest {
+
+  @Container @ServiceConnection
+  static PostgreSQLContainer<?> postgreSQLContainer =
+      new PostgreSQLContainer<>("postgres:17-alpine");
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Autowired private NotificationBulkWriter bulkWriter;
+
+  private final UUID alice = new UUID(0, 1);
+  private final UUID bob = new UUID(0, 2);
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update("DELETE FROM notifications");
+  }
+
+  @Test
+  @DisplayName("The notifications are inserted with their ids, data and auditing fields")
+  void insert_Notifications_WritesRows() {
+    List<Notification> inserted =
+        bulkWriter.insert(
+            List.of(
+                notification(alice, Map.of("postId", "42")),
+                notification(bob, null)));
+
+    assertThat(inserted).allSatisfy(notification -> assertThat(notification.getId().version()).isEqualTo(7));
+    Map<String, Object> row =
+        jdbcTemplate.queryForMap(
+            "SELECT user_id, type, data::text AS data, is_read, created_by, version"
+                + " FROM notifications WHERE id = ?",
+            inserted.getFirst().getId());
+    assertThat(row)
+        .containsEntry("user_id", alice)
+        .containsEntry("type", "POST_LIKED")
+        .containsEntry("data", "{\"postId\": \"42\"}")
+        .containsEntry("is_read", false)
+        .containsEntry("created_by", ApplicationAuditAware.SYSTEM)
+        .containsEntry("version", 0);
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT data FROM notifications WHERE id = ?",
+                Object.class,
+                inserted.get(1).getId()))
+        .isNull();
+  }
+
+  @Test
+  @DisplayName("More notifications than one statement holds are split over several statements")
+  void insert_ManyNotifications_SplitInChunks() {
+    List<Notification> notifications = new ArrayList<>();
+    for (int i = 0; i < 12_001; i++) {
+      notifications.add(notification(i % 2 == 0 ? alice : bob, Map.of("index", i)));
+    }
+
+    bulkWriter.insert(notifications);
+
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM notifications", Long.class))
+        .isEqualTo(12_001);
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT count(DISTINCT id) FROM notifications WHERE user_id = ?", Long.class, bob))
+        .isEqualTo(6_000);
+  }
+
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  @DisplayName("A chunk that fails rolls back the chunks already written in the transaction")
+  void insert_ChunkFails_RollsBackEverything() {
+    List<Notification> notifications = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      notifications.add(notification(alice, null));
+    }
+    // the second chunk breaks the not-null constraint of user_id
+    notifications.add(notification(null, null));
+
+    assertThatThrownBy(
+            () ->
+                new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> bulkWriter.insert(notifications)))
+        .isInstanceOf(DataIntegrityViolationException.class);
+
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM notifications", Long.class))
+        .isZero();
+  }
+
+  private static Notification notification(UUID userId, Map<String, Object> data) {
+    Notification notification = new Notification();
+    notification.setUserId(userId);
+    notification.setType(NotificationType.POST_LIKED);
+    notification.setData(data);
+    return notification;
+  }
+}
@@ -0,0 +1,102 @@
+package com.novaops.notificationservice.infrastructure.adapter.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase
+@Import(NotificationCounterStore.class)
+class NotificationCounterStoreTest {
+
+  @Container @ServiceConnection
+  static PostgreSQLContainer<?> postgreSQLContainer =
+      new PostgreSQLContainer<>("postgres:17-alpine");
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private NotificationCounterStore counters;
+
+  private final UUID alice = new UUID(0, 1);
+  private final UUID bob = new UUID(0, 2);
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update("DELETE FROM notification_counters");
+    jdbcTemplate.update("DELETE FROM notifications");
+  }
+
+  @Test
+  @DisplayName("Increments create the missing counters and add to the others")
+  void increment_CreatesAndAdds() {
+    counters.increment(Map.of(alice, 2L));
+
+    Map<UUID, Long> counts = counters.increment(Map.of(alice, 3L, bob, 1L));
+
+    assertThat(counts).containsOnly(Map.entry(alice, 5L), Map.entry(bob, 1L));
+    assertThat(counters.get(List.of(alice, bob, new UUID(0, 3))))
+        .containsOnly(Map.entry(alice, 5L), Map.entry(bob, 1L), Map.entry(new UUID(0, 3), 0L));
+  }
+
+  @Test
+  @DisplayName("A decrement subtracts from the counter and never goes below zero")
+  void decrement_SubtractsDownToZero() {
+    counters.increment(Map.of(alice, 5L));
+
+    assertThat(counters.decrement(alice, 2)).isEqualTo(3);
+    assertThat(counters.decrement(alice, 10)).isZero();
+    assertThat(counters.get(alice)).isZero();
+  }
+
+  @Test
+  @DisplayName("Decrementing nothing leaves the counter, including the increments made meanwhile")
+  void decrement_Zero_KeepsCounter() {
+    counters.increment(Map.of(alice, 4L));
+
+    assertThat(counters.decrement(alice, 0)).isEqualTo(4);
+    assertThat(counters.decrement(bob, 1)).isZero();
+  }
+
+  @Test
+  @DisplayName("Reconciling fixes the drifted counters and creates the missing ones")
+  void reconcile_FixesDrift() {
+    insertNotification(alice, false);
+    insertNotification(alice, false);
+    insertNotification(alice, true);
+    insertNotification(bob, false);
+    // alice's counter drifted, bob has none
+    counters.increment(Map.of(alice, 7L));
+
+    Map<UUID, Long> fixed = counters.reconcile();
+
+    assertThat(fixed).containsOnly(Map.entry(alice, 2L), Map.entry(bob, 1L));
+    assertThat(counters.get(alice)).isEqualTo(2);
+    assertThat(counters.reconcile()).isEmpty();
+  }
+
+  private void insertNotification(UUID userId, boolean read) {
+    jdbcTemplate.update(
+        """
+        INSERT INTO notifications (id, version, type, user_id, is_read, created_at)
+        VALUES (?, 0, 'POST_LIKED', ?, ?, now())
+        """,
+        UUID.randomUUID(),
+        userId,
+        read);
+  }
+}
@@ -0,0 +1,278 @@
+package com.novaops.notificationservice.infrastructure.adapter.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.novaops.notificationservice.domain.model.Notification;
+import com.novaops.notificationservice.exception.NotFoundException;
+import com.novaops.notificationservice.infrastructure.entity.NotificationEntity;
+import com.novaops.notificationservice.infrastructure.mapper.NotificationMapper;
+import com.novaops.notificationservice.infrastructure.repository.NotificationRepository;
+import com.novaops.notificationservice.shared.pagination.Cursor;
+import com.novaops.notificationservice.shared.pagination.CursorPage;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationJpaAdapterTest {
+
+  private static final Instant NOW = Instant.parse("2026-03-01T10:00:00Z");
+
+  @Mock private NotificationRepository notificationRepository;
+
+  @Mock private NotificationMapper notificationMapper;
+
+  @Mock private NotificationCounterStore counters;
+
+  @Mock private NotificationBulkWriter bulkWriter;
+
+  @InjectMocks private NotificationJpaAdapter notificationJpaAdapter;
+
+  private UUID userId;
+
+  @BeforeEach
+  void setUp() {
+    userId = UUID.randomUUID();
+    lenient()
+        .when(notificationMapper.toNotifications(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<NotificationEntity> entities = invocation.getArgument(0);
+              return entities.stream()
+                  .map(
+                      entity ->
+                          Notification.builder()
+                              .id(entity.getId())
+                              .userId(entity.getUserId())
+                              .createdAt(entity.getCreatedAt())
+                              .build())
+                  .toList();
+            });
+  }
+
+  @Test
+  @DisplayName("A full first page asks for one row more and continues after its last row")
+  void getFeed_FirstPage_HasMore() {
+    List<NotificationEntity> rows = newestFirst(4);
+    when(notificationRepository.findFeed(userId, Limit.of(4))).thenReturn(rows);
+
+    CursorPage<Notification> page = notificationJpaAdapter.getFeedByUserId(userId, null, 3);
+
+    assertThat(page.content()).extracting(Notification::getId).containsExactly(idsOf(rows, 0, 3));
+    assertThat(page.nextCursor()).isEqualTo(cursorOf(rows.get(2)));
+    assertThat(page.latestCursor()).isEqualTo(cursorOf(rows.getFirst()));
+  }
+
+  @Test
+  @DisplayName("The last page has no next cursor")
+  void getFeed_LastPage_HasNoNextCursor() {
+    List<NotificationEntity> rows = newestFirst(2);
+    when(notificationRepository.findFeed(userId, Limit.of(4))).thenReturn(rows);
+
+    CursorPage<Notification> page = notificationJpaAdapter.getFeedByUserId(userId, null, 3);
+
+    assertThat(page.content()).hasSize(2);
+    assertThat(page.nextCursor()).isNull();
+  }
+
+  @Test
+  @DisplayName("A page exactly as large as the feed has no next cursor")
+  void getFeed_ExactlyOnePage_HasNoNextCursor() {
+    List<NotificationEntity> rows = newestFirst(3);
+    when(notificationRepository.findFeed(userId, Limit.of(4))).thenReturn(rows);
+
+    CursorPage<Notification> page = notificationJpaAdapter.getFeedByUserId(userId, null, 3);
+
+    assertThat(page.content()).hasSize(3);
+    assertThat(page.nextCursor()).isNull();
+  }
+
+  @Test
+  @DisplayName("A later page reads strictly before the cursor and has no latest cursor")
+  void getFeed_LaterPage_ReadsBeforeCursor() {
+    List<NotificationEntity> rows = newestFirst(4);
+    Cursor after = new Cursor(NOW, UUID.randomUUID());
+    when(notificationRepository.findFeedBefore(
+            eq(userId), eq(after.createdAt()), eq(after.id()), eq(Limit.of(4))))
+        .thenReturn(rows);
+
+    CursorPage<Notification> page = notificationJpaAdapter.getFeedByUserId(userId, after, 3);
+
+    assertThat(page.content()).hasSize(3);
+    assertThat(page.nextCursor()).isEqualTo(cursorOf(rows.get(2)));
+    assertThat(page.latestCursor()).isNull();
+  }
+
+  @Test
+  @DisplayName("An empty feed has no cursors")
+  void getFeed_Empty_HasNoCursors() {
+    when(notificationRepository.findFeed(userId, Limit.of(21))).thenReturn(List.of());
+
+    CursorPage<Notification> page = notificationJpaAdapter.getFeedByUserId(userId, null, 20);
+
+    assertThat(page.content()).isEmpty();
+    assertThat(page.nextCursor()).isNull();
+    assertThat(page.latestCursor()).isNull();
+  }
+
+  @Test
+  @DisplayName("Reading since a cursor moves the latest cursor to the newest row read")
+  void getFeedSince_MovesLatestCursor() {
+    List<NotificationEntity> rows = oldestFirst(4);
+    Cursor since = new Cursor(NOW.minusSeconds(60), UUID.randomUUID());
+    when(notificationRepository.findFeedAfter(
+            eq(userId), eq(since.createdAt()), eq(since.id()), eq(Limit.of(4))))
+        .thenReturn(rows);
+
+    CursorPage<Notification> page = notificationJpaAdapter.getFeedSince(userId, since, 3);
+
+    assertThat(page.content()).extracting(Notification::getId).containsExactly(idsOf(rows, 0, 3));
+    assertThat(page.latestCursor()).isEqualTo(cursorOf(rows.get(2)));
+    assertThat(page.nextCursor()).isEqualTo(page.latestCursor());
+  }
+
+  @Test
+  @DisplayName("Nothing new since a cursor keeps that cursor")
+  void getFeedSince_NothingNew_KeepsCursor() {
+    Cursor since = new Cursor(NOW, UUID.randomUUID());
+    when(notificationRepository.findFeedAfter(
+            eq(userId), eq(since.createdAt()), eq(since.id()), eq(Limit.of(4))))
+        .thenReturn(List.of());
+
+    CursorPage<Notification> page = notificationJpaAdapter.getFeedSince(userId, since, 3);
+
+    assertThat(page.content()).isEmpty();
+    assertThat(page.latestCursor()).isEqualTo(since.encode());
+    assertThat(page.nextCursor()).isNull();
+  }
+
+  @Test
+  @DisplayName("Reading an unread notification decrements the unread counter")
+  void markAsRead_Unread_Decrements() {
+    NotificationEntity row = oldestFirst(1).getFirst();
+    when(notificationRepository.markAsReadById(row.getId())).thenReturn(1);
+    when(notificationRepository.findById(row.getId())).thenReturn(Optional.of(row));
+
+    notificationJpaAdapter.markAsRead(row.getId());
+
+    verify(counters).decrement(userId, 1);
+  }
+
+  @Test
+  @DisplayName("Reading a notification already read, e.g. by a concurrent request, counts nothing")
+  void markAsRead_AlreadyRead_DoesNotDecrement() {
+    NotificationEntity row = oldestFirst(1).getFirst();
+    when(notificationRepository.markAsReadById(row.getId())).thenReturn(0);
+    when(notificationRepository.findById(row.getId())).thenReturn(Optional.of(row));
+
+    notificationJpaAdapter.markAsRead(row.getId());
+
+    verify(counters, never()).decrement(any(), anyLong());
+  }
+
+  @Test
+  @DisplayName("Reading an unknown notification fails")
+  void markAsRead_Unknown_NotFound() {
+    UUID id = UUID.randomUUID();
+    when(notificationRepository.findById(id)).thenReturn(Optional.empty());
+
+    assertThatThrownBy(() -> notificationJpaAdapter.markAsRead(id))
+        .isInstanceOf(NotFoundException.class);
+    verify(counters, never()).decrement(any(), anyLong());
+  }
+
+  @Test
+  @DisplayName("Reading all notifications subtracts the ones that were unread")
+  void markAllAsRead_SubtractsUpdatedRows() {
+    when(notificationRepository.markAllAsReadByUserId(userId)).thenReturn(5);
+
+    notificationJpaAdapter.markAllAsRead(userId);
+
+    verify(counters).decrement(userId, 5);
+  }
+
+  @Test
+  @DisplayName("Deleting all notifications subtracts the ones that were unread")
+  void deleteAll_SubtractsUnreadRows() {
+    when(notificationRepository.markAllAsReadByUserId(userId)).thenReturn(2);
+
+    notificationJpaAdapter.deleteAll(userId);
+
+    verify(notificationRepository).deleteReadByUserId(userId);
+    verify(counters).decrement(userId, 2);
+  }
+
+  @Test
+  @DisplayName("Deleting an unread notification decrements the counter once it is locked")
+  void deleteById_Unread_Decrements() {
+    NotificationEntity row = oldestFirst(1).getFirst();
+    row.setIsRead(false);
+    when(notificationRepository.findByIdForUpdate(row.getId())).thenReturn(Optional.of(row));
+
+    notificationJpaAdapter.deleteById(row.getId());
+
+    verify(notificationRepository).delete(row);
+    verify(counters).decrement(userId, 1);
+  }
+
+  @Test
+  @DisplayName("Deleting a read notification counts nothing")
+  void deleteById_Read_DoesNotDecrement() {
+    NotificationEntity row = oldestFirst(1).getFirst();
+    row.setIsRead(true);
+    when(notificationRepository.findByIdForUpdate(row.getId())).thenReturn(Optional.of(row));
+
+    notificationJpaAdapter.deleteById(row.getId());
+
+    verify(notificationRepository).delete(row);
+    verify(counters, never()).decrement(any(), anyLong());
+  }
+
+  /** Rows sharing their creation date in pairs, so the id breaks the ties. */
+  private List<NotificationEntity> newestFirst(int count) {
+    List<NotificationEntity> rows = new ArrayList<>(oldestFirst(count));
+    Collections.reverse(rows);
+    return rows;
+  }
+
+  private List<NotificationEntity> oldestFirst(int count) {
+    List<NotificationEntity> rows = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      rows.add(
+          NotificationEntity.builder()
+              .id(new UUID(0, i))
+              .userId(userId)
+              .createdAt(NOW.plusSeconds(i / 2))
+              .build());
+    }
+    return rows;
+  }
+
+  private static UUID[] idsOf(List<NotificationEntity> rows, int from, int to) {
+    return rows.subList(from, to).stream().map(NotificationEntity::getId).toArray(UUID[]::new);
+  }
+
+  private static String cursorOf(NotificationEntity row) {
+    return new Cursor(row.getCreatedAt(), row.getId()).encode();
+  }
+}
@@ -0,0 +1,156 @@
+package com.novaops.notificationservice.infrastructure.adapter.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.novaops.notificationservice.config.WebSocketProperties;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class WsClusterRouterTest {
+
+  private static final String NODE = "node-a";
+
+  @Mock private SimpMessagingTemplate simpMessagingTemplate;
+
+  @Mock private SimpUserRegistry simpUserRegistry;
+
+  @Mock private StringRedisTemplate redis;
+
+  @Mock private RedisConnection connection;
+
+  @Mock private RedisHashCommands hashCommands;
+
+  @Mock private RedisKeyCommands keyCommands;
+
+  private WsClusterRouter router;
+
+  @BeforeEach
+  void setUp() {
+    WebSocketProperties properties = new WebSocketProperties();
+    properties.getCluster().setEnabled(true);
+    properties.getCluster().setNodeId(NODE);
+    router = new WsClusterRouter(simpMessagingTemplate, simpUserRegistry, redis, properties);
+    lenient().when(simpMessagingTemplate.getUserDestinationPrefix()).thenReturn("/user/");
+    lenient().when(connection.hashCommands()).thenReturn(hashCommands);
+    lenient().when(connection.keyCommands()).thenReturn(keyCommands);
+  }
+
+  @Test
+  @DisplayName("A stale route that cannot be dropped does not stop the delivery")
+  void deliver_PruneFails_StillDelivers() {
+
+    // Arrange
+    when(simpUserRegistry.getUser("alice")).thenReturn(mock(SimpUser.class));
+    when(redis.executePipelined(any(RedisCallback.class)))
+        .thenReturn(List.of(Set.of(NODE, "node-gone"), Set.of("node-gone")))
+        .thenThrow(new RedisConnectionFailureException("Redis is down"));
+
+    // Act
+    int failures = router.deliver(List.of(delivery("alice"), delivery("bob")));
+
+    // Assert
+    assertThat(failures).isZero();
+    verify(simpMessagingTemplate).send(eq("/user/alice/notifications"), any(Message.class));
+  }
+
+  @Test
+  @DisplayName("The routes to the instances that stopped beating are dropped in one go")
+  void deliver_StaleRoutes_Pruned() {
+
+    // Arrange
+    when(redis.executePipelined(any(RedisCallback.class)))
+        .thenReturn(List.of(Set.of("node-gone")))
+        .thenAnswer(
+            invocation -> {
+              invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+              return List.of();
+            });
+
+    // Act
+    router.deliver(List.of(delivery("bob")));
+
+    // Assert
+    verify(hashCommands).hDel(aryEq(bytes("ws:routes:bob")), aryEq(bytes("node-gone")));
+  }
+
+  @Test
+  @DisplayName("The heartbeat extends the routes of the users connected to the instance")
+  void heartbeat_ExtendsLocalRoutes() {
+
+    // Arrange
+    @SuppressWarnings("unchecked")
+    ZSetOperations<String, String> nodes = mock(ZSetOperations.class);
+    when(redis.opsForZSet()).thenReturn(nodes);
+    when(nodes.rangeByScore(eq("ws:nodes"), anyDouble(), anyDouble())).thenReturn(Set.of(NODE));
+    SimpUser alice = mock(SimpUser.class);
+    when(alice.getName()).thenReturn("alice");
+    when(simpUserRegistry.getUsers()).thenReturn(Set.of(alice));
+    when(redis.executePipelined(any(RedisCallback.class)))
+        .thenAnswer(
+            invocation -> {
+              invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+              return List.of();
+            });
+
+    // Act
+    router.heartbeat();
+
+    // Assert
+    verify(keyCommands).pExpire(aryEq(bytes("ws:routes:alice")), eq(30_000L));
+  }
+
+  @Test
+  @DisplayName("A route expires unless a heartbeat extends it")
+  void sessionConnected_SetsExpiry() {
+
+    // Arrange
+    @SuppressWarnings("unchecked")
+    HashOperations<String, Object, Object> routes = mock(HashOperations.class);
+    when(redis.opsForHash()).thenReturn(routes);
+
+    // Act
+    router.sessionConnected("alice");
+
+    // Assert
+    verify(routes).increment("ws:routes:alice", NODE, 1);
+    verify(redis).expire("ws:routes:alice", Duration.ofSeconds(30));
+  }
+
+  private static WsClusterRouter.Delivery delivery(String userId) {
+    return new WsClusterRouter.Delivery(
+        userId, WsClusterRouter.NOTIFICATIONS, "{}".getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
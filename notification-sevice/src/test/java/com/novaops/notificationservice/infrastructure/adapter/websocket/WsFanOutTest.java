@@ -0,0 +1,165 @@
+package com.novaops.notificationservice.infrastructure.adapter.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novaops.notificationservice.config.WebSocketProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class WsFanOutTest {
+
+  @Mock private WsClusterRouter router;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final WebSocketProperties properties = new WebSocketProperties();
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private WsFanOut fanOut;
+
+  @BeforeEach
+  void setUp() {
+    properties.getFanOut().setBatchSize(2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    fanOut.shutdown();
+  }
+
+  @Test
+  @DisplayName("Every user gets the shared payload with their own fields, in batches")
+  void send_Users_SplicesOwnFieldsInBatches() throws Exception {
+
+    // Arrange
+    fanOut = newFanOut();
+    List<WsClusterRouter.Delivery> delivered = new CopyOnWriteArrayList<>();
+    when(router.deliver(anyList()))
+        .thenAnswer(
+            invocation -> {
+              delivered.addAll(invocation.getArgument(0));
+              return 0;
+            });
+
+    // Act
+    fanOut.send(payload(), users(5)).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    verify(router, times(3)).deliver(anyList());
+    assertThat(delivered).extracting(WsClusterRouter.Delivery::userId).hasSize(5);
+    WsClusterRouter.Delivery first =
+        delivered.stream().filter(delivery -> delivery.userId().equals("user-0")).findFirst().get();
+    JsonNode json = objectMapper.readTree(first.json());
+    assertThat(json.get("userId").asText()).isEqualTo("user-0");
+    assertThat(json.get("id").asText()).isEqualTo("id-0");
+    assertThat(json.get("title").asText()).isEqualTo("Maintenance tonight");
+    assertThat(json.size()).isEqualTo(3);
+    assertThat(meterRegistry.get("ws.fanout.messages").tag("outcome", "sent").counter().count())
+        .isEqualTo(5);
+  }
+
+  @Test
+  @DisplayName("Users that cannot be reached are counted without failing the fan-out")
+  void send_SomeUndelivered_CountedAsFailed() throws Exception {
+
+    // Arrange
+    fanOut = newFanOut();
+    when(router.deliver(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<WsClusterRouter.Delivery> batch = invocation.getArgument(0);
+              return batch.stream().anyMatch(delivery -> delivery.userId().equals("user-2"))
+                  ? 1
+                  : 0;
+            });
+
+    // Act
+    CompletableFuture<Void> result = fanOut.send(payload(), users(4));
+
+    // Assert
+    assertThat(result).succeedsWithin(5, TimeUnit.SECONDS);
+    assertThat(meterRegistry.get("ws.fanout.messages").tag("outcome", "sent").counter().count())
+        .isEqualTo(3);
+    assertThat(meterRegistry.get("ws.fanout.messages").tag("outcome", "failed").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("When the workers and their queue are full, the dispatch sends the batch itself")
+  void send_WorkersBusy_DispatchRunsBatch() throws Exception {
+
+    // Arrange
+    properties.getFanOut().setBatchSize(1);
+    properties.getFanOut().setParallelism(1);
+    properties.getFanOut().setQueueCapacity(1);
+    fanOut = newFanOut();
+    CountDownLatch entered = new CountDownLatch(2);
+    CountDownLatch release = new CountDownLatch(1);
+    Set<String> senders = ConcurrentHashMap.newKeySet();
+    doAnswer(
+            invocation -> {
+              senders.add(Thread.currentThread().getName());
+              entered.countDown();
+              release.await();
+              return 0;
+            })
+        .when(router)
+        .deliver(anyList());
+
+    // Act
+    CompletableFuture<Void> result = fanOut.send(payload(), users(4));
+
+    // Assert
+    // the worker holds the first batch, the second is queued and the third is rejected
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(senders).containsExactlyInAnyOrder("ws-fan-out-1", "ws-fan-out-dispatch");
+    assertThat(result).isNotDone();
+    release.countDown();
+    assertThat(result).succeedsWithin(5, TimeUnit.SECONDS);
+    verify(router, times(4)).deliver(anyList());
+  }
+
+  private WsFanOut newFanOut() {
+    return new WsFanOut(router, objectMapper, properties, meterRegistry);
+  }
+
+  private static Map<String, Object> payload() {
+    Map<String, Object> payload = new LinkedHashMap<>();
+    payload.put("id", null);
+    payload.put("userId", null);
+    payload.put("title", "Maintenance tonight");
+    return payload;
+  }
+
+  private static Map<String, Map<String, Object>> users(int count) {
+    Map<String, Map<String, Object>> users = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      users.put("user-" + i, Map.of("id", "id-" + i, "userId", "user-" + i));
+    }
+    return users;
+  }
+}
@@ -0,0 +1,60 @@
+package com.novaops.notificationservice.shared.pagination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.novaops.notificationservice.exception.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CursorTest {
+
+  @Test
+  @DisplayName("A decoded token is the position it was encoded from, to the nanosecond")
+  void encodeDecode_RoundTrip() {
+    Cursor cursor = new Cursor(Instant.parse("2026-03-01T10:15:30.123456789Z"), UUID.randomUUID());
+
+    assertThat(Cursor.decode(cursor.encode())).isEqualTo(cursor);
+  }
+
+  @Test
+  @DisplayName("The token can be passed in a URL as is")
+  void encode_IsUrlSafe() {
+    Cursor cursor = new Cursor(Instant.parse("2026-03-01T10:15:30Z"), UUID.randomUUID());
+
+    assertThat(cursor.encode()).matches("[A-Za-z0-9_-]+");
+  }
+
+  @Test
+  @DisplayName("No token means no position")
+  void decode_MissingToken_ReturnsNull() {
+    assertThat(Cursor.decode(null)).isNull();
+    assertThat(Cursor.decode(" ")).isNull();
+  }
+
+  @Test
+  @DisplayName("A token that was not encoded by a cursor is a bad request")
+  void decode_InvalidToken_ThrowsBadRequest() {
+    String notBase64 = "not a cursor!";
+    String missingId = encode("1700000000.0");
+    String invalidId = encode("1700000000.0.not-a-uuid");
+    String invalidSeconds = encode("soon.0." + UUID.randomUUID());
+
+    for (String token : new String[] {notBase64, missingId, invalidId, invalidSeconds}) {
+      BadRequestException exception =
+          assertThrows(BadRequestException.class, () -> Cursor.decode(token));
+      assertThat(exception.getMessageKey())
+          .isEqualTo(BadRequestException.BadRequestExceptionType.INVALID_CURSOR.getMessageKey());
+    }
+  }
+
+  private static String encode(String position) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+}
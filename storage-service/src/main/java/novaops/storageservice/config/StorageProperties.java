@@ -1,11 +1,21 @@
 package novaops.storageservice.config;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import novaops.storageservice.domain.enums.CacheWriteMode;
 import novaops.storageservice.domain.enums.StorageProvider;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @ConfigurationProperties(prefix = "app.storage")
 @Validated
 @Data
@@ -17,4 +27,288 @@ public class StorageProperties {
      */
     @NotNull
     private StorageProvider provider = StorageProvider.local;
-}
\ No newline at end of file
+
+    /**
+     * Settings of the streaming uploads.
+     */
+    @Valid
+    @NotNull
+    private Upload upload = new Upload();
+
+    /**
+     * Settings of the batch uploads.
+     */
+    @Valid
+    @NotNull
+    private Batch batch = new Batch();
+
+    /**
+     * Settings of the resized variants made of the uploaded images.
+     */
+    @Valid
+    @NotNull
+    private Images images = new Images();
+
+    /**
+     * Settings of the downloads served by the local storage.
+     */
+    @Valid
+    @NotNull
+    private Download download = new Download();
+
+    /**
+     * Settings of the local disk cache kept in front of the cloud providers.
+     */
+    @Valid
+    @NotNull
+    private Tiered tiered = new Tiered();
+
+    /**
+     * Settings of the presigned URLs the clients transfer files with, straight to the storage.
+     */
+    @Valid
+    @NotNull
+    private Presign presign = new Presign();
+
+    @Data
+    public static class Upload {
+
+        /**
+         * Size of the blocks staged in Azure Blob Storage. One block is buffered per upload.
+         */
+        @NotNull
+        private DataSize azureBlockSize = DataSize.ofMegabytes(4);
+
+        /**
+         * How many blocks of one file the async Azure adapter uploads at the same time.
+         */
+        @Min(1)
+        private int azureParallelBlocks = 4;
+
+        /**
+         * Size of the S3 multipart upload parts. One part is buffered per upload; S3 requires at
+         * least 5MB for every part but the last.
+         */
+        @NotNull
+        private DataSize awsPartSize = DataSize.ofMegabytes(8);
+
+        /**
+         * Directory where resumable uploads are kept until they are complete.
+         */
+        @NotBlank
+        private String stagingPath = "upload-staging";
+
+        /**
+         * Resumable uploads left untouched for this long are discarded.
+         */
+        @NotNull
+        private Duration sessionTtl = Duration.ofHours(24);
+
+        /**
+         * How often the expired resumable uploads are looked for.
+         */
+        @NotNull
+        private Duration cleanupInterval = Duration.ofMinutes(15);
+
+        /**
+         * A resumable upload is flushed to disk and acknowledged every time this much data has
+         * been received.
+         */
+        @NotNull
+        private DataSize ackInterval = DataSize.ofMegabytes(1);
+
+        /**
+         * Largest file accepted by a resumable upload.
+         */
+        @NotNull
+        private DataSize maxResumableSize = DataSize.ofMegabytes(100);
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * How many files are written to the local file system at the same time.
+         */
+        @Min(1)
+        private int localConcurrency = 4;
+
+        /**
+         * How many files are uploaded to Azure Blob Storage at the same time.
+         */
+        @Min(1)
+        private int azureConcurrency = 8;
+
+        /**
+         * How many files are uploaded to S3 at the same time.
+         */
+        @Min(1)
+        private int awsConcurrency = 16;
+
+        public int concurrencyFor(StorageProvider provider) {
+            return switch (provider) {
+                case local -> localConcurrency;
+                case azure -> azureConcurrency;
+                case aws -> awsConcurrency;
+            };
+        }
+    }
+
+    @Data
+    public static class Images {
+
+        /**
+         * Whether resized variants are made of the uploaded images.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The variants to make, by name, with the largest width or height of each. Images are
+         * never enlarged.
+         */
+        @NotEmpty
+        private Map<String, @Min(1) Integer> variants = defaultVariants();
+
+        /**
+         * Re-encodes the variants to WebP when an ImageIO WebP writer is on the classpath.
+         */
+        private boolean webp = false;
+
+        /**
+         * Number of threads resizing images.
+         */
+        @Min(1)
+        private int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        /**
+         * Images waiting for a worker beyond this are stored without variants.
+         */
+        @Min(0)
+        private int queueCapacity = 32;
+
+        /**
+         * Images larger than this are stored without variants, since a copy of them is kept on
+         * disk until they are resized.
+         */
+        @NotNull
+        private DataSize maxSourceSize = DataSize.ofMegabytes(10);
+
+        /**
+         * Images with more pixels than this are stored without variants.
+         */
+        @Min(1)
+        private long maxSourcePixels = 40_000_000;
+
+        private static Map<String, Integer> defaultVariants() {
+            Map<String, Integer> variants = new LinkedHashMap<>();
+            variants.put("thumb", 128);
+            variants.put("medium", 512);
+            return variants;
+        }
+    }
+
+    @Data
+    public static class Download {
+
+        /**
+         * Files up to this size are memory mapped for the gRPC downloads and kept mapped while they
+         * are requested, larger ones are read from the file.
+         */
+        @NotNull
+        private DataSize mmapThreshold = DataSize.ofKilobytes(256);
+
+        /**
+         * How many memory mapped files are kept.
+         */
+        @Min(0)
+        private int mmapCacheSize = 256;
+
+        /**
+         * Size of the chunks of the gRPC downloads.
+         */
+        @NotNull
+        private DataSize chunkSize = DataSize.ofKilobytes(64);
+
+        /**
+         * How long clients may cache a downloaded file. Stored files never change, they are
+         * replaced by new ones with another name.
+         */
+        @NotNull
+        private Duration cacheMaxAge = Duration.ofDays(7);
+    }
+
+    @Data
+    public static class Tiered {
+
+        /**
+         * Whether the files of the cloud provider are cached on the local disk and served by this
+         * service. Ignored by the local provider.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory of the cache.
+         */
+        @NotBlank
+        private String cachePath = "blob-cache";
+
+        /**
+         * Size of the cache. The least recently used files are evicted beyond it.
+         */
+        @NotNull
+        private DataSize maxSize = DataSize.ofGigabytes(2);
+
+        /**
+         * Whether uploads wait for the cloud provider (write-through) or only for the cache
+         * (write-back).
+         */
+        @NotNull
+        private CacheWriteMode writeMode = CacheWriteMode.WRITE_THROUGH;
+
+        /**
+         * How often the files written back are sent to the cloud provider.
+         */
+        @NotNull
+        private Duration flushInterval = Duration.ofSeconds(10);
+
+        /**
+         * How often the index of the cache is saved, so the cache survives a restart.
+         */
+        @NotNull
+        private Duration indexSaveInterval = Duration.ofSeconds(30);
+
+        /**
+         * Path under which the cached files are served.
+         */
+        @NotBlank
+        private String publicPath = "/blobs";
+    }
+
+    @Data
+    public static class Presign {
+
+        /**
+         * How long a presigned URL is accepted.
+         */
+        @NotNull
+        private Duration ttl = Duration.ofMinutes(15);
+
+        /**
+         * Key of the upload tokens and of the signed URLs of the local storage. Must be the same
+         * on every instance; a random key is used when it is not set, valid until a restart.
+         */
+        private String secret;
+
+        /**
+         * Largest image uploaded with a presigned URL.
+         */
+        @NotNull
+        private DataSize maxImageSize = DataSize.ofMegabytes(5);
+
+        /**
+         * Largest other file uploaded with a presigned URL.
+         */
+        @NotNull
+        private DataSize maxFileSize = DataSize.ofMegabytes(50);
+    }
+}
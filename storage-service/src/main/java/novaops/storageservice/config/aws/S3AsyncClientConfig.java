@@ -0,0 +1,50 @@
+package novaops.storageservice.config.aws;
+
+import novaops.storageservice.config.StorageProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.regions.providers.AwsRegionProvider;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+
+import java.net.URI;
+
+/**
+ * Creates the async S3 client, which spring-cloud-aws does not provide. Files larger than one
+ * <b>app.storage.upload.aws-part-size</b> part are sent as multipart uploads with their parts
+ * uploaded in parallel. Uses the same credentials, region and endpoint as the sync client.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.storage.provider", havingValue = "aws")
+public class S3AsyncClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient(
+            AwsCredentialsProvider credentialsProvider,
+            AwsRegionProvider regionProvider,
+            StorageProperties storageProperties,
+            @Value("${spring.cloud.aws.s3.region:}") String region,
+            @Value("${spring.cloud.aws.s3.endpoint:}") String endpoint,
+            @Value("${spring.cloud.aws.s3.path-style-access-enabled:false}") boolean pathStyleAccess) {
+        long partSize = storageProperties.getUpload().getAwsPartSize().toBytes();
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .credentialsProvider(credentialsProvider)
+                .region(StringUtils.hasText(region) ? Region.of(region) : regionProvider.getRegion())
+                .forcePathStyle(pathStyleAccess)
+                .multipartEnabled(true)
+                .multipartConfiguration(MultipartConfiguration.builder()
+                        .thresholdInBytes(partSize)
+                        .minimumPartSizeInBytes(partSize)
+                        .build());
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+}
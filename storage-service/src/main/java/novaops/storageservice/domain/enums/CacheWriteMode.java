@@ -0,0 +1,17 @@
+package novaops.storageservice.domain.enums;
+
+/**
+ * Defines when the files written to the tiered storage's local cache reach the cloud provider.
+ */
+public enum CacheWriteMode {
+    /**
+     * The upload completes once the file is stored by the cloud provider.
+     */
+    WRITE_THROUGH,
+
+    /**
+     * The upload completes once the file is in the local cache; it is sent to the cloud provider
+     * in the background.
+     */
+    WRITE_BACK
+}
@@ -1,9 +1,25 @@
 package novaops.storageservice.domain.model;
 
 
+import java.util.Map;
+
+/**
+ * A stored file.
+ *
+ * @param variants the URLs of the resized copies of an image, by variant name
+ */
 public record Blob(
         String name,
         String type,
         String url,
-        Long size) {
+        Long size,
+        Map<String, String> variants) {
+
+    public Blob(String name, String type, String url, Long size) {
+        this(name, type, url, size, Map.of());
+    }
+
+    public Blob withVariants(Map<String, String> variants) {
+        return new Blob(name, type, url, size, Map.copyOf(variants));
+    }
 }
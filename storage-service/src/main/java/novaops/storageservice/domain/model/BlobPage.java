@@ -0,0 +1,18 @@
+package novaops.storageservice.domain.model;
+
+import java.util.List;
+
+/**
+ * One page of a listing of the storage.
+ *
+ * @param blobs      the files of the page
+ * @param nextCursor the cursor of the next page, {@code null} when this is the last one
+ */
+public record BlobPage(
+        List<StoredBlob> blobs,
+        String nextCursor) {
+
+    public static BlobPage last(List<StoredBlob> blobs) {
+        return new BlobPage(blobs, null);
+    }
+}
@@ -0,0 +1,26 @@
+package novaops.storageservice.domain.model;
+
+/**
+ * Outcome of one file of a batch upload: either the stored blob or the reason it failed.
+ *
+ * @param name  the original file name
+ * @param blob  the stored file, {@code null} if the upload failed
+ * @param error why the upload failed, {@code null} if it succeeded
+ */
+public record FileUploadResult(
+        String name,
+        Blob blob,
+        String error) {
+
+    public static FileUploadResult stored(String name, Blob blob) {
+        return new FileUploadResult(name, blob, null);
+    }
+
+    public static FileUploadResult failed(String name, String error) {
+        return new FileUploadResult(name, null, error);
+    }
+
+    public boolean isStored() {
+        return blob != null;
+    }
+}
@@ -0,0 +1,22 @@
+package novaops.storageservice.domain.model;
+
+import java.util.Map;
+
+/**
+ * A request the client sends a file with, straight to the storage.
+ *
+ * @param method    the HTTP method of the request
+ * @param uploadUrl the URL to send the file to, signed for a limited time
+ * @param headers   the headers the request must carry, as they are part of the signature
+ * @param url       the URL the file has once stored, as returned on upload
+ */
+public record PresignedUpload(
+        String method,
+        String uploadUrl,
+        Map<String, String> headers,
+        String url) {
+
+    public static PresignedUpload put(String uploadUrl, Map<String, String> headers, String url) {
+        return new PresignedUpload("PUT", uploadUrl, Map.copyOf(headers), url);
+    }
+}
@@ -0,0 +1,35 @@
+package novaops.storageservice.domain.model;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Describes a file that is about to be streamed to the storage.
+ *
+ * @param name        the original file name
+ * @param contentType the MIME type of the file
+ * @param contentHash the hex encoded SHA-256 of the content, when known. The file is then stored
+ *                    under a name derived from it, so identical content is stored once
+ */
+public record UploadTarget(
+        String name,
+        String contentType,
+        String contentHash) {
+
+    public UploadTarget(String name, String contentType) {
+        this(name, contentType, null);
+    }
+
+    public UploadTarget withContentHash(String contentHash) {
+        return new UploadTarget(name, contentType, contentHash);
+    }
+
+    /**
+     * @return the storage name of content addressed files: the hash and the original extension
+     */
+    public String contentAddressedName() {
+        String extension = StringUtils.getFilenameExtension(name);
+        return extension == null || extension.isBlank()
+                ? contentHash
+                : contentHash + "." + extension.toLowerCase();
+    }
+}
@@ -0,0 +1,32 @@
+package novaops.storageservice.domain.service;
+
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.FileUploadResult;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link Storage}: the uploads are started and the methods return right
+ * away. The files must stay readable until the futures complete, e.g. by returning the future from
+ * the controller that received them.
+ */
+public interface AsyncStorage {
+
+    /**
+     * Uploads a file to the cloud storage
+     *
+     * @param file the file to upload
+     * @return completes with the uploaded file, or null for an empty file
+     */
+    CompletableFuture<Blob> uploadFile(MultipartFile file);
+
+    /**
+     * Uploads multiple files to the cloud storage, several at a time
+     *
+     * @param files the files to upload
+     * @return completes with one result per file, in the order of the files
+     */
+    CompletableFuture<List<FileUploadResult>> uploadFiles(MultipartFile[] files);
+}
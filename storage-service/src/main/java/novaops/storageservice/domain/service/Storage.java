@@ -1,9 +1,16 @@
 package novaops.storageservice.domain.service;
 
 import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.BlobPage;
+import novaops.storageservice.domain.model.FileUploadResult;
+import novaops.storageservice.domain.model.PresignedUpload;
+import novaops.storageservice.domain.model.UploadTarget;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Interface for cloud storage services
@@ -19,12 +26,36 @@ public interface Storage {
     Blob uploadFile(MultipartFile file);
 
     /**
-     * Uploads multiple files to the cloud storage
+     * Uploads multiple files to the cloud storage, several at a time
      *
      * @param files the files to upload
-     * @return the URL of the uploaded files
+     * @return one result per file, in the order of the files: the uploaded file or why it failed
      */
-    List<Blob> uploadFiles(MultipartFile[] files);
+    List<FileUploadResult> uploadFiles(MultipartFile[] files);
+
+    /**
+     * Starts a streaming upload: the file is written chunk by chunk instead of being held in memory
+     *
+     * @param target the name and type of the file
+     * @return the session to write the file to
+     */
+    UploadSession openUpload(UploadTarget target);
+
+    /**
+     * Finds a file already stored with the content hash of the target
+     *
+     * @param target the name, type and content hash of the file
+     * @return the stored file, if the same content was uploaded before
+     */
+    Optional<Blob> findStored(UploadTarget target);
+
+    /**
+     * Opens a content addressed file for reading
+     *
+     * @param target the name, type and content hash of the file
+     * @return the content of the file, if it is stored; the caller closes it
+     */
+    Optional<InputStream> openStored(UploadTarget target);
 
     /**
      * Deletes a file from the cloud storage
@@ -33,5 +64,48 @@ public interface Storage {
      */
     void deleteFile(String url);
 
+    /**
+     * Deletes many files, with as few requests to the cloud storage as it allows
+     *
+     * @param urls the URLs of the files to delete
+     * @return the URLs of the files that could not be deleted; a file that did not exist counts as deleted
+     */
+    List<String> deleteFiles(List<String> urls);
+
+    /**
+     * Lists the stored files, one page at a time
+     *
+     * @param cursor the cursor of the page, as returned with the previous one, or {@code null} for the first page
+     * @param limit  the largest number of files in the page
+     * @return the files of the page and the cursor of the next one
+     */
+    BlobPage listBlobs(String cursor, int limit);
+
+    /**
+     * Creates the request the client sends a file with, straight to the storage
+     *
+     * @param target    the name and type of the file
+     * @param size      the size of the file in bytes
+     * @param expiresAt when the request stops being accepted
+     * @return the request to send, and the URL the file will have
+     */
+    PresignedUpload presignUpload(UploadTarget target, long size, Instant expiresAt);
+
+    /**
+     * Creates a URL the client reads a file from, straight from the storage
+     *
+     * @param url       the URL of the file
+     * @param expiresAt when the URL stops being accepted
+     * @return the signed URL
+     */
+    String presignDownload(String url, Instant expiresAt);
+
+    /**
+     * Finds the size of a stored file, e.g. to check a file the client sent with a presigned request
+     *
+     * @param url the URL of the file
+     * @return the size of the file in bytes, if it exists
+     */
+    Optional<Long> findSize(String url);
 
 }
@@ -0,0 +1,45 @@
+package novaops.storageservice.domain.service;
+
+import novaops.storageservice.domain.model.Blob;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * A file being written to the storage chunk by chunk. Chunks are handed to the backend as they
+ * arrive, so only a bounded amount of the file is held in memory at any time.
+ * <p>
+ * A session is used by a single thread and ends with either {@link #complete()} or {@link #abort()}.
+ */
+public interface UploadSession {
+
+    /**
+     * Appends a chunk to the file. The buffer is fully consumed before the method returns and is
+     * not kept afterwards.
+     *
+     * @param chunk the next bytes of the file
+     */
+    void write(ByteBuffer chunk);
+
+    /**
+     * Makes the written bytes visible as a stored file.
+     *
+     * @return the stored file
+     */
+    Blob complete();
+
+    /**
+     * The URL the file will have once completed, when the storage names it before its content is
+     * written. Storages naming a file after its content only know it on {@link #complete()}.
+     *
+     * @return the future URL of the file, if already known
+     */
+    default Optional<String> url() {
+        return Optional.empty();
+    }
+
+    /**
+     * Discards everything written so far. Safe to call more than once, and after a failed write.
+     */
+    void abort();
+}
@@ -72,7 +72,39 @@ public class StorageException extends ApplicationException {
         INVALID_IMAGE_TYPE(
                 "error.server.conflict.invalid-image-type.title",
                 "error.server.conflict.invalid-image-type.msg",
-                "Invalid image type. Only image files are allowed.");
+                "Invalid image type. Only image files are allowed."),
+        UPLOAD_NOT_FOUND(
+                "error.server.storage.upload-not-found.title",
+                "error.server.storage.upload-not-found.msg",
+                "Upload not found or expired"),
+        INVALID_UPLOAD_OFFSET(
+                "error.server.storage.invalid-upload-offset.title",
+                "error.server.storage.invalid-upload-offset.msg",
+                "Upload offset does not match the stored data"),
+        UPLOAD_IN_PROGRESS(
+                "error.server.storage.upload-in-progress.title",
+                "error.server.storage.upload-in-progress.msg",
+                "Upload is already being written by another request"),
+        UPLOAD_HASH_MISMATCH(
+                "error.server.storage.upload-hash-mismatch.title",
+                "error.server.storage.upload-hash-mismatch.msg",
+                "Uploaded content does not match its hash"),
+        INVALID_LIST_CURSOR(
+                "error.server.storage.invalid-list-cursor.title",
+                "error.server.storage.invalid-list-cursor.msg",
+                "Listing cursor is not one returned by this storage"),
+        FILE_NOT_FOUND(
+                "error.server.storage.file-not-found.title",
+                "error.server.storage.file-not-found.msg",
+                "File not found"),
+        INVALID_UPLOAD_TOKEN(
+                "error.server.storage.invalid-upload-token.title",
+                "error.server.storage.invalid-upload-token.msg",
+                "Upload token is invalid or expired"),
+        UPLOAD_SIZE_MISMATCH(
+                "error.server.storage.upload-size-mismatch.title",
+                "error.server.storage.upload-size-mismatch.msg",
+                "Uploaded file does not have the declared size");
 
         private final String messageKey;
         private final String titleKey;
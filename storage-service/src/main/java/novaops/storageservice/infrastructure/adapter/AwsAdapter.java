@@ -7,20 +7,49 @@ import io.awspring.cloud.s3.S3Template;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
 import novaops.storageservice.config.aws.AwsS3BucketProperties;
 import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.BlobPage;
+import novaops.storageservice.domain.model.FileUploadResult;
+import novaops.storageservice.domain.model.PresignedUpload;
+import novaops.storageservice.domain.model.StoredBlob;
+import novaops.storageservice.domain.model.UploadTarget;
 import novaops.storageservice.domain.service.Storage;
+import novaops.storageservice.domain.service.UploadSession;
 import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
-import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -35,9 +64,15 @@ public class AwsAdapter implements Storage {
 
     private final S3Template s3Template;
     private final AwsS3BucketProperties awsS3BucketProperties;
+    private final S3Client s3Client;
+    private final StorageProperties storageProperties;
+    private final ConcurrentUploadEngine uploadEngine;
+    private final AwsAsyncAdapter awsAsyncAdapter;
 
     private static final String IMAGES_FOLDER = "images";
     private static final String FILES_FOLDER = "files";
+    // the most keys a DeleteObjects request accepts
+    private static final int MAX_KEYS_PER_DELETE = 1000;
 
     @PostConstruct
     public void logActiveAdapter() {
@@ -50,7 +85,7 @@ public class AwsAdapter implements Storage {
      * @param contentType the MIME type of the file
      * @return the name of the subfolder where the file should be stored
      */
-    private String determineSubfolderForContentType(String contentType) {
+    static String determineSubfolderForContentType(String contentType) {
 
         if (contentType.startsWith("image/")) {
             return IMAGES_FOLDER;
@@ -60,48 +95,122 @@ public class AwsAdapter implements Storage {
     }
 
     /**
-     * Uploads a file to the cloud storage
+     * Uploads a file to the cloud storage, with the parallel multipart upload of the async adapter
      *
      * @param file the file to upload
      * @return the URL of the uploaded file
      */
     @Override
     public Blob uploadFile(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            log.warn("Upload attempt with null or empty file.");
-            return null;
+        try {
+            return awsAsyncAdapter.uploadFile(file).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof StorageException storageException
+                    ? storageException
+                    : new StorageException(StorageException.CloudStorageExceptionType.AWS_FAILED_TO_UPLOAD_FILE);
         }
+    }
 
-        var originalFilename = file.getOriginalFilename();
-        var bucketName = awsS3BucketProperties.getBucketName();
+    /**
+     * Uploads the files to S3 concurrently
+     *
+     * @param files the files to upload
+     * @return one result per file
+     */
+    @Override
+    public List<FileUploadResult> uploadFiles(MultipartFile[] files) {
+        if (files == null || files.length == 0) {
+            return List.of();
+        }
+
+        return uploadEngine.uploadAll(
+                Arrays.stream(files).filter(Objects::nonNull).toList(),
+                MultipartFile::getOriginalFilename,
+                this::uploadFile);
+    }
 
-        // Determine subfolder based on file type
-        String subfolder = determineSubfolderForContentType(Objects.requireNonNull(file.getContentType()));
-        String keyName = subfolder + "/" + java.util.UUID.randomUUID() + "-" + originalFilename;
+    /**
+     * Starts a streaming upload, sent to S3 as a multipart upload
+     *
+     * @param target the name and type of the file
+     * @return the session to write the file to
+     */
+    @Override
+    public UploadSession openUpload(UploadTarget target) {
+        String keyName = keyFor(target);
+        return new AwsUploadSession(
+                s3Client,
+                target,
+                awsS3BucketProperties.getBucketName(),
+                keyName,
+                awsS3BucketProperties.getCdnBaseUrl() + "/" + keyName,
+                (int) storageProperties.getUpload().getAwsPartSize().toBytes());
+    }
 
+    /**
+     * Looks up the content addressed object of the target
+     *
+     * @param target the name, type and content hash of the file
+     * @return the stored object, if any
+     */
+    @Override
+    public Optional<Blob> findStored(UploadTarget target) {
+        if (target.contentHash() == null) {
+            return Optional.empty();
+        }
+        String keyName = keyFor(target);
         try {
-            s3Template.upload(bucketName, keyName, file.getInputStream());
-            String fileUrl = awsS3BucketProperties.getCdnBaseUrl() + "/" + keyName;
-            log.info("File '{}' uploaded to S3 in {} subfolder", originalFilename, subfolder);
-            return new Blob(file.getOriginalFilename(), file.getContentType(), fileUrl, file.getSize());
-        } catch (IOException e) {
-            log.error("Error uploading file to S3", e);
-            throw new StorageException(StorageException.CloudStorageExceptionType.AWS_FAILED_TO_UPLOAD_FILE);
+            long size = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(awsS3BucketProperties.getBucketName())
+                    .key(keyName)
+                    .build()).contentLength();
+            return Optional.of(new Blob(target.name(), target.contentType(),
+                    awsS3BucketProperties.getCdnBaseUrl() + "/" + keyName, size));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() != 404) {
+                log.warn("Could not look up S3 object {}: {}", keyName, e.getMessage());
+            }
+            return Optional.empty();
         }
     }
 
+    /**
+     * Opens the content addressed object of the target for reading
+     *
+     * @param target the name, type and content hash of the file
+     * @return the content of the object, if it exists
+     */
     @Override
-    public List<Blob> uploadFiles(MultipartFile[] files) {
-        if (files == null || files.length == 0) {
-            return List.of();
+    public Optional<InputStream> openStored(UploadTarget target) {
+        if (target.contentHash() == null) {
+            return Optional.empty();
+        }
+        String keyName = keyFor(target);
+        try {
+            return Optional.of(s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(awsS3BucketProperties.getBucketName())
+                    .key(keyName)
+                    .build()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            log.error("Failed to read S3 object {}", keyName, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
         }
-
-        return Arrays.stream(files)
-                .filter(file -> !file.isEmpty())
-                .map(this::uploadFile)
-                .toList();
     }
 
+    private String keyFor(UploadTarget target) {
+        String subfolder = determineSubfolderForContentType(Objects.requireNonNull(target.contentType()));
+        if (target.contentHash() != null) {
+            return subfolder + "/" + target.contentAddressedName();
+        }
+        return subfolder + "/" + java.util.UUID.randomUUID() + "-" + target.name();
+    }
 
     /**
      * Deletes a file from the cloud storage
@@ -119,12 +228,8 @@ public class AwsAdapter implements Storage {
             var bucketName = awsS3BucketProperties.getBucketName();
 
             // Extract the object key which includes the subfolder path
-            String objectKey;
-            if (url.contains(IMAGES_FOLDER + "/")) {
-                objectKey = url.substring(url.indexOf(IMAGES_FOLDER + "/"));
-            } else if (url.contains(FILES_FOLDER + "/")) {
-                objectKey = url.substring(url.indexOf(FILES_FOLDER + "/"));
-            } else {
+            String objectKey = objectKeyOf(url);
+            if (objectKey == null) {
                 log.warn("Could not determine object key from URL for deletion: {}", url);
                 return;
             }
@@ -135,4 +240,147 @@ public class AwsAdapter implements Storage {
             log.error("Error during deletion process for URL {}: {}", url, e.getMessage());
         }
     }
+
+    /**
+     * Deletes the files with DeleteObjects requests, of up to 1000 keys each
+     *
+     * @param urls the URLs of the files to delete
+     * @return the URLs of the files that could not be deleted
+     */
+    @Override
+    public List<String> deleteFiles(List<String> urls) {
+        List<String> failed = new ArrayList<>();
+        Map<String, String> urlsByKey = new LinkedHashMap<>();
+        for (String url : urls) {
+            String objectKey = url == null ? null : objectKeyOf(url);
+            if (objectKey == null) {
+                log.warn("Could not determine object key from URL for deletion: {}", url);
+                failed.add(url);
+            } else {
+                urlsByKey.put(objectKey, url);
+            }
+        }
+
+        List<String> keys = new ArrayList<>(urlsByKey.keySet());
+        for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_DELETE) {
+            List<String> batch = keys.subList(from, Math.min(from + MAX_KEYS_PER_DELETE, keys.size()));
+            try {
+                DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(awsS3BucketProperties.getBucketName())
+                        .delete(Delete.builder()
+                                .objects(batch.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                                // only the errors are returned
+                                .quiet(true)
+                                .build())
+                        .build());
+                for (S3Error error : response.errors()) {
+                    log.warn("Could not delete S3 object {}: {}", error.key(), error.message());
+                    failed.add(urlsByKey.get(error.key()));
+                }
+                log.info("Deleted {} S3 objects", batch.size() - response.errors().size());
+            } catch (SdkException e) {
+                log.error("Failed to delete {} S3 objects", batch.size(), e);
+                batch.forEach(key -> failed.add(urlsByKey.get(key)));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Lists the objects of the bucket. The cursor is the continuation token of S3.
+     */
+    @Override
+    public BlobPage listBlobs(String cursor, int limit) {
+        try {
+            ListObjectsV2Response response = s3Client.listObjectsV2(ListObjectsV2Request.builder()
+                    .bucket(awsS3BucketProperties.getBucketName())
+                    .continuationToken(cursor)
+                    .maxKeys(limit)
+                    .build());
+            List<StoredBlob> blobs = response.contents().stream()
+                    .filter(object -> objectKeyOf(object.key()) != null)
+                    .map(object -> new StoredBlob(awsS3BucketProperties.getCdnBaseUrl() + "/" + object.key(),
+                            object.size(), object.lastModified()))
+                    .toList();
+            return Boolean.TRUE.equals(response.isTruncated())
+                    ? new BlobPage(blobs, response.nextContinuationToken())
+                    : BlobPage.last(blobs);
+        } catch (SdkException e) {
+            log.error("Failed to list S3 objects", e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    /**
+     * Presigns a PUT of the object with S3. The Content-Type is part of the signature, the size is
+     * checked once the upload is completed.
+     */
+    @Override
+    public PresignedUpload presignUpload(UploadTarget target, long size, Instant expiresAt) {
+        String keyName = keyFor(target);
+        try {
+            URL uploadUrl = s3Template.createSignedPutURL(awsS3BucketProperties.getBucketName(), keyName,
+                    Duration.between(Instant.now(), expiresAt), null, target.contentType());
+            return PresignedUpload.put(uploadUrl.toString(), Map.of("Content-Type", target.contentType()),
+                    awsS3BucketProperties.getCdnBaseUrl() + "/" + keyName);
+        } catch (SdkException e) {
+            log.error("Failed to presign upload of '{}'", target.name(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.AWS_FAILED_TO_UPLOAD_FILE);
+        }
+    }
+
+    /**
+     * Presigns a GET of the object with S3
+     */
+    @Override
+    public String presignDownload(String url, Instant expiresAt) {
+        String objectKey = objectKeyOf(url);
+        if (objectKey == null) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.FILE_NOT_FOUND);
+        }
+        try {
+            return s3Template.createSignedGetURL(awsS3BucketProperties.getBucketName(), objectKey,
+                    Duration.between(Instant.now(), expiresAt)).toString();
+        } catch (SdkException e) {
+            log.error("Failed to presign download of {}", objectKey, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    /**
+     * Reads the size of the object with a HEAD request
+     */
+    @Override
+    public Optional<Long> findSize(String url) {
+        String objectKey = objectKeyOf(url);
+        if (objectKey == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(awsS3BucketProperties.getBucketName())
+                    .key(objectKey)
+                    .build()).contentLength());
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            log.error("Failed to look up S3 object {}", objectKey, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    /**
+     * @return the key of the object, with its subfolder, or null if the URL has no known subfolder
+     */
+    private static String objectKeyOf(String url) {
+        if (url.contains(IMAGES_FOLDER + "/")) {
+            return url.substring(url.indexOf(IMAGES_FOLDER + "/"));
+        } else if (url.contains(FILES_FOLDER + "/")) {
+            return url.substring(url.indexOf(FILES_FOLDER + "/"));
+        }
+        return null;
+    }
 }
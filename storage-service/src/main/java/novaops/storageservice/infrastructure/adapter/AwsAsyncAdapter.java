@@ -0,0 +1,129 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.aws.AwsS3BucketProperties;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.FileUploadResult;
+import novaops.storageservice.domain.service.AsyncStorage;
+import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Non-blocking adapter for S3. Large files are sent by the multipart-enabled
+ * {@link S3AsyncClient}, which uploads their parts in parallel.
+ */
+@Component
+@Log4j2
+@ConditionalOnProperty(name = "app.storage.provider", havingValue = "aws")
+public class AwsAsyncAdapter implements AsyncStorage {
+
+    private final S3AsyncClient s3AsyncClient;
+    private final AwsS3BucketProperties awsS3BucketProperties;
+    private final ConcurrentUploadEngine uploadEngine;
+    // reads the uploaded streams, which block
+    private final ExecutorService streamReader = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AwsAsyncAdapter(
+            S3AsyncClient s3AsyncClient,
+            AwsS3BucketProperties awsS3BucketProperties,
+            ConcurrentUploadEngine uploadEngine) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.awsS3BucketProperties = awsS3BucketProperties;
+        this.uploadEngine = uploadEngine;
+    }
+
+    /**
+     * Uploads a file to the cloud storage
+     *
+     * @param file the file to upload
+     * @return completes with the uploaded file
+     */
+    @Override
+    public CompletableFuture<Blob> uploadFile(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            log.warn("Upload attempt with null or empty file.");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String originalFilename = file.getOriginalFilename();
+        String contentType = Objects.requireNonNull(file.getContentType());
+        String subfolder = AwsAdapter.determineSubfolderForContentType(contentType);
+        String keyName = subfolder + "/" + UUID.randomUUID() + "-" + originalFilename;
+
+        InputStream inputStream;
+        try {
+            inputStream = file.getInputStream();
+        } catch (IOException e) {
+            log.error("Error uploading file to S3", e);
+            return CompletableFuture.failedFuture(
+                    new StorageException(StorageException.CloudStorageExceptionType.AWS_FAILED_TO_UPLOAD_FILE));
+        }
+
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(awsS3BucketProperties.getBucketName())
+                .key(keyName)
+                .contentType(contentType)
+                .contentLength(file.getSize())
+                .build();
+        return s3AsyncClient.putObject(request, AsyncRequestBody.fromInputStream(inputStream, file.getSize(), streamReader))
+                .handle((response, error) -> {
+                    close(inputStream, originalFilename);
+                    if (error != null) {
+                        log.error("Error uploading file to S3", error);
+                        throw new CompletionException(
+                                new StorageException(StorageException.CloudStorageExceptionType.AWS_FAILED_TO_UPLOAD_FILE));
+                    }
+                    log.info("File '{}' uploaded to S3 in {} subfolder", originalFilename, subfolder);
+                    return new Blob(originalFilename, contentType,
+                            awsS3BucketProperties.getCdnBaseUrl() + "/" + keyName, file.getSize());
+                });
+    }
+
+    /**
+     * Uploads multiple files to the cloud storage, several at a time
+     *
+     * @param files the files to upload
+     * @return completes with one result per file
+     */
+    @Override
+    public CompletableFuture<List<FileUploadResult>> uploadFiles(MultipartFile[] files) {
+        if (files == null || files.length == 0) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return uploadEngine.uploadAllAsync(
+                Arrays.stream(files).filter(Objects::nonNull).toList(),
+                MultipartFile::getOriginalFilename,
+                this::uploadFile);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamReader.shutdownNow();
+    }
+
+    private static void close(InputStream inputStream, String fileName) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.warn("Could not close file '{}': {}", fileName, e.getMessage());
+        }
+    }
+}
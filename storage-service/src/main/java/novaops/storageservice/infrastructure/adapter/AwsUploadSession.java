@@ -0,0 +1,160 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.exception.StorageException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Streams a file to S3 with a multipart upload. Chunks are collected into one {@link PartBuffer},
+ * which is uploaded every time it fills up. A file smaller than a part is stored with a single put, without
+ * starting a multipart upload.
+ */
+@Log4j2
+class AwsUploadSession implements UploadSession {
+
+    // S3 rejects smaller parts, except for the last one
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final UploadTarget target;
+    private final String bucketName;
+    private final String key;
+    private final String url;
+    private final int partSize;
+    private final List<CompletedPart> parts = new ArrayList<>();
+
+    private PartBuffer part;
+    private String uploadId;
+    private long size;
+
+    AwsUploadSession(S3Client s3Client, UploadTarget target, String bucketName, String key, String url, int partSize) {
+        this.s3Client = s3Client;
+        this.target = target;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.url = url;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+    }
+
+    @Override
+    public void write(ByteBuffer chunk) {
+        size += chunk.remaining();
+        if (part == null) {
+            part = new PartBuffer(partSize);
+        }
+        while (chunk.hasRemaining()) {
+            if (part.fill(chunk)) {
+                uploadPart();
+            }
+        }
+    }
+
+    private void uploadPart() {
+        try {
+            if (uploadId == null) {
+                uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(target.contentType())
+                        .build()).uploadId();
+            }
+            int partNumber = parts.size() + 1;
+            String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .contentLength((long) part.length())
+                            .build(),
+                    body()).eTag();
+            parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+            part.clear();
+        } catch (SdkException e) {
+            log.error("Failed to upload part of file '{}' to S3", target.name(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.AWS_FAILED_TO_UPLOAD_FILE);
+        }
+    }
+
+    @Override
+    public Blob complete() {
+        try {
+            if (uploadId == null) {
+                s3Client.putObject(PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .contentType(target.contentType())
+                                .contentLength(size)
+                                .build(),
+                        body());
+            } else {
+                if (part.length() > 0) {
+                    uploadPart();
+                }
+                s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                        .build());
+            }
+        } catch (SdkException e) {
+            log.error("Failed to upload file '{}' to S3", target.name(), e);
+            abort();
+            throw new StorageException(StorageException.CloudStorageExceptionType.AWS_FAILED_TO_UPLOAD_FILE);
+        } finally {
+            part = null;
+        }
+        log.info("File '{}' streamed to S3 in {} parts ({} bytes)", target.name(), Math.max(1, parts.size()), size);
+        return new Blob(target.name(), target.contentType(), url, size);
+    }
+
+    @Override
+    public Optional<String> url() {
+        return Optional.of(url);
+    }
+
+    /**
+     * Aborts the multipart upload, if one was started, so S3 drops the uploaded parts.
+     */
+    @Override
+    public void abort() {
+        part = null;
+        if (uploadId == null) {
+            return;
+        }
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (SdkException e) {
+            log.warn("Could not abort multipart upload of '{}': {}", key, e.getMessage());
+        }
+        uploadId = null;
+    }
+
+    private RequestBody body() {
+        if (part == null) {
+            return RequestBody.empty();
+        }
+        return RequestBody.fromInputStream(part.inputStream(), part.length());
+    }
+}
@@ -1,50 +1,84 @@
 package novaops.storageservice.infrastructure.adapter;
 
+import com.azure.core.http.rest.PagedResponse;
+import com.azure.core.http.rest.Response;
+import com.azure.core.util.Context;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
-import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.batch.BlobBatch;
+import com.azure.storage.blob.batch.BlobBatchClient;
+import com.azure.storage.blob.batch.BlobBatchClientBuilder;
+import com.azure.storage.blob.models.BlobItem;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.ListBlobsOptions;
+import com.azure.storage.blob.sas.BlobSasPermission;
+import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
 import com.azure.storage.blob.specialized.BlockBlobClient;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
 import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.BlobPage;
+import novaops.storageservice.domain.model.FileUploadResult;
+import novaops.storageservice.domain.model.PresignedUpload;
+import novaops.storageservice.domain.model.StoredBlob;
+import novaops.storageservice.domain.model.UploadTarget;
 import novaops.storageservice.domain.service.Storage;
+import novaops.storageservice.domain.service.UploadSession;
 import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 /**
  * Adapter class for Azure cloud storage, with logic aligned to the AWS adapter.
  */
 @Component
+@RequiredArgsConstructor
 @Log4j2
 @ConditionalOnProperty(name = "app.storage.provider", havingValue = "azure")
 public class AzureAdapter implements Storage {
 
+    private final StorageProperties storageProperties;
+    private final ConcurrentUploadEngine uploadEngine;
+    private final AzureAsyncAdapter azureAsyncAdapter;
+
     @Value("${spring.cloud.azure.storage.blob.connection-string}")
     private String connectionString;
 
     private BlobServiceClient blobServiceClient;
+    private BlobBatchClient blobBatchClient;
 
-    private static final String IMAGES_CONTAINER = "images";
-    private static final String FILES_CONTAINER = "files";
-    private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
-    private static final long MAX_IMAGE_SIZE = 5 * 1024 * 1024; // 5MB
+    static final String IMAGES_CONTAINER = "images";
+    static final String FILES_CONTAINER = "files";
+    static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
+    static final long MAX_IMAGE_SIZE = 5 * 1024 * 1024; // 5MB
+    // the most sub-requests a batch request accepts
+    private static final int MAX_BLOBS_PER_BATCH = 256;
+    private static final List<String> LISTED_CONTAINERS = List.of(FILES_CONTAINER, IMAGES_CONTAINER);
+    private static final char CURSOR_SEPARATOR = '|';
 
     @PostConstruct
     public void init() {
         this.blobServiceClient = new BlobServiceClientBuilder()
                 .connectionString(connectionString)
                 .buildClient();
+        this.blobBatchClient = new BlobBatchClientBuilder(blobServiceClient).buildClient();
         log.info("Azure Adapter is active and BlobServiceClient is initialized.");
     }
 
@@ -54,7 +88,7 @@ public class AzureAdapter implements Storage {
      * @param contentType the MIME type of the file.
      * @return the name of the container where the file should be stored.
      */
-    private String determineContainerForContentType(String contentType) {
+    static String determineContainerForContentType(String contentType) {
         if (contentType != null && contentType.startsWith("image/")) {
             return IMAGES_CONTAINER;
         }
@@ -85,65 +119,112 @@ public class AzureAdapter implements Storage {
     }
 
     /**
-     * Uploads a file to the appropriate Azure container based on its content type.
+     * Uploads a file to the appropriate Azure container based on its content type, with the
+     * parallel block upload of the async adapter.
      *
      * @param file the file to upload.
      * @return a Blob object with details of the uploaded file.
      */
     @Override
     public Blob uploadFile(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            log.warn("Upload attempt with null or empty file.");
-            return null;
+        try {
+            return azureAsyncAdapter.uploadFile(file).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof StorageException storageException
+                    ? storageException
+                    : new StorageException(StorageException.CloudStorageExceptionType.AZURE_FAILED_TO_UPLOAD_FILE);
         }
+    }
 
-        String contentType = file.getContentType();
-        String containerName = determineContainerForContentType(contentType);
-
-        // Validate file size based on type
-        if (IMAGES_CONTAINER.equals(containerName) && file.getSize() > MAX_IMAGE_SIZE) {
-            throw new StorageException(StorageException.CloudStorageExceptionType.IMAGE_SIZE_LIMIT_EXCEEDED);
-        } else if (FILES_CONTAINER.equals(containerName) && file.getSize() > MAX_FILE_SIZE) {
-            throw new StorageException(StorageException.CloudStorageExceptionType.FILE_SIZE_LIMIT_EXCEEDED);
+    /**
+     * Uploads multiple files to cloud storage, several at a time.
+     *
+     * @param files array of files to upload.
+     * @return one result per file, with the uploaded blob or the reason it failed.
+     */
+    @Override
+    public List<FileUploadResult> uploadFiles(MultipartFile[] files) {
+        if (files == null || files.length == 0) {
+            return List.of();
         }
 
-        String blobName = java.util.UUID.randomUUID() + "-" + file.getOriginalFilename();
-        BlockBlobClient blobClient = getBlobClient(blobName, containerName);
+        return uploadEngine.uploadAll(
+                Arrays.stream(files).filter(Objects::nonNull).toList(),
+                MultipartFile::getOriginalFilename,
+                this::uploadFile);
+    }
 
+    /**
+     * Starts a streaming upload to the appropriate container. The size limits are checked as the
+     * chunks arrive.
+     *
+     * @param target the name and type of the file.
+     * @return the session to write the file to.
+     */
+    @Override
+    public UploadSession openUpload(UploadTarget target) {
+        String containerName = determineContainerForContentType(target.contentType());
+        String blobName = target.contentHash() != null
+                ? target.contentAddressedName()
+                : java.util.UUID.randomUUID() + "-" + target.name();
+        boolean image = IMAGES_CONTAINER.equals(containerName);
+        return new AzureUploadSession(
+                getBlobClient(blobName, containerName),
+                target,
+                (int) storageProperties.getUpload().getAzureBlockSize().toBytes(),
+                image ? MAX_IMAGE_SIZE : MAX_FILE_SIZE,
+                image
+                        ? StorageException.CloudStorageExceptionType.IMAGE_SIZE_LIMIT_EXCEEDED
+                        : StorageException.CloudStorageExceptionType.FILE_SIZE_LIMIT_EXCEEDED);
+    }
+
+    /**
+     * Looks up the content addressed blob of the target.
+     *
+     * @param target the name, type and content hash of the file.
+     * @return the stored blob, if any.
+     */
+    @Override
+    public Optional<Blob> findStored(UploadTarget target) {
+        if (target.contentHash() == null) {
+            return Optional.empty();
+        }
+        String containerName = determineContainerForContentType(target.contentType());
+        BlockBlobClient blobClient = getBlobClient(target.contentAddressedName(), containerName);
         try {
-            byte[] bytes = file.getBytes();
-            try (InputStream inputStream = new ByteArrayInputStream(bytes)) {
-                // Upload the file, overwriting if it already exists
-                blobClient.upload(inputStream, bytes.length, true);
-                BlobHttpHeaders headers = new BlobHttpHeaders();
-                headers.setContentType(contentType);
-                blobClient.setHttpHeaders(headers);
+            if (!blobClient.exists()) {
+                return Optional.empty();
             }
-            log.info("File '{}' uploaded to Azure in {} container", file.getOriginalFilename(), containerName);
-            return new Blob(file.getOriginalFilename(), contentType, blobClient.getBlobUrl(), file.getSize());
+            long size = blobClient.getProperties().getBlobSize();
+            return Optional.of(new Blob(target.name(), target.contentType(), blobClient.getBlobUrl(), size));
         } catch (Exception e) {
-            log.error("Failed to upload file to Azure", e);
-            throw new StorageException(StorageException.CloudStorageExceptionType.AZURE_FAILED_TO_UPLOAD_FILE);
+            log.warn("Could not look up Azure blob {}: {}", target.contentAddressedName(), e.getMessage());
+            return Optional.empty();
         }
     }
 
     /**
-     * Uploads multiple files to cloud storage.
+     * Opens the content addressed blob of the target for reading.
      *
-     * @param files array of files to upload.
-     * @return a list of Blob objects for the uploaded files.
+     * @param target the name, type and content hash of the file.
+     * @return the content of the blob, if it exists.
      */
     @Override
-    public List<Blob> uploadFiles(MultipartFile[] files) {
-        if (files == null || files.length == 0) {
-            return List.of();
+    public Optional<InputStream> openStored(UploadTarget target) {
+        if (target.contentHash() == null) {
+            return Optional.empty();
+        }
+        String containerName = determineContainerForContentType(target.contentType());
+        BlockBlobClient blobClient = getBlobClient(target.contentAddressedName(), containerName);
+        try {
+            if (!blobClient.exists()) {
+                return Optional.empty();
+            }
+            return Optional.of(blobClient.openInputStream());
+        } catch (Exception e) {
+            log.error("Failed to read Azure blob {}", target.contentAddressedName(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
         }
-
-        return Arrays.stream(files)
-                .filter(file -> file != null && !file.isEmpty())
-                .map(this::uploadFile)
-                .filter(Objects::nonNull) // Filter out nulls from failed/empty uploads
-                .collect(Collectors.toList());
     }
 
     /**
@@ -159,13 +240,8 @@ public class AzureAdapter implements Storage {
             return;
         }
 
-        String containerName;
-        // The URL structure is like: https://<account>.blob.core.windows.net/<container>/<blobname>
-        if (url.contains("/" + IMAGES_CONTAINER + "/")) {
-            containerName = IMAGES_CONTAINER;
-        } else if (url.contains("/" + FILES_CONTAINER + "/")) {
-            containerName = FILES_CONTAINER;
-        } else {
+        String containerName = containerOf(url);
+        if (containerName == null) {
             log.warn("Could not determine container from URL for deletion: {}", url);
             return;
         }
@@ -180,4 +256,198 @@ public class AzureAdapter implements Storage {
             // Depending on requirements, you might want to re-throw a custom exception here
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Deletes files with batch requests, of up to 256 blobs each.
+     *
+     * @param urls the full URLs of the files to delete.
+     * @return the URLs of the files that could not be deleted.
+     */
+    @Override
+    public List<String> deleteFiles(List<String> urls) {
+        List<String> failed = new ArrayList<>();
+        List<String> requested = new ArrayList<>(urls.size());
+        List<String> blobUrls = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            String containerName = url == null ? null : containerOf(url);
+            if (containerName == null) {
+                log.warn("Could not determine container from URL for deletion: {}", url);
+                failed.add(url);
+                continue;
+            }
+            requested.add(url);
+            blobUrls.add(getBlobClient(getBlobNameFromUrl(url), containerName).getBlobUrl());
+        }
+
+        for (int from = 0; from < requested.size(); from += MAX_BLOBS_PER_BATCH) {
+            int to = Math.min(from + MAX_BLOBS_PER_BATCH, requested.size());
+            BlobBatch batch = blobBatchClient.getBlobBatch();
+            List<Response<Void>> responses = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                responses.add(batch.deleteBlob(blobUrls.get(i)));
+            }
+            try {
+                // the failed deletes are reported by their own response
+                blobBatchClient.submitBatchWithResponse(batch, false, null, Context.NONE);
+            } catch (Exception e) {
+                log.error("Failed to delete {} Azure blobs", to - from, e);
+                failed.addAll(requested.subList(from, to));
+                continue;
+            }
+            for (int i = from; i < to; i++) {
+                try {
+                    responses.get(i - from).getStatusCode();
+                } catch (BlobStorageException e) {
+                    if (e.getStatusCode() != 404) {
+                        log.warn("Could not delete Azure blob {}: {}", blobUrls.get(i), e.getErrorCode());
+                        failed.add(requested.get(i));
+                    }
+                }
+            }
+            log.info("Deleted up to {} Azure blobs", to - from);
+        }
+        return failed;
+    }
+
+    /**
+     * Lists the blobs of the files container, then of the images container. The cursor is the
+     * name of the container and the continuation token of Azure within it.
+     */
+    @Override
+    public BlobPage listBlobs(String cursor, int limit) {
+        String containerName = LISTED_CONTAINERS.getFirst();
+        String continuationToken = null;
+        if (cursor != null) {
+            int separator = cursor.indexOf(CURSOR_SEPARATOR);
+            containerName = separator < 0 ? cursor : cursor.substring(0, separator);
+            continuationToken = separator < 0 || separator == cursor.length() - 1 ? null : cursor.substring(separator + 1);
+            if (!LISTED_CONTAINERS.contains(containerName)) {
+                throw new StorageException(StorageException.CloudStorageExceptionType.INVALID_LIST_CURSOR);
+            }
+        }
+
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(containerName);
+        List<StoredBlob> blobs;
+        String nextToken;
+        try {
+            PagedResponse<BlobItem> page = containerClient
+                    .listBlobs(new ListBlobsOptions().setMaxResultsPerPage(limit), null)
+                    .iterableByPage(continuationToken, limit)
+                    .iterator()
+                    .next();
+            blobs = page.getValue().stream()
+                    .map(item -> new StoredBlob(
+                            containerClient.getBlobClient(item.getName()).getBlobUrl(),
+                            item.getProperties().getContentLength(),
+                            item.getProperties().getLastModified().toInstant()))
+                    .toList();
+            nextToken = page.getContinuationToken();
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() != 404) {
+                log.error("Failed to list Azure container {}", containerName, e);
+                throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+            }
+            // the container was never created
+            blobs = List.of();
+            nextToken = null;
+        }
+
+        if (nextToken != null) {
+            return new BlobPage(blobs, containerName + CURSOR_SEPARATOR + nextToken);
+        }
+        int next = LISTED_CONTAINERS.indexOf(containerName) + 1;
+        return next < LISTED_CONTAINERS.size()
+                ? new BlobPage(blobs, LISTED_CONTAINERS.get(next) + CURSOR_SEPARATOR)
+                : BlobPage.last(blobs);
+    }
+
+    /**
+     * Presigns a Put Blob with a service SAS, allowed to create the blob only.
+     *
+     * @param target    the name and type of the file.
+     * @param size      the size of the file in bytes.
+     * @param expiresAt when the SAS expires.
+     * @return the request to send the blob with.
+     */
+    @Override
+    public PresignedUpload presignUpload(UploadTarget target, long size, Instant expiresAt) {
+        String containerName = determineContainerForContentType(target.contentType());
+        BlockBlobClient blobClient = getBlobClient(java.util.UUID.randomUUID() + "-" + target.name(), containerName);
+        try {
+            String sas = blobClient.generateSas(new BlobServiceSasSignatureValues(
+                    expiresAt.atOffset(ZoneOffset.UTC),
+                    new BlobSasPermission().setCreatePermission(true).setWritePermission(true)));
+            return PresignedUpload.put(
+                    blobClient.getBlobUrl() + "?" + sas,
+                    Map.of(
+                            "x-ms-blob-type", "BlockBlob",
+                            "Content-Type", target.contentType(),
+                            "x-ms-blob-content-type", target.contentType()),
+                    blobClient.getBlobUrl());
+        } catch (Exception e) {
+            log.error("Failed to presign upload of '{}'", target.name(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.AZURE_FAILED_TO_UPLOAD_FILE);
+        }
+    }
+
+    /**
+     * Presigns a read of the blob with a service SAS.
+     *
+     * @param url       the full URL of the blob.
+     * @param expiresAt when the SAS expires.
+     * @return the URL of the blob, with the SAS.
+     */
+    @Override
+    public String presignDownload(String url, Instant expiresAt) {
+        String containerName = containerOf(url);
+        if (containerName == null) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.FILE_NOT_FOUND);
+        }
+        BlockBlobClient blobClient = getBlobClient(getBlobNameFromUrl(url), containerName);
+        try {
+            return blobClient.getBlobUrl() + "?" + blobClient.generateSas(new BlobServiceSasSignatureValues(
+                    expiresAt.atOffset(ZoneOffset.UTC), new BlobSasPermission().setReadPermission(true)));
+        } catch (Exception e) {
+            log.error("Failed to presign download of {}", url, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    /**
+     * Reads the size of the blob from its properties.
+     *
+     * @param url the full URL of the blob.
+     * @return the size of the blob, if it exists.
+     */
+    @Override
+    public Optional<Long> findSize(String url) {
+        String containerName = containerOf(url);
+        if (containerName == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(getBlobClient(getBlobNameFromUrl(url), containerName).getProperties().getBlobSize());
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == 404) {
+                return Optional.empty();
+            }
+            log.error("Failed to look up Azure blob {}", url, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    /**
+     * The URL structure is like: https://<account>.blob.core.windows.net/<container>/<blobname>
+     *
+     * @param url the URL of a blob.
+     * @return the container of the blob, or null if it is not one of this storage.
+     */
+    private static String containerOf(String url) {
+        if (url.contains("/" + IMAGES_CONTAINER + "/")) {
+            return IMAGES_CONTAINER;
+        } else if (url.contains("/" + FILES_CONTAINER + "/")) {
+            return FILES_CONTAINER;
+        }
+        return null;
+    }
+}
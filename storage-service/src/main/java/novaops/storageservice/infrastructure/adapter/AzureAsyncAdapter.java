@@ -0,0 +1,140 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import com.azure.core.util.BinaryData;
+import com.azure.storage.blob.BlobAsyncClient;
+import com.azure.storage.blob.BlobServiceAsyncClient;
+import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.ParallelTransferOptions;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.FileUploadResult;
+import novaops.storageservice.domain.service.AsyncStorage;
+import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking adapter for Azure cloud storage. Files are streamed to the blob in blocks uploaded
+ * in parallel, and the content type is set by the same request.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+@ConditionalOnProperty(name = "app.storage.provider", havingValue = "azure")
+public class AzureAsyncAdapter implements AsyncStorage {
+
+    private final StorageProperties storageProperties;
+    private final ConcurrentUploadEngine uploadEngine;
+
+    @Value("${spring.cloud.azure.storage.blob.connection-string}")
+    private String connectionString;
+
+    private BlobServiceAsyncClient blobServiceAsyncClient;
+
+    @PostConstruct
+    public void init() {
+        this.blobServiceAsyncClient = new BlobServiceClientBuilder()
+                .connectionString(connectionString)
+                .buildAsyncClient();
+        log.info("Azure async adapter is active.");
+    }
+
+    /**
+     * Uploads a file to the appropriate Azure container based on its content type.
+     *
+     * @param file the file to upload.
+     * @return completes with a Blob object with details of the uploaded file.
+     */
+    @Override
+    public CompletableFuture<Blob> uploadFile(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            log.warn("Upload attempt with null or empty file.");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String contentType = file.getContentType();
+        String containerName = AzureAdapter.determineContainerForContentType(contentType);
+
+        // Validate file size based on type
+        if (AzureAdapter.IMAGES_CONTAINER.equals(containerName) && file.getSize() > AzureAdapter.MAX_IMAGE_SIZE) {
+            return CompletableFuture.failedFuture(
+                    new StorageException(StorageException.CloudStorageExceptionType.IMAGE_SIZE_LIMIT_EXCEEDED));
+        } else if (AzureAdapter.FILES_CONTAINER.equals(containerName) && file.getSize() > AzureAdapter.MAX_FILE_SIZE) {
+            return CompletableFuture.failedFuture(
+                    new StorageException(StorageException.CloudStorageExceptionType.FILE_SIZE_LIMIT_EXCEEDED));
+        }
+
+        InputStream inputStream;
+        try {
+            inputStream = file.getInputStream();
+        } catch (IOException e) {
+            log.error("Could not read file '{}'", file.getOriginalFilename(), e);
+            return CompletableFuture.failedFuture(
+                    new StorageException(StorageException.CloudStorageExceptionType.AZURE_FAILED_TO_UPLOAD_FILE));
+        }
+
+        String blobName = UUID.randomUUID() + "-" + file.getOriginalFilename();
+        BlobAsyncClient blobClient = blobServiceAsyncClient.getBlobContainerAsyncClient(containerName)
+                .getBlobAsyncClient(blobName);
+        long blockSize = storageProperties.getUpload().getAzureBlockSize().toBytes();
+        BlobParallelUploadOptions options = new BlobParallelUploadOptions(BinaryData.fromStream(inputStream, file.getSize()))
+                .setParallelTransferOptions(new ParallelTransferOptions()
+                        .setBlockSizeLong(blockSize)
+                        .setMaxSingleUploadSizeLong(blockSize)
+                        .setMaxConcurrency(storageProperties.getUpload().getAzureParallelBlocks()))
+                .setHeaders(new BlobHttpHeaders().setContentType(contentType));
+
+        return blobClient.uploadWithResponse(options)
+                .map(response -> {
+                    log.info("File '{}' uploaded to Azure in {} container", file.getOriginalFilename(), containerName);
+                    return new Blob(file.getOriginalFilename(), contentType, blobClient.getBlobUrl(), file.getSize());
+                })
+                .onErrorMap(e -> !(e instanceof StorageException), e -> {
+                    log.error("Failed to upload file to Azure", e);
+                    return new StorageException(StorageException.CloudStorageExceptionType.AZURE_FAILED_TO_UPLOAD_FILE);
+                })
+                .doFinally(signal -> close(inputStream, file))
+                .toFuture();
+    }
+
+    /**
+     * Uploads multiple files to cloud storage, several at a time.
+     *
+     * @param files array of files to upload.
+     * @return completes with one result per file.
+     */
+    @Override
+    public CompletableFuture<List<FileUploadResult>> uploadFiles(MultipartFile[] files) {
+        if (files == null || files.length == 0) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return uploadEngine.uploadAllAsync(
+                Arrays.stream(files).filter(Objects::nonNull).toList(),
+                MultipartFile::getOriginalFilename,
+                this::uploadFile);
+    }
+
+    private static void close(InputStream inputStream, MultipartFile file) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.warn("Could not close file '{}': {}", file.getOriginalFilename(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import com.azure.core.util.Context;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
+import com.azure.storage.blob.options.BlockBlobSimpleUploadOptions;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.exception.StorageException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Streams a file to a block blob. Chunks are collected into one {@link PartBuffer}, which is staged
+ * every time it fills up; the staged blocks are committed at the end. A file smaller than a block
+ * is uploaded with a single request.
+ */
+@Log4j2
+class AzureUploadSession implements UploadSession {
+
+    private final BlockBlobClient blobClient;
+    private final UploadTarget target;
+    private final int blockSize;
+    private final long maxSize;
+    private final StorageException.CloudStorageExceptionType sizeLimitExceeded;
+    private final List<String> blockIds = new ArrayList<>();
+
+    private PartBuffer block;
+    private long size;
+
+    AzureUploadSession(
+            BlockBlobClient blobClient,
+            UploadTarget target,
+            int blockSize,
+            long maxSize,
+            StorageException.CloudStorageExceptionType sizeLimitExceeded) {
+        this.blobClient = blobClient;
+        this.target = target;
+        this.blockSize = blockSize;
+        this.maxSize = maxSize;
+        this.sizeLimitExceeded = sizeLimitExceeded;
+    }
+
+    @Override
+    public void write(ByteBuffer chunk) {
+        size += chunk.remaining();
+        if (size > maxSize) {
+            throw new StorageException(sizeLimitExceeded);
+        }
+        if (block == null) {
+            block = new PartBuffer(blockSize);
+        }
+        while (chunk.hasRemaining()) {
+            if (block.fill(chunk)) {
+                stageBlock();
+            }
+        }
+    }
+
+    private void stageBlock() {
+        // block ids must all have the same length
+        String blockId = Base64.getEncoder()
+                .encodeToString(String.format("%08d", blockIds.size()).getBytes(StandardCharsets.UTF_8));
+        try {
+            blobClient.stageBlock(blockId, block.inputStream(), block.length());
+        } catch (Exception e) {
+            log.error("Failed to stage block of file '{}' in Azure", target.name(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.AZURE_FAILED_TO_UPLOAD_FILE);
+        }
+        blockIds.add(blockId);
+        block.clear();
+    }
+
+    @Override
+    public Blob complete() {
+        BlobHttpHeaders headers = new BlobHttpHeaders().setContentType(target.contentType());
+        try {
+            if (blockIds.isEmpty()) {
+                InputStream data = block != null ? block.inputStream() : new ByteArrayInputStream(new byte[0]);
+                int length = block != null ? block.length() : 0;
+                blobClient.uploadWithResponse(
+                        new BlockBlobSimpleUploadOptions(data, length)
+                                .setHeaders(headers),
+                        null,
+                        Context.NONE);
+            } else {
+                if (block.length() > 0) {
+                    stageBlock();
+                }
+                blobClient.commitBlockListWithResponse(
+                        new BlockBlobCommitBlockListOptions(blockIds).setHeaders(headers),
+                        null,
+                        Context.NONE);
+            }
+        } catch (StorageException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to upload file '{}' to Azure", target.name(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.AZURE_FAILED_TO_UPLOAD_FILE);
+        } finally {
+            block = null;
+        }
+        log.info("File '{}' streamed to Azure in {} blocks ({} bytes)", target.name(), Math.max(1, blockIds.size()), size);
+        return new Blob(target.name(), target.contentType(), blobClient.getBlobUrl(), size);
+    }
+
+    @Override
+    public Optional<String> url() {
+        return Optional.of(blobClient.getBlobUrl());
+    }
+
+    /**
+     * Staged blocks that are never committed are discarded by Azure after a week, there is
+     * nothing to delete.
+     */
+    @Override
+    public void abort() {
+        block = null;
+    }
+}
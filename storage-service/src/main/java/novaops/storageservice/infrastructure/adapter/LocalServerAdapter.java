@@ -2,10 +2,20 @@ package novaops.storageservice.infrastructure.adapter;
 
 
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.BlobPage;
+import novaops.storageservice.domain.model.FileUploadResult;
+import novaops.storageservice.domain.model.PresignedUpload;
+import novaops.storageservice.domain.model.StoredBlob;
+import novaops.storageservice.domain.model.UploadTarget;
 import novaops.storageservice.domain.service.Storage;
+import novaops.storageservice.domain.service.UploadSession;
 import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.infrastructure.presign.DirectUpload;
+import novaops.storageservice.infrastructure.presign.UploadTokens;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
@@ -14,13 +24,26 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import static java.lang.System.currentTimeMillis;
 
@@ -28,6 +51,7 @@ import static java.lang.System.currentTimeMillis;
  * Adapter class for local file storage
  */
 @Component
+@RequiredArgsConstructor
 @Log4j2
 @Primary
 @ConditionalOnProperty(name = "app.storage.provider", havingValue = "local")
@@ -42,11 +66,16 @@ public class LocalServerAdapter implements Storage {
     @Value("${app.backend-url}")
     public String backendUrl;
 
+    private final ConcurrentUploadEngine uploadEngine;
+    private final UploadTokens uploadTokens;
+
     private Path uploadPath;
 
     private static final String IMAGES_FOLDER = "images";
     private static final String FILES_FOLDER = "files";
 
+    public static final String DIRECT_UPLOAD_PATH = "/direct-uploads";
+
     @PostConstruct
     public void init() {
         try {
@@ -160,54 +189,322 @@ public class LocalServerAdapter implements Storage {
     }
 
     @Override
-    public List<Blob> uploadFiles(MultipartFile[] files) {
+    public List<FileUploadResult> uploadFiles(MultipartFile[] files) {
         if (files == null || files.length == 0) {
             return new ArrayList<>();
         }
-        List<Blob> blobs = new ArrayList<>();
-        for (MultipartFile file : files) {
+        return uploadEngine.uploadAll(
+                Arrays.stream(files).filter(Objects::nonNull).toList(),
+                MultipartFile::getOriginalFilename,
+                this::uploadFile);
+    }
+
+    @Override
+    public UploadSession openUpload(UploadTarget target) {
+        String originalFilename = StringUtils.cleanPath(Objects.requireNonNull(target.name()));
+        String generatedFileName = target.contentHash() != null
+                ? target.contentAddressedName()
+                : UUID.randomUUID() + "_" + currentTimeMillis() + originalFilename;
+        String subfolder = determineSubfolderForContentType(target.contentType());
+        Path targetPath = resolveInSubfolder(subfolder, generatedFileName);
+        return new LocalUploadSession(target, targetPath, publicUrl(subfolder, generatedFileName));
+    }
+
+    @Override
+    public Optional<Blob> findStored(UploadTarget target) {
+        if (target.contentHash() == null) {
+            return Optional.empty();
+        }
+        String fileName = target.contentAddressedName();
+        String subfolder = determineSubfolderForContentType(target.contentType());
+        Path path = resolveInSubfolder(subfolder, fileName);
+        try {
+            if (!Files.isRegularFile(path)) {
+                return Optional.empty();
+            }
+            return Optional.of(new Blob(target.name(), target.contentType(), publicUrl(subfolder, fileName), Files.size(path)));
+        } catch (IOException e) {
+            log.warn("Could not read stored file '{}': {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<InputStream> openStored(UploadTarget target) {
+        if (target.contentHash() == null) {
+            return Optional.empty();
+        }
+        Path path = resolveInSubfolder(determineSubfolderForContentType(target.contentType()), target.contentAddressedName());
+        try {
+            return Optional.of(Files.newInputStream(path));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.error("Could not read stored file '{}'", path, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    private Path resolveInSubfolder(String subfolder, String fileName) {
+        Path subfolderPath = this.uploadPath.resolve(subfolder);
+        Path targetPath = subfolderPath.resolve(fileName).normalize();
+
+        // Security check: Ensure the file is stored within the appropriate subfolder
+        if (!targetPath.getParent().equals(subfolderPath)) {
+            log.error("Cannot store file outside designated subfolder. Attempted path: {}", targetPath);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+        return targetPath;
+    }
+
+    private String publicUrl(String subfolder, String fileName) {
+        return this.backendUrl + this.publicUrlPrefix + "/" + subfolder + "/" + fileName;
+    }
+
+    /**
+     * Resolves a stored file from its subfolder and name, as found in its public URL
+     *
+     * @param subfolder the subfolder of the file
+     * @param fileName  the name of the file
+     * @return the path of the file, if it is a stored file
+     */
+    public Optional<Path> resolveStored(String subfolder, String fileName) {
+        if (!IMAGES_FOLDER.equals(subfolder) && !FILES_FOLDER.equals(subfolder)) {
+            return Optional.empty();
+        }
+        Path subfolderPath = this.uploadPath.resolve(subfolder);
+        Path filePath = subfolderPath.resolve(fileName).normalize();
+        if (!subfolderPath.equals(filePath.getParent()) || !Files.isRegularFile(filePath)) {
+            return Optional.empty();
+        }
+        return Optional.of(filePath);
+    }
+
+    /**
+     * Resolves a stored file from its URL
+     *
+     * @param url the URL of the file, as returned on upload
+     * @return the path of the file, if it is a stored file
+     */
+    public Optional<Path> resolveStored(String url) {
+        String relativePath = url == null ? null : relativePathOf(url);
+        if (relativePath == null) {
+            return Optional.empty();
+        }
+        int slash = relativePath.indexOf('/');
+        if (slash < 0) {
+            return Optional.empty();
+        }
+        return resolveStored(relativePath.substring(0, slash), relativePath.substring(slash + 1));
+    }
+
+    /**
+     * Extracts the path of a file below the upload directory from its URL
+     *
+     * @param url the URL of the file
+     * @return the relative path, or null if the URL is not one of this storage
+     */
+    private String relativePathOf(String url) {
+        String relativePath = null;
+        if (url.startsWith("http://") || url.startsWith("https://")) {
+            // If it's a full URL, find the path after the publicUrlPrefix
+            int prefixIndex = url.indexOf(this.publicUrlPrefix);
+            if (prefixIndex != -1) {
+                relativePath = url.substring(prefixIndex + this.publicUrlPrefix.length());
+                relativePath = relativePath.startsWith("/") ? relativePath.substring(1) : relativePath;
+            }
+        } else if (url.startsWith(this.publicUrlPrefix)) {
+            // Handle case when URL starts with just the prefix but not the full URL
+            relativePath = url.substring(this.publicUrlPrefix.length());
+            relativePath = relativePath.startsWith("/") ? relativePath.substring(1) : relativePath;
+        } else {
+            // Assume it's just the path after the public URL prefix
+            relativePath = url.startsWith("/") ? url.substring(1) : url;
+        }
+        return relativePath;
+    }
+
+    /**
+     * Presigns a PUT to the direct upload endpoint of this service, with a signed token standing
+     * in for the signature of a cloud storage
+     */
+    @Override
+    public PresignedUpload presignUpload(UploadTarget target, long size, Instant expiresAt) {
+        String originalFilename = StringUtils.cleanPath(Objects.requireNonNull(target.name()));
+        String fileName = UUID.randomUUID() + "_" + currentTimeMillis() + originalFilename;
+        String subfolder = determineSubfolderForContentType(target.contentType());
+        // fails on a name escaping the subfolder
+        resolveInSubfolder(subfolder, fileName);
+        String url = publicUrl(subfolder, fileName);
+        String token = uploadTokens.issue(new DirectUpload(url, target.name(), target.contentType(), size, expiresAt));
+        return PresignedUpload.put(this.backendUrl + DIRECT_UPLOAD_PATH + "/" + token,
+                Map.of("Content-Type", target.contentType()), url);
+    }
+
+    /**
+     * The local files are served at their public URL, which is returned as is
+     */
+    @Override
+    public String presignDownload(String url, Instant expiresAt) {
+        if (resolveStored(url).isEmpty()) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.FILE_NOT_FOUND);
+        }
+        return url;
+    }
+
+    @Override
+    public Optional<Long> findSize(String url) {
+        return resolveStored(url).flatMap(path -> {
             try {
-                Blob blob = uploadFile(file);
-                if (blob != null) {
-                    blobs.add(blob);
-                }
-            } catch (StorageException e) {
-                // Log and continue with other files, or decide on different error handling
-                log.error("Failed to upload one of the files in batch: {}", e.getMessage());
+                return Optional.of(Files.size(path));
+            } catch (NoSuchFileException e) {
+                return Optional.empty();
+            } catch (IOException e) {
+                log.error("Could not read stored file '{}'", path, e);
+                throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
             }
+        });
+    }
+
+    /**
+     * Starts writing a presigned upload at the URL it was given
+     *
+     * @param upload the presigned upload
+     * @return the session to write the file to, or nothing if the file was already sent
+     */
+    public Optional<UploadSession> openDirectUpload(DirectUpload upload) {
+        String relativePath = relativePathOf(upload.url());
+        int slash = relativePath == null ? -1 : relativePath.indexOf('/');
+        if (slash < 0) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.INVALID_UPLOAD_TOKEN);
+        }
+        Path targetPath = resolveInSubfolder(relativePath.substring(0, slash), relativePath.substring(slash + 1));
+        if (Files.exists(targetPath)) {
+            return Optional.empty();
         }
-        return blobs;
+        return Optional.of(new LocalUploadSession(
+                new UploadTarget(upload.name(), upload.contentType()), targetPath, upload.url()));
     }
 
     @Override
     public void deleteFile(String url) {
-        if (url == null || url.isEmpty()) {
-            log.warn("Delete attempt with null or empty URL.");
-            return;
+        delete(url);
+    }
+
+    /**
+     * Deletes the files side by side, on virtual threads, as many at a time as batch uploads.
+     */
+    @Override
+    public List<String> deleteFiles(List<String> urls) {
+        Semaphore permits = new Semaphore(uploadEngine.concurrency());
+        List<Future<Boolean>> deletions = new ArrayList<>(urls.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String url : urls) {
+                deletions.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return delete(url);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            Future<Boolean> deletion = deletions.get(i);
+            if (deletion.state() != Future.State.SUCCESS || !deletion.resultNow()) {
+                failed.add(urls.get(i));
+            }
         }
+        return failed;
+    }
 
-        try {
-            // Extract filename and subfolder from URL
-            String relativePath = null;
-            if (url.startsWith("http://") || url.startsWith("https://")) {
-                // If it's a full URL, find the path after the publicUrlPrefix
-                int prefixIndex = url.indexOf(this.publicUrlPrefix);
-                if (prefixIndex != -1) {
-                    relativePath = url.substring(prefixIndex + this.publicUrlPrefix.length());
-                    relativePath = relativePath.startsWith("/") ? relativePath.substring(1) : relativePath;
+    /**
+     * Lists the files of both subfolders, ordered by their path. The cursor is the path of the
+     * last file of the previous page.
+     */
+    @Override
+    public BlobPage listBlobs(String cursor, int limit) {
+        String afterFolder = cursor == null ? "" : cursor.substring(0, Math.max(cursor.indexOf('/'), 0));
+        String afterName = cursor == null ? "" : cursor.substring(cursor.indexOf('/') + 1);
+
+        List<Path> found = new ArrayList<>(limit + 1);
+        for (String folder : List.of(FILES_FOLDER, IMAGES_FOLDER)) {
+            if (folder.compareTo(afterFolder) < 0) {
+                continue;
+            }
+            String after = folder.equals(afterFolder) ? afterName : "";
+            found.addAll(firstFiles(this.uploadPath.resolve(folder), after, limit + 1 - found.size()));
+            if (found.size() > limit) {
+                break;
+            }
+        }
+
+        List<StoredBlob> blobs = new ArrayList<>(Math.min(found.size(), limit));
+        for (Path path : found.subList(0, Math.min(found.size(), limit))) {
+            try {
+                String subfolder = path.getParent().getFileName().toString();
+                String fileName = path.getFileName().toString();
+                blobs.add(new StoredBlob(publicUrl(subfolder, fileName), Files.size(path),
+                        Files.getLastModifiedTime(path).toInstant()));
+            } catch (IOException e) {
+                // deleted since it was listed
+                log.debug("Skipping '{}' in listing: {}", path, e.getMessage());
+            }
+        }
+        if (found.size() <= limit) {
+            return BlobPage.last(blobs);
+        }
+        Path last = found.get(limit - 1);
+        return new BlobPage(blobs, last.getParent().getFileName() + "/" + last.getFileName());
+    }
+
+    /**
+     * Finds the first files of a folder, by name, without sorting the whole folder.
+     *
+     * @param folder the folder to list
+     * @param after  only files with a greater name are returned
+     * @param count  the number of files to return
+     * @return the files, ordered by name
+     */
+    private List<Path> firstFiles(Path folder, String after, int count) {
+        // the greatest name on top, so it is the one dropped when a smaller one is found
+        PriorityQueue<Path> first = new PriorityQueue<>(count + 1, Comparator.<Path, Path>comparing(Path::getFileName).reversed());
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.compareTo(after) <= 0 || name.endsWith(LocalUploadSession.PART_SUFFIX) || !Files.isRegularFile(entry)) {
+                    continue;
+                }
+                first.add(entry);
+                if (first.size() > count) {
+                    first.poll();
                 }
-            } else if (url.startsWith(this.publicUrlPrefix)) {
-                // Handle case when URL starts with just the prefix but not the full URL
-                relativePath = url.substring(this.publicUrlPrefix.length());
-                relativePath = relativePath.startsWith("/") ? relativePath.substring(1) : relativePath;
-            } else {
-                // Assume it's just the path after the public URL prefix
-                relativePath = url.startsWith("/") ? url.substring(1) : url;
             }
+        } catch (IOException e) {
+            log.error("Could not list folder '{}'", folder, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+        List<Path> files = new ArrayList<>(first);
+        files.sort(Comparator.comparing(Path::getFileName));
+        return files;
+    }
 
+    /**
+     * @return whether the file is gone: deleted now or already missing
+     */
+    private boolean delete(String url) {
+        if (url == null || url.isEmpty()) {
+            log.warn("Delete attempt with null or empty URL.");
+            return false;
+        }
+
+        try {
+            String relativePath = relativePathOf(url);
             if (relativePath == null || relativePath.isEmpty()) {
                 log.warn("Could not extract relative path from URL for deletion: {}", url);
-                return;
+                return false;
             }
 
             Path filePath = this.uploadPath.resolve(relativePath).normalize();
@@ -215,7 +512,7 @@ public class LocalServerAdapter implements Storage {
             // Security check - ensure the file is within the upload directory
             if (!filePath.startsWith(this.uploadPath)) {
                 log.error("Attempt to delete file outside designated upload directory: {}", filePath);
-                return;
+                return false;
             }
 
             boolean deleted = Files.deleteIfExists(filePath);
@@ -224,12 +521,14 @@ public class LocalServerAdapter implements Storage {
             } else {
                 log.warn("File not found for deletion, or already deleted: {}", filePath);
             }
+            return true;
         } catch (IOException e) {
             log.error("Failed to delete file with URL {}: {}", url, e);
         } catch (Exception e) {
             log.error("Error during deletion process for URL {}: {}", url, e.getMessage());
         }
+        return false;
     }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.exception.StorageException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Writes the chunks straight to a file channel. The file is written under a temporary name and
+ * renamed once complete, so a partial upload is never served.
+ */
+@Log4j2
+class LocalUploadSession implements UploadSession {
+
+    static final String PART_SUFFIX = ".part";
+
+    private final UploadTarget target;
+    private final Path targetPath;
+    private final Path partPath;
+    private final String url;
+    private final FileChannel channel;
+    private long size;
+
+    LocalUploadSession(UploadTarget target, Path targetPath, String url) {
+        this.target = target;
+        this.targetPath = targetPath;
+        // unique, as the same content addressed file may be written by two uploads at once
+        this.partPath = targetPath.resolveSibling(targetPath.getFileName() + "." + UUID.randomUUID() + PART_SUFFIX);
+        this.url = url;
+        try {
+            this.channel = FileChannel.open(partPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            log.error("Could not create file '{}'", partPath, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer chunk) {
+        try {
+            while (chunk.hasRemaining()) {
+                size += channel.write(chunk);
+            }
+        } catch (IOException e) {
+            log.error("Failed to write to file '{}'", partPath, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    @Override
+    public Blob complete() {
+        try {
+            channel.close();
+            Files.move(partPath, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Failed to store file '{}'", targetPath, e);
+            abort();
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+        log.info("File '{}' streamed to '{}' ({} bytes)", target.name(), targetPath, size);
+        return new Blob(target.name(), target.contentType(), url, size);
+    }
+
+    @Override
+    public Optional<String> url() {
+        return Optional.of(url);
+    }
+
+    @Override
+    public void abort() {
+        try {
+            channel.close();
+            Files.deleteIfExists(partPath);
+        } catch (IOException e) {
+            log.warn("Could not delete partial upload '{}': {}", partPath, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Collects the bytes of one part of a streamed upload. The buffer starts small and doubles as it
+ * fills up, up to the part size, so a file smaller than a part only allocates about its own size.
+ * The full-size buffer is then kept for the next parts.
+ */
+final class PartBuffer {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private final int partSize;
+    private byte[] bytes = new byte[0];
+    private int length;
+
+    PartBuffer(int partSize) {
+        this.partSize = partSize;
+    }
+
+    /**
+     * Copies the chunk until it is consumed or the part is full.
+     *
+     * @param chunk the received bytes, its position is moved past the copied ones
+     * @return true when the part is full and must be uploaded
+     */
+    boolean fill(ByteBuffer chunk) {
+        int count = Math.min(chunk.remaining(), partSize - length);
+        if (length + count > bytes.length) {
+            int grown = Math.max(INITIAL_CAPACITY, bytes.length * 2);
+            bytes = Arrays.copyOf(bytes, Math.min(partSize, Math.max(length + count, grown)));
+        }
+        chunk.get(bytes, length, count);
+        length += count;
+        return length == partSize;
+    }
+
+    int length() {
+        return length;
+    }
+
+    InputStream inputStream() {
+        return new ByteArrayInputStream(bytes, 0, length);
+    }
+
+    void clear() {
+        length = 0;
+    }
+}
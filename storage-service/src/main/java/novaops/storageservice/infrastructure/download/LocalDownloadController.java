@@ -0,0 +1,144 @@
+package novaops.storageservice.infrastructure.download;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves the files of the local storage at their public URL.
+ * <p>
+ * Supports single byte ranges and conditional requests on the ETag and the last modification date.
+ * The files are handed to Tomcat's sendfile when the connector supports it, which writes them to the
+ * socket without reading them. Otherwise they are copied from the file through the response buffer.
+ */
+@RestController
+@RequiredArgsConstructor
+@Log4j2
+@ConditionalOnProperty(name = "app.storage.provider", havingValue = "local")
+public class LocalDownloadController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalDownloads localDownloads;
+    private final StorageProperties storageProperties;
+
+    @GetMapping("${app.file.uploads.public-url-prefix:/uploads}/{subfolder}/{fileName:.+}")
+    public void download(
+            @PathVariable String subfolder,
+            @PathVariable String fileName,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        Optional<LocalDownloads.StoredFile> found = localDownloads.find(subfolder, fileName);
+        if (found.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        LocalDownloads.StoredFile file = found.get();
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                CacheControl.maxAge(storageProperties.getDownload().getCacheMaxAge()).cachePublic().getHeaderValue());
+        // sets the ETag and Last-Modified headers, and answers 304 when the client has the file
+        if (new ServletWebRequest(request, response).checkNotModified(file.eTag(), file.lastModified())) {
+            return;
+        }
+        response.setContentType(file.mediaType().toString());
+
+        long start = 0;
+        long end = file.size() - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeStillValid(request, file)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // several ranges are answered with the whole file
+                if (ranges.size() == 1) {
+                    start = ranges.getFirst().getRangeStart(file.size());
+                    end = ranges.getFirst().getRangeEnd(file.size());
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + file.size());
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.size());
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+        transfer(file, start, length, request, response);
+    }
+
+    private void transfer(
+            LocalDownloads.StoredFile file,
+            long start,
+            long length,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file to the socket itself once the request returns
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, output);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * @return false when an If-Range header names another version of the file, which must then be
+     * sent whole
+     */
+    private static boolean rangeStillValid(HttpServletRequest request, LocalDownloads.StoredFile file) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(file.eTag());
+        }
+        try {
+            return file.lastModified() / 1000 <= request.getDateHeader(HttpHeaders.IF_RANGE) / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
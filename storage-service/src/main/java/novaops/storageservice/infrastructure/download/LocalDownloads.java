@@ -0,0 +1,121 @@
+package novaops.storageservice.infrastructure.download;
+
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.infrastructure.adapter.LocalServerAdapter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Looks up the files of the local storage for the downloads. The small ones stay memory mapped
+ * while they are requested, so the gRPC downloads of a popular avatar neither open the file nor
+ * copy it into the heap.
+ */
+@Component
+@Log4j2
+@ConditionalOnProperty(name = "app.storage.provider", havingValue = "local")
+public class LocalDownloads {
+
+    private final LocalServerAdapter localServerAdapter;
+    private final long mmapThreshold;
+    private final Map<Path, MappedFile> mappedFiles;
+
+    public LocalDownloads(LocalServerAdapter localServerAdapter, StorageProperties storageProperties) {
+        this.localServerAdapter = localServerAdapter;
+        this.mmapThreshold = storageProperties.getDownload().getMmapThreshold().toBytes();
+        int cacheSize = storageProperties.getDownload().getMmapCacheSize();
+        this.mappedFiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, MappedFile> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @param subfolder the subfolder of the file, from its URL
+     * @param fileName  the name of the file, from its URL
+     * @return the stored file, if any
+     */
+    public Optional<StoredFile> find(String subfolder, String fileName) {
+        return localServerAdapter.resolveStored(subfolder, fileName).flatMap(this::describe);
+    }
+
+    /**
+     * @param url the URL of the file, as returned on upload
+     * @return the stored file, if any
+     */
+    public Optional<StoredFile> findByUrl(String url) {
+        return localServerAdapter.resolveStored(url).flatMap(this::describe);
+    }
+
+    /**
+     * Returns the content of a small file from memory. The buffer is shared: read it through a
+     * duplicate or a slice.
+     *
+     * @param file a stored file
+     * @return the mapped content, or empty when the file is too large to be mapped
+     */
+    public Optional<ByteBuffer> mapped(StoredFile file) throws IOException {
+        if (file.size() > mmapThreshold || file.size() == 0) {
+            return Optional.empty();
+        }
+        synchronized (mappedFiles) {
+            MappedFile mapped = mappedFiles.get(file.path());
+            if (mapped != null && mapped.lastModified() == file.lastModified() && mapped.buffer().capacity() == file.size()) {
+                return Optional.of(mapped.buffer());
+            }
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+        }
+        synchronized (mappedFiles) {
+            mappedFiles.put(file.path(), new MappedFile(buffer, file.lastModified()));
+        }
+        return Optional.of(buffer);
+    }
+
+    private Optional<StoredFile> describe(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            String eTag = "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified) + "\"";
+            MediaType mediaType = MediaTypeFactory.getMediaType(path.getFileName().toString())
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM);
+            return Optional.of(new StoredFile(path, attributes.size(), lastModified, eTag, mediaType));
+        } catch (IOException e) {
+            log.warn("Could not read stored file '{}': {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * A file of the local storage.
+     *
+     * @param path         where the file is stored
+     * @param size         the size of the file
+     * @param lastModified when the file was written, in milliseconds
+     * @param eTag         the quoted entity tag of the current content
+     * @param mediaType    the type of the file, from its extension
+     */
+    public record StoredFile(Path path, long size, long lastModified, String eTag, MediaType mediaType) {
+    }
+
+    private record MappedFile(MappedByteBuffer buffer, long lastModified) {
+    }
+}
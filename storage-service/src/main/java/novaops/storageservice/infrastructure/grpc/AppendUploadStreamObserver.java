@@ -0,0 +1,129 @@
+package novaops.storageservice.infrastructure.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.infrastructure.upload.ResumableUploadManager;
+import novaops.storageservice.infrastructure.upload.StagedUpload;
+import org.novaops.storageservice.proto.AppendUploadRequest;
+import org.novaops.storageservice.proto.UploadAck;
+import org.novaops.storageservice.proto.UploadPosition;
+
+/**
+ * Appends the chunks of one request to a resumable upload. The data is forced to disk and its
+ * offset acknowledged every <b>app.storage.upload.ack-interval</b>, so a client that loses the
+ * connection knows where to resume from. Whatever was received is kept when the request fails.
+ */
+@Log4j2
+public class AppendUploadStreamObserver implements StreamObserver<AppendUploadRequest> {
+
+    private final ResumableUploadManager uploadManager;
+    private final StreamObserver<UploadAck> responseObserver;
+    private final long ackInterval;
+    private StagedUpload upload;
+    private boolean done;
+
+    public AppendUploadStreamObserver(
+            ResumableUploadManager uploadManager,
+            StreamObserver<UploadAck> responseObserver,
+            long ackInterval) {
+        this.uploadManager = uploadManager;
+        this.responseObserver = responseObserver;
+        this.ackInterval = ackInterval;
+    }
+
+    @Override
+    public void onNext(AppendUploadRequest request) {
+        if (done) {
+            return;
+        }
+        try {
+            switch (request.getRequestCase()) {
+                case POSITION -> {
+                    if (upload != null) {
+                        fail(Status.INVALID_ARGUMENT.withDescription("Upload position sent twice"));
+                        return;
+                    }
+                    UploadPosition position = request.getPosition();
+                    upload = uploadManager.attach(position.getUploadId(), position.getOffset());
+                    completeIfDone();
+                }
+                case CHUNK_DATA -> {
+                    if (upload == null) {
+                        fail(Status.INVALID_ARGUMENT.withDescription("Upload position must be sent before the data"));
+                        return;
+                    }
+                    upload.append(request.getChunkData().asReadOnlyByteBuffer());
+                    if (!completeIfDone() && upload.unflushedBytes() >= ackInterval) {
+                        responseObserver.onNext(UploadAck.newBuilder().setOffset(upload.flush()).build());
+                    }
+                }
+                default -> fail(Status.INVALID_ARGUMENT.withDescription("Empty append request"));
+            }
+        } catch (Exception e) {
+            log.error("Append to upload failed: {}", e.getMessage());
+            fail(GrpcMapping.toStatus(e));
+        }
+    }
+
+    /**
+     * Stores the file once its declared size has been received.
+     *
+     * @return whether the upload is complete
+     */
+    private boolean completeIfDone() {
+        if (!upload.isComplete()) {
+            return false;
+        }
+        StagedUpload completed = upload;
+        upload = null;
+        done = true;
+        long offset = completed.flush();
+        Blob blob = uploadManager.complete(completed);
+        responseObserver.onNext(UploadAck.newBuilder()
+                .setOffset(offset)
+                .setBlob(GrpcMapping.toGrpcBlob(blob))
+                .build());
+        responseObserver.onCompleted();
+        return true;
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        // The connection dropped: keep what was received, the client resumes from the last ack.
+        log.warn("Append to upload interrupted by the client: {}", t.getMessage());
+        done = true;
+        detach();
+    }
+
+    @Override
+    public void onCompleted() {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (upload == null) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("No upload position was sent").asRuntimeException());
+            return;
+        }
+        // The client paused before the end of the file: acknowledge what it sent.
+        long offset = upload.flush();
+        detach();
+        responseObserver.onNext(UploadAck.newBuilder().setOffset(offset).build());
+        responseObserver.onCompleted();
+    }
+
+    private void fail(Status status) {
+        done = true;
+        detach();
+        responseObserver.onError(status.asRuntimeException());
+    }
+
+    private void detach() {
+        if (upload != null) {
+            upload.detach();
+            upload = null;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package novaops.storageservice.infrastructure.grpc;
+
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.infrastructure.download.LocalDownloads;
+import org.novaops.storageservice.proto.Blob;
+import org.novaops.storageservice.proto.DownloadChunk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a file of the local storage, or a range of it, to a gRPC client. Chunks are only sent
+ * while the call is ready, so a slow client holds back the reads instead of filling the outbound
+ * buffer. A memory mapped file is sent as views of its mapping.
+ */
+@Log4j2
+class DownloadFileStreamer {
+
+    private final ServerCallStreamObserver<DownloadChunk> responseObserver;
+    private final LocalDownloads.StoredFile file;
+    private final ByteBuffer mapped;
+    private final int chunkSize;
+    private final long end;
+
+    private FileChannel channel;
+    private long position;
+    private boolean infoSent;
+    private boolean done;
+
+    DownloadFileStreamer(
+            ServerCallStreamObserver<DownloadChunk> responseObserver,
+            LocalDownloads.StoredFile file,
+            ByteBuffer mapped,
+            int chunkSize,
+            long offset,
+            long length) {
+        this.responseObserver = responseObserver;
+        this.file = file;
+        this.mapped = mapped;
+        this.chunkSize = chunkSize;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    void start() {
+        responseObserver.setOnCancelHandler(this::cancel);
+        responseObserver.setOnReadyHandler(this::sendWhileReady);
+        sendWhileReady();
+    }
+
+    private synchronized void sendWhileReady() {
+        if (done) {
+            return;
+        }
+        try {
+            while (responseObserver.isReady()) {
+                if (!infoSent) {
+                    responseObserver.onNext(DownloadChunk.newBuilder()
+                            .setInfo(Blob.newBuilder()
+                                    .setName(file.path().getFileName().toString())
+                                    .setType(file.mediaType().toString())
+                                    .setSize(file.size()))
+                            .build());
+                    infoSent = true;
+                    continue;
+                }
+                if (position >= end) {
+                    finish();
+                    responseObserver.onCompleted();
+                    return;
+                }
+                int length = (int) Math.min(chunkSize, end - position);
+                responseObserver.onNext(DownloadChunk.newBuilder()
+                        .setChunkData(UnsafeByteOperations.unsafeWrap(read(length)))
+                        .build());
+                position += length;
+            }
+        } catch (IOException e) {
+            log.error("Failed to read '{}' for download", file.path(), e);
+            finish();
+            responseObserver.onError(Status.INTERNAL.withDescription("Failed to read the file").asRuntimeException());
+        }
+    }
+
+    private ByteBuffer read(int length) throws IOException {
+        if (mapped != null) {
+            return mapped.slice((int) position, length);
+        }
+        if (channel == null) {
+            channel = FileChannel.open(file.path(), StandardOpenOption.READ);
+        }
+        // a fresh buffer per chunk, so it can be wrapped instead of copied
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("File ended before the requested range");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private synchronized void cancel() {
+        log.info("Download of '{}' cancelled by the client", file.path().getFileName());
+        finish();
+    }
+
+    private void finish() {
+        done = true;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close '{}': {}", file.path(), e.getMessage());
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package novaops.storageservice.infrastructure.grpc;
+
+import io.grpc.Status;
+import novaops.storageservice.exception.StorageException;
+import org.novaops.storageservice.proto.Blob;
+
+/**
+ * Conversions between the domain and the gRPC messages and statuses.
+ */
+final class GrpcMapping {
+
+    private GrpcMapping() {
+    }
+
+    /**
+     * Converts the domain model 'Blob' to the gRPC 'Blob' protobuf message.
+     */
+    static Blob toGrpcBlob(novaops.storageservice.domain.model.Blob blob) {
+        return Blob.newBuilder()
+                .setName(blob.name())
+                .setUrl(blob.url())
+                .setType(blob.type())
+                .setSize(blob.size())
+                .putAllVariants(blob.variants())
+                .build();
+    }
+
+    /**
+     * Maps a failure to the gRPC status the client can act on.
+     */
+    static Status toStatus(Exception e) {
+        if (!(e instanceof StorageException storageException)) {
+            return Status.INTERNAL.withDescription(e.getMessage());
+        }
+        String messageKey = storageException.getMessageKey();
+        Status status;
+        if (is(messageKey, StorageException.CloudStorageExceptionType.UPLOAD_NOT_FOUND)
+                || is(messageKey, StorageException.CloudStorageExceptionType.FILE_NOT_FOUND)) {
+            status = Status.NOT_FOUND;
+        } else if (is(messageKey, StorageException.CloudStorageExceptionType.INVALID_UPLOAD_OFFSET)) {
+            status = Status.FAILED_PRECONDITION;
+        } else if (is(messageKey, StorageException.CloudStorageExceptionType.UPLOAD_IN_PROGRESS)) {
+            status = Status.ABORTED;
+        } else if (is(messageKey, StorageException.CloudStorageExceptionType.UPLOAD_HASH_MISMATCH)) {
+            status = Status.DATA_LOSS;
+        } else if (is(messageKey, StorageException.CloudStorageExceptionType.FILE_SIZE_LIMIT_EXCEEDED)
+                || is(messageKey, StorageException.CloudStorageExceptionType.IMAGE_SIZE_LIMIT_EXCEEDED)) {
+            status = Status.RESOURCE_EXHAUSTED;
+        } else if (is(messageKey, StorageException.CloudStorageExceptionType.INVALID_LIST_CURSOR)) {
+            status = Status.INVALID_ARGUMENT;
+        } else if (is(messageKey, StorageException.CloudStorageExceptionType.INVALID_UPLOAD_TOKEN)) {
+            status = Status.PERMISSION_DENIED;
+        } else if (is(messageKey, StorageException.CloudStorageExceptionType.UPLOAD_SIZE_MISMATCH)) {
+            status = Status.FAILED_PRECONDITION;
+        } else {
+            status = Status.INTERNAL;
+        }
+        return status.withDescription(e.getMessage());
+    }
+
+    private static boolean is(String messageKey, StorageException.CloudStorageExceptionType type) {
+        return type.getMessageKey().equals(messageKey);
+    }
+}
@@ -1,21 +1,64 @@
 package novaops.storageservice.infrastructure.grpc;
 
 import com.google.protobuf.Empty;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.BlobPage;
+import novaops.storageservice.domain.model.UploadTarget;
 import novaops.storageservice.domain.service.Storage;
+import novaops.storageservice.infrastructure.download.LocalDownloads;
+import novaops.storageservice.infrastructure.image.ImageVariantService;
+import novaops.storageservice.infrastructure.presign.DirectTransferService;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
+import novaops.storageservice.infrastructure.upload.ResumableUploadManager;
+import org.novaops.storageservice.proto.AppendUploadRequest;
 import org.novaops.storageservice.proto.Blob;
+import org.novaops.storageservice.proto.CompleteUploadRequest;
+import org.novaops.storageservice.proto.DeleteFilesRequest;
+import org.novaops.storageservice.proto.DeleteFilesResponse;
 import org.novaops.storageservice.proto.DeleteRequest;
+import org.novaops.storageservice.proto.DownloadChunk;
+import org.novaops.storageservice.proto.DownloadRequest;
+import org.novaops.storageservice.proto.FileUploadResult;
+import org.novaops.storageservice.proto.ListBlobsRequest;
+import org.novaops.storageservice.proto.ListBlobsResponse;
+import org.novaops.storageservice.proto.PresignDownloadRequest;
+import org.novaops.storageservice.proto.PresignDownloadResponse;
+import org.novaops.storageservice.proto.PresignUploadRequest;
+import org.novaops.storageservice.proto.PresignUploadResponse;
+import org.novaops.storageservice.proto.StartUploadRequest;
+import org.novaops.storageservice.proto.StartUploadResponse;
 import org.novaops.storageservice.proto.StorageServiceGrpc;
+import org.novaops.storageservice.proto.StoredBlob;
+import org.novaops.storageservice.proto.UploadAck;
+import org.novaops.storageservice.proto.UploadOffsetRequest;
+import org.novaops.storageservice.proto.UploadOffsetResponse;
 import org.novaops.storageservice.proto.UploadRequest;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 public class GrpcService extends StorageServiceGrpc.StorageServiceImplBase {
 
+    private static final int MAX_DELETE_URLS = 10_000;
+    private static final int MAX_LIST_LIMIT = 1_000;
 
     private final Storage storage;
+    private final ResumableUploadManager uploadManager;
+    private final StorageProperties storageProperties;
+    private final ConcurrentUploadEngine uploadEngine;
+    private final ImageVariantService imageVariantService;
+    private final ObjectProvider<LocalDownloads> localDownloads;
+    private final DirectTransferService directTransferService;
 
 
     /**
@@ -27,7 +70,18 @@ public class GrpcService extends StorageServiceGrpc.StorageServiceImplBase {
      */
     @Override
     public StreamObserver<UploadRequest> uploadFile(StreamObserver<Blob> responseObserver) {
-        return new UploadFileStreamObserver(storage, responseObserver);
+        return new UploadFileStreamObserver(imageVariantService, responseObserver);
+    }
+
+    /**
+     * Uploads a stream of files, several at a time, and streams back one result per file.
+     *
+     * @param responseObserver An observer to send the result of every file back to the client.
+     * @return An observer to handle the client's messages.
+     */
+    @Override
+    public StreamObserver<UploadRequest> uploadFiles(StreamObserver<FileUploadResult> responseObserver) {
+        return new UploadFilesStreamObserver(imageVariantService, uploadEngine, responseObserver);
     }
 
     /**
@@ -49,4 +103,192 @@ public class GrpcService extends StorageServiceGrpc.StorageServiceImplBase {
         }
     }
 
+    /**
+     * Deletes many files at once. The files that could not be deleted are returned, not failed.
+     */
+    @Override
+    public void deleteFiles(DeleteFilesRequest request, StreamObserver<DeleteFilesResponse> responseObserver) {
+        if (request.getUrlsCount() > MAX_DELETE_URLS) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("At most " + MAX_DELETE_URLS + " files can be deleted at once")
+                    .asRuntimeException());
+            return;
+        }
+        try {
+            List<String> failed = storage.deleteFiles(request.getUrlsList());
+            responseObserver.onNext(DeleteFilesResponse.newBuilder().addAllFailedUrls(failed).build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(GrpcMapping.toStatus(e).asRuntimeException());
+        }
+    }
+
+    /**
+     * Lists one page of the stored files.
+     */
+    @Override
+    public void listBlobs(ListBlobsRequest request, StreamObserver<ListBlobsResponse> responseObserver) {
+        int limit = request.getLimit() <= 0 ? MAX_LIST_LIMIT : Math.min(request.getLimit(), MAX_LIST_LIMIT);
+        try {
+            BlobPage page = storage.listBlobs(request.getCursor().isEmpty() ? null : request.getCursor(), limit);
+            ListBlobsResponse.Builder response = ListBlobsResponse.newBuilder();
+            for (novaops.storageservice.domain.model.StoredBlob blob : page.blobs()) {
+                response.addBlobs(StoredBlob.newBuilder()
+                        .setUrl(blob.url())
+                        .setSize(blob.size())
+                        .setLastModified(blob.lastModified().toEpochMilli()));
+            }
+            if (page.nextCursor() != null) {
+                response.setNextCursor(page.nextCursor());
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(GrpcMapping.toStatus(e).asRuntimeException());
+        }
+    }
+
+    /**
+     * Starts a resumable upload, or returns the stored blob right away when the client declared a
+     * hash whose content is already stored.
+     */
+    @Override
+    public void startUpload(StartUploadRequest request, StreamObserver<StartUploadResponse> responseObserver) {
+        try {
+            ResumableUploadManager.StartedUpload started = uploadManager.start(
+                    new UploadTarget(request.getInfo().getName(), request.getInfo().getContentType()),
+                    request.getSize(),
+                    request.getSha256());
+            StartUploadResponse.Builder response = StartUploadResponse.newBuilder().setOffset(started.offset());
+            if (started.blob() != null) {
+                response.setBlob(GrpcMapping.toGrpcBlob(started.blob()));
+            } else {
+                response.setUploadId(started.uploadId());
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(GrpcMapping.toStatus(e).asRuntimeException());
+        }
+    }
+
+    /**
+     * Returns the offset a resumable upload continues from.
+     */
+    @Override
+    public void getUploadOffset(UploadOffsetRequest request, StreamObserver<UploadOffsetResponse> responseObserver) {
+        try {
+            ResumableUploadManager.UploadStatus status = uploadManager.status(request.getUploadId());
+            responseObserver.onNext(UploadOffsetResponse.newBuilder()
+                    .setOffset(status.offset())
+                    .setSize(status.size())
+                    .build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(GrpcMapping.toStatus(e).asRuntimeException());
+        }
+    }
+
+    /**
+     * Appends a stream of chunks to a resumable upload, acknowledging the stored offset as it goes.
+     */
+    @Override
+    public StreamObserver<AppendUploadRequest> appendUpload(StreamObserver<UploadAck> responseObserver) {
+        return new AppendUploadStreamObserver(
+                uploadManager,
+                responseObserver,
+                storageProperties.getUpload().getAckInterval().toBytes());
+    }
+
+    /**
+     * Streams a file of the local storage, or a range of it.
+     */
+    @Override
+    public void downloadFile(DownloadRequest request, StreamObserver<DownloadChunk> responseObserver) {
+        LocalDownloads downloads = localDownloads.getIfAvailable();
+        if (downloads == null) {
+            responseObserver.onError(Status.UNIMPLEMENTED
+                    .withDescription("Downloads are only served by the local storage")
+                    .asRuntimeException());
+            return;
+        }
+        Optional<LocalDownloads.StoredFile> found = downloads.findByUrl(request.getUrl());
+        if (found.isEmpty()) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("File not found").asRuntimeException());
+            return;
+        }
+        LocalDownloads.StoredFile file = found.get();
+        long offset = request.getOffset();
+        long length = request.getLength() == 0 ? file.size() - offset : request.getLength();
+        if (offset < 0 || length < 0 || offset + length > file.size()) {
+            responseObserver.onError(Status.OUT_OF_RANGE
+                    .withDescription("Range outside of the " + file.size() + " bytes of the file")
+                    .asRuntimeException());
+            return;
+        }
+        try {
+            ByteBuffer mapped = downloads.mapped(file).orElse(null);
+            new DownloadFileStreamer(
+                    (ServerCallStreamObserver<DownloadChunk>) responseObserver,
+                    file,
+                    mapped,
+                    (int) storageProperties.getDownload().getChunkSize().toBytes(),
+                    offset,
+                    length).start();
+        } catch (IOException e) {
+            responseObserver.onError(Status.INTERNAL.withDescription("Failed to read the file").asRuntimeException());
+        }
+    }
+
+    /**
+     * Presigns the upload of a file, sent by the client straight to the storage.
+     */
+    @Override
+    public void presignUpload(PresignUploadRequest request, StreamObserver<PresignUploadResponse> responseObserver) {
+        try {
+            DirectTransferService.Grant grant = directTransferService.presignUpload(
+                    new UploadTarget(request.getInfo().getName(), request.getInfo().getContentType()),
+                    request.getSize());
+            responseObserver.onNext(PresignUploadResponse.newBuilder()
+                    .setUploadUrl(grant.request().uploadUrl())
+                    .setMethod(grant.request().method())
+                    .putAllHeaders(grant.request().headers())
+                    .setUploadToken(grant.uploadToken())
+                    .setExpiresAt(grant.expiresAt().toEpochMilli())
+                    .build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(GrpcMapping.toStatus(e).asRuntimeException());
+        }
+    }
+
+    /**
+     * Completes a presigned upload, once the client has sent the file.
+     */
+    @Override
+    public void completeUpload(CompleteUploadRequest request, StreamObserver<Blob> responseObserver) {
+        try {
+            responseObserver.onNext(GrpcMapping.toGrpcBlob(directTransferService.completeUpload(request.getUploadToken())));
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(GrpcMapping.toStatus(e).asRuntimeException());
+        }
+    }
+
+    /**
+     * Presigns the download of a file, read by the client straight from the storage.
+     */
+    @Override
+    public void presignDownload(PresignDownloadRequest request, StreamObserver<PresignDownloadResponse> responseObserver) {
+        try {
+            DirectTransferService.Download download = directTransferService.presignDownload(request.getUrl());
+            responseObserver.onNext(PresignDownloadResponse.newBuilder()
+                    .setDownloadUrl(download.downloadUrl())
+                    .setExpiresAt(download.expiresAt().toEpochMilli())
+                    .build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(GrpcMapping.toStatus(e).asRuntimeException());
+        }
+    }
 }
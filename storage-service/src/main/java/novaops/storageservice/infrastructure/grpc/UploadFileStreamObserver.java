@@ -1,104 +1,106 @@
 package novaops.storageservice.infrastructure.grpc;
 
 
-import com.google.protobuf.ByteString;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
-import novaops.storageservice.domain.service.Storage;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.infrastructure.image.ImageVariantService;
 import org.novaops.storageservice.proto.Blob;
 import org.novaops.storageservice.proto.FileInfo;
 import org.novaops.storageservice.proto.UploadRequest;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 
+/**
+ * Streams an uploaded file to the storage as its chunks arrive. The chunks are handed to the
+ * {@link UploadSession} as read-only views of the received messages, without being copied, and
+ * gRPC only requests the next message once the previous one has been written, so a slow backend
+ * slows the client down instead of filling the heap.
+ */
+@Log4j2
 public class UploadFileStreamObserver implements StreamObserver<UploadRequest> {
 
-    private final Storage storage;
+    private final ImageVariantService imageVariantService;
     private final StreamObserver<Blob> responseObserver;
-    private FileInfo fileInfo;
-    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private UploadSession session;
+    private boolean failed;
 
-    public UploadFileStreamObserver(Storage storage, StreamObserver<Blob> responseObserver) {
-        this.storage = storage;
+    public UploadFileStreamObserver(ImageVariantService imageVariantService, StreamObserver<Blob> responseObserver) {
+        this.imageVariantService = imageVariantService;
         this.responseObserver = responseObserver;
     }
 
     @Override
     public void onNext(UploadRequest request) {
-        // The client sends a stream of messages. We use the 'oneof' to see what's inside.
-        switch (request.getRequestCase()) {
-            case INFO:
-                // This is the first message, containing metadata. Store it.
-                this.fileInfo = request.getInfo();
-                break;
-            case CHUNK_DATA:
-                // These are subsequent messages with the file's raw bytes.
-                // Write the received bytes into our in-memory buffer.
-                try {
-                    ByteString chunk = request.getChunkData();
-                    buffer.write(chunk.toByteArray());
-                } catch (IOException e) {
-                    // If writing to the buffer fails, abort the operation.
-                    responseObserver.onError(e);
-                    this.closeBuffer();
+        if (failed) {
+            return;
+        }
+        try {
+            // The client sends a stream of messages. We use the 'oneof' to see what's inside.
+            switch (request.getRequestCase()) {
+                case INFO -> {
+                    // This is the first message, containing metadata: open the upload.
+                    if (session != null) {
+                        fail(Status.INVALID_ARGUMENT.withDescription("File info sent twice"));
+                        return;
+                    }
+                    FileInfo fileInfo = request.getInfo();
+                    session = imageVariantService.openUpload(new UploadTarget(fileInfo.getName(), fileInfo.getContentType()));
+                }
+                case CHUNK_DATA -> {
+                    // These are subsequent messages with the file's raw bytes.
+                    if (session == null) {
+                        fail(Status.INVALID_ARGUMENT.withDescription("File info must be sent before the data"));
+                        return;
+                    }
+                    session.write(request.getChunkData().asReadOnlyByteBuffer());
                 }
-                break;
+                default -> fail(Status.INVALID_ARGUMENT.withDescription("Empty upload request"));
+            }
+        } catch (Exception e) {
+            log.error("Upload failed: {}", e.getMessage());
+            // e.g. a file over the size limit is the client's fault, not an internal error
+            fail(GrpcMapping.toStatus(e));
         }
     }
 
     @Override
     public void onError(Throwable t) {
-        // The client's stream had an error.
-        // Log the error and clean up resources.
-        System.err.println("Upload failed with error: " + t.getMessage());
-        this.closeBuffer();
+        // The client's stream had an error: drop what was written so far.
+        log.warn("Upload cancelled by the client: {}", t.getMessage());
+        abort();
     }
 
     @Override
     public void onCompleted() {
-        // The client has finished sending all chunks.
-        // Now we can process the complete file.
+        if (failed) {
+            return;
+        }
+        if (session == null) {
+            fail(Status.INVALID_ARGUMENT.withDescription("No file was sent"));
+            return;
+        }
         try {
-            // 1. Create a MultipartFile from the received data.
-            byte[] fileBytes = buffer.toByteArray();
-            MultipartFile multipartFile = new CustomMultipartFile(
-                    fileBytes,
-                    fileInfo.getName(),
-                    fileInfo.getContentType()
-            );
-
-            // 2. Call your existing business logic.
-            novaops.storageservice.domain.model.Blob domainBlob = storage.uploadFile(multipartFile);
+            Blob grpcBlob = GrpcMapping.toGrpcBlob(session.complete());
 
-            // 3. Convert your domain model 'Blob' to the gRPC 'Blob' protobuf message.
-            Blob grpcBlob = Blob.newBuilder()
-                    .setName(domainBlob.name())
-                    .setUrl(domainBlob.url())
-                    .setType(domainBlob.type())
-                    .setSize(domainBlob.size())
-                    .build();
-
-            // 4. Send the final response to the client.
             responseObserver.onNext(grpcBlob);
-
-            // 5. Signal that the RPC is successfully completed.
             responseObserver.onCompleted();
-
         } catch (Exception e) {
-            responseObserver.onError(e); // Inform the client of the error.
-        } finally {
-            this.closeBuffer(); // Clean up the buffer.
+            log.error("Upload failed: {}", e.getMessage());
+            responseObserver.onError(GrpcMapping.toStatus(e).asRuntimeException());
         }
     }
 
-    private void closeBuffer() {
-        try {
-            buffer.close();
-        } catch (IOException e) {
-            // Log this, but the primary error has likely already been sent.
-            e.printStackTrace();
+    private void fail(Status status) {
+        failed = true;
+        abort();
+        responseObserver.onError(status.asRuntimeException());
+    }
+
+    private void abort() {
+        if (session != null) {
+            session.abort();
+            session = null;
         }
     }
 }
-
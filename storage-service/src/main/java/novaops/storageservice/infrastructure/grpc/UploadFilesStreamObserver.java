@@ -0,0 +1,201 @@
+package novaops.storageservice.infrastructure.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.infrastructure.image.ImageVariantService;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
+import org.novaops.storageservice.proto.FileInfo;
+import org.novaops.storageservice.proto.FileUploadResult;
+import org.novaops.storageservice.proto.UploadRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams a batch of files to the storage over one call. The chunks of the current file are
+ * written as they arrive, like {@link UploadFileStreamObserver} does, while the files already
+ * received are completed on the {@link ConcurrentUploadEngine}: small files, which are only sent to
+ * the backend when completed, are therefore stored several at a time.
+ * <p>
+ * A failed file is reported in its result and does not end the call.
+ */
+@Log4j2
+public class UploadFilesStreamObserver implements StreamObserver<UploadRequest> {
+
+    private final ImageVariantService imageVariantService;
+    private final ConcurrentUploadEngine uploadEngine;
+    private final StreamObserver<FileUploadResult> responseObserver;
+    // bounds the files waiting to be completed, and the buffers they hold
+    private final Semaphore pending;
+    private final List<CompletableFuture<Void>> completions = new ArrayList<>();
+
+    private int index = -1;
+    private String name;
+    private UploadSession session;
+    private boolean skipping;
+    private volatile boolean done;
+
+    public UploadFilesStreamObserver(
+            ImageVariantService imageVariantService,
+            ConcurrentUploadEngine uploadEngine,
+            StreamObserver<FileUploadResult> responseObserver) {
+        this.imageVariantService = imageVariantService;
+        this.uploadEngine = uploadEngine;
+        this.responseObserver = responseObserver;
+        this.pending = new Semaphore(uploadEngine.concurrency());
+    }
+
+    @Override
+    public void onNext(UploadRequest request) {
+        if (done) {
+            return;
+        }
+        switch (request.getRequestCase()) {
+            case INFO -> {
+                completeCurrent();
+                FileInfo fileInfo = request.getInfo();
+                index++;
+                name = fileInfo.getName();
+                skipping = false;
+                try {
+                    session = imageVariantService.openUpload(new UploadTarget(fileInfo.getName(), fileInfo.getContentType()));
+                } catch (Exception e) {
+                    failCurrent(e);
+                }
+            }
+            case CHUNK_DATA -> {
+                if (index < 0) {
+                    fail(Status.INVALID_ARGUMENT.withDescription("File info must be sent before the data"));
+                    return;
+                }
+                if (skipping) {
+                    return;
+                }
+                try {
+                    session.write(request.getChunkData().asReadOnlyByteBuffer());
+                } catch (Exception e) {
+                    failCurrent(e);
+                }
+            }
+            default -> fail(Status.INVALID_ARGUMENT.withDescription("Empty upload request"));
+        }
+    }
+
+    /**
+     * Hands the current file to the engine. Blocks while too many files of this call are still
+     * being completed, which holds back the client.
+     */
+    private void completeCurrent() {
+        if (session == null) {
+            return;
+        }
+        UploadSession completing = session;
+        int fileIndex = index;
+        String fileName = name;
+        session = null;
+        try {
+            pending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completing.abort();
+            fail(Status.CANCELLED.withDescription("Upload interrupted"));
+            return;
+        }
+        completions.add(uploadEngine.submit(() -> {
+                    try {
+                        return completing.complete();
+                    } catch (RuntimeException e) {
+                        completing.abort();
+                        throw e;
+                    }
+                })
+                .handle((blob, error) -> {
+                    pending.release();
+                    FileUploadResult.Builder result = FileUploadResult.newBuilder()
+                            .setIndex(fileIndex)
+                            .setName(fileName);
+                    if (error == null) {
+                        result.setBlob(GrpcMapping.toGrpcBlob(blob));
+                    } else {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause()
+                                : error;
+                        log.error("Failed to upload '{}' in batch: {}", fileName, cause.getMessage());
+                        result.setError(String.valueOf(cause.getMessage()));
+                    }
+                    send(result.build());
+                    return null;
+                }));
+    }
+
+    private void failCurrent(Exception e) {
+        log.error("Failed to upload '{}' in batch: {}", name, e.getMessage());
+        if (session != null) {
+            session.abort();
+            session = null;
+        }
+        skipping = true;
+        send(FileUploadResult.newBuilder()
+                .setIndex(index)
+                .setName(name)
+                .setError(String.valueOf(e.getMessage()))
+                .build());
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        // The client's stream had an error: drop the current file, the completed ones are kept.
+        log.warn("Batch upload cancelled by the client: {}", t.getMessage());
+        abortCurrent();
+        synchronized (this) {
+            done = true;
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        if (done) {
+            return;
+        }
+        completeCurrent();
+        CompletableFuture.allOf(completions.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, error) -> {
+                    synchronized (this) {
+                        if (!done) {
+                            done = true;
+                            responseObserver.onCompleted();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Results are sent from the engine's threads as well as from the gRPC one.
+     */
+    private synchronized void send(FileUploadResult result) {
+        if (!done) {
+            responseObserver.onNext(result);
+        }
+    }
+
+    private synchronized void fail(Status status) {
+        abortCurrent();
+        if (!done) {
+            done = true;
+            responseObserver.onError(status.asRuntimeException());
+        }
+    }
+
+    private void abortCurrent() {
+        if (session != null) {
+            session.abort();
+            session = null;
+        }
+    }
+}
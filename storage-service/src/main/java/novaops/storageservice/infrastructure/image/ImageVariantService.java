@@ -0,0 +1,354 @@
+package novaops.storageservice.infrastructure.image;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.Storage;
+import novaops.storageservice.domain.service.UploadSession;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Makes resized variants of the uploaded images, e.g. a thumbnail and a medium size, and stores
+ * them next to the original. Their URLs are returned in {@link Blob#variants()}.
+ * <p>
+ * The upload is returned as soon as the original is stored: the variant files are opened right
+ * away, so their URLs are known, and written once a worker has made them. A variant URL may not
+ * resolve for a few moments, or at all when making it fails, so clients fall back to the original.
+ * Storages that only name a file after its content, like the tiered storage, cannot tell the URL
+ * in advance and store images without variants.
+ * <p>
+ * Resizing runs on a fixed pool of <b>app.storage.images.workers</b> threads with a bounded queue,
+ * so a burst of uploads cannot take all the CPU; when the queue is full the image is stored without
+ * variants. Images are decoded from a temporary copy, subsampled close to the largest variant, so
+ * neither the file nor its full resolution pixels are held in memory.
+ */
+@Component
+@Log4j2
+public class ImageVariantService {
+
+    private static final String WEBP = "image/webp";
+
+    private final Storage storage;
+    private final StorageProperties.Images properties;
+    private final ThreadPoolExecutor executor;
+    private final boolean webpAvailable;
+
+    public ImageVariantService(Storage storage, StorageProperties storageProperties) {
+        this.storage = storage;
+        this.properties = storageProperties.getImages();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                properties.getWorkers(),
+                properties.getWorkers(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.webpAvailable = ImageIO.getImageWritersByMIMEType(WEBP).hasNext();
+        if (properties.isWebp() && !webpAvailable) {
+            log.warn("WebP variants are enabled but no ImageIO WebP writer is available, the original format is kept");
+        }
+    }
+
+    /**
+     * Opens an upload, which makes the variants of the file once it is stored if it is an image.
+     *
+     * @param target the name and type of the file
+     * @return the session to write the file to
+     */
+    public UploadSession openUpload(UploadTarget target) {
+        UploadSession session = storage.openUpload(target);
+        if (!properties.isEnabled() || target.contentType() == null || !target.contentType().startsWith("image/")) {
+            return session;
+        }
+        return new ImageVariantSession(session, target, this, properties.getMaxSourceSize().toBytes());
+    }
+
+    /**
+     * Opens the variant files of a stored image and hands the resizing to a worker.
+     *
+     * @param blob   the stored image
+     * @param source a copy of the image, deleted once the variants are made
+     * @return the blob with the URLs of its variants, or as is when no variants are made
+     */
+    Blob attachVariants(UploadTarget target, Blob blob, Path source) {
+        Map<String, UploadSession> sessions = new LinkedHashMap<>();
+        boolean submitted = false;
+        try {
+            Dimension size = readSize(target, source);
+            if (size == null) {
+                return blob;
+            }
+            String format = outputFormat(target.contentType());
+            String contentType = WEBP.equals(format) ? WEBP : "image/" + format;
+            String baseName = StringUtils.stripFilenameExtension(target.name());
+            String extension = WEBP.equals(format) ? "webp" : format;
+
+            Map<String, String> urls = new LinkedHashMap<>();
+            for (String variant : properties.getVariants().keySet()) {
+                UploadSession session = storage.openUpload(
+                        new UploadTarget(baseName + "__" + variant + "." + extension, contentType));
+                sessions.put(variant, session);
+                Optional<String> url = session.url();
+                if (url.isEmpty()) {
+                    log.debug("The storage names files after their content, '{}' is stored without variants", target.name());
+                    abortAll(sessions.values());
+                    return blob;
+                }
+                urls.put(variant, url.get());
+            }
+
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            done.whenComplete((ignored, error) -> {
+                delete(source);
+                if (error != null) {
+                    log.warn("Could not make the variants of '{}': {}", target.name(), error.getMessage());
+                } else {
+                    log.info("Stored {} variants of '{}'", urls.size(), target.name());
+                }
+            });
+            executor.execute(new VariantJob(
+                    () -> resizeAndStore(target, source, size, format, sessions), sessions.values(), done));
+            submitted = true;
+            return blob.withVariants(urls);
+        } catch (RejectedExecutionException e) {
+            log.warn("Image workers are busy, '{}' is stored without variants", target.name());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not make the variants of '{}': {}", target.name(), e.getMessage());
+        } finally {
+            if (!submitted) {
+                abortAll(sessions.values());
+                delete(source);
+            }
+        }
+        return blob;
+    }
+
+    /**
+     * Resizes the image into each variant session and completes it. The sessions not completed are
+     * aborted on failure.
+     */
+    private void resizeAndStore(UploadTarget target, Path source, Dimension size, String format,
+                                Map<String, UploadSession> sessions) {
+        List<UploadSession> pending = new ArrayList<>(sessions.values());
+        try {
+            BufferedImage image = decode(source, size);
+            for (Map.Entry<String, UploadSession> variant : sessions.entrySet()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("interrupted");
+                }
+                int maxDimension = properties.getVariants().get(variant.getKey());
+                BufferedImage resized = resize(image, maxDimension, !"png".equals(format) && !WEBP.equals(format));
+                UploadSession session = variant.getValue();
+                session.write(ByteBuffer.wrap(encode(resized, format)));
+                session.complete();
+                pending.remove(session);
+            }
+        } catch (IOException e) {
+            abortAll(pending);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            abortAll(pending);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the dimensions of the image, so an image that cannot be decoded or has too many pixels
+     * is not given variants.
+     *
+     * @return the width and height of the image, or {@code null} when it gets no variants
+     */
+    private Dimension readSize(UploadTarget target, Path source) throws IOException {
+        return withReader(source, reader -> {
+            if (reader == null) {
+                log.info("'{}' cannot be decoded, it is stored without variants", target.name());
+                return null;
+            }
+            Dimension size = new Dimension(reader.getWidth(0), reader.getHeight(0));
+            long pixels = (long) size.width * size.height;
+            if (pixels > properties.getMaxSourcePixels()) {
+                log.info("'{}' has too many pixels ({}), it is stored without variants", target.name(), pixels);
+                return null;
+            }
+            return size;
+        });
+    }
+
+    /**
+     * Decodes the image, skipping rows and columns it does not need: it is read at no less than
+     * twice the size of the largest variant.
+     */
+    private BufferedImage decode(Path source, Dimension size) throws IOException {
+        int largestVariant = Collections.max(properties.getVariants().values());
+        int subsampling = Math.max(1, Math.max(size.width, size.height) / (2 * largestVariant));
+        return withReader(source, reader -> {
+            if (reader == null) {
+                throw new IOException("The image cannot be decoded anymore");
+            }
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            return reader.read(0, param);
+        });
+    }
+
+    private static <T> T withReader(Path source, ReaderFunction<T> function) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return function.apply(null);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return function.apply(reader);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static void abortAll(Collection<UploadSession> sessions) {
+        for (UploadSession session : sessions) {
+            try {
+                session.abort();
+            } catch (RuntimeException e) {
+                log.warn("Could not discard a variant: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void delete(Path source) {
+        try {
+            Files.deleteIfExists(source);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled image '{}': {}", source, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the ImageIO format name of the variants, or {@link #WEBP}
+     */
+    private String outputFormat(String contentType) {
+        if (properties.isWebp() && webpAvailable) {
+            return WEBP;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        if (type.equals("image/jpeg") || type.equals("image/jpg")) {
+            return "jpeg";
+        }
+        // transparency is kept for every other format
+        return "png";
+    }
+
+    private static BufferedImage resize(BufferedImage source, int maxDimension, boolean opaque) {
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage resized = new BufferedImage(width, height,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (WEBP.equals(format)) {
+            ImageWriter writer = ImageIO.getImageWritersByMIMEType(WEBP).next();
+            try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+                writer.setOutput(imageOutput);
+                writer.write(image);
+            } finally {
+                writer.dispose();
+            }
+        } else if (!ImageIO.write(image, format, output)) {
+            throw new IOException("No image writer for " + format);
+        }
+        return output.toByteArray();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Runnable dropped : executor.shutdownNow()) {
+            if (dropped instanceof VariantJob job) {
+                job.cancel();
+            }
+        }
+    }
+
+    /**
+     * The resizing of an image, which discards its variants and spooled copy when it is dropped from
+     * the queue on shutdown.
+     */
+    private record VariantJob(Runnable work, Collection<UploadSession> sessions, CompletableFuture<Void> done)
+            implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                work.run();
+                done.complete(null);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        void cancel() {
+            abortAll(sessions);
+            done.completeExceptionally(new CancellationException("The service is shutting down"));
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReaderFunction<T> {
+        T apply(ImageReader reader) throws IOException;
+    }
+}
@@ -0,0 +1,135 @@
+package novaops.storageservice.infrastructure.image;
+
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.UploadSession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Passes the chunks of an image on to the storage, spooling a copy of them to a temporary file to
+ * resize the image once it is stored. An image larger than the configured maximum is stored
+ * without variants.
+ */
+@Log4j2
+class ImageVariantSession implements UploadSession {
+
+    private final UploadSession delegate;
+    private final UploadTarget target;
+    private final ImageVariantService variantService;
+    private final long maxSourceSize;
+
+    private Path spool;
+    private FileChannel spoolChannel;
+    private long size;
+    private boolean tooLarge;
+
+    ImageVariantSession(UploadSession delegate, UploadTarget target, ImageVariantService variantService, long maxSourceSize) {
+        this.delegate = delegate;
+        this.target = target;
+        this.variantService = variantService;
+        this.maxSourceSize = maxSourceSize;
+    }
+
+    @Override
+    public void write(ByteBuffer chunk) {
+        if (!tooLarge) {
+            spool(chunk.duplicate());
+        }
+        delegate.write(chunk);
+    }
+
+    private void spool(ByteBuffer chunk) {
+        if (size + chunk.remaining() > maxSourceSize) {
+            tooLarge = true;
+            discardSpool();
+            return;
+        }
+        try {
+            if (spoolChannel == null) {
+                spool = Files.createTempFile("image-variants-", ".part");
+                spoolChannel = FileChannel.open(spool, StandardOpenOption.WRITE);
+            }
+            while (chunk.hasRemaining()) {
+                size += spoolChannel.write(chunk);
+            }
+        } catch (IOException e) {
+            // the upload goes on, only without variants
+            log.warn("Could not spool '{}', it is stored without variants: {}", target.name(), e.getMessage());
+            tooLarge = true;
+            discardSpool();
+        }
+    }
+
+    @Override
+    public Blob complete() {
+        Blob blob;
+        try {
+            blob = delegate.complete();
+        } catch (RuntimeException e) {
+            discardSpool();
+            throw e;
+        }
+        Path source = closeSpool();
+        if (source == null) {
+            return blob;
+        }
+        // the service deletes the spooled copy once the variants are made
+        return variantService.attachVariants(target, blob, source);
+    }
+
+    @Override
+    public Optional<String> url() {
+        return delegate.url();
+    }
+
+    @Override
+    public void abort() {
+        discardSpool();
+        delegate.abort();
+    }
+
+    /**
+     * @return the spooled copy of the image, or {@code null} when there is none
+     */
+    private Path closeSpool() {
+        if (spoolChannel == null || tooLarge || size == 0) {
+            discardSpool();
+            return null;
+        }
+        try {
+            spoolChannel.close();
+        } catch (IOException e) {
+            log.warn("Could not spool '{}', it is stored without variants: {}", target.name(), e.getMessage());
+            discardSpool();
+            return null;
+        }
+        Path source = spool;
+        spool = null;
+        spoolChannel = null;
+        return source;
+    }
+
+    private void discardSpool() {
+        try {
+            if (spoolChannel != null) {
+                spoolChannel.close();
+            }
+            if (spool != null) {
+                Files.deleteIfExists(spool);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete spooled image '{}': {}", spool, e.getMessage());
+        } finally {
+            spool = null;
+            spoolChannel = null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package novaops.storageservice.infrastructure.presign;
+
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.PresignedUpload;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.Storage;
+import novaops.storageservice.exception.StorageException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Lets the clients send and read files straight to and from the storage, with presigned URLs, so
+ * no file data goes through the services.
+ * <p>
+ * An upload is presigned together with a signed token describing it. Once the client has sent
+ * the file, it completes the upload with the token, which checks the stored file against the
+ * declared size. Files uploaded this way are not read by the service, so no image variants are
+ * made of them.
+ */
+@Service
+@Log4j2
+public class DirectTransferService {
+
+    private final Storage storage;
+    private final UploadTokens uploadTokens;
+    private final StorageProperties.Presign properties;
+
+    public DirectTransferService(Storage storage, UploadTokens uploadTokens, StorageProperties storageProperties) {
+        this.storage = storage;
+        this.uploadTokens = uploadTokens;
+        this.properties = storageProperties.getPresign();
+    }
+
+    /**
+     * A presigned upload and the token to complete it with.
+     */
+    public record Grant(PresignedUpload request, String uploadToken, Instant expiresAt) {
+    }
+
+    /**
+     * A presigned download.
+     */
+    public record Download(String downloadUrl, Instant expiresAt) {
+    }
+
+    /**
+     * Presigns the upload of a file.
+     *
+     * @param target the name and type of the file
+     * @param size   the size of the file in bytes
+     * @return the request the client sends the file with, and the token to complete the upload with
+     */
+    public Grant presignUpload(UploadTarget target, long size) {
+        boolean image = target.contentType() != null && target.contentType().startsWith("image/");
+        if (size <= 0) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.UPLOAD_SIZE_MISMATCH);
+        }
+        if (image && size > properties.getMaxImageSize().toBytes()) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.IMAGE_SIZE_LIMIT_EXCEEDED);
+        }
+        if (!image && size > properties.getMaxFileSize().toBytes()) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.FILE_SIZE_LIMIT_EXCEEDED);
+        }
+
+        Instant expiresAt = Instant.now().plus(properties.getTtl());
+        PresignedUpload request = storage.presignUpload(target, size, expiresAt);
+        String token = uploadTokens.issue(
+                new DirectUpload(request.url(), target.name(), target.contentType(), size, expiresAt));
+        log.info("Presigned upload of '{}' ({} bytes) to {}", target.name(), size, request.url());
+        return new Grant(request, token, expiresAt);
+    }
+
+    /**
+     * Completes an upload once the client has sent the file. A file that does not have the
+     * declared size is deleted.
+     *
+     * @param uploadToken the token returned with the presigned upload
+     * @return the stored file
+     */
+    public Blob completeUpload(String uploadToken) {
+        DirectUpload upload = uploadTokens.verify(uploadToken)
+                // the file may have been sent right before the request expired
+                .filter(verified -> Instant.now().isBefore(verified.expiresAt().plus(properties.getTtl())))
+                .orElseThrow(() -> new StorageException(StorageException.CloudStorageExceptionType.INVALID_UPLOAD_TOKEN));
+
+        long size = storage.findSize(upload.url())
+                .orElseThrow(() -> new StorageException(StorageException.CloudStorageExceptionType.FILE_NOT_FOUND));
+        if (size != upload.size()) {
+            log.warn("'{}' was sent with {} bytes instead of {}, it is deleted", upload.name(), size, upload.size());
+            storage.deleteFile(upload.url());
+            throw new StorageException(StorageException.CloudStorageExceptionType.UPLOAD_SIZE_MISMATCH);
+        }
+        return new Blob(upload.name(), upload.contentType(), upload.url(), size);
+    }
+
+    /**
+     * Presigns the download of a file.
+     *
+     * @param url the URL of the file
+     * @return the URL the client reads the file from, and when it expires
+     */
+    public Download presignDownload(String url) {
+        Instant expiresAt = Instant.now().plus(properties.getTtl());
+        return new Download(storage.presignDownload(url, expiresAt), expiresAt);
+    }
+}
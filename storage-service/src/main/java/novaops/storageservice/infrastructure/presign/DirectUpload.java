@@ -0,0 +1,20 @@
+package novaops.storageservice.infrastructure.presign;
+
+import java.time.Instant;
+
+/**
+ * A file the client was allowed to send straight to the storage, as carried by its upload token.
+ *
+ * @param url         the URL the file has once stored
+ * @param name        the original file name
+ * @param contentType the MIME type of the file
+ * @param size        the declared size of the file in bytes
+ * @param expiresAt   when the presigned request stops being accepted
+ */
+public record DirectUpload(
+        String url,
+        String name,
+        String contentType,
+        long size,
+        Instant expiresAt) {
+}
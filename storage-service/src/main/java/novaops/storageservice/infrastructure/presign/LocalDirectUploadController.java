@@ -0,0 +1,77 @@
+package novaops.storageservice.infrastructure.presign;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.infrastructure.adapter.LocalServerAdapter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Receives the files sent with the presigned URLs of the local storage, as a cloud storage would.
+ * <p>
+ * The token of the URL is the signed upload: it names the file and its size, and expires like a
+ * presigned URL. The body is streamed to the file and may not exceed the declared size; the
+ * upload is checked again when the client completes it.
+ */
+@RestController
+@RequiredArgsConstructor
+@Log4j2
+@ConditionalOnProperty(name = "app.storage.provider", havingValue = "local")
+public class LocalDirectUploadController {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final LocalServerAdapter localServerAdapter;
+    private final UploadTokens uploadTokens;
+
+    @PutMapping(LocalServerAdapter.DIRECT_UPLOAD_PATH + "/{token}")
+    public ResponseEntity<Void> upload(@PathVariable String token, HttpServletRequest request) throws IOException {
+        Optional<DirectUpload> verified = uploadTokens.verify(token)
+                .filter(upload -> Instant.now().isBefore(upload.expiresAt()));
+        if (verified.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        DirectUpload upload = verified.get();
+        if (request.getContentLengthLong() > upload.size()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        Optional<UploadSession> opened = localServerAdapter.openDirectUpload(upload);
+        if (opened.isEmpty()) {
+            // a presigned URL uploads one file, once
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        UploadSession session = opened.get();
+        try (InputStream body = request.getInputStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long size = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                size += read;
+                if (size > upload.size()) {
+                    session.abort();
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+                }
+                session.write(ByteBuffer.wrap(buffer, 0, read));
+            }
+            session.complete();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Direct upload of '{}' failed: {}", upload.name(), e.getMessage());
+            session.abort();
+            throw e;
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+}
@@ -0,0 +1,92 @@
+package novaops.storageservice.infrastructure.presign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Signs the {@link DirectUpload}s handed to the clients, so they can be trusted when the clients
+ * send them back. A token is the JSON of the upload and its HMAC-SHA256, both base64url encoded.
+ */
+@Component
+@Log4j2
+public class UploadTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final ObjectMapper objectMapper;
+
+    public UploadTokens(StorageProperties storageProperties, ObjectMapper objectMapper) {
+        String secret = storageProperties.getPresign().getSecret();
+        byte[] keyBytes;
+        if (StringUtils.hasText(secret)) {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            log.warn("app.storage.presign.secret is not set, upload tokens are only valid on this instance until it restarts");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param upload the upload to sign
+     * @return the token of the upload
+     */
+    public String issue(DirectUpload upload) {
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(upload);
+            return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write upload token", e);
+        }
+    }
+
+    /**
+     * @param token a token, as issued
+     * @return the upload of the token, if the token was issued with this key; it may have expired
+     */
+    public Optional<DirectUpload> verify(String token) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return Optional.empty();
+            }
+            return Optional.of(objectMapper.readValue(payload, DirectUpload.class));
+        } catch (IllegalArgumentException | IOException e) {
+            log.debug("Malformed upload token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package novaops.storageservice.infrastructure.tiered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.exception.StorageException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * A least recently used cache of files on the local disk, bounded by
+ * <b>app.storage.tiered.max-size</b>.
+ * <p>
+ * The entries, in their order of use, are saved to an index file every
+ * <b>app.storage.tiered.index-save-interval</b> and on shutdown, and reloaded on startup, so a
+ * restart keeps the cache warm. Files that are not yet stored by the cloud provider are marked
+ * dirty and never evicted.
+ * <p>
+ * Hits, misses and evictions are published as the <b>storage.cache.*</b> metrics.
+ */
+@Component
+@Log4j2
+@ConditionalOnExpression(TieredStorage.CONDITION)
+public class DiskBlobCache {
+
+    private static final String INDEX_FILE = "index.json";
+
+    private final StorageProperties.Tiered properties;
+    private final ObjectMapper objectMapper;
+    // access ordered: the least recently used entry comes first
+    private final LinkedHashMap<String, CachedBlob> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    private Path root;
+    private Path objects;
+    private Path temporary;
+    private long totalBytes;
+    private boolean indexChanged;
+
+    public DiskBlobCache(StorageProperties storageProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = storageProperties.getTiered();
+        this.objectMapper = objectMapper;
+        this.hits = Counter.builder("storage.cache.requests").tag("result", "hit")
+                .description("Reads served by the local cache").register(meterRegistry);
+        this.misses = Counter.builder("storage.cache.requests").tag("result", "miss")
+                .description("Reads sent to the cloud provider").register(meterRegistry);
+        this.evictions = Counter.builder("storage.cache.evictions")
+                .description("Files evicted from the local cache").register(meterRegistry);
+        Gauge.builder("storage.cache.size", this, DiskBlobCache::totalBytes).baseUnit("bytes")
+                .description("Bytes held by the local cache").register(meterRegistry);
+        Gauge.builder("storage.cache.entries", this, cache -> cache.count(false))
+                .description("Files held by the local cache").register(meterRegistry);
+        Gauge.builder("storage.cache.dirty", this, cache -> cache.count(true))
+                .description("Files not yet stored by the cloud provider").register(meterRegistry);
+        Gauge.builder("storage.cache.hit.ratio", this, DiskBlobCache::hitRatio)
+                .description("Share of the reads served by the local cache").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            this.root = Paths.get(properties.getCachePath()).toAbsolutePath().normalize();
+            this.objects = Files.createDirectories(root.resolve("objects"));
+            this.temporary = Files.createDirectories(root.resolve("tmp"));
+            try (Stream<Path> leftovers = Files.list(temporary)) {
+                leftovers.forEach(this::deleteQuietly);
+            }
+            loadIndex();
+            log.info("Blob cache at {}: {} files, {} bytes", root, entries.size(), totalBytes);
+        } catch (IOException e) {
+            log.error("Could not initialize the blob cache at {}", properties.getCachePath(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    public long maxBytes() {
+        return properties.getMaxSize().toBytes();
+    }
+
+    /**
+     * Looks up a file and marks it as used.
+     *
+     * @param key the key of the file
+     * @return the cached file, if any
+     */
+    public synchronized Optional<Path> get(String key) {
+        CachedBlob blob = entries.get(key);
+        if (blob == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        indexChanged = true;
+        return Optional.of(objects.resolve(blob.fileName()));
+    }
+
+    /**
+     * Looks up the entry of a file, without counting the lookup as a hit or a miss.
+     */
+    public synchronized Optional<CachedBlob> peek(String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    public Path pathOf(CachedBlob blob) {
+        return objects.resolve(blob.fileName());
+    }
+
+    /**
+     * @return a new file to write a file to before it is {@link #put} in the cache
+     */
+    public Path newTemporaryFile() throws IOException {
+        return Files.createTempFile(temporary, "blob-", ".part");
+    }
+
+    /**
+     * Moves a written file into the cache, evicting the least recently used files if needed.
+     *
+     * @param blob    the entry of the file
+     * @param written the file, from {@link #newTemporaryFile()}
+     */
+    public void put(CachedBlob blob, Path written) throws IOException {
+        Files.move(written, objects.resolve(blob.fileName()),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        List<Path> evicted;
+        synchronized (this) {
+            CachedBlob previous = entries.put(blob.key(), blob);
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += blob.size();
+            indexChanged = true;
+            evicted = evict();
+        }
+        evicted.forEach(this::deleteQuietly);
+    }
+
+    /**
+     * Removes a file from the cache, whether it is stored by the cloud provider or not.
+     *
+     * @param key the key of the file
+     */
+    public void remove(String key) {
+        CachedBlob removed;
+        synchronized (this) {
+            removed = entries.remove(key);
+            if (removed == null) {
+                return;
+            }
+            totalBytes -= removed.size();
+            indexChanged = true;
+        }
+        deleteQuietly(objects.resolve(removed.fileName()));
+    }
+
+    /**
+     * @return the files that are not yet stored by the cloud provider
+     */
+    public synchronized List<CachedBlob> dirty() {
+        return entries.values().stream().filter(CachedBlob::dirty).toList();
+    }
+
+    /**
+     * Marks a file as stored by the cloud provider, which makes it evictable.
+     */
+    public void markClean(String key) {
+        List<Path> evicted;
+        synchronized (this) {
+            CachedBlob blob = peek(key).orElse(null);
+            if (blob == null || !blob.dirty()) {
+                return;
+            }
+            entries.replace(key, blob.clean());
+            indexChanged = true;
+            evicted = evict();
+        }
+        evicted.forEach(this::deleteQuietly);
+    }
+
+    /**
+     * Drops the least recently used clean entries until the cache fits in its size.
+     *
+     * @return the files to delete
+     */
+    private List<Path> evict() {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<CachedBlob> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes() && iterator.hasNext()) {
+            CachedBlob blob = iterator.next();
+            if (blob.dirty()) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= blob.size();
+            evicted.add(objects.resolve(blob.fileName()));
+            evictions.increment();
+        }
+        return evicted;
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.tiered.index-save-interval:PT30S}")
+    public void saveIndex() {
+        List<CachedBlob> snapshot;
+        synchronized (this) {
+            if (!indexChanged) {
+                return;
+            }
+            snapshot = new ArrayList<>(entries.values());
+            indexChanged = false;
+        }
+        try {
+            Path written = Files.createTempFile(temporary, "index-", ".json");
+            objectMapper.writeValue(written.toFile(), new CacheIndex(snapshot));
+            Files.move(written, root.resolve(INDEX_FILE),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            synchronized (this) {
+                indexChanged = true;
+            }
+            log.warn("Could not save the blob cache index: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        saveIndex();
+    }
+
+    /**
+     * Reloads the entries saved by the previous run that still have their file, and deletes the
+     * files that have no entry.
+     */
+    private void loadIndex() throws IOException {
+        Path index = root.resolve(INDEX_FILE);
+        if (Files.isRegularFile(index)) {
+            try {
+                for (CachedBlob blob : objectMapper.readValue(index.toFile(), CacheIndex.class).entries()) {
+                    Path file = objects.resolve(blob.fileName());
+                    if (Files.isRegularFile(file) && Files.size(file) == blob.size()) {
+                        entries.put(blob.key(), blob);
+                        totalBytes += blob.size();
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Blob cache index is unreadable, starting empty: {}", e.getMessage());
+                entries.clear();
+                totalBytes = 0;
+            }
+        }
+        Set<String> referenced = new HashSet<>();
+        entries.values().forEach(blob -> referenced.add(blob.fileName()));
+        try (Stream<Path> files = Files.list(objects)) {
+            files.filter(file -> !referenced.contains(file.getFileName().toString())).forEach(this::deleteQuietly);
+        }
+        evict().forEach(this::deleteQuietly);
+    }
+
+    private synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized long count(boolean dirtyOnly) {
+        return dirtyOnly ? entries.values().stream().filter(CachedBlob::dirty).count() : entries.size();
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * A cached file.
+     *
+     * @param key         the key of the file: its folder and content addressed name
+     * @param name        the original file name
+     * @param contentType the MIME type of the file
+     * @param contentHash the hex encoded SHA-256 of the content
+     * @param size        the size of the file
+     * @param dirty       whether the file is not yet stored by the cloud provider
+     */
+    public record CachedBlob(String key, String name, String contentType, String contentHash, long size, boolean dirty) {
+
+        CachedBlob clean() {
+            return new CachedBlob(key, name, contentType, contentHash, size, false);
+        }
+
+        /**
+         * @return the name of the file in the cache, derived from the key so any key is a valid name
+         */
+        String fileName() {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+
+    record CacheIndex(List<CachedBlob> entries) {
+    }
+}
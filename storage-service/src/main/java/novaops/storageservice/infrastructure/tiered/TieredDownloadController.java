@@ -0,0 +1,56 @@
+package novaops.storageservice.infrastructure.tiered;
+
+import lombok.RequiredArgsConstructor;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.UploadTarget;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Serves the files of the {@link TieredStorage} from the local cache, fetching them from the cloud
+ * provider on a miss. Range and conditional requests are handled by Spring MVC; since the files are
+ * content addressed, their hash is their ETag and they never change.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnExpression(TieredStorage.CONDITION)
+public class TieredDownloadController {
+
+    private final TieredStorage tieredStorage;
+    private final StorageProperties storageProperties;
+
+    @GetMapping("${app.storage.tiered.public-path:/blobs}/{folder}/{fileName:.+}")
+    public ResponseEntity<Resource> download(@PathVariable String folder, @PathVariable String fileName) {
+        Optional<UploadTarget> found = tieredStorage.targetOf(folder, fileName);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        UploadTarget target = found.get();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(target.contentHash())
+                .cacheControl(CacheControl.maxAge(storageProperties.getDownload().getCacheMaxAge()).cachePublic().immutable())
+                .contentType(MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM));
+
+        Optional<Path> cached = tieredStorage.read(target);
+        if (cached.isPresent()) {
+            return response.body(new FileSystemResource(cached.get()));
+        }
+        // too large for the cache: streamed from the provider
+        Optional<InputStream> uncached = tieredStorage.openUncached(target);
+        return uncached.<ResponseEntity<Resource>>map(stream -> response.body(new InputStreamResource(stream)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,478 @@
+package novaops.storageservice.infrastructure.tiered;
+
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.enums.CacheWriteMode;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.BlobPage;
+import novaops.storageservice.domain.model.FileUploadResult;
+import novaops.storageservice.domain.model.PresignedUpload;
+import novaops.storageservice.domain.model.StoredBlob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.Storage;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.infrastructure.adapter.AwsAdapter;
+import novaops.storageservice.infrastructure.adapter.AzureAdapter;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Storage that keeps the files of the cloud provider in a local {@link DiskBlobCache} and serves
+ * them itself, under <b>app.storage.tiered.public-path</b>, so popular files are read from the
+ * local disk instead of the provider.
+ * <p>
+ * Files are stored under their content hash, in both tiers. With the write-through mode an upload
+ * completes once the provider has the file; with write-back it completes once the file is cached,
+ * and the provider gets it on the next flush. A file missing from the cache is fetched from the
+ * provider on its first read.
+ * <p>
+ * Active when <b>app.storage.tiered.enabled</b> is set with a cloud provider; the adapter of the
+ * provider is then only used through this class.
+ */
+@Component
+@Primary
+@Log4j2
+@ConditionalOnExpression(TieredStorage.CONDITION)
+public class TieredStorage implements Storage {
+
+    static final String CONDITION =
+            "${app.storage.tiered.enabled:false} and '${app.storage.provider:local}' != 'local'";
+
+    private static final String IMAGES_FOLDER = "images";
+    private static final String FILES_FOLDER = "files";
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("([0-9a-f]{64})(\\.[A-Za-z0-9]+)?");
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+    private final Storage backend;
+    private final DiskBlobCache cache;
+    private final ConcurrentUploadEngine uploadEngine;
+    private final StorageProperties.Tiered properties;
+    private final String publicUrlPrefix;
+    private final ConcurrentMap<String, CompletableFuture<Path>> fetches = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    public TieredStorage(
+            ObjectProvider<AwsAdapter> awsAdapter,
+            ObjectProvider<AzureAdapter> azureAdapter,
+            DiskBlobCache cache,
+            ConcurrentUploadEngine uploadEngine,
+            StorageProperties storageProperties,
+            @Value("${app.backend-url}") String backendUrl) {
+        Storage aws = awsAdapter.getIfAvailable();
+        this.backend = aws != null ? aws : azureAdapter.getObject();
+        this.cache = cache;
+        this.uploadEngine = uploadEngine;
+        this.properties = storageProperties.getTiered();
+        this.publicUrlPrefix = backendUrl + properties.getPublicPath();
+        log.info("Tiered storage is active in front of {}, in {} mode",
+                backend.getClass().getSimpleName(), properties.getWriteMode());
+    }
+
+    @Override
+    public Blob uploadFile(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            log.warn("Upload attempt with null or empty file.");
+            return null;
+        }
+        UploadSession session = openUpload(new UploadTarget(file.getOriginalFilename(), file.getContentType()));
+        try (InputStream inputStream = file.getInputStream()) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = inputStream.read(buffer)) > 0) {
+                session.write(ByteBuffer.wrap(buffer, 0, read));
+            }
+            return session.complete();
+        } catch (IOException e) {
+            session.abort();
+            log.error("Failed to upload file '{}'", file.getOriginalFilename(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        } catch (RuntimeException e) {
+            session.abort();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<FileUploadResult> uploadFiles(MultipartFile[] files) {
+        if (files == null || files.length == 0) {
+            return List.of();
+        }
+        return uploadEngine.uploadAll(
+                Arrays.stream(files).filter(Objects::nonNull).toList(),
+                MultipartFile::getOriginalFilename,
+                this::uploadFile);
+    }
+
+    @Override
+    public UploadSession openUpload(UploadTarget target) {
+        try {
+            return new TieredUploadSession(this, target, cache.newTemporaryFile());
+        } catch (IOException e) {
+            log.error("Could not open cache file for '{}'", target.name(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    @Override
+    public Optional<Blob> findStored(UploadTarget target) {
+        if (target.contentHash() == null) {
+            return Optional.empty();
+        }
+        String key = keyFor(target);
+        Optional<DiskBlobCache.CachedBlob> cached = cache.peek(key);
+        if (cached.isPresent()) {
+            return Optional.of(new Blob(target.name(), target.contentType(), publicUrl(key), cached.get().size()));
+        }
+        return backend.findStored(target)
+                .map(blob -> new Blob(target.name(), target.contentType(), publicUrl(key), blob.size()));
+    }
+
+    @Override
+    public Optional<InputStream> openStored(UploadTarget target) {
+        if (target.contentHash() == null) {
+            return Optional.empty();
+        }
+        try {
+            Optional<Path> path = read(target);
+            return path.isPresent() ? Optional.of(Files.newInputStream(path.get())) : backend.openStored(target);
+        } catch (IOException e) {
+            log.error("Could not read cached file '{}'", target.name(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    /**
+     * Deletes a file from both tiers. URLs of files stored before the cache was enabled are passed
+     * on to the provider.
+     */
+    @Override
+    public void deleteFile(String url) {
+        if (url == null || url.isEmpty()) {
+            log.warn("Delete attempt with null or empty URL.");
+            return;
+        }
+        String key = keyOf(url);
+        if (key == null) {
+            backend.deleteFile(url);
+            return;
+        }
+        cache.remove(key);
+        // the adapters find the folder and the name in the path
+        backend.deleteFile("/" + key);
+    }
+
+    /**
+     * Deletes files from both tiers, with the batch delete of the provider.
+     */
+    @Override
+    public List<String> deleteFiles(List<String> urls) {
+        // the provider is given the path of the files served by this storage, like deleteFile does
+        Map<String, String> urlsByBackendUrl = new LinkedHashMap<>();
+        for (String url : urls) {
+            String key = url == null ? null : keyOf(url);
+            if (key != null) {
+                cache.remove(key);
+            }
+            urlsByBackendUrl.put(key != null ? "/" + key : url, url);
+        }
+        return backend.deleteFiles(new ArrayList<>(urlsByBackendUrl.keySet())).stream()
+                .map(urlsByBackendUrl::get)
+                .toList();
+    }
+
+    /**
+     * Lists the files of the provider. Content addressed files are given the URL this storage
+     * serves them from, as returned on upload. Files only in the cache, not yet written back, are
+     * not listed.
+     */
+    @Override
+    public BlobPage listBlobs(String cursor, int limit) {
+        BlobPage page = backend.listBlobs(cursor, limit);
+        return new BlobPage(
+                page.blobs().stream()
+                        .map(blob -> {
+                            String key = keyOfBackendUrl(blob.url());
+                            return key == null ? blob : new StoredBlob(publicUrl(key), blob.size(), blob.lastModified());
+                        })
+                        .toList(),
+                page.nextCursor());
+    }
+
+    /**
+     * Presigns the upload with the provider: the file goes straight to it, bypassing the cache,
+     * and keeps the URL of the provider.
+     */
+    @Override
+    public PresignedUpload presignUpload(UploadTarget target, long size, Instant expiresAt) {
+        return backend.presignUpload(target, size, expiresAt);
+    }
+
+    /**
+     * Presigns the download with the provider. A file not yet written back is only in the cache,
+     * so its URL is returned as is.
+     */
+    @Override
+    public String presignDownload(String url, Instant expiresAt) {
+        String key = keyOf(url);
+        if (key == null) {
+            return backend.presignDownload(url, expiresAt);
+        }
+        if (cache.peek(key).filter(DiskBlobCache.CachedBlob::dirty).isPresent()) {
+            return url;
+        }
+        return backend.presignDownload("/" + key, expiresAt);
+    }
+
+    @Override
+    public Optional<Long> findSize(String url) {
+        String key = keyOf(url);
+        if (key == null) {
+            return backend.findSize(url);
+        }
+        Optional<DiskBlobCache.CachedBlob> cached = cache.peek(key);
+        return cached.isPresent() ? Optional.of(cached.get().size()) : backend.findSize("/" + key);
+    }
+
+    /**
+     * Stores a file written to the cache, as configured by the write mode.
+     *
+     * @param target the name and type of the file
+     * @param staged the written file, moved into the cache
+     * @param hash   the hex encoded SHA-256 of the file
+     * @param size   the size of the file
+     * @return the stored file
+     */
+    Blob store(UploadTarget target, Path staged, String hash, long size) throws IOException {
+        UploadTarget hashed = target.withContentHash(hash);
+        String key = keyFor(hashed);
+        boolean cacheable = size <= cache.maxBytes();
+        boolean writeBack = cacheable && properties.getWriteMode() == CacheWriteMode.WRITE_BACK;
+        if (!writeBack) {
+            storeInBackend(hashed, staged);
+        }
+        if (cacheable) {
+            cache.put(new DiskBlobCache.CachedBlob(key, target.name(), target.contentType(), hash, size, writeBack), staged);
+        }
+        log.info("File '{}' stored as {} ({} bytes, {})", target.name(), key, size, writeBack ? "written back" : "written through");
+        return new Blob(target.name(), target.contentType(), publicUrl(key), size);
+    }
+
+    /**
+     * Returns a cached file, fetching it from the provider if needed. Concurrent reads of a missing
+     * file share one fetch.
+     *
+     * @param target the name, type and content hash of the file
+     * @return the file in the cache, or empty if the provider does not have it or it is too large
+     * to be cached
+     */
+    public Optional<Path> read(UploadTarget target) {
+        String key = keyFor(target);
+        Optional<Path> cached = cache.get(key);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        CompletableFuture<Path> fetch = new CompletableFuture<>();
+        CompletableFuture<Path> running = fetches.putIfAbsent(key, fetch);
+        if (running != null) {
+            return Optional.ofNullable(joinFetch(running));
+        }
+        try {
+            fetch.complete(fetch(target, key));
+        } catch (RuntimeException e) {
+            fetch.completeExceptionally(e);
+        } finally {
+            fetches.remove(key, fetch);
+        }
+        return Optional.ofNullable(joinFetch(fetch));
+    }
+
+    private Path fetch(UploadTarget target, String key) {
+        Optional<Blob> stored = backend.findStored(target);
+        if (stored.isEmpty() || stored.get().size() > cache.maxBytes()) {
+            return null;
+        }
+        Optional<InputStream> content = backend.openStored(target);
+        if (content.isEmpty()) {
+            return null;
+        }
+        Path written = null;
+        try (InputStream inputStream = content.get()) {
+            written = cache.newTemporaryFile();
+            long size;
+            try (OutputStream outputStream = Files.newOutputStream(written)) {
+                size = inputStream.transferTo(outputStream);
+            }
+            cache.put(new DiskBlobCache.CachedBlob(key, target.name(), target.contentType(), target.contentHash(), size, false), written);
+            return cache.peek(key).map(cache::pathOf).orElse(null);
+        } catch (IOException e) {
+            log.error("Could not fetch '{}' from the provider", key, e);
+            if (written != null) {
+                try {
+                    Files.deleteIfExists(written);
+                } catch (IOException ignored) {
+                    // already failing
+                }
+            }
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    /**
+     * Reads a file from the provider, without caching it.
+     */
+    public Optional<InputStream> openUncached(UploadTarget target) {
+        return backend.openStored(target);
+    }
+
+    private static Path joinFetch(CompletableFuture<Path> fetch) {
+        try {
+            return fetch.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Sends the files written back to the provider.
+     */
+    @Scheduled(fixedDelayString = "${app.storage.tiered.flush-interval:PT10S}")
+    public void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<DiskBlobCache.CachedBlob> dirty = cache.dirty();
+            if (dirty.isEmpty()) {
+                return;
+            }
+            List<FileUploadResult> results = uploadEngine.uploadAll(dirty, DiskBlobCache.CachedBlob::key, blob -> {
+                UploadTarget target = new UploadTarget(blob.name(), blob.contentType(), blob.contentHash());
+                try {
+                    storeInBackend(target, cache.pathOf(blob));
+                } catch (IOException e) {
+                    throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC, e.getMessage());
+                }
+                cache.markClean(blob.key());
+                return new Blob(blob.name(), blob.contentType(), publicUrl(blob.key()), blob.size());
+            });
+            long failed = results.stream().filter(result -> !result.isStored()).count();
+            log.info("Flushed {} cached files to the provider, {} failed and will be retried",
+                    results.size() - failed, failed);
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    private void storeInBackend(UploadTarget hashed, Path file) throws IOException {
+        if (backend.findStored(hashed).isPresent()) {
+            return;
+        }
+        UploadSession session = backend.openUpload(hashed);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(COPY_BUFFER_SIZE, Math.max(1, channel.size())));
+            while (channel.read(buffer.clear()) > 0) {
+                session.write(buffer.flip());
+            }
+            session.complete();
+        } catch (IOException | RuntimeException e) {
+            session.abort();
+            throw e;
+        }
+    }
+
+    private String keyFor(UploadTarget hashed) {
+        String contentType = hashed.contentType();
+        String folder = contentType != null && contentType.startsWith("image/") ? IMAGES_FOLDER : FILES_FOLDER;
+        return folder + "/" + hashed.contentAddressedName();
+    }
+
+    /**
+     * @return the key of a file served by this storage, or null for any other URL
+     */
+    private String keyOf(String url) {
+        int index = url.indexOf(properties.getPublicPath() + "/");
+        if (index < 0) {
+            return null;
+        }
+        String key = url.substring(index + properties.getPublicPath().length() + 1);
+        int slash = key.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        String folder = key.substring(0, slash);
+        String name = key.substring(slash + 1);
+        return (IMAGES_FOLDER.equals(folder) || FILES_FOLDER.equals(folder)) && isContentAddressedName(name)
+                ? key
+                : null;
+    }
+
+    /**
+     * @return the key of a content addressed file of the provider, or null for any other URL
+     */
+    private static String keyOfBackendUrl(String url) {
+        int nameStart = url.lastIndexOf('/');
+        int folderStart = nameStart > 0 ? url.lastIndexOf('/', nameStart - 1) : -1;
+        if (folderStart < 0) {
+            return null;
+        }
+        String folder = url.substring(folderStart + 1, nameStart);
+        String name = url.substring(nameStart + 1);
+        return (IMAGES_FOLDER.equals(folder) || FILES_FOLDER.equals(folder)) && isContentAddressedName(name)
+                ? folder + "/" + name
+                : null;
+    }
+
+    /**
+     * Builds the target of a file served by this storage, from the folder and the name in its URL.
+     *
+     * @return the target, or empty if the URL is not one of this storage
+     */
+    public Optional<UploadTarget> targetOf(String folder, String name) {
+        if (!isContentAddressedName(name) || !(IMAGES_FOLDER.equals(folder) || FILES_FOLDER.equals(folder))) {
+            return Optional.empty();
+        }
+        int dot = name.indexOf('.');
+        String hash = dot < 0 ? name : name.substring(0, dot);
+        String extension = dot < 0 ? "" : name.substring(dot + 1);
+        String contentType = IMAGES_FOLDER.equals(folder) ? "image/" + extension : "application/octet-stream";
+        return Optional.of(new UploadTarget(name, contentType, hash));
+    }
+
+    private static boolean isContentAddressedName(String name) {
+        return CONTENT_ADDRESSED_NAME.matcher(name).matches();
+    }
+
+    private String publicUrl(String key) {
+        return publicUrlPrefix + "/" + key;
+    }
+}
@@ -0,0 +1,89 @@
+package novaops.storageservice.infrastructure.tiered;
+
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.exception.StorageException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Writes a file to a temporary file of the cache, hashing it on the way, and hands it to the
+ * {@link TieredStorage} once complete.
+ */
+@Log4j2
+class TieredUploadSession implements UploadSession {
+
+    private final TieredStorage storage;
+    private final UploadTarget target;
+    private final Path staged;
+    private final FileChannel channel;
+    private final MessageDigest digest;
+    private long size;
+
+    TieredUploadSession(TieredStorage storage, UploadTarget target, Path staged) throws IOException {
+        this.storage = storage;
+        this.target = target;
+        this.staged = staged;
+        this.channel = FileChannel.open(staged, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer chunk) {
+        digest.update(chunk.duplicate());
+        try {
+            while (chunk.hasRemaining()) {
+                size += channel.write(chunk);
+            }
+        } catch (IOException e) {
+            log.error("Failed to cache file '{}'", target.name(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    @Override
+    public Blob complete() {
+        try {
+            channel.close();
+            return storage.store(target, staged, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException e) {
+            log.error("Failed to cache file '{}'", target.name(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        } finally {
+            deleteStaged();
+        }
+    }
+
+    @Override
+    public void abort() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Could not close cached file '{}': {}", staged, e.getMessage());
+        }
+        deleteStaged();
+    }
+
+    private void deleteStaged() {
+        try {
+            // already moved into the cache when the file was stored
+            Files.deleteIfExists(staged);
+        } catch (IOException e) {
+            log.warn("Could not delete '{}': {}", staged, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package novaops.storageservice.infrastructure.upload;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.FileUploadResult;
+import novaops.storageservice.exception.StorageException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs the uploads of the batches concurrently, each on its own virtual thread.
+ * <p>
+ * The number of uploads running at the same time is shared by all the batches and set per backend
+ * by <b>app.storage.batch.*-concurrency</b>, so a large batch cannot flood the active provider.
+ */
+@Component
+@Log4j2
+public class ConcurrentUploadEngine {
+
+    private final int concurrency;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ConcurrentUploadEngine(StorageProperties storageProperties) {
+        this.concurrency = storageProperties.getBatch().concurrencyFor(storageProperties.getProvider());
+        this.permits = new Semaphore(concurrency);
+        log.info("Batch uploads run up to {} files at a time on {}", concurrency, storageProperties.getProvider());
+    }
+
+    /**
+     * @return how many uploads run at the same time
+     */
+    public int concurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Runs one upload once a slot is free.
+     *
+     * @param upload stores the file and returns it
+     * @return completes with the stored file, or with the failure of the upload
+     */
+    public CompletableFuture<Blob> submit(Callable<Blob> upload) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC, "Upload interrupted");
+            }
+            try {
+                return upload.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Uploads all the files concurrently and waits for them. A failed file does not stop the others.
+     *
+     * @param files  the files to upload
+     * @param name   gives the name of a file, for its result
+     * @param upload stores one file, returning {@code null} when there is nothing to store
+     * @return one result per file, in the order of the files
+     */
+    public <T> List<FileUploadResult> uploadAll(List<T> files, Function<T, String> name, Function<T, Blob> upload) {
+        List<CompletableFuture<Blob>> futures = new ArrayList<>(files.size());
+        for (T file : files) {
+            futures.add(submit(() -> upload.apply(file)));
+        }
+
+        List<FileUploadResult> results = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            String fileName = name.apply(files.get(i));
+            try {
+                Blob blob = futures.get(i).join();
+                results.add(blob != null
+                        ? FileUploadResult.stored(fileName, blob)
+                        : FileUploadResult.failed(fileName, "Empty file"));
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Failed to upload '{}' in batch: {}", fileName, cause.getMessage());
+                results.add(FileUploadResult.failed(fileName, cause.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Starts uploading all the files concurrently, without waiting for them.
+     *
+     * @param files  the files to upload
+     * @param name   gives the name of a file, for its result
+     * @param upload starts storing one file, completing with {@code null} when there is nothing to store
+     * @return completes with one result per file, in the order of the files
+     */
+    public <T> CompletableFuture<List<FileUploadResult>> uploadAllAsync(
+            List<T> files, Function<T, String> name, Function<T, CompletableFuture<Blob>> upload) {
+        // the slot is held until the upload completes, so the backend limit also bounds async uploads
+        return CompletableFuture.supplyAsync(() -> uploadAll(files, name, file -> upload.apply(file).join()), executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,319 @@
+package novaops.storageservice.infrastructure.upload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.Storage;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.infrastructure.image.ImageVariantService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Keeps track of the resumable uploads.
+ * <p>
+ * An upload is staged in <b>app.storage.upload.staging-path</b>, next to a small JSON file with
+ * what it was started with, until all of its bytes have arrived. Only then is it hashed and sent
+ * to the storage under its content addressed name, unless the same content is already stored. A
+ * client that knows the hash of its file up front skips the transfer entirely when it is.
+ * <p>
+ * The staged uploads outlive a restart: they are reloaded from the disk the first time they are
+ * asked for, and discarded once they have not been written to for
+ * <b>app.storage.upload.session-ttl</b>.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class ResumableUploadManager {
+
+    private static final String DATA_SUFFIX = ".data";
+    private static final String METADATA_SUFFIX = ".json";
+    private static final Pattern SHA_256 = Pattern.compile("[0-9a-f]{64}");
+
+    private final Storage storage;
+    private final ImageVariantService imageVariantService;
+    private final StorageProperties storageProperties;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentMap<String, StagedUpload> uploads = new ConcurrentHashMap<>();
+
+    private Path stagingPath;
+
+    @PostConstruct
+    public void init() {
+        try {
+            this.stagingPath = Paths.get(storageProperties.getUpload().getStagingPath()).toAbsolutePath().normalize();
+            Files.createDirectories(stagingPath);
+            log.info("Resumable uploads are staged in {}", stagingPath);
+        } catch (IOException e) {
+            log.error("Could not initialize upload staging location: {}", storageProperties.getUpload().getStagingPath(), e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+    }
+
+    /**
+     * Starts a resumable upload.
+     *
+     * @param target the name and type of the file.
+     * @param size   the size of the file.
+     * @param sha256 the hex encoded SHA-256 of the file, or {@code null} if the client does not know it.
+     * @return the stored blob when the content is already stored, the new upload otherwise.
+     */
+    public StartedUpload start(UploadTarget target, long size, String sha256) {
+        if (size < 0 || size > storageProperties.getUpload().getMaxResumableSize().toBytes()) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.FILE_SIZE_LIMIT_EXCEEDED);
+        }
+        String hash = null;
+        if (StringUtils.hasText(sha256)) {
+            hash = sha256.trim().toLowerCase(Locale.ROOT);
+            if (!SHA_256.matcher(hash).matches()) {
+                throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC, "Invalid SHA-256: " + sha256);
+            }
+            Optional<Blob> stored = storage.findStored(target.withContentHash(hash));
+            if (stored.isPresent()) {
+                log.info("File '{}' is already stored, upload skipped", target.name());
+                return new StartedUpload(null, size, stored.get());
+            }
+        }
+
+        String id = UUID.randomUUID().toString();
+        StagedUploadMetadata metadata = new StagedUploadMetadata(target.name(), target.contentType(), size, hash);
+        Path dataFile = stagingPath.resolve(id + DATA_SUFFIX);
+        Path metadataFile = stagingPath.resolve(id + METADATA_SUFFIX);
+        try {
+            objectMapper.writeValue(metadataFile.toFile(), metadata);
+            FileChannel channel = FileChannel.open(dataFile,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            uploads.put(id, new StagedUpload(id, metadata, dataFile, metadataFile, channel, newDigest(), 0));
+        } catch (IOException e) {
+            log.error("Could not stage upload of '{}'", target.name(), e);
+            deleteQuietly(dataFile);
+            deleteQuietly(metadataFile);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+        log.info("Started resumable upload {} of '{}' ({} bytes)", id, target.name(), size);
+        return new StartedUpload(id, 0, null);
+    }
+
+    /**
+     * @param uploadId the id of the upload.
+     * @return how much of the upload has been received so far.
+     */
+    public UploadStatus status(String uploadId) {
+        StagedUpload upload = get(uploadId);
+        return new UploadStatus(upload.offset(), upload.size());
+    }
+
+    /**
+     * Reserves the upload for one request, which must resume writing at the current offset. The
+     * request gives the upload back with {@link StagedUpload#detach()}.
+     *
+     * @param uploadId the id of the upload.
+     * @param offset   where the request resumes writing.
+     * @return the upload to write to.
+     */
+    public StagedUpload attach(String uploadId, long offset) {
+        StagedUpload upload = get(uploadId);
+        if (!upload.attach()) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.UPLOAD_IN_PROGRESS);
+        }
+        if (offset != upload.offset()) {
+            upload.detach();
+            throw new StorageException(StorageException.CloudStorageExceptionType.INVALID_UPLOAD_OFFSET,
+                    "Upload " + uploadId + " resumes at " + upload.offset() + ", not " + offset);
+        }
+        return upload;
+    }
+
+    /**
+     * Stores a complete upload and discards its staged data.
+     *
+     * @param upload an upload that received all of its bytes.
+     * @return the stored blob, which may have been stored by an earlier upload of the same content.
+     */
+    public Blob complete(StagedUpload upload) {
+        StagedUploadMetadata metadata = upload.metadata();
+        String hash = upload.contentHash();
+        try {
+            if (metadata.sha256() != null && !metadata.sha256().equals(hash)) {
+                log.warn("Upload {} of '{}' does not match its declared hash", upload.id(), metadata.name());
+                throw new StorageException(StorageException.CloudStorageExceptionType.UPLOAD_HASH_MISMATCH);
+            }
+            UploadTarget target = new UploadTarget(metadata.name(), metadata.contentType(), hash);
+            Optional<Blob> stored = storage.findStored(target);
+            if (stored.isPresent()) {
+                log.info("Upload {} of '{}' was already stored", upload.id(), metadata.name());
+                return stored.get();
+            }
+            UploadSession session = imageVariantService.openUpload(target);
+            try {
+                upload.copyTo(session);
+                return session.complete();
+            } catch (IOException | RuntimeException e) {
+                session.abort();
+                log.error("Failed to store upload {} of '{}'", upload.id(), metadata.name(), e);
+                throw e instanceof StorageException storageException
+                        ? storageException
+                        : new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+            }
+        } finally {
+            discard(upload);
+        }
+    }
+
+    /**
+     * Discards the uploads that have not been written to within the session TTL, including the
+     * ones staged before a restart that were never resumed.
+     */
+    @Scheduled(fixedDelayString = "${app.storage.upload.cleanup-interval:PT15M}")
+    public void purgeExpired() {
+        long expiredBefore = System.currentTimeMillis() - storageProperties.getUpload().getSessionTtl().toMillis();
+        uploads.values().stream()
+                .filter(upload -> upload.isIdleSince(expiredBefore))
+                .forEach(upload -> {
+                    log.info("Discarding expired upload {}", upload.id());
+                    discard(upload);
+                });
+
+        try (Stream<Path> files = Files.list(stagingPath)) {
+            files.filter(file -> isExpiredLeftover(file, expiredBefore)).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not clean up upload staging location: {}", e.getMessage());
+        }
+    }
+
+    private boolean isExpiredLeftover(Path file, long expiredBefore) {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.indexOf('.');
+        if (dot < 0 || uploads.containsKey(fileName.substring(0, dot))) {
+            return false;
+        }
+        try {
+            return Files.getLastModifiedTime(file).toMillis() < expiredBefore;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private StagedUpload get(String uploadId) {
+        if (!isUploadId(uploadId)) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.UPLOAD_NOT_FOUND);
+        }
+        StagedUpload upload = uploads.computeIfAbsent(uploadId, this::load);
+        if (upload == null) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.UPLOAD_NOT_FOUND);
+        }
+        return upload;
+    }
+
+    /**
+     * Reloads an upload staged before a restart. The digest is rebuilt from the staged bytes.
+     */
+    private StagedUpload load(String uploadId) {
+        Path dataFile = stagingPath.resolve(uploadId + DATA_SUFFIX);
+        Path metadataFile = stagingPath.resolve(uploadId + METADATA_SUFFIX);
+        if (!Files.isRegularFile(metadataFile) || !Files.isRegularFile(dataFile)) {
+            return null;
+        }
+        FileChannel channel = null;
+        try {
+            StagedUploadMetadata metadata = objectMapper.readValue(metadataFile.toFile(), StagedUploadMetadata.class);
+            channel = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long offset = Math.min(channel.size(), metadata.size());
+            MessageDigest digest = newDigest();
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long position = 0;
+            while (position < offset) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), offset - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+                digest.update(buffer.flip());
+            }
+            channel.truncate(position);
+            log.info("Recovered upload {} of '{}' at offset {}", uploadId, metadata.name(), position);
+            return new StagedUpload(uploadId, metadata, dataFile, metadataFile, channel, digest, position);
+        } catch (IOException e) {
+            log.error("Could not recover upload {}", uploadId, e);
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // already failing
+                }
+            }
+            return null;
+        }
+    }
+
+    private void discard(StagedUpload upload) {
+        uploads.remove(upload.id(), upload);
+        upload.delete();
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static boolean isUploadId(String uploadId) {
+        try {
+            return uploadId != null && UUID.fromString(uploadId).toString().equals(uploadId);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The outcome of {@link #start}: either an upload to write to, or the blob already stored.
+     *
+     * @param uploadId the id of the new upload, {@code null} when the content is already stored.
+     * @param offset   where the client starts writing.
+     * @param blob     the stored blob, {@code null} when the content must be uploaded.
+     */
+    public record StartedUpload(String uploadId, long offset, Blob blob) {
+    }
+
+    /**
+     * @param offset how many bytes have been received.
+     * @param size   the declared size of the file.
+     */
+    public record UploadStatus(long offset, long size) {
+    }
+}
@@ -0,0 +1,185 @@
+package novaops.storageservice.infrastructure.upload;
+
+import lombok.extern.log4j.Log4j2;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.exception.StorageException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A resumable upload staged on the local disk. The SHA-256 of the content is updated as the chunks
+ * are written, so it is known as soon as the last chunk arrives.
+ * <p>
+ * Only one request at a time may write to an upload, see {@link #attach()}.
+ */
+@Log4j2
+public class StagedUpload {
+
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+    private final String id;
+    private final StagedUploadMetadata metadata;
+    private final Path dataFile;
+    private final Path metadataFile;
+    private final FileChannel channel;
+    private final MessageDigest digest;
+    private final AtomicBoolean attached = new AtomicBoolean();
+
+    private volatile long offset;
+    private long flushedOffset;
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    StagedUpload(
+            String id,
+            StagedUploadMetadata metadata,
+            Path dataFile,
+            Path metadataFile,
+            FileChannel channel,
+            MessageDigest digest,
+            long offset) {
+        this.id = id;
+        this.metadata = metadata;
+        this.dataFile = dataFile;
+        this.metadataFile = metadataFile;
+        this.channel = channel;
+        this.digest = digest;
+        this.offset = offset;
+        this.flushedOffset = offset;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    public long size() {
+        return metadata.size();
+    }
+
+    public boolean isComplete() {
+        return offset == metadata.size();
+    }
+
+    StagedUploadMetadata metadata() {
+        return metadata;
+    }
+
+    /**
+     * Appends a chunk at the current offset.
+     *
+     * @return the new offset
+     */
+    public long append(ByteBuffer chunk) {
+        if (offset + chunk.remaining() > metadata.size()) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.INVALID_UPLOAD_OFFSET,
+                    "Upload " + id + " received more than its declared size of " + metadata.size() + " bytes");
+        }
+        digest.update(chunk.duplicate());
+        try {
+            long position = offset;
+            while (chunk.hasRemaining()) {
+                position += channel.write(chunk, position);
+            }
+            offset = position;
+        } catch (IOException e) {
+            log.error("Failed to write upload {}", id, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+        lastActivity = System.currentTimeMillis();
+        return offset;
+    }
+
+    /**
+     * @return the bytes written since the last {@link #flush()}
+     */
+    public long unflushedBytes() {
+        return offset - flushedOffset;
+    }
+
+    /**
+     * Forces the written data to disk.
+     *
+     * @return the offset that is now stored durably
+     */
+    public long flush() {
+        try {
+            channel.force(false);
+            Files.setLastModifiedTime(metadataFile, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.error("Failed to flush upload {}", id, e);
+            throw new StorageException(StorageException.CloudStorageExceptionType.GENERIC);
+        }
+        flushedOffset = offset;
+        return offset;
+    }
+
+    boolean attach() {
+        return attached.compareAndSet(false, true);
+    }
+
+    /**
+     * Ends the request writing to the upload, keeping what was received so it can be resumed.
+     */
+    public void detach() {
+        try {
+            if (channel.isOpen()) {
+                flush();
+            }
+        } catch (StorageException e) {
+            log.warn("Could not flush upload {} on detach", id);
+        } finally {
+            lastActivity = System.currentTimeMillis();
+            attached.set(false);
+        }
+    }
+
+    boolean isIdleSince(long timestamp) {
+        return !attached.get() && lastActivity < timestamp;
+    }
+
+    /**
+     * @return the hex encoded SHA-256 of the content; only valid once, when the upload is complete
+     */
+    String contentHash() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Streams the staged content to a storage upload session.
+     */
+    void copyTo(UploadSession session) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(COPY_BUFFER_SIZE, Math.max(1, offset)));
+        long position = 0;
+        while (position < offset) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+            buffer.flip();
+            session.write(buffer);
+        }
+    }
+
+    void delete() {
+        try {
+            channel.close();
+            Files.deleteIfExists(dataFile);
+            Files.deleteIfExists(metadataFile);
+        } catch (IOException e) {
+            log.warn("Could not delete staged upload {}: {}", id, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package novaops.storageservice.infrastructure.upload;
+
+/**
+ * What a resumable upload was started with, kept next to its data so the upload survives a
+ * restart.
+ *
+ * @param name        the original file name
+ * @param contentType the MIME type of the file
+ * @param size        the declared size of the file
+ * @param sha256      the hash declared by the client, if any
+ */
+record StagedUploadMetadata(
+        String name,
+        String contentType,
+        long size,
+        String sha256) {
+}
@@ -0,0 +1,182 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.config.aws.AwsS3BucketProperties;
+import novaops.storageservice.domain.enums.StorageProvider;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.FileUploadResult;
+import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AwsAsyncAdapterTest {
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    private ConcurrentUploadEngine uploadEngine;
+    private AwsAsyncAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.setProvider(StorageProvider.aws);
+        storageProperties.getBatch().setAwsConcurrency(2);
+        uploadEngine = new ConcurrentUploadEngine(storageProperties);
+        AwsS3BucketProperties bucketProperties = new AwsS3BucketProperties();
+        bucketProperties.setBucketName("novaops");
+        bucketProperties.setCdnBaseUrl("https://cdn.novaops.org");
+        adapter = new AwsAsyncAdapter(s3AsyncClient, bucketProperties, uploadEngine);
+    }
+
+    @AfterEach
+    void tearDown() {
+        adapter.shutdown();
+        uploadEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("A file is streamed to the bucket with its length, then returned with its CDN URL")
+    void uploadFile_Stored_ReturnsCdnUrl() throws Exception {
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+        Blob blob = adapter.uploadFile(file("report.pdf", "application/pdf", "content")).get(5, TimeUnit.SECONDS);
+
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<AsyncRequestBody> body = ArgumentCaptor.forClass(AsyncRequestBody.class);
+        verify(s3AsyncClient).putObject(request.capture(), body.capture());
+        assertThat(request.getValue().bucket()).isEqualTo("novaops");
+        assertThat(request.getValue().contentType()).isEqualTo("application/pdf");
+        assertThat(request.getValue().contentLength()).isEqualTo(7);
+        assertThat(body.getValue().contentLength()).contains(7L);
+        assertThat(blob.url()).isEqualTo("https://cdn.novaops.org/" + request.getValue().key());
+        assertThat(blob.size()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("A failed upload completes with a storage error and closes the file")
+    void uploadFile_S3Fails_StorageError() {
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("connection reset")));
+        ClosingInputStream content = new ClosingInputStream("content");
+
+        CompletableFuture<Blob> upload = adapter.uploadFile(file("report.pdf", content));
+
+        assertThat(upload).failsWithin(5, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .havingCause()
+                .isInstanceOfSatisfying(StorageException.class, e -> assertThat(e.getMessageKey()).isEqualTo(
+                        StorageException.CloudStorageExceptionType.AWS_FAILED_TO_UPLOAD_FILE.getMessageKey()));
+        assertThat(content.closed).isTrue();
+    }
+
+    @Test
+    @DisplayName("A batch reports the files that failed and stores the others")
+    void uploadFiles_SomeFail_OthersStored() throws Exception {
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> invocation.<PutObjectRequest>getArgument(0).key().endsWith("broken.txt")
+                        ? CompletableFuture.failedFuture(new IllegalStateException("connection reset"))
+                        : CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+        List<FileUploadResult> results = adapter.uploadFiles(new MultipartFile[]{
+                file("a.txt", "text/plain", "alpha"),
+                file("broken.txt", "text/plain", "beta"),
+                file("empty.txt", "text/plain", ""),
+                file("d.txt", "text/plain", "delta")}).get(5, TimeUnit.SECONDS);
+
+        assertThat(results).extracting(FileUploadResult::name, FileUploadResult::isStored).containsExactly(
+                tuple("a.txt", true),
+                tuple("broken.txt", false),
+                tuple("empty.txt", false),
+                tuple("d.txt", true));
+    }
+
+    @Test
+    @DisplayName("A batch does not start more uploads than the backend allows until the running ones complete")
+    void uploadFiles_LargeBatch_BoundedConcurrency() throws Exception {
+        BlockingQueue<CompletableFuture<PutObjectResponse>> started = new LinkedBlockingQueue<>();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class))).thenAnswer(invocation -> {
+            CompletableFuture<PutObjectResponse> upload = new CompletableFuture<>();
+            started.add(upload);
+            return upload;
+        });
+        MultipartFile[] files = IntStream.range(0, 5)
+                .mapToObj(i -> file("file" + i + ".txt", "text/plain", "content"))
+                .toArray(MultipartFile[]::new);
+
+        CompletableFuture<List<FileUploadResult>> batch = adapter.uploadFiles(files);
+
+        CompletableFuture<PutObjectResponse> first = started.poll(5, TimeUnit.SECONDS);
+        CompletableFuture<PutObjectResponse> second = started.poll(5, TimeUnit.SECONDS);
+        assertThat(second).isNotNull();
+        // a slot is free only once an upload completes
+        assertThat(started.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        first.complete(PutObjectResponse.builder().build());
+        second.complete(PutObjectResponse.builder().build());
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<PutObjectResponse> upload = started.poll(5, TimeUnit.SECONDS);
+            assertThat(upload).isNotNull();
+            upload.complete(PutObjectResponse.builder().build());
+        }
+
+        assertThat(batch.get(5, TimeUnit.SECONDS)).hasSize(5).allMatch(FileUploadResult::isStored);
+    }
+
+    private static MultipartFile file(String name, String contentType, String content) {
+        return new MockMultipartFile("files", name, contentType, content.getBytes());
+    }
+
+    private static MultipartFile file(String name, InputStream content) {
+        return new MockMultipartFile("files", name, "application/pdf", "content".getBytes()) {
+            @Override
+            public InputStream getInputStream() {
+                return content;
+            }
+        };
+    }
+
+    private static class ClosingInputStream extends ByteArrayInputStream {
+
+        private volatile boolean closed;
+
+        ClosingInputStream(String content) {
+            super(content.getBytes());
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
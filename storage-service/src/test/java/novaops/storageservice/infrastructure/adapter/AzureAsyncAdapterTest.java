@@ -0,0 +1,156 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import com.azure.core.http.rest.Response;
+import com.azure.storage.blob.BlobAsyncClient;
+import com.azure.storage.blob.BlobContainerAsyncClient;
+import com.azure.storage.blob.BlobServiceAsyncClient;
+import com.azure.storage.blob.models.BlockBlobItem;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.enums.StorageProvider;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.FileUploadResult;
+import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AzureAsyncAdapterTest {
+
+    @Mock
+    private BlobServiceAsyncClient blobServiceAsyncClient;
+
+    @Mock
+    private BlobContainerAsyncClient containerClient;
+
+    @Mock
+    private BlobAsyncClient blobClient;
+
+    private ConcurrentUploadEngine uploadEngine;
+    private AzureAsyncAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.setProvider(StorageProvider.azure);
+        storageProperties.getUpload().setAzureBlockSize(DataSize.ofKilobytes(256));
+        storageProperties.getUpload().setAzureParallelBlocks(3);
+        // one file at a time, so the files of a batch reach Azure in order
+        storageProperties.getBatch().setAzureConcurrency(1);
+        uploadEngine = new ConcurrentUploadEngine(storageProperties);
+        adapter = new AzureAsyncAdapter(storageProperties, uploadEngine);
+        ReflectionTestUtils.setField(adapter, "blobServiceAsyncClient", blobServiceAsyncClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("A file is uploaded in parallel blocks with its content type set by the same request")
+    void uploadFile_Stored_ParallelBlocks() throws Exception {
+        whenBlob("files");
+        when(blobClient.uploadWithResponse(any(BlobParallelUploadOptions.class))).thenReturn(Mono.just(uploaded()));
+
+        Blob blob = adapter.uploadFile(file("report.pdf", "application/pdf", "content")).get(5, TimeUnit.SECONDS);
+
+        ArgumentCaptor<BlobParallelUploadOptions> options = ArgumentCaptor.forClass(BlobParallelUploadOptions.class);
+        verify(blobClient).uploadWithResponse(options.capture());
+        assertThat(options.getValue().getParallelTransferOptions().getBlockSizeLong()).isEqualTo(256 * 1024);
+        assertThat(options.getValue().getParallelTransferOptions().getMaxConcurrency()).isEqualTo(3);
+        assertThat(options.getValue().getHeaders().getContentType()).isEqualTo("application/pdf");
+        assertThat(blob.url()).isEqualTo("https://novaops.blob.core.windows.net/files/blob");
+        assertThat(blob.size()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("A failed upload completes with a storage error")
+    void uploadFile_AzureFails_StorageError() {
+        whenBlob("files");
+        when(blobClient.uploadWithResponse(any(BlobParallelUploadOptions.class)))
+                .thenReturn(Mono.error(new IllegalStateException("connection reset")));
+
+        CompletableFuture<Blob> upload = adapter.uploadFile(file("report.pdf", "application/pdf", "content"));
+
+        assertThat(upload).failsWithin(5, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .havingCause()
+                .isInstanceOfSatisfying(StorageException.class, e -> assertThat(e.getMessageKey()).isEqualTo(
+                        StorageException.CloudStorageExceptionType.AZURE_FAILED_TO_UPLOAD_FILE.getMessageKey()));
+    }
+
+    @Test
+    @DisplayName("An image over the size limit is refused before anything is sent")
+    void uploadFile_ImageTooLarge_Refused() {
+        MultipartFile image = new MockMultipartFile("files", "photo.png", "image/png",
+                new byte[(int) AzureAdapter.MAX_IMAGE_SIZE + 1]);
+
+        CompletableFuture<Blob> upload = adapter.uploadFile(image);
+
+        assertThat(upload).failsWithin(5, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .havingCause()
+                .isInstanceOfSatisfying(StorageException.class, e -> assertThat(e.getMessageKey()).isEqualTo(
+                        StorageException.CloudStorageExceptionType.IMAGE_SIZE_LIMIT_EXCEEDED.getMessageKey()));
+        verifyNoInteractions(blobServiceAsyncClient);
+    }
+
+    @Test
+    @DisplayName("A batch reports the files that failed and stores the others")
+    void uploadFiles_SomeFail_OthersStored() throws Exception {
+        whenBlob("files");
+        when(blobClient.uploadWithResponse(any(BlobParallelUploadOptions.class)))
+                .thenReturn(Mono.just(uploaded()))
+                .thenReturn(Mono.error(new IllegalStateException("connection reset")));
+
+        List<FileUploadResult> results = adapter.uploadFiles(new MultipartFile[]{
+                file("a.txt", "text/plain", "alpha"),
+                file("b.txt", "text/plain", "beta")}).get(5, TimeUnit.SECONDS);
+
+        assertThat(results).extracting(FileUploadResult::name, FileUploadResult::isStored)
+                .containsExactly(tuple("a.txt", true), tuple("b.txt", false));
+    }
+
+    private void whenBlob(String container) {
+        when(blobServiceAsyncClient.getBlobContainerAsyncClient(container)).thenReturn(containerClient);
+        when(containerClient.getBlobAsyncClient(anyString())).thenReturn(blobClient);
+        lenient().when(blobClient.getBlobUrl()).thenReturn("https://novaops.blob.core.windows.net/" + container + "/blob");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Response<BlockBlobItem> uploaded() {
+        return mock(Response.class);
+    }
+
+    private static MultipartFile file(String name, String contentType, String content) {
+        return new MockMultipartFile("files", name, contentType, content.getBytes());
+    }
+}
@@ -0,0 +1,93 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.BlobPage;
+import novaops.storageservice.domain.model.StoredBlob;
+import novaops.storageservice.infrastructure.presign.UploadTokens;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ExtendWith(MockitoExtension.class)
+class LocalServerAdapterTest {
+
+    private static final String BACKEND_URL = "http://storage";
+
+    @Mock
+    private UploadTokens uploadTokens;
+
+    @TempDir
+    private Path uploads;
+
+    private ConcurrentUploadEngine uploadEngine;
+    private LocalServerAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        uploadEngine = new ConcurrentUploadEngine(new StorageProperties());
+        adapter = new LocalServerAdapter(uploadEngine, uploadTokens);
+        ReflectionTestUtils.setField(adapter, "uploadDirPath", uploads.toString());
+        ReflectionTestUtils.setField(adapter, "publicUrlPrefix", "/uploads");
+        adapter.backendUrl = BACKEND_URL;
+        adapter.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("A batch delete removes the files and reports only the ones it could not delete")
+    void deleteFiles_SomeRefused_ReportsThem() throws Exception {
+        Path report = Files.writeString(uploads.resolve("files/report.pdf"), "report");
+        Path avatar = Files.writeString(uploads.resolve("images/avatar.png"), "avatar");
+        String outside = BACKEND_URL + "/uploads/../secret.txt";
+        Path secret = Files.writeString(uploads.resolve("secret.txt"), "secret");
+
+        List<String> failed = adapter.deleteFiles(List.of(
+                BACKEND_URL + "/uploads/files/report.pdf",
+                outside,
+                "/uploads/images/avatar.png",
+                BACKEND_URL + "/uploads/files/already-gone.pdf",
+                ""));
+
+        assertThat(failed).containsExactly(outside, "");
+        assertThat(report).doesNotExist();
+        assertThat(avatar).doesNotExist();
+        assertThat(secret).exists();
+    }
+
+    @Test
+    @DisplayName("The files are listed by path, one page at a time, skipping unfinished uploads")
+    void listBlobs_Pages_ContinueAfterCursor() throws Exception {
+        Files.writeString(uploads.resolve("files/b.pdf"), "bb");
+        Files.writeString(uploads.resolve("files/a.pdf"), "a");
+        Files.writeString(uploads.resolve("files/c.pdf" + LocalUploadSession.PART_SUFFIX), "partial");
+        Files.writeString(uploads.resolve("images/z.png"), "zzz");
+
+        BlobPage first = adapter.listBlobs(null, 2);
+        BlobPage second = adapter.listBlobs(first.nextCursor(), 2);
+
+        assertThat(first.blobs()).extracting(StoredBlob::url).containsExactly(
+                BACKEND_URL + "/uploads/files/a.pdf", BACKEND_URL + "/uploads/files/b.pdf");
+        assertThat(first.nextCursor()).isEqualTo("files/b.pdf");
+        assertThat(second.blobs()).extracting(StoredBlob::url, StoredBlob::size)
+                .containsExactly(tuple(BACKEND_URL + "/uploads/images/z.png", 3L));
+        assertThat(second.nextCursor()).isNull();
+    }
+}
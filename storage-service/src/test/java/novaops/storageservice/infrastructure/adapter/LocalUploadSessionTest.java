@@ -0,0 +1,66 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalUploadSessionTest {
+
+    @TempDir
+    private Path folder;
+
+    @Test
+    @DisplayName("The chunks are written under a temporary name, renamed once complete")
+    void complete_RenamesWrittenFile() throws Exception {
+        Path target = folder.resolve("fox.txt");
+        LocalUploadSession session = new LocalUploadSession(
+                new UploadTarget("fox.txt", "text/plain"), target, "/uploads/files/fox.txt");
+
+        session.write(chunk("The quick brown fox "));
+        session.write(chunk("jumps over the lazy dog"));
+
+        assertThat(target).doesNotExist();
+        assertThat(partFiles()).hasSize(1);
+
+        Blob blob = session.complete();
+
+        assertThat(target).hasContent("The quick brown fox jumps over the lazy dog");
+        assertThat(blob.size()).isEqualTo(43L);
+        assertThat(blob.url()).isEqualTo("/uploads/files/fox.txt");
+        assertThat(partFiles()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("An aborted upload leaves nothing behind")
+    void abort_DeletesPartialFile() throws Exception {
+        Path target = folder.resolve("fox.txt");
+        LocalUploadSession session = new LocalUploadSession(
+                new UploadTarget("fox.txt", "text/plain"), target, "/uploads/files/fox.txt");
+        session.write(chunk("The quick brown fox "));
+
+        session.abort();
+
+        assertThat(target).doesNotExist();
+        assertThat(partFiles()).isEmpty();
+    }
+
+    private List<Path> partFiles() throws Exception {
+        try (var files = Files.list(folder)) {
+            return files.filter(file -> file.toString().endsWith(LocalUploadSession.PART_SUFFIX)).toList();
+        }
+    }
+
+    private static ByteBuffer chunk(String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+    }
+}
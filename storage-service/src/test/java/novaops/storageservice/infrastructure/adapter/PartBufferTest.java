@@ -0,0 +1,47 @@
+package novaops.storageservice.infrastructure.adapter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartBufferTest {
+
+    @Test
+    @DisplayName("A chunk larger than the room left fills the part and keeps the rest")
+    void fill_Overflow_KeepsRemainder() throws Exception {
+        PartBuffer part = new PartBuffer(8);
+        ByteBuffer chunk = ByteBuffer.wrap(bytes(0, 12));
+
+        boolean full = part.fill(chunk);
+
+        assertThat(full).isTrue();
+        assertThat(part.length()).isEqualTo(8);
+        assertThat(part.inputStream().readAllBytes()).isEqualTo(bytes(0, 8));
+        assertThat(chunk.remaining()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Chunks accumulate until the part is full, and a cleared part is reused")
+    void fill_SeveralChunks_ThenClear() throws Exception {
+        PartBuffer part = new PartBuffer(100_000);
+
+        assertThat(part.fill(ByteBuffer.wrap(bytes(0, 70_000)))).isFalse();
+        assertThat(part.fill(ByteBuffer.wrap(bytes(70_000, 40_000)))).isTrue();
+        assertThat(part.inputStream().readAllBytes()).isEqualTo(bytes(0, 100_000));
+
+        part.clear();
+        assertThat(part.fill(ByteBuffer.wrap(bytes(5, 3)))).isFalse();
+        assertThat(part.inputStream().readAllBytes()).isEqualTo(bytes(5, 3));
+    }
+
+    private static byte[] bytes(int from, int count) {
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            bytes[i] = (byte) (from + i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,111 @@
+package novaops.storageservice.infrastructure.download;
+
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.infrastructure.adapter.LocalServerAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocalDownloadControllerTest {
+
+    private static final String CONTENT = "The quick brown fox jumps over the lazy dog";
+
+    @Mock
+    private LocalServerAdapter localServerAdapter;
+
+    @TempDir
+    private Path uploads;
+
+    private Path stored;
+    private LocalDownloadController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stored = Files.writeString(uploads.resolve("fox.txt"), CONTENT);
+        StorageProperties storageProperties = new StorageProperties();
+        controller = new LocalDownloadController(new LocalDownloads(localServerAdapter, storageProperties), storageProperties);
+    }
+
+    @Test
+    @DisplayName("A range is handed to sendfile when the connector supports it")
+    void download_Sendfile_SetsAttributes() throws Exception {
+        when(localServerAdapter.resolveStored("files", "fox.txt")).thenReturn(Optional.of(stored));
+        MockHttpServletRequest request = request();
+        request.setAttribute("org.apache.tomcat.sendfile.support", true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-8");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.download("files", "fox.txt", request, response);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PARTIAL_CONTENT.value());
+        assertThat(response.getContentLengthLong()).isEqualTo(5);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(stored.toString());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(4L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(9L);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Without sendfile, the range is copied into the response")
+    void download_NoSendfile_WritesRange() throws Exception {
+        when(localServerAdapter.resolveStored("files", "fox.txt")).thenReturn(Optional.of(stored));
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-8");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.download("files", "fox.txt", request, response);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PARTIAL_CONTENT.value());
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 4-8/" + CONTENT.length());
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("quick");
+    }
+
+    @Test
+    @DisplayName("A client holding the current version gets no content")
+    void download_MatchingETag_NotModified() throws Exception {
+        when(localServerAdapter.resolveStored("files", "fox.txt")).thenReturn(Optional.of(stored));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        controller.download("files", "fox.txt", request(), first);
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.download("files", "fox.txt", request, response);
+
+        assertThat(first.getContentAsString(StandardCharsets.UTF_8)).isEqualTo(CONTENT);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("An unknown file is not found")
+    void download_Unknown_NotFound() throws Exception {
+        when(localServerAdapter.resolveStored("files", "missing.txt")).thenReturn(Optional.empty());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.download("files", "missing.txt", request(), response);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_FOUND.value());
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/uploads/files/fox.txt");
+    }
+}
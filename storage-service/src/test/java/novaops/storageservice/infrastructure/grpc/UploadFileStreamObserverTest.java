@@ -0,0 +1,137 @@
+package novaops.storageservice.infrastructure.grpc;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.infrastructure.image.ImageVariantService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.novaops.storageservice.proto.Blob;
+import org.novaops.storageservice.proto.FileInfo;
+import org.novaops.storageservice.proto.UploadRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UploadFileStreamObserverTest {
+
+    private static final UploadTarget TARGET = new UploadTarget("fox.txt", "text/plain");
+
+    @Mock
+    private ImageVariantService imageVariantService;
+
+    @Mock
+    private UploadSession session;
+
+    @Mock
+    private StreamObserver<Blob> responseObserver;
+
+    private UploadFileStreamObserver observer;
+
+    @BeforeEach
+    void setUp() {
+        observer = new UploadFileStreamObserver(imageVariantService, responseObserver);
+    }
+
+    @Test
+    @DisplayName("Each chunk is written as a read-only view as it arrives, then the blob is returned")
+    void upload_Chunks_StreamedToSession() {
+        when(imageVariantService.openUpload(TARGET)).thenReturn(session);
+        List<ByteBuffer> written = new ArrayList<>();
+        doAnswer(invocation -> written.add(invocation.getArgument(0))).when(session).write(any());
+        when(session.complete()).thenReturn(
+                new novaops.storageservice.domain.model.Blob("fox.txt", "text/plain", "/uploads/files/fox.txt", 9L));
+
+        observer.onNext(info());
+        observer.onNext(chunk("The quick"));
+        verify(session).write(any());
+        observer.onNext(chunk(" fox"));
+        observer.onCompleted();
+
+        assertThat(written).hasSize(2).allMatch(ByteBuffer::isReadOnly);
+        assertThat(StandardCharsets.UTF_8.decode(written.getFirst()).toString()).isEqualTo("The quick");
+        ArgumentCaptor<Blob> blob = ArgumentCaptor.forClass(Blob.class);
+        verify(responseObserver).onNext(blob.capture());
+        verify(responseObserver).onCompleted();
+        assertThat(blob.getValue().getUrl()).isEqualTo("/uploads/files/fox.txt");
+    }
+
+    @Test
+    @DisplayName("A file over the size limit is aborted and answered RESOURCE_EXHAUSTED, later chunks are dropped")
+    void upload_SizeLimit_AbortsOnce() {
+        when(imageVariantService.openUpload(TARGET)).thenReturn(session);
+        doThrow(new StorageException(StorageException.CloudStorageExceptionType.FILE_SIZE_LIMIT_EXCEEDED))
+                .when(session).write(any());
+
+        observer.onNext(info());
+        observer.onNext(chunk("too much"));
+        observer.onNext(chunk("even more"));
+        observer.onCompleted();
+
+        verify(session, times(1)).write(any());
+        verify(session, times(1)).abort();
+        verify(session, never()).complete();
+        assertThat(statusOfError().getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+        verify(responseObserver, never()).onCompleted();
+    }
+
+    @Test
+    @DisplayName("Data sent before the file info is refused")
+    void upload_DataFirst_InvalidArgument() {
+        observer.onNext(chunk("data"));
+
+        verifyNoInteractions(imageVariantService);
+        assertThat(statusOfError().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+    }
+
+    @Test
+    @DisplayName("A client cancelling the stream discards what was written")
+    void upload_ClientError_Aborts() {
+        when(imageVariantService.openUpload(TARGET)).thenReturn(session);
+
+        observer.onNext(info());
+        observer.onNext(chunk("The quick"));
+        observer.onError(Status.CANCELLED.asRuntimeException());
+
+        verify(session).abort();
+        verify(session, never()).complete();
+    }
+
+    private Status statusOfError() {
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(responseObserver).onError(error.capture());
+        return ((StatusRuntimeException) error.getValue()).getStatus();
+    }
+
+    private static UploadRequest info() {
+        return UploadRequest.newBuilder()
+                .setInfo(FileInfo.newBuilder().setName(TARGET.name()).setContentType(TARGET.contentType()))
+                .build();
+    }
+
+    private static UploadRequest chunk(String data) {
+        return UploadRequest.newBuilder().setChunkData(ByteString.copyFromUtf8(data)).build();
+    }
+}
@@ -0,0 +1,184 @@
+package novaops.storageservice.infrastructure.grpc;
+
+import com.google.protobuf.ByteString;
+import io.grpc.stub.StreamObserver;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.infrastructure.image.ImageVariantService;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.novaops.storageservice.proto.FileInfo;
+import org.novaops.storageservice.proto.FileUploadResult;
+import org.novaops.storageservice.proto.UploadRequest;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UploadFilesStreamObserverTest {
+
+    @Mock
+    private ImageVariantService imageVariantService;
+
+    private final RecordingObserver responseObserver = new RecordingObserver();
+
+    private ConcurrentUploadEngine uploadEngine;
+    private UploadFilesStreamObserver observer;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.getBatch().setLocalConcurrency(1);
+        uploadEngine = new ConcurrentUploadEngine(storageProperties);
+        observer = new UploadFilesStreamObserver(imageVariantService, uploadEngine, responseObserver);
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Each file of the stream is stored and answered with its index")
+    void upload_Files_ResultPerFile() throws Exception {
+        UploadSession first = whenOpened("a.txt");
+        UploadSession second = whenOpened("b.txt");
+
+        observer.onNext(info("a.txt"));
+        observer.onNext(chunk("alpha"));
+        observer.onNext(info("b.txt"));
+        observer.onNext(chunk("beta"));
+        observer.onCompleted();
+
+        assertThat(responseObserver.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(responseObserver.sorted()).extracting(FileUploadResult::getIndex, FileUploadResult::getName)
+                .containsExactly(
+                        tuple(0, "a.txt"),
+                        tuple(1, "b.txt"));
+        assertThat(responseObserver.sorted()).allMatch(FileUploadResult::hasBlob);
+        verify(first).write(any());
+        verify(second).write(any());
+    }
+
+    @Test
+    @DisplayName("A file that fails is answered with its error and the others are still stored")
+    void upload_SomeFail_OthersStored() throws Exception {
+        whenOpened("a.txt");
+        when(imageVariantService.openUpload(target("b.txt"))).thenThrow(new IllegalStateException("bad name"));
+        UploadSession third = mock(UploadSession.class);
+        when(imageVariantService.openUpload(target("c.txt"))).thenReturn(third);
+        when(third.complete()).thenThrow(new IllegalStateException("backend is down"));
+        whenOpened("d.txt");
+
+        for (String name : List.of("a.txt", "b.txt", "c.txt", "d.txt")) {
+            observer.onNext(info(name));
+            observer.onNext(chunk(name));
+        }
+        observer.onCompleted();
+
+        assertThat(responseObserver.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        List<FileUploadResult> results = responseObserver.sorted();
+        assertThat(results).extracting(FileUploadResult::getError)
+                .containsExactly("", "bad name", "backend is down", "");
+        assertThat(results.get(3).hasBlob()).isTrue();
+        verify(third).abort();
+    }
+
+    @Test
+    @DisplayName("The next file is not read while the engine is still completing the previous ones")
+    void upload_CompletionsPending_HoldsBackClient() throws Exception {
+        CountDownLatch storing = new CountDownLatch(1);
+        UploadSession slow = mock(UploadSession.class);
+        when(imageVariantService.openUpload(target("a.txt"))).thenReturn(slow);
+        when(slow.complete()).thenAnswer(invocation -> {
+            storing.await();
+            return blob("a.txt");
+        });
+        when(imageVariantService.openUpload(target("b.txt"))).thenReturn(mock(UploadSession.class));
+        when(imageVariantService.openUpload(target("c.txt"))).thenReturn(mock(UploadSession.class));
+
+        observer.onNext(info("a.txt"));
+        observer.onNext(chunk("alpha"));
+        // hands a.txt to the engine, which holds the only slot
+        observer.onNext(info("b.txt"));
+        Thread client = Thread.ofVirtual().start(() -> observer.onNext(info("c.txt")));
+        client.join(200);
+
+        assertThat(client.isAlive()).isTrue();
+        verify(imageVariantService, never()).openUpload(target("c.txt"));
+
+        storing.countDown();
+        client.join(5_000);
+        assertThat(client.isAlive()).isFalse();
+        verify(imageVariantService).openUpload(target("c.txt"));
+    }
+
+    private UploadSession whenOpened(String name) {
+        UploadSession session = mock(UploadSession.class);
+        when(imageVariantService.openUpload(target(name))).thenReturn(session);
+        when(session.complete()).thenReturn(blob(name));
+        return session;
+    }
+
+    private static UploadTarget target(String name) {
+        return new UploadTarget(name, "text/plain");
+    }
+
+    private static Blob blob(String name) {
+        return new Blob(name, "text/plain", "/uploads/files/" + name, 4L);
+    }
+
+    private static UploadRequest info(String name) {
+        return UploadRequest.newBuilder()
+                .setInfo(FileInfo.newBuilder().setName(name).setContentType("text/plain"))
+                .build();
+    }
+
+    private static UploadRequest chunk(String data) {
+        return UploadRequest.newBuilder().setChunkData(ByteString.copyFromUtf8(data)).build();
+    }
+
+    /** Results arrive from the engine's threads, in the order the files are stored. */
+    private static class RecordingObserver implements StreamObserver<FileUploadResult> {
+
+        private final List<FileUploadResult> results = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onNext(FileUploadResult value) {
+            results.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+            completed.countDown();
+        }
+
+        List<FileUploadResult> sorted() {
+            return results.stream().sorted(Comparator.comparingInt(FileUploadResult::getIndex)).toList();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package novaops.storageservice.infrastructure.image;
+
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.Storage;
+import novaops.storageservice.domain.service.UploadSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantServiceTest {
+
+    private static final UploadTarget PHOTO = new UploadTarget("photo.png", "image/png");
+    private static final Blob STORED = new Blob("photo.png", "image/png", "http://cdn/photo.png", 0L);
+
+    @Mock
+    private Storage storage;
+
+    @Mock
+    private UploadSession original;
+
+    private StorageProperties storageProperties;
+    private ImageVariantService imageVariantService;
+
+    /** The variant sessions opened, by file name. */
+    private final Map<String, RecordingSession> variants = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        storageProperties = new StorageProperties();
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put("thumb", 16);
+        sizes.put("medium", 64);
+        storageProperties.getImages().setVariants(sizes);
+        storageProperties.getImages().setWebp(false);
+        storageProperties.getImages().setWorkers(1);
+        storageProperties.getImages().setQueueCapacity(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (imageVariantService != null) {
+            imageVariantService.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("An image is returned with the URLs of its variants, which are written afterwards")
+    void complete_Image_AttachesVariantsAsynchronously() throws Exception {
+        CountDownLatch resizing = new CountDownLatch(1);
+        whenStored(name -> new RecordingSession(name, true, resizing));
+        imageVariantService = new ImageVariantService(storage, storageProperties);
+
+        Blob blob = upload(png(400, 200));
+
+        assertThat(blob.variants()).containsOnly(
+                Map.entry("thumb", "http://cdn/photo__thumb.png"),
+                Map.entry("medium", "http://cdn/photo__medium.png"));
+        // the upload did not wait for the worker, which is still blocked
+        assertThat(variants.get("photo__thumb.png").completed).isFalse();
+
+        resizing.countDown();
+        assertThat(variants.get("photo__medium.png").finished.await(5, TimeUnit.SECONDS)).isTrue();
+        BufferedImage thumb = ImageIO.read(new ByteArrayInputStream(variants.get("photo__thumb.png").content()));
+        BufferedImage medium = ImageIO.read(new ByteArrayInputStream(variants.get("photo__medium.png").content()));
+        assertThat(thumb.getWidth()).isEqualTo(16);
+        assertThat(thumb.getHeight()).isEqualTo(8);
+        assertThat(medium.getWidth()).isEqualTo(64);
+    }
+
+    @Test
+    @DisplayName("When the workers and their queue are busy, an image is stored without variants")
+    void complete_WorkersBusy_NoVariants() throws Exception {
+        CountDownLatch resizing = new CountDownLatch(1);
+        whenStored(name -> new RecordingSession(name, true, resizing));
+        imageVariantService = new ImageVariantService(storage, storageProperties);
+
+        try {
+            // one image is being resized and one is queued
+            assertThat(upload(png(40, 40)).variants()).hasSize(2);
+            assertThat(upload(png(40, 40)).variants()).hasSize(2);
+
+            Blob rejected = upload(png(40, 40));
+
+            assertThat(rejected.variants()).isEmpty();
+            assertThat(variants.values()).filteredOn(session -> session.aborted).hasSize(2);
+        } finally {
+            resizing.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("The images being resized or queued on shutdown are discarded")
+    void shutdown_Queued_AbortsVariants() throws Exception {
+        CountDownLatch resizing = new CountDownLatch(1);
+        whenStored(name -> new RecordingSession(name, true, resizing));
+        imageVariantService = new ImageVariantService(storage, storageProperties);
+
+        try {
+            upload(png(40, 40));
+            RecordingSession running = variants.get("photo__thumb.png");
+            upload(png(40, 40));
+            RecordingSession queued = variants.get("photo__thumb.png");
+
+            imageVariantService.shutdown();
+
+            assertThat(queued.aborted).isTrue();
+            // the worker is interrupted
+            assertThat(running.finished.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(running.aborted).isTrue();
+        } finally {
+            resizing.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("A failed variant is discarded along with the ones not yet written")
+    void complete_VariantFails_AbortsPending() throws Exception {
+        whenStored(name -> new RecordingSession(name, true, null) {
+            @Override
+            public void write(ByteBuffer chunk) {
+                throw new IllegalStateException("storage is down");
+            }
+        });
+        imageVariantService = new ImageVariantService(storage, storageProperties);
+
+        Blob blob = upload(png(40, 40));
+
+        assertThat(blob.variants()).hasSize(2);
+        for (RecordingSession session : variants.values()) {
+            assertThat(session.finished.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(variants.values()).allMatch(session -> session.aborted && !session.completed);
+    }
+
+    @Test
+    @DisplayName("An image larger than the maximum source size is stored without variants")
+    void complete_TooLarge_NoVariants() throws Exception {
+        storageProperties.getImages().setMaxSourceSize(DataSize.ofBytes(100));
+        when(storage.openUpload(PHOTO)).thenReturn(original);
+        when(original.complete()).thenReturn(STORED);
+        imageVariantService = new ImageVariantService(storage, storageProperties);
+
+        Blob blob = upload(png(400, 400));
+
+        assertThat(blob.variants()).isEmpty();
+        verify(storage, times(1)).openUpload(any());
+    }
+
+    @Test
+    @DisplayName("A file that cannot be decoded is stored without variants")
+    void complete_NotDecodable_NoVariants() {
+        when(storage.openUpload(PHOTO)).thenReturn(original);
+        when(original.complete()).thenReturn(STORED);
+        imageVariantService = new ImageVariantService(storage, storageProperties);
+
+        UploadSession session = imageVariantService.openUpload(PHOTO);
+        session.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}));
+        Blob blob = session.complete();
+
+        assertThat(blob.variants()).isEmpty();
+        verify(storage, times(1)).openUpload(any());
+    }
+
+    @Test
+    @DisplayName("A storage that names files after their content stores images without variants")
+    void complete_UrlUnknownInAdvance_NoVariants() throws Exception {
+        whenStored(name -> new RecordingSession(name, false, null));
+        imageVariantService = new ImageVariantService(storage, storageProperties);
+
+        Blob blob = upload(png(40, 40));
+
+        assertThat(blob.variants()).isEmpty();
+        assertThat(variants.values()).allMatch(session -> session.aborted);
+    }
+
+    private void whenStored(Function<String, RecordingSession> variantSessions) {
+        when(storage.openUpload(any())).thenAnswer(invocation -> {
+            UploadTarget target = invocation.getArgument(0);
+            if (target.equals(PHOTO)) {
+                return original;
+            }
+            RecordingSession session = variantSessions.apply(target.name());
+            variants.put(target.name(), session);
+            return session;
+        });
+        when(original.complete()).thenReturn(STORED);
+    }
+
+    private Blob upload(byte[] image) {
+        UploadSession session = imageVariantService.openUpload(PHOTO);
+        // written in two chunks, as they arrive from a client
+        int half = image.length / 2;
+        session.write(ByteBuffer.wrap(image, 0, half));
+        session.write(ByteBuffer.wrap(image, half, image.length - half));
+        return session.complete();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+
+    private static class RecordingSession implements UploadSession {
+
+        private final String name;
+        private final boolean urlKnown;
+        private final CountDownLatch release;
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        /** Counted down once the session is completed or aborted. */
+        final CountDownLatch finished = new CountDownLatch(1);
+        volatile boolean completed;
+        volatile boolean aborted;
+
+        RecordingSession(String name, boolean urlKnown, CountDownLatch release) {
+            this.name = name;
+            this.urlKnown = urlKnown;
+            this.release = release;
+        }
+
+        @Override
+        public void write(ByteBuffer chunk) {
+            try {
+                if (release != null) {
+                    release.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            written.writeBytes(bytes);
+        }
+
+        @Override
+        public Blob complete() {
+            completed = true;
+            finished.countDown();
+            return new Blob(name, "image/png", "http://cdn/" + name, (long) written.size());
+        }
+
+        @Override
+        public Optional<String> url() {
+            return urlKnown ? Optional.of("http://cdn/" + name) : Optional.empty();
+        }
+
+        @Override
+        public void abort() {
+            aborted = true;
+            finished.countDown();
+        }
+
+        byte[] content() {
+            return written.toByteArray();
+        }
+    }
+}
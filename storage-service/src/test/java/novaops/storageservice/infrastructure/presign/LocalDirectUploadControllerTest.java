@@ -0,0 +1,154 @@
+package novaops.storageservice.infrastructure.presign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.infrastructure.adapter.LocalServerAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocalDirectUploadControllerTest {
+
+    private static final int DECLARED_SIZE = 100;
+
+    @Mock
+    private LocalServerAdapter localServerAdapter;
+
+    @Mock
+    private UploadSession session;
+
+    private UploadTokens uploadTokens;
+    private LocalDirectUploadController controller;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.getPresign().setSecret("a-secret-of-the-cluster");
+        uploadTokens = new UploadTokens(storageProperties, new ObjectMapper().findAndRegisterModules());
+        controller = new LocalDirectUploadController(localServerAdapter, uploadTokens);
+    }
+
+    @Test
+    @DisplayName("A file within its declared size is stored")
+    void upload_ValidToken_Stores() throws Exception {
+        DirectUpload upload = upload(Instant.now().plus(15, ChronoUnit.MINUTES));
+        when(localServerAdapter.openDirectUpload(upload)).thenReturn(Optional.of(session));
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        doAnswer(invocation -> {
+            ByteBuffer chunk = invocation.getArgument(0);
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            written.write(bytes);
+            return null;
+        }).when(session).write(any());
+
+        byte[] content = new byte[DECLARED_SIZE];
+        var response = controller.upload(uploadTokens.issue(upload), request(content, content.length));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(written.toByteArray()).isEqualTo(content);
+        verify(session).complete();
+        verify(session, never()).abort();
+    }
+
+    @Test
+    @DisplayName("An expired token is refused before anything is written")
+    void upload_ExpiredToken_Forbidden() throws Exception {
+        DirectUpload upload = upload(Instant.now().minusSeconds(1));
+
+        var response = controller.upload(uploadTokens.issue(upload), request(new byte[10], 10));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        verifyNoInteractions(localServerAdapter);
+    }
+
+    @Test
+    @DisplayName("A token that does not verify is refused")
+    void upload_InvalidToken_Forbidden() throws Exception {
+        var response = controller.upload("not-a-token", request(new byte[10], 10));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        verifyNoInteractions(localServerAdapter);
+    }
+
+    @Test
+    @DisplayName("A body announced larger than the declared size is refused before anything is written")
+    void upload_ContentLengthAboveDeclaredSize_PayloadTooLarge() throws Exception {
+        DirectUpload upload = upload(Instant.now().plus(15, ChronoUnit.MINUTES));
+
+        byte[] content = new byte[DECLARED_SIZE + 1];
+        var response = controller.upload(uploadTokens.issue(upload), request(content, content.length));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        verifyNoInteractions(localServerAdapter);
+    }
+
+    @Test
+    @DisplayName("A streamed body that grows past the declared size is discarded")
+    void upload_StreamedBodyAboveDeclaredSize_PayloadTooLarge() throws Exception {
+        DirectUpload upload = upload(Instant.now().plus(15, ChronoUnit.MINUTES));
+        when(localServerAdapter.openDirectUpload(upload)).thenReturn(Optional.of(session));
+
+        var response = controller.upload(uploadTokens.issue(upload), request(new byte[DECLARED_SIZE + 1], -1));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        verify(session).abort();
+        verify(session, never()).complete();
+    }
+
+    @Test
+    @DisplayName("A presigned URL uploads its file only once")
+    void upload_AlreadyUploaded_Conflict() throws Exception {
+        DirectUpload upload = upload(Instant.now().plus(15, ChronoUnit.MINUTES));
+        when(localServerAdapter.openDirectUpload(upload)).thenReturn(Optional.empty());
+
+        var response = controller.upload(uploadTokens.issue(upload), request(new byte[10], 10));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    private static DirectUpload upload(Instant expiresAt) {
+        return new DirectUpload(
+                "http://localhost:8080/blobs/documents/report.pdf",
+                "report.pdf",
+                "application/pdf",
+                DECLARED_SIZE,
+                expiresAt.truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    /**
+     * @param contentLength the announced length of the body, -1 when it is sent chunked
+     */
+    private static MockHttpServletRequest request(byte[] content, long contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest() {
+            @Override
+            public long getContentLengthLong() {
+                return contentLength;
+            }
+        };
+        request.setMethod("PUT");
+        request.setContent(content);
+        return request;
+    }
+}
@@ -0,0 +1,115 @@
+package novaops.storageservice.infrastructure.presign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import novaops.storageservice.config.StorageProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadTokensTest {
+
+    private static final DirectUpload UPLOAD = new DirectUpload(
+            "http://localhost:8080/blobs/report.pdf",
+            "report.pdf",
+            "application/pdf",
+            1024,
+            Instant.now().plus(15, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.MILLIS));
+
+    private final UploadTokens uploadTokens = uploadTokens("a-secret-of-the-cluster");
+
+    @Test
+    @DisplayName("An issued token verifies to the upload it was issued for")
+    void verify_IssuedToken_ReturnsUpload() {
+        String token = uploadTokens.issue(UPLOAD);
+
+        assertThat(uploadTokens.verify(token)).contains(UPLOAD);
+    }
+
+    @Test
+    @DisplayName("A token can be passed in a URL as is")
+    void issue_IsUrlSafe() {
+        assertThat(uploadTokens.issue(UPLOAD)).matches("[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    @DisplayName("Another instance with the same secret accepts the token")
+    void verify_SameSecret_ReturnsUpload() {
+        String token = uploadTokens.issue(UPLOAD);
+
+        assertThat(uploadTokens("a-secret-of-the-cluster").verify(token)).contains(UPLOAD);
+    }
+
+    @Test
+    @DisplayName("A token signed with another secret is rejected")
+    void verify_OtherSecret_ReturnsEmpty() {
+        String token = uploadTokens("another-secret").issue(UPLOAD);
+
+        assertThat(uploadTokens.verify(token)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A token whose upload was changed, e.g. to raise its size or expiry, is rejected")
+    void verify_TamperedPayload_ReturnsEmpty() {
+        String token = uploadTokens.issue(UPLOAD);
+        String signature = token.substring(token.indexOf('.') + 1);
+        String payload = new String(decode(token.substring(0, token.indexOf('.'))), StandardCharsets.UTF_8);
+
+        String largerFile = payload.replace("\"size\":1024", "\"size\":1073741824");
+        assertThat(largerFile).isNotEqualTo(payload);
+
+        assertThat(uploadTokens.verify(encode(largerFile) + "." + signature)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A token whose signature was changed is rejected")
+    void verify_TamperedSignature_ReturnsEmpty() {
+        String token = uploadTokens.issue(UPLOAD);
+        byte[] signature = decode(token.substring(token.indexOf('.') + 1));
+        signature[0] ^= 1;
+
+        String tampered = token.substring(0, token.indexOf('.') + 1)
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+
+        assertThat(uploadTokens.verify(tampered)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A malformed token is rejected")
+    void verify_MalformedToken_ReturnsEmpty() {
+        assertThat(uploadTokens.verify(null)).isEmpty();
+        assertThat(uploadTokens.verify("")).isEmpty();
+        assertThat(uploadTokens.verify("no-signature")).isEmpty();
+        assertThat(uploadTokens.verify("not base64!.not base64!")).isEmpty();
+        assertThat(uploadTokens.verify(".")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Without a configured secret, tokens are only valid on the instance that issued them")
+    void verify_NoSecret_OnlyIssuingInstance() {
+        UploadTokens instance = uploadTokens(null);
+        String token = instance.issue(UPLOAD);
+
+        assertThat(instance.verify(token)).contains(UPLOAD);
+        assertThat(uploadTokens(null).verify(token)).isEmpty();
+    }
+
+    private static UploadTokens uploadTokens(String secret) {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.getPresign().setSecret(secret);
+        return new UploadTokens(storageProperties, new ObjectMapper().findAndRegisterModules());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] decode(String value) {
+        return Base64.getUrlDecoder().decode(value);
+    }
+}
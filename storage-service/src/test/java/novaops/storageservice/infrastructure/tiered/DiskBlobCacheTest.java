@@ -0,0 +1,115 @@
+package novaops.storageservice.infrastructure.tiered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import novaops.storageservice.config.StorageProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiskBlobCacheTest {
+
+    @TempDir
+    private Path cachePath;
+
+    private StorageProperties storageProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private DiskBlobCache cache;
+
+    @BeforeEach
+    void setUp() {
+        storageProperties = new StorageProperties();
+        storageProperties.getTiered().setCachePath(cachePath.toString());
+        storageProperties.getTiered().setMaxSize(DataSize.ofBytes(10));
+        cache = newCache();
+    }
+
+    @Test
+    @DisplayName("A cached file is read from the disk and counted as a hit")
+    void get_Cached_Hit() throws Exception {
+        put("files/a", "abcd", false);
+
+        assertThat(cache.get("files/a")).hasValueSatisfying(path ->
+                assertThat(path).hasContent("abcd"));
+        assertThat(cache.get("files/missing")).isEmpty();
+        assertThat(meterRegistry.get("storage.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("storage.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("The least recently used files are evicted once the cache is full")
+    void put_Full_EvictsLeastRecentlyUsed() throws Exception {
+        Path a = put("files/a", "aaaa", false);
+        Path b = put("files/b", "bbbb", false);
+        // a is used after b, so b is evicted first
+        cache.get("files/a");
+
+        put("files/c", "cccc", false);
+
+        assertThat(cache.peek("files/b")).isEmpty();
+        assertThat(b).doesNotExist();
+        assertThat(cache.peek("files/a")).isPresent();
+        assertThat(a).exists();
+        assertThat(meterRegistry.get("storage.cache.evictions").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("storage.cache.size").gauge().value()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("A file not yet stored by the provider is only evicted once marked clean")
+    void put_Dirty_NotEvictedUntilClean() throws Exception {
+        put("files/a", "aaaa", true);
+        put("files/b", "bbbb", true);
+
+        put("files/c", "cccc", true);
+
+        assertThat(cache.dirty()).hasSize(3);
+        assertThat(meterRegistry.get("storage.cache.size").gauge().value()).isEqualTo(12);
+
+        cache.markClean("files/a");
+
+        assertThat(cache.peek("files/a")).isEmpty();
+        assertThat(cache.dirty()).extracting(DiskBlobCache.CachedBlob::key).containsExactly("files/b", "files/c");
+    }
+
+    @Test
+    @DisplayName("A restart reloads the saved entries and deletes the files without one")
+    void init_SavedIndex_Reloaded() throws Exception {
+        put("files/a", "aaaa", false);
+        put("files/b", "bbbb", true);
+        cache.shutdown();
+        Path orphan = Files.writeString(cachePath.resolve("objects").resolve("orphan"), "lost");
+
+        DiskBlobCache restarted = newCache();
+
+        assertThat(restarted.peek("files/a")).hasValueSatisfying(blob -> assertThat(blob.dirty()).isFalse());
+        assertThat(restarted.dirty()).extracting(DiskBlobCache.CachedBlob::key).containsExactly("files/b");
+        assertThat(orphan).doesNotExist();
+        try (Stream<Path> files = Files.list(cachePath.resolve("objects"))) {
+            assertThat(files).hasSize(2);
+        }
+    }
+
+    private DiskBlobCache newCache() {
+        meterRegistry = new SimpleMeterRegistry();
+        DiskBlobCache created = new DiskBlobCache(storageProperties, new ObjectMapper(), meterRegistry);
+        created.init();
+        return created;
+    }
+
+    private Path put(String key, String content, boolean dirty) throws IOException {
+        Path written = Files.writeString(cache.newTemporaryFile(), content);
+        DiskBlobCache.CachedBlob blob = new DiskBlobCache.CachedBlob(
+                key, key + ".txt", "text/plain", "hash-" + key, content.length(), dirty);
+        cache.put(blob, written);
+        return cache.pathOf(blob);
+    }
+}
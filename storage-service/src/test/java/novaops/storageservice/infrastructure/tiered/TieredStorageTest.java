@@ -0,0 +1,195 @@
+package novaops.storageservice.infrastructure.tiered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.enums.CacheWriteMode;
+import novaops.storageservice.domain.enums.StorageProvider;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.infrastructure.adapter.AwsAdapter;
+import novaops.storageservice.infrastructure.adapter.AzureAdapter;
+import novaops.storageservice.infrastructure.upload.ConcurrentUploadEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TieredStorageTest {
+
+    private static final String BACKEND_URL = "http://storage";
+
+    @Mock
+    private AwsAdapter backend;
+
+    @Mock
+    private ObjectProvider<AwsAdapter> awsAdapter;
+
+    @Mock
+    private ObjectProvider<AzureAdapter> azureAdapter;
+
+    @TempDir
+    private Path cachePath;
+
+    private StorageProperties storageProperties;
+    private DiskBlobCache cache;
+    private ConcurrentUploadEngine uploadEngine;
+
+    @BeforeEach
+    void setUp() {
+        storageProperties = new StorageProperties();
+        storageProperties.setProvider(StorageProvider.aws);
+        storageProperties.getTiered().setEnabled(true);
+        storageProperties.getTiered().setCachePath(cachePath.toString());
+        storageProperties.getTiered().setMaxSize(DataSize.ofBytes(16));
+        cache = new DiskBlobCache(storageProperties, new ObjectMapper(), new SimpleMeterRegistry());
+        cache.init();
+        uploadEngine = new ConcurrentUploadEngine(storageProperties);
+        when(awsAdapter.getIfAvailable()).thenReturn(backend);
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("A write-through upload is stored by the provider and kept in the cache")
+    void upload_WriteThrough_StoredInBothTiers() {
+        TieredStorage storage = newStorage();
+        UploadSession backendSession = mock(UploadSession.class);
+        when(backend.findStored(any())).thenReturn(Optional.empty());
+        when(backend.openUpload(target("fox.txt").withContentHash(sha256("quick fox")))).thenReturn(backendSession);
+
+        Blob blob = upload(storage, "fox.txt", "quick fox");
+
+        String key = "files/" + sha256("quick fox") + ".txt";
+        assertThat(blob.url()).isEqualTo(BACKEND_URL + "/blobs/" + key);
+        verify(backendSession).complete();
+        assertThat(cache.peek(key)).hasValueSatisfying(cached -> assertThat(cached.dirty()).isFalse());
+    }
+
+    @Test
+    @DisplayName("A write-back upload is only cached, and a flush retries the files the provider refused")
+    void flush_WriteBack_RetriesFailures() {
+        storageProperties.getTiered().setWriteMode(CacheWriteMode.WRITE_BACK);
+        TieredStorage storage = newStorage();
+        upload(storage, "a.txt", "alpha");
+        upload(storage, "b.txt", "beta");
+        verify(backend, never()).openUpload(any());
+        UploadSession stored = mock(UploadSession.class);
+        UploadSession refused = mock(UploadSession.class);
+        when(backend.findStored(any())).thenReturn(Optional.empty());
+        when(backend.openUpload(target("a.txt").withContentHash(sha256("alpha")))).thenReturn(stored);
+        when(backend.openUpload(target("b.txt").withContentHash(sha256("beta")))).thenReturn(refused);
+        when(refused.complete()).thenThrow(new IllegalStateException("S3 is down"));
+
+        storage.flush();
+
+        verify(refused).abort();
+        assertThat(cache.dirty()).extracting(DiskBlobCache.CachedBlob::name).containsExactly("b.txt");
+    }
+
+    @Test
+    @DisplayName("Concurrent reads of a file missing from the cache share one fetch from the provider")
+    void read_ConcurrentMisses_FetchedOnce() throws Exception {
+        TieredStorage storage = newStorage();
+        UploadTarget target = target("fox.txt").withContentHash(sha256("quick fox"));
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(backend.findStored(target)).thenReturn(Optional.of(new Blob("fox.txt", "text/plain", "s3://fox", 9L)));
+        when(backend.openStored(target)).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await();
+            return Optional.<InputStream>of(new ByteArrayInputStream("quick fox".getBytes(StandardCharsets.UTF_8)));
+        });
+        AtomicReference<Optional<Path>> firstRead = new AtomicReference<>();
+        Thread first = Thread.ofVirtual().start(() -> firstRead.set(storage.read(target)));
+        assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+        AtomicReference<Optional<Path>> secondRead = new AtomicReference<>();
+        Thread second = Thread.ofVirtual().start(() -> secondRead.set(storage.read(target)));
+        second.join(100);
+
+        release.countDown();
+        first.join(5_000);
+        second.join(5_000);
+
+        verify(backend, times(1)).openStored(target);
+        assertThat(firstRead.get()).hasValueSatisfying(path -> assertThat(path).hasContent("quick fox"));
+        assertThat(secondRead.get()).isEqualTo(firstRead.get());
+    }
+
+    @Test
+    @DisplayName("A file larger than the cache is stored by the provider and never cached")
+    void upload_LargerThanCache_NotCached() {
+        storageProperties.getTiered().setWriteMode(CacheWriteMode.WRITE_BACK);
+        TieredStorage storage = newStorage();
+        String content = "a file too large for the cache";
+        UploadTarget hashed = target("large.txt").withContentHash(sha256(content));
+        UploadSession backendSession = mock(UploadSession.class);
+        when(backend.findStored(hashed))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new Blob("large.txt", "text/plain", "s3://large", (long) content.length())));
+        when(backend.openUpload(hashed)).thenReturn(backendSession);
+
+        upload(storage, "large.txt", content);
+        Optional<Path> read = storage.read(hashed);
+
+        // write-back does not apply to files the cache cannot hold
+        verify(backendSession).complete();
+        assertThat(read).isEmpty();
+        assertThat(cache.dirty()).isEmpty();
+        verify(backend, never()).openStored(any());
+    }
+
+    private TieredStorage newStorage() {
+        return new TieredStorage(awsAdapter, azureAdapter, cache, uploadEngine, storageProperties, BACKEND_URL);
+    }
+
+    private static Blob upload(TieredStorage storage, String name, String content) {
+        UploadSession session = storage.openUpload(target(name));
+        session.write(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+        return session.complete();
+    }
+
+    private static UploadTarget target(String name) {
+        return new UploadTarget(name, "text/plain");
+    }
+
+    private static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
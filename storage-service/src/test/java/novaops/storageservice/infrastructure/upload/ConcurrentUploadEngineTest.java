@@ -0,0 +1,119 @@
+package novaops.storageservice.infrastructure.upload;
+
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.FileUploadResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentUploadEngineTest {
+
+    private ConcurrentUploadEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.getBatch().setLocalConcurrency(2);
+        engine = new ConcurrentUploadEngine(storageProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Every file of a batch is stored, and the results keep the order of the files")
+    void uploadAll_AllStored_ResultsInOrder() {
+        List<String> files = List.of("a.txt", "b.txt", "c.txt");
+
+        List<FileUploadResult> results = engine.uploadAll(files, name -> name, ConcurrentUploadEngineTest::blob);
+
+        assertThat(results).extracting(FileUploadResult::name).containsExactlyElementsOf(files);
+        assertThat(results).allMatch(FileUploadResult::isStored);
+        assertThat(results.get(1).blob().name()).isEqualTo("b.txt");
+    }
+
+    @Test
+    @DisplayName("A failed or empty file is reported without stopping the rest of the batch")
+    void uploadAll_SomeFail_OthersStored() {
+        List<String> files = List.of("a.txt", "broken.txt", "empty.txt", "d.txt");
+
+        List<FileUploadResult> results = engine.uploadAll(files, name -> name, name -> switch (name) {
+            case "broken.txt" -> throw new IllegalStateException("disk full");
+            case "empty.txt" -> null;
+            default -> blob(name);
+        });
+
+        assertThat(results).containsExactly(
+                FileUploadResult.stored("a.txt", blob("a.txt")),
+                FileUploadResult.failed("broken.txt", "disk full"),
+                FileUploadResult.failed("empty.txt", "Empty file"),
+                FileUploadResult.stored("d.txt", blob("d.txt")));
+    }
+
+    @Test
+    @DisplayName("No more files are uploaded at the same time than the backend allows")
+    void uploadAll_LargeBatch_BoundedConcurrency() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<String> files = IntStream.range(0, 12).mapToObj(i -> "file" + i).toList();
+
+        List<FileUploadResult> results = engine.uploadAll(files, name -> name, name -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return blob(name);
+        });
+
+        assertThat(results).hasSize(12).allMatch(FileUploadResult::isStored);
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("An asynchronous upload holds its slot until it completes")
+    void uploadAllAsync_PendingUploads_HoldSlots() throws Exception {
+        CompletableFuture<Blob> first = new CompletableFuture<>();
+        CompletableFuture<Blob> second = new CompletableFuture<>();
+        CountDownLatch started = new CountDownLatch(2);
+
+        CompletableFuture<List<FileUploadResult>> batch = engine.uploadAllAsync(
+                List.of(first, second), future -> future == first ? "first" : "second", future -> {
+                    started.countDown();
+                    return future;
+                });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Blob> third = engine.submit(() -> blob("third"));
+
+        // both slots are held by the pending uploads
+        assertThat(third).isNotDone();
+        assertThat(batch).isNotDone();
+
+        first.complete(blob("first"));
+        second.completeExceptionally(new IllegalStateException("connection reset"));
+
+        assertThat(third.get(5, TimeUnit.SECONDS).name()).isEqualTo("third");
+        assertThat(batch.get(5, TimeUnit.SECONDS)).containsExactly(
+                FileUploadResult.stored("first", blob("first")),
+                FileUploadResult.failed("second", "connection reset"));
+    }
+
+    private static Blob blob(String name) {
+        return new Blob(name, "text/plain", "http://cdn/" + name, 1L);
+    }
+}
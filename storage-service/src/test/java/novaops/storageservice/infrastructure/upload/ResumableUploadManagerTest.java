@@ -0,0 +1,221 @@
+package novaops.storageservice.infrastructure.upload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import novaops.storageservice.config.StorageProperties;
+import novaops.storageservice.domain.model.Blob;
+import novaops.storageservice.domain.model.UploadTarget;
+import novaops.storageservice.domain.service.Storage;
+import novaops.storageservice.domain.service.UploadSession;
+import novaops.storageservice.exception.StorageException;
+import novaops.storageservice.exception.StorageException.CloudStorageExceptionType;
+import novaops.storageservice.infrastructure.image.ImageVariantService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ResumableUploadManagerTest {
+
+    private static final byte[] CONTENT = "the quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+    private static final UploadTarget TARGET = new UploadTarget("fox.txt", "text/plain");
+
+    @TempDir
+    private Path stagingPath;
+
+    @Mock
+    private Storage storage;
+
+    @Mock
+    private ImageVariantService imageVariantService;
+
+    @Mock
+    private UploadSession session;
+
+    private StorageProperties storageProperties;
+    private ResumableUploadManager manager;
+
+    @BeforeEach
+    void setUp() {
+        storageProperties = new StorageProperties();
+        storageProperties.getUpload().setStagingPath(stagingPath.toString());
+        manager = newManager();
+    }
+
+    @Test
+    @DisplayName("A new upload starts at offset 0 and reports what it received once detached")
+    void attach_AppendDetach_ReportsOffset() {
+        String uploadId = manager.start(TARGET, CONTENT.length, null).uploadId();
+        assertThat(manager.status(uploadId).offset()).isZero();
+
+        StagedUpload upload = manager.attach(uploadId, 0);
+        assertThat(upload.append(ByteBuffer.wrap(CONTENT, 0, 10))).isEqualTo(10);
+        upload.detach();
+
+        assertThat(manager.status(uploadId)).isEqualTo(new ResumableUploadManager.UploadStatus(10, CONTENT.length));
+    }
+
+    @Test
+    @DisplayName("A request must resume at the offset the upload reached")
+    void attach_WrongOffset_Throws() {
+        String uploadId = manager.start(TARGET, CONTENT.length, null).uploadId();
+        StagedUpload upload = manager.attach(uploadId, 0);
+        upload.append(ByteBuffer.wrap(CONTENT, 0, 10));
+        upload.detach();
+
+        assertType(CloudStorageExceptionType.INVALID_UPLOAD_OFFSET, () -> manager.attach(uploadId, 0));
+        assertType(CloudStorageExceptionType.INVALID_UPLOAD_OFFSET, () -> manager.attach(uploadId, 11));
+
+        StagedUpload resumed = manager.attach(uploadId, 10);
+        assertThat(resumed.append(ByteBuffer.wrap(CONTENT, 10, CONTENT.length - 10))).isEqualTo(CONTENT.length);
+        assertThat(resumed.isComplete()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Only one request at a time may write to an upload")
+    void attach_AlreadyAttached_Throws() {
+        String uploadId = manager.start(TARGET, CONTENT.length, null).uploadId();
+        manager.attach(uploadId, 0);
+
+        assertType(CloudStorageExceptionType.UPLOAD_IN_PROGRESS, () -> manager.attach(uploadId, 0));
+    }
+
+    @Test
+    @DisplayName("An upload cannot grow past its declared size")
+    void append_PastDeclaredSize_Throws() {
+        String uploadId = manager.start(TARGET, 10, null).uploadId();
+        StagedUpload upload = manager.attach(uploadId, 0);
+
+        assertType(CloudStorageExceptionType.INVALID_UPLOAD_OFFSET, () -> upload.append(ByteBuffer.wrap(CONTENT, 0, 11)));
+        assertThat(upload.offset()).isZero();
+    }
+
+    @Test
+    @DisplayName("An unknown upload id is not found")
+    void status_UnknownUpload_Throws() {
+        assertType(CloudStorageExceptionType.UPLOAD_NOT_FOUND, () -> manager.status(UUID.randomUUID().toString()));
+        assertType(CloudStorageExceptionType.UPLOAD_NOT_FOUND, () -> manager.status("../" + UUID.randomUUID()));
+    }
+
+    @Test
+    @DisplayName("After a restart, the upload resumes where it was and is stored with the hash of all of its bytes")
+    void attach_AfterRestart_ResumesAtRecoveredOffset() throws Exception {
+        String sha256 = sha256(CONTENT);
+        when(storage.findStored(any())).thenReturn(Optional.empty());
+        String uploadId = manager.start(TARGET, CONTENT.length, sha256).uploadId();
+        StagedUpload upload = manager.attach(uploadId, 0);
+        upload.append(ByteBuffer.wrap(CONTENT, 0, 10));
+        upload.detach();
+
+        ResumableUploadManager restarted = newManager();
+
+        assertThat(restarted.status(uploadId).offset()).isEqualTo(10);
+        assertType(CloudStorageExceptionType.INVALID_UPLOAD_OFFSET, () -> restarted.attach(uploadId, 0));
+        StagedUpload resumed = restarted.attach(uploadId, 10);
+        resumed.append(ByteBuffer.wrap(CONTENT, 10, CONTENT.length - 10));
+
+        UploadTarget contentAddressed = TARGET.withContentHash(sha256);
+        Blob blob = new Blob("fox.txt", "text/plain", "/blobs/" + contentAddressed.contentAddressedName(), (long) CONTENT.length);
+        when(imageVariantService.openUpload(contentAddressed)).thenReturn(session);
+        ByteArrayOutputStream written = captureWrites();
+        when(session.complete()).thenReturn(blob);
+
+        assertThat(restarted.complete(resumed)).isEqualTo(blob);
+        assertThat(written.toByteArray()).isEqualTo(CONTENT);
+        try (var staged = Files.list(stagingPath)) {
+            assertThat(staged).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("A staged file longer than its declared size is cut back when recovered")
+    void status_AfterRestart_TruncatesExtraBytes() throws Exception {
+        String uploadId = manager.start(TARGET, 10, null).uploadId();
+        Files.write(stagingPath.resolve(uploadId + ".data"), CONTENT);
+
+        ResumableUploadManager restarted = newManager();
+
+        assertThat(restarted.status(uploadId).offset()).isEqualTo(10);
+        assertThat(Files.size(stagingPath.resolve(uploadId + ".data"))).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("An upload whose content does not match its declared hash is discarded")
+    void complete_HashMismatch_Throws() throws Exception {
+        when(storage.findStored(any())).thenReturn(Optional.empty());
+        String uploadId = manager.start(TARGET, CONTENT.length, sha256("something else".getBytes(StandardCharsets.UTF_8))).uploadId();
+        StagedUpload upload = manager.attach(uploadId, 0);
+        upload.append(ByteBuffer.wrap(CONTENT));
+
+        assertType(CloudStorageExceptionType.UPLOAD_HASH_MISMATCH, () -> manager.complete(upload));
+        verify(imageVariantService, never()).openUpload(any());
+        assertType(CloudStorageExceptionType.UPLOAD_NOT_FOUND, () -> manager.status(uploadId));
+    }
+
+    @Test
+    @DisplayName("Content that is already stored is not uploaded again")
+    void start_AlreadyStored_ReturnsBlob() {
+        String sha256 = sha256(CONTENT);
+        Blob blob = new Blob("fox.txt", "text/plain", "/blobs/" + sha256 + ".txt", (long) CONTENT.length);
+        when(storage.findStored(TARGET.withContentHash(sha256))).thenReturn(Optional.of(blob));
+
+        ResumableUploadManager.StartedUpload started = manager.start(TARGET, CONTENT.length, sha256.toUpperCase());
+
+        assertThat(started.uploadId()).isNull();
+        assertThat(started.blob()).isEqualTo(blob);
+    }
+
+    private ResumableUploadManager newManager() {
+        ResumableUploadManager resumableUploadManager =
+                new ResumableUploadManager(storage, imageVariantService, storageProperties, new ObjectMapper());
+        resumableUploadManager.init();
+        return resumableUploadManager;
+    }
+
+    private ByteArrayOutputStream captureWrites() {
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        doAnswer(invocation -> {
+            ByteBuffer chunk = invocation.getArgument(0);
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            written.write(bytes);
+            return null;
+        }).when(session).write(any());
+        return written;
+    }
+
+    private static void assertType(CloudStorageExceptionType type, Executable executable) {
+        StorageException exception = assertThrows(StorageException.class, executable);
+        assertThat(exception.getMessageKey()).isEqualTo(type.getMessageKey());
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.novaops.userservice.config.cache;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.auth-user-cache")
+public class AuthUserCacheProperties {
+
+  /** How long a user stays in Redis. Bounds staleness for changes no event is published for. */
+  @NotNull private Duration ttl = Duration.ofMinutes(10);
+
+  /** How long a user stays in the local near-cache, in front of Redis. */
+  @NotNull private Duration nearCacheTtl = Duration.ofMinutes(1);
+
+  @Min(value = 1, message = "Auth user near-cache maximum size must be at least 1")
+  private long nearCacheMaximumSize = 10_000;
+
+  /** Prefix of the Redis keys. */
+  @NotBlank private String keyPrefix = "user-service:auth-user:";
+
+  /** Redis channel used to tell the other instances to drop an entry from their near-cache. */
+  @NotBlank private String invalidationChannel = "user-service:auth-user:invalidations";
+
+  /** Once Redis failed, it is skipped for this long and users are read from the source. */
+  @NotNull private Duration redisRetryDelay = Duration.ofSeconds(30);
+}
@@ -0,0 +1,33 @@
+package com.novaops.userservice.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CacheSpecProperties.class)
+public class CacheConfig {
+
+  /**
+   * Caffeine caches with their own TTL and size. Statistics are recorded so Actuator exposes
+   * hits, misses and evictions under the {@code cache.*} metrics.
+   */
+  @Bean
+  public CacheManager cacheManager(CacheSpecProperties properties) {
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    cacheManager.setCaffeine(caffeine(properties.getDefaults()));
+    CacheNames.ALL.forEach(
+        name -> cacheManager.registerCustomCache(name, caffeine(properties.specFor(name)).build()));
+    return cacheManager;
+  }
+
+  private static Caffeine<Object, Object> caffeine(CacheSpecProperties.Spec spec) {
+    return Caffeine.newBuilder()
+        .expireAfterWrite(spec.getTtl())
+        .maximumSize(spec.getMaximumSize())
+        .recordStats();
+  }
+}
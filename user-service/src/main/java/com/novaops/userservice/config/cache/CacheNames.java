@@ -0,0 +1,18 @@
+package com.novaops.userservice.config.cache;
+
+import java.util.List;
+
+/** Names of the application caches, each one can be tuned under {@code app.cache.specs}. */
+public final class CacheNames {
+
+  public static final String KEYCLOAK_ROLES = "keycloak-roles";
+  public static final String KEYCLOAK_ROLE_COMPOSITES = "keycloak-role-composites";
+  public static final String KEYCLOAK_CLIENTS = "keycloak-clients";
+  public static final String KEYCLOAK_GROUPS = "keycloak-groups";
+
+  /** Caches created at startup, so their metrics are registered from the start. */
+  public static final List<String> ALL =
+      List.of(KEYCLOAK_ROLES, KEYCLOAK_ROLE_COMPOSITES, KEYCLOAK_CLIENTS, KEYCLOAK_GROUPS);
+
+  private CacheNames() {}
+}
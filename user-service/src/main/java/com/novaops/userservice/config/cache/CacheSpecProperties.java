@@ -0,0 +1,41 @@
+package com.novaops.userservice.config.cache;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheSpecProperties {
+
+  /** Used by every cache without its own entry in {@link #specs}. */
+  @Valid @NotNull private Spec defaults = new Spec();
+
+  /** Per cache settings, keyed by cache name. */
+  private Map<String, @Valid Spec> specs = new HashMap<>();
+
+  public Spec specFor(String cacheName) {
+    return specs.getOrDefault(cacheName, defaults);
+  }
+
+  @Getter
+  @Setter
+  public static class Spec {
+
+    /** Entries expire this long after they were written. */
+    @NotNull private Duration ttl = Duration.ofMinutes(10);
+
+    /** Least recently used entries are evicted beyond this size. */
+    @Min(value = 1, message = "Cache maximum size must be at least 1")
+    private long maximumSize = 1_000;
+  }
+}
@@ -0,0 +1,27 @@
+package com.novaops.userservice.config.cache;
+
+import com.novaops.userservice.infrastructure.adapter.cache.AuthUserCache;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+@EnableConfigurationProperties(AuthUserCacheProperties.class)
+public class RedisConfig {
+
+  /** Subscribes the auth user cache to the invalidations published by the other instances. */
+  @Bean
+  public RedisMessageListenerContainer redisMessageListenerContainer(
+      RedisConnectionFactory connectionFactory,
+      AuthUserCache authUserCache,
+      AuthUserCacheProperties properties) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(
+        authUserCache, new ChannelTopic(properties.getInvalidationChannel()));
+    return container;
+  }
+}
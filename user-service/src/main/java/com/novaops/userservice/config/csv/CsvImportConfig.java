@@ -0,0 +1,8 @@
+package com.novaops.userservice.config.csv;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CsvImportProperties.class)
+public class CsvImportConfig {}
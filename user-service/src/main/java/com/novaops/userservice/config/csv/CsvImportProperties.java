@@ -0,0 +1,39 @@
+package com.novaops.userservice.config.csv;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.csv-import")
+public class CsvImportProperties {
+
+  /** Number of CSV rows validated and handed downstream at once. */
+  @Min(value = 1, message = "CSV import chunk size must be at least 1")
+  @Max(value = 50_000, message = "CSV import chunk size must not exceed 50000")
+  private int chunkSize = 1_000;
+
+  /**
+   * Maximum number of chunks validated concurrently. Also bounds memory: at most this many chunks
+   * (plus the one being read) are held at once.
+   */
+  @Min(value = 1, message = "CSV import parallelism must be at least 1")
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Maximum number of rows read from one file. In-file duplicates are found with an index of the
+   * emails read so far, which costs about 100 bytes per row for the whole import; the rows past
+   * this limit are reported as one error and not imported.
+   */
+  @Min(value = 1, message = "CSV import max rows must be at least 1")
+  private int maxRows = 100_000;
+
+  /** Number of rows per JDBC batch (and per transaction) when persisting imported users. */
+  @Min(value = 1, message = "CSV import batch size must be at least 1")
+  private int batchSize = 1_000;
+}
@@ -0,0 +1,50 @@
+package com.novaops.userservice.config.grpc;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.storage-gc")
+public class StorageGcProperties {
+
+  /** Delete the files of the storage service that no user references anymore. */
+  private boolean enabled = false;
+
+  /** Number of files listed, and at most deleted, per request to the storage service. */
+  @Min(value = 1, message = "Storage GC page size must be at least 1")
+  @Max(value = 1_000, message = "Storage GC page size must not exceed 1000")
+  private int pageSize = 500;
+
+  /**
+   * Pages handled per run. The next run continues where the previous one stopped, so the whole
+   * storage is covered over several runs.
+   */
+  @Min(value = 1, message = "Storage GC pages per run must be at least 1")
+  private int pagesPerRun = 20;
+
+  /** Pause between two pages, which bounds the load put on the storage service and the database. */
+  @NotNull private Duration pageInterval = Duration.ofSeconds(1);
+
+  /**
+   * Files younger than this are kept, so a file is not deleted between its upload and the moment
+   * its URL is saved.
+   */
+  @NotNull private Duration minAge = Duration.ofHours(24);
+
+  /** Deadline of each request to the storage service. */
+  @NotNull private Duration timeout = Duration.ofSeconds(30);
+
+  /**
+   * Only one instance collects at a time. The lease is renewed before every page and expires after
+   * this long in case the instance holding it dies.
+   */
+  @NotNull private Duration leaseDuration = Duration.ofMinutes(30);
+}
@@ -1,11 +1,13 @@
 package com.novaops.userservice.config.grpc;
 
 import org.novaops.storageservice.proto.StorageServiceGrpc;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.grpc.client.GrpcChannelFactory;
 
 @Configuration
+@EnableConfigurationProperties({StorageUploadProperties.class, StorageGcProperties.class})
 public class StorageServiceGrpcConfig {
 
     @Bean
@@ -0,0 +1,28 @@
+package com.novaops.userservice.config.grpc;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.storage-upload")
+public class StorageUploadProperties {
+
+  /** Size of the first chunk sent to the storage service, and the smallest chunk size. */
+  @NotNull private DataSize minChunkSize = DataSize.ofKilobytes(64);
+
+  /**
+   * Largest chunk size. Chunks grow towards it while the channel keeps up, and shrink back when the
+   * channel stops accepting data. Must stay below the gRPC message limit of the storage service.
+   */
+  @NotNull private DataSize maxChunkSize = DataSize.ofMegabytes(1);
+
+  /** Deadline of an upload, after which it is cancelled. */
+  @NotNull private Duration timeout = Duration.ofMinutes(5);
+}
@@ -2,6 +2,7 @@ package com.novaops.userservice.config.init;
 
 import com.novaops.userservice.domain.enums.Locale;
 import com.novaops.userservice.domain.enums.RoleType;
+import com.novaops.userservice.infrastructure.adapter.persistence.KeycloakRealmMetadata;
 import com.novaops.userservice.infrastructure.entity.RoleEntity;
 import com.novaops.userservice.infrastructure.entity.UserEntity;
 import com.novaops.userservice.infrastructure.repository.UserJpaRepository;
@@ -9,6 +10,7 @@ import com.novaops.userservice.infrastructure.utils.KeycloakUtils;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 import java.util.*;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.Keycloak;
@@ -20,8 +22,11 @@ import org.springframework.stereotype.Service;
 
 @Service
 @Log4j2
+@RequiredArgsConstructor
 public class CreateDefaultUser {
 
+  private final KeycloakRealmMetadata realmMetadata;
+
   @Value("${keycloak.realm}")
   public String realm;
 
@@ -81,8 +86,7 @@ public class CreateDefaultUser {
             Collections.singletonList(adminCredentialRepresentation));
         Response adminResponse = keycloak.realm(realm).users().create(adminRepresentation);
         String adminUserId = CreatedResponseUtil.getCreatedId(adminResponse);
-        RoleRepresentation adminRole =
-            keycloak.realm(realm).roles().get(String.valueOf(RoleType.ADMIN)).toRepresentation();
+        RoleRepresentation adminRole = realmMetadata.role(String.valueOf(RoleType.ADMIN));
         List<RoleRepresentation> adminRoles = List.of(adminRole);
         keycloak.realm(realm).users().get(adminUserId).roles().realmLevel().add(adminRoles);
         UserEntity defaultAdmin =
@@ -11,7 +11,11 @@ import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @RequiredArgsConstructor
-@EnableConfigurationProperties(KeycloakAdminClientProperties.class)
+@EnableConfigurationProperties({
+  KeycloakAdminClientProperties.class,
+  KeycloakProvisioningProperties.class,
+  KeycloakMutationProperties.class
+})
 public class KeycloakConfig {
 
   private final KeycloakAdminClientProperties properties;
@@ -0,0 +1,27 @@
+package com.novaops.userservice.config.keycloak;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "keycloak.mutations")
+public class KeycloakMutationProperties {
+
+  /**
+   * Read the user back from Keycloak after a change and return that, instead of the locally
+   * changed representation.
+   */
+  private boolean verify = false;
+
+  /**
+   * Maximum number of concurrent requests of a batch operation, e.g. disabling or renaming many
+   * users.
+   */
+  @Min(value = 1, message = "Keycloak batch concurrency must be at least 1")
+  private int batchConcurrency = 8;
+}
@@ -0,0 +1,34 @@
+package com.novaops.userservice.config.keycloak;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "keycloak.provisioning")
+public class KeycloakProvisioningProperties {
+
+  /**
+   * Create users through the realm partial import endpoint. Requires the <b>manage-realm</b> role
+   * for the client service account; single creates are used when it is missing.
+   */
+  private boolean partialImport = true;
+
+  /** Number of users sent in one partial import request. */
+  @Min(value = 1, message = "Keycloak import batch size must be at least 1")
+  @Max(value = 5_000, message = "Keycloak import batch size must not exceed 5000")
+  private int importBatchSize = 500;
+
+  /** Maximum number of concurrent create requests when partial import is not used. */
+  @Min(value = 1, message = "Keycloak provisioning concurrency must be at least 1")
+  private int concurrency = 8;
+
+  /** Maximum number of required actions emails (e.g. welcome emails) sent per second. */
+  @Min(value = 1, message = "Keycloak emails per second must be at least 1")
+  private int emailsPerSecond = 5;
+}
@@ -0,0 +1,44 @@
+package com.novaops.userservice.config.persistence;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.email-index")
+public class EmailIndexProperties {
+
+  /** Target false positive probability of the Bloom filter. */
+  @DecimalMin(value = "0.0001", message = "Email index false positive probability is too low")
+  @DecimalMax(value = "0.5", message = "Email index false positive probability is too high")
+  private double falsePositiveProbability = 0.01;
+
+  /** The filter is sized for the current user count times this factor, to leave room to grow. */
+  @DecimalMin(value = "1.0", message = "Email index growth factor must be at least 1")
+  private double growthFactor = 2.0;
+
+  /** Lower bound for the filter size, so a new tenant does not rebuild on every few sign-ups. */
+  @Min(value = 1_000, message = "Email index minimum capacity must be at least 1000")
+  private long minimumCapacity = 100_000;
+
+  /** Maximum number of emails per {@code WHERE email IN (...)} confirmation query. */
+  @Min(value = 1, message = "Email index query batch size must be at least 1")
+  private int queryBatchSize = 1_000;
+
+  /**
+   * Deletions leave stale bits behind; once they exceed this share of the capacity the filter is
+   * rebuilt.
+   */
+  @DecimalMin(value = "0.0", message = "Email index stale ratio must not be negative")
+  private double maxStaleRatio = 0.1;
+
+  /** Redis channel the instances publish the emails they store on, to update each other. */
+  @NotBlank private String channel = "user-service:email-index";
+}
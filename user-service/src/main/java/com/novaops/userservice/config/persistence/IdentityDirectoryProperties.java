@@ -0,0 +1,31 @@
+package com.novaops.userservice.config.persistence;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.idp-directory")
+public class IdentityDirectoryProperties {
+
+  /** Serve identity provider listings from the local directory once it has been synchronized. */
+  private boolean enabled = true;
+
+  /** Number of users read from Keycloak per request during a reconciliation. */
+  @Min(value = 1, message = "Identity directory page size must be at least 1")
+  @Max(value = 5_000, message = "Identity directory page size must not exceed 5000")
+  private int pageSize = 500;
+
+  /**
+   * Only one instance reconciles at a time. The lease expires after this long in case the
+   * instance holding it dies.
+   */
+  @NotNull private Duration leaseDuration = Duration.ofMinutes(30);
+}
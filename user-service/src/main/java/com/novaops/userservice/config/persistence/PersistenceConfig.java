@@ -0,0 +1,8 @@
+package com.novaops.userservice.config.persistence;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({EmailIndexProperties.class, IdentityDirectoryProperties.class})
+public class PersistenceConfig {}
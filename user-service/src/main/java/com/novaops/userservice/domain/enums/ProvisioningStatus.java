@@ -0,0 +1,7 @@
+package com.novaops.userservice.domain.enums;
+
+public enum ProvisioningStatus {
+  CREATED,
+  SKIPPED,
+  FAILED
+}
@@ -7,4 +7,5 @@ public enum ValidationErrorType {
   DUPLICATE_EMAIL,
   INVALID_EMAIL,
   FIELD_TOO_LONG,
+  TOO_MANY_ROWS,
 }
@@ -0,0 +1,10 @@
+package com.novaops.userservice.domain.model;
+
+import java.util.List;
+
+/**
+ * One page of the files of the storage service.
+ *
+ * @param nextCursor the cursor of the next page, {@code null} after the last page
+ */
+public record BlobPage(List<StoredBlob> blobs, String nextCursor) {}
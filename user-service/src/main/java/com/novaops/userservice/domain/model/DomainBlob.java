@@ -1,9 +1,21 @@
 package com.novaops.userservice.domain.model;
 
 
+import java.util.Map;
+
+/**
+ * A file stored by the storage service.
+ *
+ * @param variants the URLs of the resized copies of an image, by variant name
+ */
 public record DomainBlob(
         String name,
         String type,
         String url,
-        Long size) {
+        Long size,
+        Map<String, String> variants) {
+
+    public DomainBlob(String name, String type, String url, Long size) {
+        this(name, type, url, size, Map.of());
+    }
 }
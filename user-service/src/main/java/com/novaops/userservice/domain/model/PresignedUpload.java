@@ -0,0 +1,20 @@
+package com.novaops.userservice.domain.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A request the client sends a file with, straight to the storage.
+ *
+ * @param uploadUrl the URL to send the file to, signed for a limited time
+ * @param method the HTTP method to send the file with
+ * @param headers the headers the request must carry, as they are signed
+ * @param uploadToken completes the upload once the file is sent
+ * @param expiresAt when the URL stops being accepted
+ */
+public record PresignedUpload(
+    String uploadUrl,
+    String method,
+    Map<String, String> headers,
+    String uploadToken,
+    Instant expiresAt) {}
@@ -0,0 +1,31 @@
+package com.novaops.userservice.domain.model;
+
+import com.novaops.userservice.domain.enums.ProvisioningStatus;
+
+/**
+ * Outcome of provisioning one user in the identity provider.
+ *
+ * @param email the email of the user
+ * @param userId the identity id, when the user was created or already existed and its id is known
+ * @param status whether the user was created, already existed or could not be created
+ * @param error the reason of the failure, if any
+ */
+public record ProvisioningResult(
+    String email, String userId, ProvisioningStatus status, String error) {
+
+  public static ProvisioningResult created(String email, String userId) {
+    return new ProvisioningResult(email, userId, ProvisioningStatus.CREATED, null);
+  }
+
+  public static ProvisioningResult skipped(String email, String userId) {
+    return new ProvisioningResult(email, userId, ProvisioningStatus.SKIPPED, "already exists");
+  }
+
+  public static ProvisioningResult failed(String email, String error) {
+    return new ProvisioningResult(email, null, ProvisioningStatus.FAILED, error);
+  }
+
+  public boolean isCreated() {
+    return status == ProvisioningStatus.CREATED;
+  }
+}
@@ -0,0 +1,12 @@
+package com.novaops.userservice.domain.model;
+
+import java.time.Instant;
+
+/**
+ * A file found when listing the storage service.
+ *
+ * @param url the URL of the file, as returned on upload
+ * @param size the size of the file in bytes
+ * @param lastModified when the file was last written
+ */
+public record StoredBlob(String url, long size, Instant lastModified) {}
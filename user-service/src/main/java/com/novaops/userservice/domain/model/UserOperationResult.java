@@ -0,0 +1,19 @@
+package com.novaops.userservice.domain.model;
+
+/**
+ * Outcome of an operation applied to one user of a batch.
+ *
+ * @param userId the unique identifier of the user
+ * @param success whether the operation succeeded
+ * @param error the reason of the failure, if any
+ */
+public record UserOperationResult(String userId, boolean success, String error) {
+
+  public static UserOperationResult succeeded(String userId) {
+    return new UserOperationResult(userId, true, null);
+  }
+
+  public static UserOperationResult failed(String userId, String error) {
+    return new UserOperationResult(userId, false, error);
+  }
+}
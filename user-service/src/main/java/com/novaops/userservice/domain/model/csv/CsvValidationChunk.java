@@ -0,0 +1,25 @@
+package com.novaops.userservice.domain.model.csv;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.novaops.userservice.domain.model.User;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A fixed-size slice of a CSV import. Chunks are produced in file order and released as soon as
+ * they have been handed downstream, so only one chunk's rows are held in memory at a time.
+ */
+@Data
+@Builder
+public class CsvValidationChunk {
+  private int chunkIndex;
+  private long firstLineNumber;
+  private long lastLineNumber;
+  private List<CsvValidationError> errors;
+  private List<CsvImportWarning> warnings;
+  @JsonIgnore private List<User> users;
+  private int validRecordCount;
+  private int errorRecordCount;
+  private int importedCount;
+}
@@ -14,6 +14,7 @@ public class CsvValidationResult {
   private List<CsvImportWarning> warnings;
   private int successfulImports;
   private int skippedRecords;
+  private int failedImports;
   private List<String> duplicateEmails;
   @JsonIgnore private List<User> users;
   private int totalRecords;
@@ -4,6 +4,7 @@ package com.novaops.userservice.domain.port.input;
 import com.novaops.userservice.domain.enums.Locale;
 import com.novaops.userservice.domain.enums.RoleType;
 import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.domain.model.UserOperationResult;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -46,7 +47,7 @@ public interface IdentityProviderUseCases {
   /**
    * Retrieves all users with specified roles.
    *
-   * @param roles The roles to filter users by.
+   * @param roles The roles to filter users by, all users when empty.
    * @return A Page of users with the specified roles.
    */
   Page<AuthUser> findAll(List<String> roles, String search, Pageable pageable);
@@ -67,6 +68,15 @@ public interface IdentityProviderUseCases {
    */
   AuthUser disableUser(String userId);
 
+  /**
+   * Enables or disables many users at once.
+   *
+   * @param userIds The IDs of the users.
+   * @param enabled The status to set.
+   * @return The outcome for each user, in the same order.
+   */
+  List<UserOperationResult> setEnabled(List<String> userIds, boolean enabled);
+
   /**
    * Deletes a user from the system.
    *
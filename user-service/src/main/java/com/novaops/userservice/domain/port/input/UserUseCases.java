@@ -2,9 +2,11 @@ package com.novaops.userservice.domain.port.input;
 
 import com.novaops.userservice.domain.enums.RoleType;
 import com.novaops.userservice.domain.model.DomainBlob;
+import com.novaops.userservice.domain.model.PresignedUpload;
 import com.novaops.userservice.domain.model.User;
 import com.novaops.userservice.domain.model.UserRegistrationData;
 import com.novaops.userservice.domain.model.csv.CsvImportOptions;
+import com.novaops.userservice.domain.model.csv.CsvValidationChunk;
 import com.novaops.userservice.domain.model.csv.CsvValidationResult;
 import com.novaops.userservice.infrastructure.dto.request.UpdateUserRequest;
 import org.springframework.data.domain.Page;
@@ -13,6 +15,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Interface defining the use cases for managing users.
@@ -33,6 +37,17 @@ public interface UserUseCases {
 
     CsvValidationResult importUsers(MultipartFile file, CsvImportOptions options) throws IOException;
 
+    /**
+     * Imports users from a CSV file chunk by chunk, reporting every chunk as soon as it is processed.
+     *
+     * @param file          the CSV file
+     * @param options       the import options
+     * @param chunkConsumer receives the processed chunks in line order
+     * @return a summary of the import (counts only)
+     */
+    CsvValidationResult importUsers(
+            MultipartFile file, CsvImportOptions options, Consumer<CsvValidationChunk> chunkConsumer);
+
     Boolean existsByEmail(String email);
 
     Page<User> findAllPaginated(String search, RoleType role, Pageable pageable);
@@ -41,7 +56,36 @@ public interface UserUseCases {
 
     void deleteById(UUID id);
 
-    DomainBlob uploadProfilePicture(MultipartFile file, UUID userId);
+    /**
+     * Uploads the picture and sets it as the profile picture of the user once stored.
+     *
+     * @param file   the picture
+     * @param userId the user
+     * @return completes with the stored blob
+     */
+    CompletableFuture<DomainBlob> uploadProfilePicture(MultipartFile file, UUID userId);
+
+    /**
+     * Presigns the upload of a profile picture, which the client then sends straight to the
+     * storage.
+     *
+     * @param userId      the user
+     * @param name        the name of the picture
+     * @param contentType the MIME type of the picture
+     * @param size        the size of the picture in bytes
+     * @return completes with the request to send the picture with
+     */
+    CompletableFuture<PresignedUpload> presignProfilePictureUpload(
+            UUID userId, String name, String contentType, long size);
+
+    /**
+     * Sets the picture sent with a presigned upload as the profile picture of the user.
+     *
+     * @param userId      the user
+     * @param uploadToken the token returned with the presigned upload
+     * @return completes with the stored blob
+     */
+    CompletableFuture<DomainBlob> completeProfilePictureUpload(UUID userId, String uploadToken);
 
 
 }
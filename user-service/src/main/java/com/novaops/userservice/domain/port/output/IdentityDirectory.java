@@ -0,0 +1,57 @@
+package com.novaops.userservice.domain.port.output;
+
+import com.novaops.userservice.domain.enums.RoleType;
+import com.novaops.userservice.domain.model.AuthUser;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Output port for the local, read only copy of the identity provider users. It answers the listing
+ * queries of {@link IdentityProvider} without calling the identity provider, and may lag behind it
+ * by a few seconds.
+ */
+public interface IdentityDirectory {
+
+  /**
+   * Whether the directory has been fully synchronized at least once and can serve reads.
+   *
+   * @return true when the directory can be used instead of the identity provider
+   */
+  boolean isReady();
+
+  /**
+   * Retrieves users with pagination and filtering options.
+   *
+   * @param roles the roles to filter by, all users are returned when empty
+   * @param search the search term for filtering users
+   * @param pageable the pagination information
+   * @return a page of users matching the criteria
+   */
+  Page<AuthUser> findAll(List<RoleType> roles, String search, Pageable pageable);
+
+  /**
+   * Finds all users with a specific role type.
+   *
+   * @param roleType the role type to filter by
+   * @return a list of users with the specified role type
+   */
+  List<AuthUser> findByRole(RoleType roleType);
+
+  /**
+   * Finds all users belonging to a group.
+   *
+   * @param groupName the name of the group
+   * @return a list of users in the specified group
+   */
+  List<AuthUser> findByGroup(String groupName);
+
+  /**
+   * Finds users by custom attribute query, with the same syntax as {@link
+   * IdentityProvider#findByCustomAttribute(String)}.
+   *
+   * @param query the custom attribute query string
+   * @return a list of users matching every attribute of the query
+   */
+  List<AuthUser> findByCustomAttribute(String query);
+}
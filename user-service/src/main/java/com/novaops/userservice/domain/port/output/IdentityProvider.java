@@ -3,6 +3,8 @@ package com.novaops.userservice.domain.port.output;
 import com.novaops.userservice.domain.enums.Locale;
 import com.novaops.userservice.domain.enums.RoleType;
 import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.domain.model.ProvisioningResult;
+import com.novaops.userservice.domain.model.UserOperationResult;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
@@ -42,7 +44,7 @@ public interface IdentityProvider {
   /**
    * Retrieves all users with pagination and filtering options.
    *
-   * @param roles the list of roles to filter by
+   * @param roles the list of roles to filter by, all users are returned when empty
    * @param search the search term for filtering users
    * @param pageable the pagination information
    * @return a page of users matching the criteria
@@ -68,6 +70,25 @@ public interface IdentityProvider {
       List<String> requiredActions,
       boolean sendEmail);
 
+  /**
+   * Creates many users at once, each with its {@link AuthUser#getRoleTypes() role types}. A user
+   * that cannot be created does not abort the others; users that already exist are skipped.
+   *
+   * @param users the users to create
+   * @param requiredActions the list of required actions for every user
+   * @return one result per user, in the order of {@code users}
+   */
+  List<ProvisioningResult> createAll(List<AuthUser> users, List<String> requiredActions);
+
+  /**
+   * Sends the email asking the users to perform the given required actions. The emails are sent in
+   * the background at a limited rate.
+   *
+   * @param userIds the unique identifiers of the users
+   * @param actions the required actions to perform, e.g. UPDATE_PASSWORD
+   */
+  void sendRequiredActionsEmails(List<String> userIds, List<String> actions);
+
   /**
    * Updates an existing user in the identity provider.
    *
@@ -76,6 +97,15 @@ public interface IdentityProvider {
    */
   AuthUser update(AuthUser user);
 
+  /**
+   * Updates the first and last names of many users at once. A user that cannot be updated does
+   * not abort the others.
+   *
+   * @param users the users, with their identifier and names set
+   * @return one result per user, in the order of {@code users}
+   */
+  List<UserOperationResult> updateNames(List<AuthUser> users);
+
   /**
    * Finds a user by their username.
    *
@@ -124,6 +154,16 @@ public interface IdentityProvider {
    */
   AuthUser enableUser(String id);
 
+  /**
+   * Enables or disables many users at once. A user that cannot be updated does not abort the
+   * others.
+   *
+   * @param userIds the unique identifiers of the users
+   * @param enabled the status to set
+   * @return one result per user, in the order of {@code userIds}
+   */
+  List<UserOperationResult> setEnabled(List<String> userIds, boolean enabled);
+
   /**
    * Toggles the enabled/disabled status of a user.
    *
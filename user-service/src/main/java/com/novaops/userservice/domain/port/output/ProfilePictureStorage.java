@@ -0,0 +1,61 @@
+package com.novaops.userservice.domain.port.output;
+
+import com.novaops.userservice.domain.model.DomainBlob;
+import com.novaops.userservice.domain.model.PresignedUpload;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Output port for the profile pictures: storing them in the storage service, and keeping track of
+ * the files the users reference so the ones no user references anymore can be deleted.
+ */
+public interface ProfilePictureStorage {
+
+  /**
+   * Uploads a profile picture to the storage service without blocking the caller.
+   *
+   * @param file the picture
+   * @return completes with the stored blob once the storage service has stored it
+   */
+  CompletableFuture<DomainBlob> uploadProfilePicture(MultipartFile file);
+
+  /**
+   * Presigns the upload of a profile picture, sent by the client straight to the storage.
+   *
+   * @param name the name of the picture
+   * @param contentType the MIME type of the picture
+   * @param size the size of the picture in bytes
+   * @return completes with the request to send the picture with
+   */
+  CompletableFuture<PresignedUpload> presignProfilePictureUpload(
+      String name, String contentType, long size);
+
+  /**
+   * Completes a presigned upload once the client has sent the picture.
+   *
+   * @param uploadToken the token returned with the presigned upload
+   * @return completes with the stored picture, once the storage service has checked it
+   */
+  CompletableFuture<DomainBlob> completeProfilePictureUpload(String uploadToken);
+
+  /**
+   * Sets the profile picture of a user, with its variants.
+   *
+   * @param userId the user
+   * @param blob the stored picture
+   * @return the URLs of the picture and the variants it replaces
+   */
+  List<String> replaceProfilePicture(UUID userId, DomainBlob blob);
+
+  /**
+   * Deletes the files from the storage service, unless a user still references them. The same
+   * file can be referenced by several users when its content was stored only once.
+   *
+   * @param urls the URLs of the files
+   * @return completes once the files are deleted
+   */
+  CompletableFuture<Void> deleteUnreferencedFiles(Collection<String> urls);
+}
@@ -0,0 +1,18 @@
+package com.novaops.userservice.domain.port.output;
+
+import com.novaops.userservice.domain.model.User;
+import java.util.List;
+
+/** Output port writing many users at once, used by the CSV import. */
+public interface UserBulkRepository {
+
+  /**
+   * Writes many users at once, in batches with one transaction per batch.
+   *
+   * @param users the users to write, with their identifiers and roles set
+   * @param updateExisting when true, users whose email already exists get their profile updated;
+   *     otherwise they are left untouched
+   * @return the number of users written
+   */
+  int bulkUpsert(List<User> users, boolean updateExisting);
+}
@@ -1,12 +1,32 @@
 package com.novaops.userservice.domain.port.output;
 
 import com.novaops.userservice.domain.model.csv.CsvImportOptions;
+import com.novaops.userservice.domain.model.csv.CsvValidationChunk;
 import com.novaops.userservice.domain.model.csv.CsvValidationResult;
 import java.io.IOException;
+import java.util.function.Consumer;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface UserCsvLoader {
 
+  /**
+   * Parses and validates the whole file, collecting every error, warning and valid user into a
+   * single result. Prefer {@link #streamAndValidateCsvUsers} for large files.
+   */
   CsvValidationResult parseAndValidateCsvUsers(MultipartFile file, CsvImportOptions options)
       throws IOException;
+
+  /**
+   * Parses, normalizes and validates the file in fixed-size chunks, handing each chunk to the
+   * consumer in file order as soon as it is complete.
+   *
+   * @param file the CSV file to read
+   * @param options the import options
+   * @param chunkConsumer receives every chunk, in line order
+   * @return a summary of the import; it carries counts only, the per-row details have already been
+   *     delivered through the chunks
+   */
+  CsvValidationResult streamAndValidateCsvUsers(
+      MultipartFile file, CsvImportOptions options, Consumer<CsvValidationChunk> chunkConsumer)
+      throws IOException;
 }
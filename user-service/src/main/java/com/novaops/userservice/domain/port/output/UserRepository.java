@@ -2,13 +2,13 @@ package com.novaops.userservice.domain.port.output;
 
 import com.novaops.userservice.domain.enums.Locale;
 import com.novaops.userservice.domain.enums.RoleType;
-import com.novaops.userservice.domain.model.DomainBlob;
 import com.novaops.userservice.domain.model.User;
 import com.novaops.userservice.infrastructure.dto.request.UpdateUserRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -81,6 +81,15 @@ public interface UserRepository {
      */
     Boolean existsByEmail(String email);
 
+    /**
+     * Finds the users registered with the given email addresses.
+     *
+     * @param emails the email addresses to look up
+     * @return the users keyed by lower-cased email, for the emails that exist; only their
+     * identifier, email and names are set
+     */
+    Map<String, User> findByEmails(Collection<String> emails);
+
     /**
      * Retrieves all users with pagination and filtering options.
      *
@@ -90,6 +99,4 @@ public interface UserRepository {
      * @return a page of users matching the criteria
      */
     Page<User> findAll(String search, Pageable pageable, RoleType role);
-
-    DomainBlob uploadProfilePicture(MultipartFile file);
 }
@@ -3,7 +3,9 @@ package com.novaops.userservice.domain.service;
 import com.novaops.userservice.domain.enums.Locale;
 import com.novaops.userservice.domain.enums.RoleType;
 import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.domain.model.UserOperationResult;
 import com.novaops.userservice.domain.port.input.IdentityProviderUseCases;
+import com.novaops.userservice.domain.port.output.IdentityDirectory;
 import com.novaops.userservice.domain.port.output.IdentityProvider;
 import com.novaops.userservice.domain.port.output.UserRepository;
 import com.novaops.userservice.exception.NotFoundException;
@@ -24,6 +26,7 @@ public class IdentityProviderService implements IdentityProviderUseCases {
 
   private final IdentityProvider iamUserRepository;
   private final UserRepository users;
+  private final IdentityDirectory identityDirectory;
 
   @Override
   public AuthUser update(AuthUser authUser) {
@@ -57,21 +60,39 @@ public class IdentityProviderService implements IdentityProviderUseCases {
    */
   @Override
   public List<AuthUser> findByCustomAttribute(String query) {
+    if (identityDirectory.isReady()) {
+      return identityDirectory.findByCustomAttribute(query);
+    }
     return iamUserRepository.findByCustomAttribute(query);
   }
 
   @Override
   public List<AuthUser> findByRole(RoleType roleType) {
+    if (identityDirectory.isReady()) {
+      return identityDirectory.findByRole(roleType);
+    }
     return iamUserRepository.findByRole(roleType);
   }
 
   @Override
   public List<AuthUser> findByGroup(String role) {
+    if (identityDirectory.isReady()) {
+      return identityDirectory.findByGroup(role);
+    }
     return iamUserRepository.findByGroup(role);
   }
 
+  /**
+   * Listings are served by the local identity directory once it has been synchronized, and by the
+   * identity provider until then. Unknown role names are ignored.
+   */
   @Override
   public Page<AuthUser> findAll(List<String> roles, String search, Pageable pageable) {
+    if (identityDirectory.isReady()) {
+      List<RoleType> roleTypes =
+          roles.stream().map(RoleType::fromString).flatMap(Optional::stream).toList();
+      return identityDirectory.findAll(roleTypes, search, pageable);
+    }
     return iamUserRepository.findAll(roles, search, pageable);
   }
 
@@ -97,6 +118,18 @@ public class IdentityProviderService implements IdentityProviderUseCases {
     return this.iamUserRepository.disableUser(userId);
   }
 
+  /**
+   * Enables or disables many users at once.
+   *
+   * @param userIds The IDs of the users.
+   * @param enabled The status to set.
+   * @return The outcome for each user, in the same order.
+   */
+  @Override
+  public List<UserOperationResult> setEnabled(List<String> userIds, boolean enabled) {
+    return this.iamUserRepository.setEnabled(userIds, enabled);
+  }
+
   //  @Override
   //  public AuthUser toggleUserStatus(String userId) {
   //    return iamUserRepository.toggle(userId);
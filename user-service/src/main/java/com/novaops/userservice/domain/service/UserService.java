@@ -1,22 +1,32 @@
 package com.novaops.userservice.domain.service;
 
 import com.novaops.userservice.domain.enums.NotificationPreference;
+import com.novaops.userservice.domain.enums.ProvisioningStatus;
 import com.novaops.userservice.domain.enums.RoleType;
 import com.novaops.userservice.domain.model.AuthUser;
 import com.novaops.userservice.domain.model.DomainBlob;
+import com.novaops.userservice.domain.model.PresignedUpload;
+import com.novaops.userservice.domain.model.ProvisioningResult;
+import com.novaops.userservice.domain.model.Role;
 import com.novaops.userservice.domain.model.User;
+import com.novaops.userservice.domain.model.UserOperationResult;
 import com.novaops.userservice.domain.model.UserRegistrationData;
 import com.novaops.userservice.domain.model.csv.CsvImportOptions;
+import com.novaops.userservice.domain.model.csv.CsvValidationChunk;
 import com.novaops.userservice.domain.model.csv.CsvValidationResult;
 import com.novaops.userservice.domain.port.input.UserUseCases;
 import com.novaops.userservice.domain.port.output.IdentityProvider;
+import com.novaops.userservice.domain.port.output.ProfilePictureStorage;
+import com.novaops.userservice.domain.port.output.UserBulkRepository;
 import com.novaops.userservice.domain.port.output.UserCsvLoader;
 import com.novaops.userservice.domain.port.output.UserRepository;
 import com.novaops.userservice.exception.ExistsException;
 import com.novaops.userservice.exception.ForbiddenException;
 import com.novaops.userservice.exception.GenericException;
 import com.novaops.userservice.exception.NotFoundException;
+import com.novaops.userservice.exception.StorageException;
 import com.novaops.userservice.infrastructure.dto.request.UpdateUserRequest;
+import com.novaops.userservice.shared.FileValidator;
 import com.novaops.userservice.shared.annotation.DomainService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,17 +34,31 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @DomainService
 @RequiredArgsConstructor
 @Slf4j
 public class UserService implements UserUseCases {
 
+    private static final String UPDATE_PASSWORD = "UPDATE_PASSWORD";
+
     private final UserRepository users;
     private final IdentityProvider idpService;
     private final UserCsvLoader userCsvLoader;
+    private final UserBulkRepository bulkUsers;
+    private final ProfilePictureStorage profilePictures;
 
     @Override
     public User createUser(UserRegistrationData requestDto) {
@@ -44,7 +68,7 @@ public class UserService implements UserUseCases {
                     ExistsException.ExistsExceptionType.EMAIL_ALREADY_EXISTS, requestDto.email());
         }
         List<String> groups = List.of();
-        List<String> requiredActions = List.of("UPDATE_PASSWORD");
+        List<String> requiredActions = List.of(UPDATE_PASSWORD);
         AuthUser authUser =
                 AuthUser.builder()
                         .firstName(requestDto.firstName())
@@ -86,6 +110,10 @@ public class UserService implements UserUseCases {
             CsvValidationResult validationResult = userCsvLoader.parseAndValidateCsvUsers(file, options);
 
             if (validationResult.getErrors().isEmpty() || options.isSkipInvalidRows()) {
+                ImportOutcome outcome = persistImportedUsers(validationResult.getUsers(), options);
+                validationResult.setSuccessfulImports(outcome.imported());
+                validationResult.setSkippedRecords(validationResult.getErrorRecordCount() + outcome.skipped());
+                validationResult.setFailedImports(outcome.failed());
             }
 
             return validationResult;
@@ -97,6 +125,231 @@ public class UserService implements UserUseCases {
         }
     }
 
+    @Override
+    public CsvValidationResult importUsers(
+            MultipartFile file, CsvImportOptions options, Consumer<CsvValidationChunk> chunkConsumer) {
+
+        try {
+            AtomicInteger imported = new AtomicInteger();
+            AtomicInteger skipped = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+            CsvValidationResult summary;
+
+            if (options.isSkipInvalidRows()) {
+                // valid rows of each chunk are persisted as soon as the chunk is validated
+                summary = userCsvLoader.streamAndValidateCsvUsers(file, options, chunk -> {
+                    ImportOutcome outcome = persistImportedUsers(chunk.getUsers(), options);
+                    chunk.setImportedCount(outcome.imported());
+                    imported.addAndGet(outcome.imported());
+                    skipped.addAndGet(outcome.skipped());
+                    failed.addAndGet(outcome.failed());
+                    chunkConsumer.accept(chunk);
+                });
+            } else {
+                // nothing is imported unless the whole file is valid: validate it first, then read
+                // it again to persist it chunk by chunk, instead of keeping every valid row in
+                // memory in between. The chunks are not imported atomically: when one fails, the
+                // chunks before it stay imported and the error says how many users they hold.
+                summary = userCsvLoader.streamAndValidateCsvUsers(file, options, chunkConsumer);
+                if (summary.isValid()) {
+                    persistValidatedFile(file, options, imported, skipped, failed);
+                }
+            }
+
+            summary.setSuccessfulImports(imported.get());
+            summary.setSkippedRecords(summary.getErrorRecordCount() + skipped.get());
+            summary.setFailedImports(failed.get());
+            return summary;
+
+        } catch (IOException e) {
+            log.error("Error streaming users from CSV: {}", e.getMessage());
+            throw new GenericException(
+                    GenericException.GenericExceptionType.FAILED_TO_IMPORT_USERS, e.getMessage());
+        }
+    }
+
+    /**
+     * Second pass of an import without skipped rows. Rows may have become invalid since the first
+     * pass, e.g. when their email was registered in between; they are counted as skipped.
+     */
+    private void persistValidatedFile(
+            MultipartFile file,
+            CsvImportOptions options,
+            AtomicInteger imported,
+            AtomicInteger skipped,
+            AtomicInteger failed)
+            throws IOException {
+        try {
+            userCsvLoader.streamAndValidateCsvUsers(file, options, chunk -> {
+                skipped.addAndGet(chunk.getErrorRecordCount());
+                ImportOutcome outcome = persistImportedUsers(chunk.getUsers(), options);
+                imported.addAndGet(outcome.imported());
+                skipped.addAndGet(outcome.skipped());
+                failed.addAndGet(outcome.failed());
+            });
+        } catch (GenericException e) {
+            log.error("CSV import failed after importing {} users: {}", imported.get(), e.getMessage());
+            throw new GenericException(
+                    GenericException.GenericExceptionType.FAILED_TO_IMPORT_USERS,
+                    imported.get() + " users were imported before the import failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the identities of all new users in bulk, then writes every user in bulk. Users that
+     * already exist are only updated when requested; their roles are left untouched, and their
+     * identity only when their names change. Welcome emails are sent once the users are saved.
+     */
+    private ImportOutcome persistImportedUsers(List<User> imported, CsvImportOptions options) {
+        if (imported == null || imported.isEmpty()) {
+            return new ImportOutcome(0, 0, 0);
+        }
+
+        Map<String, User> existingUsers =
+                users.findByEmails(imported.stream().map(User::getEmail).toList());
+        List<User> toWrite = new ArrayList<>(imported.size());
+        List<User> toCreate = new ArrayList<>();
+        List<User> renamed = new ArrayList<>();
+        int skipped = 0;
+        int failed = 0;
+
+        for (User user : imported) {
+            User existing = existingUsers.get(user.getEmail().toLowerCase());
+            if (existing == null) {
+                toCreate.add(user);
+                continue;
+            }
+            if (!options.isUpdateExistingUsers()) {
+                continue;
+            }
+            user.setId(existing.getId());
+            user.setRoles(List.of());
+            // only the names are kept in the identity provider
+            if (Objects.equals(user.getFirstName(), existing.getFirstName())
+                    && Objects.equals(user.getLastName(), existing.getLastName())) {
+                toWrite.add(user);
+            } else {
+                renamed.add(user);
+            }
+        }
+
+        if (!renamed.isEmpty()) {
+            List<UserOperationResult> results = idpService.updateNames(
+                    renamed.stream().map(UserService::toRenamedAuthUser).toList());
+            for (int i = 0; i < renamed.size(); i++) {
+                User user = renamed.get(i);
+                UserOperationResult result = results.get(i);
+                if (!result.success()) {
+                    log.warn("Failed to update imported user {}: {}", user.getEmail(), result.error());
+                    failed++;
+                    continue;
+                }
+                toWrite.add(user);
+            }
+        }
+
+        List<String> createdIdentities = new ArrayList<>();
+        if (!toCreate.isEmpty()) {
+            List<ProvisioningResult> results = idpService.createAll(
+                    toCreate.stream().map(UserService::toNewAuthUser).toList(),
+                    List.of(UPDATE_PASSWORD));
+            for (int i = 0; i < toCreate.size(); i++) {
+                User user = toCreate.get(i);
+                ProvisioningResult result = results.get(i);
+                if (result.status() == ProvisioningStatus.SKIPPED) {
+                    // registered in the identity provider but not here; its identity is not ours
+                    log.info("Imported user {} already has an identity, skipped", user.getEmail());
+                    skipped++;
+                    continue;
+                }
+                if (!result.isCreated()) {
+                    log.warn("Failed to provision imported user {}: {} {}",
+                            user.getEmail(), result.status(), result.error());
+                    failed++;
+                    continue;
+                }
+                user.setId(UUID.fromString(result.userId()));
+                user.setRoles(user.setRolesFromRoleType(roleTypesOf(user)));
+                user.setNotificationPreference(NotificationPreference.ALL);
+                createdIdentities.add(result.userId());
+                toWrite.add(user);
+            }
+        }
+
+        try {
+            bulkUsers.bulkUpsert(toWrite, options.isUpdateExistingUsers());
+        } catch (Exception e) {
+            unsavedIdentities(toWrite, createdIdentities).forEach(idpService::deleteById);
+            throw new GenericException(
+                    GenericException.GenericExceptionType.FAILED_TO_IMPORT_USERS, e.getMessage());
+        }
+
+        // a user registered with the same email since the lookup keeps its row, not the new identity
+        List<String> unsaved = unsavedIdentities(toWrite, createdIdentities);
+        if (!unsaved.isEmpty()) {
+            log.warn("{} imported users were registered meanwhile, deleting their new identities",
+                    unsaved.size());
+            unsaved.forEach(idpService::deleteById);
+            createdIdentities.removeAll(unsaved);
+            skipped += unsaved.size();
+        }
+
+        if (options.isSendWelcomeEmails() && !createdIdentities.isEmpty()) {
+            idpService.sendRequiredActionsEmails(createdIdentities, List.of(UPDATE_PASSWORD));
+        }
+        return new ImportOutcome(toWrite.size() - unsaved.size(), skipped, failed);
+    }
+
+    /** @return the identities created for users whose row was not saved under that identity */
+    private List<String> unsavedIdentities(List<User> attempted, List<String> createdIdentities) {
+        if (createdIdentities.isEmpty()) {
+            return List.of();
+        }
+        Set<String> created = new HashSet<>(createdIdentities);
+        Set<String> saved = new HashSet<>();
+        users.findByEmails(attempted.stream()
+                        .filter(user -> created.contains(user.getId().toString()))
+                        .map(User::getEmail)
+                        .toList())
+                .values()
+                .forEach(user -> saved.add(user.getId().toString()));
+        return createdIdentities.stream().filter(id -> !saved.contains(id)).toList();
+    }
+
+    private static AuthUser toNewAuthUser(User user) {
+        return AuthUser.builder()
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .email(user.getEmail())
+                .roleTypes(roleTypesOf(user))
+                .enabled(true)
+                .emailVerified(false)
+                .build();
+    }
+
+    private static AuthUser toRenamedAuthUser(User user) {
+        return AuthUser.builder()
+                .id(user.getId().toString())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .build();
+    }
+
+    private static List<RoleType> roleTypesOf(User user) {
+        if (user.getRoles() == null || user.getRoles().isEmpty()) {
+            return List.of(RoleType.USER);
+        }
+        return user.getRoles().stream().map(Role::getName).distinct().toList();
+    }
+
+    /**
+     * @param imported the users written
+     * @param skipped  the users left out because they already exist
+     * @param failed   the users that could not be written
+     */
+    private record ImportOutcome(int imported, int skipped, int failed) {
+    }
+
     @Override
     public Boolean existsByEmail(String email) {
         return users.existsByEmail(email);
@@ -145,26 +398,82 @@ public class UserService implements UserUseCases {
     }
 
     @Override
-    public DomainBlob uploadProfilePicture(MultipartFile file, UUID userId) {
+    public CompletableFuture<DomainBlob> uploadProfilePicture(MultipartFile file, UUID userId) {
+        // checked before uploading, so no picture is stored for an unknown user
+        if (users.findById(userId).isEmpty()) {
+            throw new NotFoundException(NotFoundException.NotFoundExceptionType.USER_NOT_FOUND);
+        }
 
-        try {
-            DomainBlob blob = users.uploadProfilePicture(file);
-            User user =
-                    users
-                            .findById(userId)
-                            .orElseThrow(
-                                    () ->
-                                            new NotFoundException(
-                                                    NotFoundException.NotFoundExceptionType.USER_NOT_FOUND));
-            user.setProfilePicture(blob.url());
-            users.update(user);
-            return blob;
+        return setProfilePicture(userId, profilePictures.uploadProfilePicture(file));
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to upload profile picture: {}", e.getMessage());
-            throw new GenericException(
-                    GenericException.GenericExceptionType.FAILED_TO_UPLOAD_PROFILE_PICTURE, e.getMessage());
+    @Override
+    public CompletableFuture<PresignedUpload> presignProfilePictureUpload(
+            UUID userId, String name, String contentType, long size) {
+        if (users.findById(userId).isEmpty()) {
+            throw new NotFoundException(NotFoundException.NotFoundExceptionType.USER_NOT_FOUND);
+        }
+        if (!FileValidator.isValidImageExtension(name)) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.INVALID_IMAGE_EXTENSION);
         }
+        if (!FileValidator.isImage(contentType)) {
+            throw new StorageException(StorageException.CloudStorageExceptionType.INVALID_IMAGE_TYPE);
+        }
+        return profilePictures.presignProfilePictureUpload(name, contentType, size);
+    }
+
+    @Override
+    public CompletableFuture<DomainBlob> completeProfilePictureUpload(UUID userId, String uploadToken) {
+        if (users.findById(userId).isEmpty()) {
+            throw new NotFoundException(NotFoundException.NotFoundExceptionType.USER_NOT_FOUND);
+        }
+
+        return setProfilePicture(
+                userId,
+                profilePictures.completeProfilePictureUpload(uploadToken)
+                        .thenApply(
+                                blob -> {
+                                    // the token only proves the file was presigned, not what it is
+                                    if (!FileValidator.isImage(blob.type())) {
+                                        throw new StorageException(
+                                                StorageException.CloudStorageExceptionType.INVALID_IMAGE_TYPE);
+                                    }
+                                    return blob;
+                                }));
+    }
+
+    /**
+     * Sets the stored picture as the profile picture of the user, and deletes the previous one in
+     * the background unless another user references it.
+     */
+    private CompletableFuture<DomainBlob> setProfilePicture(
+            UUID userId, CompletableFuture<DomainBlob> stored) {
+        return stored
+                .thenApply(
+                        blob -> {
+                            List<String> replaced = profilePictures.replaceProfilePicture(userId, blob);
+                            if (!replaced.isEmpty()) {
+                                // the upload does not wait for the previous picture to be deleted
+                                profilePictures.deleteUnreferencedFiles(replaced)
+                                        .exceptionally(
+                                                e -> {
+                                                    log.warn(
+                                                            "Could not delete the previous profile picture of user {}: {}",
+                                                            userId,
+                                                            e.getMessage());
+                                                    return null;
+                                                });
+                            }
+                            return blob;
+                        })
+                .exceptionally(
+                        e -> {
+                            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                            log.error("Failed to upload profile picture: {}", cause.getMessage());
+                            throw new GenericException(
+                                    GenericException.GenericExceptionType.FAILED_TO_UPLOAD_PROFILE_PICTURE,
+                                    cause.getMessage());
+                        });
     }
 
     @Override
@@ -91,6 +91,11 @@ public class StorageException extends ApplicationException {
                 "error.server.storage.title.timeout",
                 "error.server.storage.msg.timeout",
                 "Operation timed out"
+        ),
+        INVALID_UPLOAD(
+                "error.server.storage.title.invalid-upload",
+                "error.server.storage.msg.invalid-upload",
+                "Upload is expired, missing or does not have the declared size"
         );
 
         private final String messageKey;
@@ -0,0 +1,240 @@
+package com.novaops.userservice.infrastructure.adapter.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.novaops.userservice.config.cache.AuthUserCacheProperties;
+import com.novaops.userservice.domain.model.AuthUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-through cache of identity provider users. A local near-cache sits in front of Redis, which
+ * is shared by all instances. Evicting a user deletes it from Redis and publishes its id so every
+ * instance drops it from its near-cache as well.
+ *
+ * <p>Redis is optional: when it fails, it is skipped for a while and users are read from the
+ * loader, only the near-cache is kept. Copies are returned, so callers may modify them.
+ */
+@Component
+@Slf4j
+public class AuthUserCache implements MessageListener {
+
+  private static final String ID_KEY = "id:";
+  private static final String EMAIL_KEY = "email:";
+
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final AuthUserCacheProperties properties;
+
+  private final Cache<String, AuthUser> nearCache;
+  // lower-cased email -> user id
+  private final Cache<String, String> nearEmails;
+
+  private volatile long redisRetryAt;
+
+  public AuthUserCache(
+      StringRedisTemplate redisTemplate,
+      ObjectMapper objectMapper,
+      AuthUserCacheProperties properties,
+      MeterRegistry meterRegistry) {
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    this.properties = properties;
+    this.nearCache =
+        Caffeine.newBuilder()
+            .expireAfterWrite(properties.getNearCacheTtl())
+            .maximumSize(properties.getNearCacheMaximumSize())
+            .recordStats()
+            .build();
+    this.nearEmails =
+        Caffeine.newBuilder()
+            .expireAfterWrite(properties.getNearCacheTtl())
+            .maximumSize(properties.getNearCacheMaximumSize())
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "auth-user-near-cache");
+  }
+
+  /**
+   * Returns the cached user, or loads it and caches it. Missing users are not cached.
+   *
+   * @param id the user id
+   * @param loader reads the user from the identity provider
+   */
+  public Optional<AuthUser> findById(String id, Function<String, Optional<AuthUser>> loader) {
+    AuthUser user = nearCache.getIfPresent(id);
+    if (user == null) {
+      user = readUser(id);
+      if (user == null) {
+        user = loader.apply(id).orElse(null);
+        if (user == null) {
+          return Optional.empty();
+        }
+        writeUser(user);
+      }
+      remember(user);
+    }
+    return Optional.of(copy(user));
+  }
+
+  /**
+   * Returns the cached user with this email, or loads it and caches it.
+   *
+   * @param email the user email
+   * @param loader reads the user from the identity provider by email
+   */
+  public Optional<AuthUser> findByEmail(
+      String email, Function<String, Optional<AuthUser>> loader) {
+    String normalized = email.toLowerCase();
+    String id = nearEmails.getIfPresent(normalized);
+    if (id == null) {
+      id = redisGet(EMAIL_KEY + normalized);
+    }
+    if (id != null) {
+      Optional<AuthUser> user = findById(id, ignored -> loader.apply(email));
+      // the email may have changed since it was mapped to this id
+      if (user.isEmpty() || normalized.equalsIgnoreCase(user.get().getEmail())) {
+        return user;
+      }
+      nearEmails.invalidate(normalized);
+    }
+
+    Optional<AuthUser> loaded = loader.apply(email);
+    loaded.ifPresent(
+        user -> {
+          writeUser(user);
+          remember(user);
+        });
+    return loaded.map(AuthUserCache::copy);
+  }
+
+  /** Returns the cached user, without loading it when it is not cached. */
+  public Optional<AuthUser> peek(String id) {
+    AuthUser user = nearCache.getIfPresent(id);
+    if (user == null) {
+      user = readUser(id);
+    }
+    return Optional.ofNullable(user).map(AuthUserCache::copy);
+  }
+
+  /** Drops the user from Redis and from the near-cache of every instance. */
+  public void evict(String userId) {
+    String email = evictLocal(userId);
+    if (!redisAvailable()) {
+      return;
+    }
+    try {
+      String json = redisTemplate.opsForValue().getAndDelete(key(ID_KEY + userId));
+      if (email == null && json != null) {
+        email = objectMapper.readValue(json, AuthUser.class).getEmail();
+      }
+      if (email != null) {
+        redisTemplate.delete(key(EMAIL_KEY + email.toLowerCase()));
+      }
+      redisTemplate.convertAndSend(properties.getInvalidationChannel(), userId);
+    } catch (DataAccessException e) {
+      redisFailed(e);
+    } catch (JsonProcessingException e) {
+      log.warn("Could not read cached user {}: {}", userId, e.getMessage());
+    }
+  }
+
+  /** Invalidation published by an instance, possibly this one. */
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    evictLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+  }
+
+  /** Drops the user from the near-cache and returns its email, when it was cached. */
+  private String evictLocal(String userId) {
+    AuthUser cached = nearCache.getIfPresent(userId);
+    nearCache.invalidate(userId);
+    if (cached == null || cached.getEmail() == null) {
+      return null;
+    }
+    nearEmails.invalidate(cached.getEmail().toLowerCase());
+    return cached.getEmail();
+  }
+
+  private void remember(AuthUser user) {
+    nearCache.put(user.getId(), user);
+    if (user.getEmail() != null) {
+      nearEmails.put(user.getEmail().toLowerCase(), user.getId());
+    }
+  }
+
+  private AuthUser readUser(String id) {
+    String json = redisGet(ID_KEY + id);
+    if (json == null) {
+      return null;
+    }
+    try {
+      return objectMapper.readValue(json, AuthUser.class);
+    } catch (JsonProcessingException e) {
+      log.warn("Could not read cached user {}: {}", id, e.getMessage());
+      return null;
+    }
+  }
+
+  private void writeUser(AuthUser user) {
+    if (!redisAvailable()) {
+      return;
+    }
+    try {
+      redisTemplate
+          .opsForValue()
+          .set(key(ID_KEY + user.getId()), objectMapper.writeValueAsString(user), properties.getTtl());
+      if (user.getEmail() != null) {
+        redisTemplate
+            .opsForValue()
+            .set(key(EMAIL_KEY + user.getEmail().toLowerCase()), user.getId(), properties.getTtl());
+      }
+    } catch (DataAccessException e) {
+      redisFailed(e);
+    } catch (JsonProcessingException e) {
+      log.warn("Could not cache user {}: {}", user.getId(), e.getMessage());
+    }
+  }
+
+  private String redisGet(String key) {
+    if (!redisAvailable()) {
+      return null;
+    }
+    try {
+      return redisTemplate.opsForValue().get(key(key));
+    } catch (DataAccessException e) {
+      redisFailed(e);
+      return null;
+    }
+  }
+
+  private boolean redisAvailable() {
+    return System.currentTimeMillis() >= redisRetryAt;
+  }
+
+  private void redisFailed(DataAccessException e) {
+    redisRetryAt = System.currentTimeMillis() + properties.getRedisRetryDelay().toMillis();
+    log.warn(
+        "Redis is unavailable, skipping it for {}: {}",
+        properties.getRedisRetryDelay(),
+        e.getMessage());
+  }
+
+  private String key(String suffix) {
+    return properties.getKeyPrefix() + suffix;
+  }
+
+  private static AuthUser copy(AuthUser user) {
+    return user.toBuilder().build();
+  }
+}
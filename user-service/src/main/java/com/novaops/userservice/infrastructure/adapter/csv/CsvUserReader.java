@@ -2,21 +2,31 @@ package com.novaops.userservice.infrastructure.adapter.csv;
 
 import static com.novaops.userservice.infrastructure.adapter.csv.CsvUserNormalizer.normalize;
 
+import com.novaops.userservice.config.csv.CsvImportProperties;
 import com.novaops.userservice.domain.enums.RoleType;
 import com.novaops.userservice.domain.enums.ValidationErrorType;
 import com.novaops.userservice.domain.model.User;
 import com.novaops.userservice.domain.model.csv.CsvImportOptions;
 import com.novaops.userservice.domain.model.csv.CsvImportWarning;
+import com.novaops.userservice.domain.model.csv.CsvValidationChunk;
 import com.novaops.userservice.domain.model.csv.CsvValidationError;
 import com.novaops.userservice.domain.model.csv.CsvValidationResult;
 import com.novaops.userservice.domain.port.output.UserCsvLoader;
+import com.novaops.userservice.infrastructure.adapter.persistence.EmailExistenceIndex;
 import com.novaops.userservice.infrastructure.dto.request.CsvUserRecord;
 import com.novaops.userservice.infrastructure.mapper.UserMapper;
-import com.novaops.userservice.infrastructure.repository.UserJpaRepository;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
@@ -30,29 +40,81 @@ import org.springframework.web.multipart.MultipartFile;
 @RequiredArgsConstructor
 public class CsvUserReader implements UserCsvLoader {
 
-  private final UserJpaRepository userRepository;
+  private static final CSVFormat CSV_FORMAT =
+      CSVFormat.DEFAULT
+          .builder()
+          .setHeader("firstName", "lastName", "email", "phoneNumber", "address", "role")
+          .setSkipHeaderRecord(true)
+          .setIgnoreHeaderCase(true)
+          .setTrim(true)
+          .get();
+
+  private final EmailExistenceIndex emailIndex;
   private final CsvUserValidator csvUserValidator;
   private final UserMapper userMapper;
+  private final CsvImportProperties csvImportProperties;
 
   @Override
   public CsvValidationResult parseAndValidateCsvUsers(MultipartFile file, CsvImportOptions options)
       throws IOException {
 
     List<CsvValidationError> errors = new ArrayList<>();
-    List<CsvUserRecord> validRecords = new ArrayList<>();
-    Set<String> emailsInFile = new HashSet<>();
-    Set<String> existingEmails = new HashSet<>(userRepository.findAllEmails());
-
-    try (Reader reader = new InputStreamReader(file.getInputStream());
-        CSVParser csvParser =
-            CSVFormat.DEFAULT
-                .builder()
-                .setHeader("firstName", "lastName", "email", "phoneNumber", "address", "role")
-                .setSkipHeaderRecord(true)
-                .setIgnoreHeaderCase(true)
-                .setTrim(true)
-                .get()
-                .parse(reader)) {
+    List<CsvImportWarning> warnings = new ArrayList<>();
+    List<User> users = new ArrayList<>();
+
+    CsvValidationResult result =
+        streamAndValidateCsvUsers(
+            file,
+            options,
+            chunk -> {
+              errors.addAll(chunk.getErrors());
+              warnings.addAll(chunk.getWarnings());
+              users.addAll(chunk.getUsers());
+            });
+
+    result.setErrors(errors);
+    result.setWarnings(warnings);
+    result.setUsers(users);
+    return result;
+  }
+
+  /**
+   * Rows are parsed on the calling thread and grouped into chunks. Each chunk is normalized and
+   * validated on its own virtual thread, with at most {@code parallelism} chunks in flight, and the
+   * chunks are completed and handed to the consumer strictly in file order.
+   *
+   * <p>In-file duplicates are detected in two steps so the outcome is the same as a sequential
+   * pass: while validating, every row that passes bean validation and the database check records
+   * its line in a concurrent email index, keeping the lowest line per email. When a chunk is
+   * completed all earlier chunks have already registered their rows, so a row is a duplicate
+   * exactly when its email was registered by an earlier line.
+   *
+   * <p>That index holds every accepted email until the file is read, so a file is read up to
+   * {@code maxRows} rows: the first row past the limit is reported as an error and the import stops
+   * there, whether or not invalid rows are skipped.
+   */
+  @Override
+  public CsvValidationResult streamAndValidateCsvUsers(
+      MultipartFile file, CsvImportOptions options, Consumer<CsvValidationChunk> chunkConsumer)
+      throws IOException {
+
+    int chunkSize = csvImportProperties.getChunkSize();
+    int parallelism = csvImportProperties.getParallelism();
+    int maxRows = csvImportProperties.getMaxRows();
+    Map<String, Long> firstLineByEmail = new ConcurrentHashMap<>();
+
+    ImportTotals totals = new ImportTotals();
+    Deque<Future<ValidatedChunk>> inFlight = new ArrayDeque<>();
+
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    try (Reader reader =
+            new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+        CSVParser csvParser = CSV_FORMAT.parse(reader)) {
+
+      int chunkIndex = 0;
+      int rowCount = 0;
+      List<ParsedRow> rows = new ArrayList<>(chunkSize);
 
       for (CSVRecord csvRecord : csvParser) {
         long lineNumber = csvRecord.getRecordNumber();
@@ -63,51 +125,196 @@ public class CsvUserReader implements UserCsvLoader {
           continue;
         }
 
-        try {
-          CsvUserRecord user = parseRecord(csvRecord);
-
-          List<CsvImportWarning> warnings = new ArrayList<>();
-          user = normalize(user, warnings, lineNumber);
-
-          List<CsvValidationError> recordErrors =
-              csvUserValidator.validateRecord(user, lineNumber, emailsInFile, existingEmails);
-
-          if (recordErrors.isEmpty()) {
-            validRecords.add(user);
-            emailsInFile.add(user.email().toLowerCase());
-          } else if (!options.isSkipInvalidRows()) {
-            errors.addAll(recordErrors); // fail the whole process if even one error
-          } else {
-            errors.addAll(recordErrors); // collect errors, skip this record
-          }
-
-        } catch (Exception e) {
-          errors.add(
-              CsvValidationError.builder()
-                  .lineNumber(lineNumber)
-                  .field("general")
-                  .errorMessage("Failed to parse record: " + e.getMessage())
-                  .type(ValidationErrorType.SOMETHING_WENT_WRONG)
-                  .build());
-          if (!options.isSkipInvalidRows()) {
-            break; // fail fast if we’re not skipping invalid rows
-          }
+        boolean withinLimit = ++rowCount <= maxRows;
+        ParsedRow row =
+            withinLimit ? parseRow(csvRecord, lineNumber) : tooManyRows(lineNumber, maxRows);
+        rows.add(row);
+        // fail fast if we’re not skipping invalid rows
+        boolean proceed = withinLimit && (row.error() == null || options.isSkipInvalidRows());
+
+        if (rows.size() >= chunkSize || !proceed) {
+          List<ParsedRow> chunkRows = rows;
+          int index = chunkIndex++;
+          inFlight.add(
+              executor.submit(() -> validateChunk(index, chunkRows, options, firstLineByEmail)));
+          rows = new ArrayList<>(chunkSize);
+          completeChunks(inFlight, parallelism, firstLineByEmail, totals, chunkConsumer);
         }
+        if (!proceed) {
+          break;
+        }
+      }
+
+      if (!rows.isEmpty()) {
+        List<ParsedRow> chunkRows = rows;
+        int index = chunkIndex;
+        inFlight.add(
+            executor.submit(() -> validateChunk(index, chunkRows, options, firstLineByEmail)));
       }
+      completeChunks(inFlight, 0, firstLineByEmail, totals, chunkConsumer);
+
+    } finally {
+      // no-op after a successful run; interrupts chunks still validating if the import failed
+      executor.shutdownNow();
     }
 
-    List<User> users = validRecords.stream().map(userMapper::fromCsvRecord).toList();
+    return totals.toResult();
+  }
 
-    return CsvValidationResult.builder()
-        .isValid(errors.isEmpty())
-        .errors(errors)
+  /** Completes the oldest chunks, in order, until no more than {@code maxInFlight} remain. */
+  private void completeChunks(
+      Deque<Future<ValidatedChunk>> inFlight,
+      int maxInFlight,
+      Map<String, Long> firstLineByEmail,
+      ImportTotals totals,
+      Consumer<CsvValidationChunk> chunkConsumer) {
+
+    while (inFlight.size() > maxInFlight) {
+      ValidatedChunk validated = await(inFlight.peekFirst());
+      inFlight.removeFirst();
+      CsvValidationChunk chunk = completeChunk(validated, firstLineByEmail);
+      totals.add(chunk);
+      log.debug(
+          "CSV chunk {} (lines {}-{}): {} valid, {} invalid",
+          chunk.getChunkIndex(),
+          chunk.getFirstLineNumber(),
+          chunk.getLastLineNumber(),
+          chunk.getValidRecordCount(),
+          chunk.getErrorRecordCount());
+      chunkConsumer.accept(chunk);
+    }
+  }
+
+  private ValidatedChunk await(Future<ValidatedChunk> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("CSV validation was interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("CSV validation failed: " + e.getCause().getMessage(), e);
+    }
+  }
+
+  /**
+   * Normalization, bean validation and the database check; runs on a virtual thread. The chunk's
+   * emails are checked against the database with one batched lookup.
+   */
+  private ValidatedChunk validateChunk(
+      int chunkIndex,
+      List<ParsedRow> rows,
+      CsvImportOptions options,
+      Map<String, Long> firstLineByEmail) {
+
+    List<CsvImportWarning> warnings = new ArrayList<>();
+    List<CsvUserRecord> users = new ArrayList<>(rows.size());
+    for (ParsedRow row : rows) {
+      boolean parsed = row.error() == null;
+      users.add(parsed ? normalize(row.user(), warnings, row.lineNumber()) : null);
+    }
+
+    // existing users are only an error when they are not meant to be updated
+    Set<String> existingEmails =
+        options.isUpdateExistingUsers()
+            ? Set.of()
+            : emailIndex.findExisting(
+                users.stream().filter(Objects::nonNull).map(CsvUserRecord::email).toList());
+
+    List<ValidatedRow> validatedRows = new ArrayList<>(rows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      long lineNumber = rows.get(i).lineNumber();
+      CsvUserRecord user = users.get(i);
+
+      if (user == null) {
+        List<CsvValidationError> errors = new ArrayList<>();
+        errors.add(rows.get(i).error());
+        validatedRows.add(new ValidatedRow(lineNumber, null, errors));
+        continue;
+      }
+
+      List<CsvValidationError> errors =
+          csvUserValidator.validateRecord(user, lineNumber, existingEmails);
+      if (errors.isEmpty()) {
+        firstLineByEmail.merge(user.email().toLowerCase(), lineNumber, Math::min);
+      }
+      validatedRows.add(new ValidatedRow(lineNumber, user, errors));
+    }
+
+    return new ValidatedChunk(chunkIndex, validatedRows, warnings);
+  }
+
+  /** Applies the in-file duplicate check; every earlier chunk must already be validated. */
+  private CsvValidationChunk completeChunk(
+      ValidatedChunk validated, Map<String, Long> firstLineByEmail) {
+
+    List<User> users = new ArrayList<>();
+    List<CsvValidationError> errors = new ArrayList<>();
+    int errorRecordCount = 0;
+
+    for (ValidatedRow row : validated.rows()) {
+      CsvUserRecord user = row.user();
+      List<CsvValidationError> rowErrors = row.errors();
+
+      if (user != null && user.email() != null) {
+        Long firstLine = firstLineByEmail.get(user.email().toLowerCase());
+        if (firstLine != null && firstLine < row.lineNumber()) {
+          rowErrors.add(csvUserValidator.duplicateInFileError(user, row.lineNumber()));
+        }
+      }
+
+      if (rowErrors.isEmpty()) {
+        users.add(userMapper.fromCsvRecord(user));
+      } else {
+        // without skipInvalidRows the whole import is rejected, but keep collecting errors
+        errors.addAll(rowErrors);
+        errorRecordCount++;
+      }
+    }
+
+    List<ValidatedRow> rows = validated.rows();
+    return CsvValidationChunk.builder()
+        .chunkIndex(validated.chunkIndex())
+        .firstLineNumber(rows.getFirst().lineNumber())
+        .lastLineNumber(rows.getLast().lineNumber())
         .users(users)
-        .totalRecords(validRecords.size() + errors.size())
-        .validRecordCount(validRecords.size())
-        .errorRecordCount(errors.size())
+        .errors(errors)
+        .warnings(validated.warnings())
+        .validRecordCount(users.size())
+        .errorRecordCount(errorRecordCount)
         .build();
   }
 
+  private ParsedRow parseRow(CSVRecord csvRecord, long lineNumber) {
+    try {
+      return new ParsedRow(lineNumber, parseRecord(csvRecord), null);
+    } catch (Exception e) {
+      return new ParsedRow(
+          lineNumber,
+          null,
+          CsvValidationError.builder()
+              .lineNumber(lineNumber)
+              .field("general")
+              .errorMessage("Failed to parse record: " + e.getMessage())
+              .type(ValidationErrorType.SOMETHING_WENT_WRONG)
+              .build());
+    }
+  }
+
+  private ParsedRow tooManyRows(long lineNumber, int maxRows) {
+    return new ParsedRow(
+        lineNumber,
+        null,
+        CsvValidationError.builder()
+            .lineNumber(lineNumber)
+            .field("general")
+            .errorMessage(
+                "The file has more than "
+                    + maxRows
+                    + " rows; this row and the following ones were not read")
+            .type(ValidationErrorType.TOO_MANY_ROWS)
+            .build());
+  }
+
   private CsvUserRecord parseRecord(CSVRecord csvRecord) {
     return new CsvUserRecord(
         getFieldValue(csvRecord, "firstName"),
@@ -128,4 +335,37 @@ public class CsvUserReader implements UserCsvLoader {
       return null;
     }
   }
+
+  private record ParsedRow(long lineNumber, CsvUserRecord user, CsvValidationError error) {}
+
+  private record ValidatedRow(
+      long lineNumber, CsvUserRecord user, List<CsvValidationError> errors) {}
+
+  private record ValidatedChunk(
+      int chunkIndex, List<ValidatedRow> rows, List<CsvImportWarning> warnings) {}
+
+  /** Running counters across chunks, used to build the final summary. */
+  private static final class ImportTotals {
+    private int validRecordCount;
+    private int errorRecordCount;
+    private int errorCount;
+
+    private void add(CsvValidationChunk chunk) {
+      validRecordCount += chunk.getValidRecordCount();
+      errorRecordCount += chunk.getErrorRecordCount();
+      errorCount += chunk.getErrors().size();
+    }
+
+    private CsvValidationResult toResult() {
+      return CsvValidationResult.builder()
+          .isValid(errorCount == 0)
+          .errors(List.of())
+          .warnings(List.of())
+          .users(List.of())
+          .totalRecords(validRecordCount + errorRecordCount)
+          .validRecordCount(validRecordCount)
+          .errorRecordCount(errorRecordCount)
+          .build();
+    }
+  }
 }
@@ -6,6 +6,7 @@ import com.novaops.userservice.infrastructure.dto.request.CsvUserRecord;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
@@ -15,58 +16,63 @@ import org.springframework.stereotype.Component;
 @Component
 public class CsvUserValidator {
 
+  private static final Comparator<ConstraintViolation<CsvUserRecord>> VIOLATION_ORDER =
+      Comparator.comparing((ConstraintViolation<CsvUserRecord> v) -> v.getPropertyPath().toString())
+          .thenComparing(ConstraintViolation::getMessage);
+
   private final Validator validator;
 
+  /**
+   * Runs bean validation and the database uniqueness check for a single record. Safe to call from
+   * several threads at once as long as {@code existingEmails} is not modified concurrently.
+   *
+   * <p>In-file duplicates depend on the rows that precede the record, so they are reported
+   * separately through {@link #duplicateInFileError}.
+   */
   public List<CsvValidationError> validateRecord(
-      CsvUserRecord user, Long lineNumber, Set<String> emailsInFile, Set<String> existingEmails) {
+      CsvUserRecord user, long lineNumber, Set<String> existingEmails) {
 
     List<CsvValidationError> errors = new ArrayList<>();
 
-    // 1. JSR-303 Bean Validation
-    Set<ConstraintViolation<CsvUserRecord>> violations = validator.validate(user);
-    for (ConstraintViolation<CsvUserRecord> violation : violations) {
+    // 1. JSR-303 Bean Validation, sorted so that errors of a line always come in the same order
+    validator.validate(user).stream()
+        .sorted(VIOLATION_ORDER)
+        .forEach(
+            violation ->
+                errors.add(
+                    CsvValidationError.builder()
+                        .lineNumber(lineNumber)
+                        .field(violation.getPropertyPath().toString())
+                        .value(getViolationValue(violation))
+                        .errorMessage(violation.getMessage())
+                        .type(getValidationErrorType(violation))
+                        .build()));
+
+    // 2. Check against existing database emails
+    if (user.email() != null && existingEmails.contains(user.email().toLowerCase())) {
       errors.add(
           CsvValidationError.builder()
               .lineNumber(lineNumber)
-              .field(violation.getPropertyPath().toString())
-              .value(getViolationValue(violation))
-              .errorMessage(violation.getMessage())
-              .type(getValidationErrorType(violation))
+              .field("email")
+              .value(user.email())
+              .errorMessage("Email already exists in database")
+              .type(ValidationErrorType.DUPLICATE_EMAIL)
               .build());
     }
 
-    // 2. Email uniqueness validation
-    if (user.email() != null) {
-      String emailLower = user.email().toLowerCase();
-
-      // Check against existing database emails
-      if (existingEmails.contains(emailLower)) {
-        errors.add(
-            CsvValidationError.builder()
-                .lineNumber(lineNumber)
-                .field("email")
-                .value(user.email())
-                .errorMessage("Email already exists in database")
-                .type(ValidationErrorType.DUPLICATE_EMAIL)
-                .build());
-      }
-
-      // Check against emails in the current file
-      if (emailsInFile.contains(emailLower)) {
-        errors.add(
-            CsvValidationError.builder()
-                .lineNumber(lineNumber)
-                .field("email")
-                .value(user.email())
-                .errorMessage("Duplicate email found in file")
-                .type(ValidationErrorType.DUPLICATE_EMAIL)
-                .build());
-      }
-    }
-
     return errors;
   }
 
+  public CsvValidationError duplicateInFileError(CsvUserRecord user, long lineNumber) {
+    return CsvValidationError.builder()
+        .lineNumber(lineNumber)
+        .field("email")
+        .value(user.email())
+        .errorMessage("Duplicate email found in file")
+        .type(ValidationErrorType.DUPLICATE_EMAIL)
+        .build();
+  }
+
   private String getViolationValue(ConstraintViolation<CsvUserRecord> violation) {
     Object invalidValue = violation.getInvalidValue();
     return invalidValue != null ? invalidValue.toString() : null;
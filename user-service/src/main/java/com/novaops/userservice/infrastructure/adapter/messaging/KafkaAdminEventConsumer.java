@@ -0,0 +1,62 @@
+package com.novaops.userservice.infrastructure.adapter.messaging;
+
+import com.novaops.userservice.infrastructure.adapter.cache.AuthUserCache;
+import com.novaops.userservice.infrastructure.adapter.persistence.IdentityDirectorySynchronizer;
+import com.novaops.userservice.infrastructure.adapter.persistence.KeycloakRealmMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts what Keycloak admin changes make stale: the cached realm roles, groups and clients, and
+ * the cached identity of a user whose role mappings or groups changed. Role mapping changes on a
+ * group reach the identity directory of its members with the next reconciliation.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaAdminEventConsumer {
+
+  private static final String ROLES_PATH = "roles/";
+  private static final String USERS_PATH = "users/";
+
+  private final KeycloakRealmMetadata realmMetadata;
+  private final AuthUserCache authUserCache;
+  private final IdentityDirectorySynchronizer identityDirectory;
+
+  @KafkaListener(topics = "keycloak-admin-events", groupId = "user-service-group")
+  public void consume(KeycloakAdminEvent event) {
+    if (event.resourceType() == null || event.resourcePath() == null || event.error() != null) {
+      return;
+    }
+    log.debug("Keycloak admin event {} on {}", event.operationType(), event.resourcePath());
+
+    switch (event.resourceType()) {
+      case "REALM_ROLE" -> {
+        // roles-by-id paths do not carry the name, and removing a role changes the composites
+        // that held it
+        if (event.resourcePath().startsWith(ROLES_PATH) && !"DELETE".equals(event.operationType())) {
+          realmMetadata.evictRole(segment(event.resourcePath(), 1));
+        } else {
+          realmMetadata.evictAll();
+        }
+      }
+      case "GROUP" -> realmMetadata.evictGroups();
+      case "CLIENT" -> realmMetadata.evictClients();
+      case "REALM_ROLE_MAPPING", "GROUP_MEMBERSHIP" -> {
+        if (event.resourcePath().startsWith(USERS_PATH)) {
+          String userId = segment(event.resourcePath(), 1);
+          authUserCache.evict(userId);
+          identityDirectory.refresh(userId);
+        }
+      }
+      default -> {}
+    }
+  }
+
+  private static String segment(String path, int index) {
+    String[] segments = path.split("/");
+    return index < segments.length ? segments[index] : "";
+  }
+}
@@ -1,10 +1,13 @@
 package com.novaops.userservice.infrastructure.adapter.messaging;
 
 import com.novaops.userservice.domain.enums.RoleType;
+import com.novaops.userservice.infrastructure.adapter.cache.AuthUserCache;
+import com.novaops.userservice.infrastructure.adapter.persistence.IdentityDirectorySynchronizer;
 import com.novaops.userservice.infrastructure.entity.RoleEntity;
 import com.novaops.userservice.infrastructure.entity.UserEntity;
 import com.novaops.userservice.infrastructure.repository.UserJpaRepository;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -14,7 +17,13 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class KafkaUserEventConsumer {
 
+  // events after which the cached identity of the user is out of date
+  private static final Set<String> USER_CHANGING_EVENTS =
+      Set.of("UPDATE_PROFILE", "UPDATE_EMAIL", "VERIFY_EMAIL", "DELETE_ACCOUNT");
+
   private final UserJpaRepository userJpaRepository;
+  private final AuthUserCache authUserCache;
+  private final IdentityDirectorySynchronizer identityDirectory;
 
   @KafkaListener(topics = "keycloak-events", groupId = "user-service-group")
   public void consume(KeycloakEvent event) {
@@ -31,6 +40,14 @@ public class KafkaUserEventConsumer {
               .roles(List.of(roleEntity))
               .build();
       userJpaRepository.save(user);
+      identityDirectory.refresh(event.userId());
+    } else if (event.userId() != null && USER_CHANGING_EVENTS.contains(event.type())) {
+      authUserCache.evict(event.userId());
+      if (event.type().equals("DELETE_ACCOUNT")) {
+        identityDirectory.remove(event.userId());
+      } else {
+        identityDirectory.refresh(event.userId());
+      }
     }
   }
 }
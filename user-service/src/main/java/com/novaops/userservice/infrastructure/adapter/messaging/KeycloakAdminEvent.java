@@ -0,0 +1,24 @@
+package com.novaops.userservice.infrastructure.adapter.messaging;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Represents a Keycloak admin event, i.e. a change made through the admin API or console.
+ *
+ * @param id The unique ID of the event.
+ * @param time The epoch time in milliseconds when the event occurred.
+ * @param realmId The ID of the realm where the event occurred.
+ * @param operationType The kind of change (e.g., "CREATE", "UPDATE", "DELETE").
+ * @param resourceType The type of the changed resource (e.g., "REALM_ROLE", "GROUP", "CLIENT").
+ * @param resourcePath The admin API path of the resource (e.g., "roles/ADMIN", "groups/{id}").
+ * @param error The error string, can be null.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record KeycloakAdminEvent(
+    String id,
+    long time,
+    String realmId,
+    String operationType,
+    String resourceType,
+    String resourcePath,
+    String error) {}
@@ -0,0 +1,160 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps track of the files of the storage service referenced by users: the profile pictures and
+ * their variants. Also holds the progress of the orphan blob collector, so a run continues where
+ * the previous one stopped, on any instance.
+ */
+@Component
+@RequiredArgsConstructor
+public class BlobReferenceStore {
+
+  private static final int LOOKUP_BATCH_SIZE = 1_000;
+
+  private static final String FIND_REFERENCED =
+      """
+      SELECT profile_picture FROM users WHERE profile_picture IN (:urls)
+      UNION
+      SELECT url FROM profile_picture_variants WHERE url IN (:urls)
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+  /**
+   * Replaces the variants of the profile picture of a user. Runs in the transaction of the caller.
+   *
+   * @param userId the user
+   * @param variants the URLs of the new variants, by name
+   * @return the URLs of the replaced variants
+   */
+  public List<String> replaceVariants(UUID userId, Map<String, String> variants) {
+    List<String> replaced =
+        jdbcTemplate.queryForList(
+            "DELETE FROM profile_picture_variants WHERE user_id = ? RETURNING url",
+            String.class,
+            userId);
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO profile_picture_variants (user_id, name, url) VALUES (?, ?, ?)",
+        variants.entrySet(),
+        variants.size(),
+        (statement, variant) -> {
+          statement.setObject(1, userId);
+          statement.setString(2, variant.getKey());
+          statement.setString(3, variant.getValue());
+        });
+    return replaced;
+  }
+
+  /**
+   * @param urls URLs of files of the storage service
+   * @return the ones still referenced by a user
+   */
+  public Set<String> findReferenced(Collection<String> urls) {
+    List<String> distinct = urls.stream().distinct().toList();
+    Set<String> referenced = new HashSet<>();
+    for (int from = 0; from < distinct.size(); from += LOOKUP_BATCH_SIZE) {
+      List<String> batch =
+          distinct.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, distinct.size()));
+      referenced.addAll(
+          namedJdbcTemplate.queryForList(FIND_REFERENCED, Map.of("urls", batch), String.class));
+    }
+    return referenced;
+  }
+
+  /**
+   * Takes the collection lease, unless another instance holds it.
+   *
+   * @return when the lease expires, empty when another instance holds it
+   */
+  public Optional<LocalDateTime> tryAcquireLease(Duration duration) {
+    LocalDateTime now = utc(Instant.now());
+    LocalDateTime until = leaseEnd(now, duration);
+    int updated =
+        jdbcTemplate.update(
+            """
+            UPDATE blob_gc_state SET collecting_until = ?
+            WHERE id = 1 AND (collecting_until IS NULL OR collecting_until < ?)
+            """,
+            until,
+            now);
+    return updated == 1 ? Optional.of(until) : Optional.empty();
+  }
+
+  /**
+   * Extends the collection lease, unless it expired and another instance took it since.
+   *
+   * @param lease when the lease held expires, as returned when it was taken or last renewed
+   * @return when the renewed lease expires, empty when the lease is lost
+   */
+  public Optional<LocalDateTime> renewLease(LocalDateTime lease, Duration duration) {
+    LocalDateTime until = leaseEnd(utc(Instant.now()), duration);
+    int updated =
+        jdbcTemplate.update(
+            "UPDATE blob_gc_state SET collecting_until = ? WHERE id = 1 AND collecting_until = ?",
+            until,
+            lease);
+    return updated == 1 ? Optional.of(until) : Optional.empty();
+  }
+
+  /** @return the cursor of the page the collector continues from, {@code null} to start over */
+  public String cursor() {
+    return jdbcTemplate.queryForObject(
+        "SELECT next_cursor FROM blob_gc_state WHERE id = 1", String.class);
+  }
+
+  /** Records the page the collector continues from. A {@code null} cursor completes a pass. */
+  public void saveCursor(String cursor) {
+    if (cursor == null) {
+      jdbcTemplate.update(
+          "UPDATE blob_gc_state SET next_cursor = NULL, last_completed_at = ? WHERE id = 1",
+          utc(Instant.now()));
+    } else {
+      jdbcTemplate.update("UPDATE blob_gc_state SET next_cursor = ? WHERE id = 1", cursor);
+    }
+  }
+
+  /** Releases the lease, unless another instance holds it now. */
+  public void releaseLease(LocalDateTime lease) {
+    jdbcTemplate.update(
+        "UPDATE blob_gc_state SET collecting_until = NULL WHERE id = 1 AND collecting_until = ?",
+        lease);
+  }
+
+  /**
+   * @return since when the variants of the profile pictures are recorded; variant files older
+   *     than this may be referenced without being known
+   */
+  public Instant variantsTrackedSince() {
+    LocalDateTime since =
+        jdbcTemplate.queryForObject(
+            "SELECT variants_tracked_since FROM blob_gc_state WHERE id = 1", LocalDateTime.class);
+    return since != null ? since.toInstant(ZoneOffset.UTC) : Instant.EPOCH;
+  }
+
+  // the lease is compared for equality, at the microsecond precision of the database
+  private static LocalDateTime leaseEnd(LocalDateTime now, Duration duration) {
+    return now.plus(duration).truncatedTo(ChronoUnit.MICROS);
+  }
+
+  private static LocalDateTime utc(Instant instant) {
+    return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,96 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over email addresses. Answers "definitely absent" or "maybe present";
+ * entries cannot be removed, so the filter is rebuilt from the database from time to time.
+ *
+ * <p>Uses the Kirsch-Mitzenmacher scheme: the k probe positions are derived from two 64-bit hashes
+ * as {@code h1 + i * h2}.
+ */
+public final class EmailBloomFilter {
+
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final long SEED_1 = 0xcbf29ce484222325L;
+  private static final long SEED_2 = 0x9e3779b97f4a7c15L;
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+  private final long expectedInsertions;
+
+  private EmailBloomFilter(long bitCount, int hashCount, long expectedInsertions) {
+    this.bits = new AtomicLongArray(Math.toIntExact((bitCount + 63) / 64));
+    this.bitCount = bitCount;
+    this.hashCount = hashCount;
+    this.expectedInsertions = expectedInsertions;
+  }
+
+  /**
+   * Sizes a filter for the given number of entries and false positive probability.
+   *
+   * @param expectedInsertions number of emails the filter should hold
+   * @param falsePositiveProbability target probability of a false "maybe present"
+   */
+  public static EmailBloomFilter create(long expectedInsertions, double falsePositiveProbability) {
+    long n = Math.max(1, expectedInsertions);
+    long m =
+        Math.max(
+            64,
+            (long)
+                Math.ceil(
+                    -n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2))));
+    int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    return new EmailBloomFilter(m, k, n);
+  }
+
+  public void put(String email) {
+    long h1 = hash(email, SEED_1);
+    long h2 = hash(email, SEED_2);
+    for (int i = 0; i < hashCount; i++) {
+      long index = Math.floorMod(h1 + i * h2, bitCount);
+      int word = (int) (index >>> 6);
+      long mask = 1L << index;
+      long current;
+      do {
+        current = bits.get(word);
+      } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  public boolean mightContain(String email) {
+    long h1 = hash(email, SEED_1);
+    long h2 = hash(email, SEED_2);
+    for (int i = 0; i < hashCount; i++) {
+      long index = Math.floorMod(h1 + i * h2, bitCount);
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long expectedInsertions() {
+    return expectedInsertions;
+  }
+
+  public long sizeInBytes() {
+    return (long) bits.length() * Long.BYTES;
+  }
+
+  /** FNV-1a over the UTF-16 chars, finished with the MurmurHash3 64-bit mixer. */
+  private static long hash(String value, long seed) {
+    long h = seed;
+    for (int i = 0; i < value.length(); i++) {
+      h ^= value.charAt(i);
+      h *= FNV_PRIME;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
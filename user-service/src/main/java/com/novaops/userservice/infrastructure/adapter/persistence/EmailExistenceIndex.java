@@ -0,0 +1,257 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import com.novaops.userservice.config.persistence.EmailIndexProperties;
+import com.novaops.userservice.infrastructure.repository.UserJpaRepository;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Answers "which of these emails are already registered?" without loading the users table.
+ *
+ * <p>A Bloom filter over every stored email rules out most candidates in memory; the remaining
+ * "maybe present" emails are confirmed with batched {@code WHERE email IN (...)} queries, so the
+ * answer is always exact. The filter is built once the application is ready, updated on every
+ * insert and rebuilt periodically, because deleted emails cannot be removed from it. Until the
+ * first build completes every email is treated as "maybe present".
+ *
+ * <p>Every instance keeps its own filter, so the emails stored by one instance are published on a
+ * Redis channel and added to the filters of all the others. A filter that may have missed some of
+ * them, because it was not subscribed at the time, is not trusted until it is rebuilt: every email
+ * is then "maybe present". Publishing is asynchronous, so an email stored an instant ago on
+ * another instance can still be reported absent; the unique constraint on {@code users.email}
+ * stays the final check.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EmailExistenceIndex implements MessageListener {
+
+  private final UserJpaRepository userRepository;
+  private final EmailIndexProperties properties;
+  private final PlatformTransactionManager transactionManager;
+  private final StringRedisTemplate redisTemplate;
+  private final RedisMessageListenerContainer listenerContainer;
+
+  // tells the messages published by this instance apart from the others
+  private final String instanceId = UUID.randomUUID().toString();
+
+  private final ReentrantLock rebuildLock = new ReentrantLock();
+  private final Set<String> addedDuringRebuild = ConcurrentHashMap.newKeySet();
+  private final AtomicLong entries = new AtomicLong();
+  private final AtomicLong staleEntries = new AtomicLong();
+
+  private volatile EmailBloomFilter filter;
+  private volatile boolean rebuilding;
+  // the filter saw every email published since it was built
+  private volatile boolean inSync;
+
+  @PostConstruct
+  void subscribe() {
+    listenerContainer.addMessageListener(this, new ChannelTopic(properties.getChannel()));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    Thread.ofVirtual().name("email-index-warmup").start(this::rebuild);
+  }
+
+  @Scheduled(cron = "${app.email-index.rebuild-cron:0 0 3 * * *}")
+  public void scheduledRebuild() {
+    rebuild();
+  }
+
+  /** Rebuilds the filter from the database. Concurrent calls are skipped. */
+  public void rebuild() {
+    if (!rebuildLock.tryLock()) {
+      return;
+    }
+    try {
+      rebuilding = true;
+      addedDuringRebuild.clear();
+      // emails published before the subscription is back may be missing from the database read
+      boolean listening = listenerContainer.isListening();
+
+      long userCount = userRepository.count();
+      long capacity =
+          Math.max(
+              properties.getMinimumCapacity(),
+              (long) Math.ceil(userCount * properties.getGrowthFactor()));
+      EmailBloomFilter next =
+          EmailBloomFilter.create(capacity, properties.getFalsePositiveProbability());
+
+      TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+      transaction.setReadOnly(true);
+      Long loaded =
+          transaction.execute(
+              status -> {
+                long count = 0;
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                  for (Iterator<String> it = emails.iterator(); it.hasNext(); count++) {
+                    next.put(normalize(it.next()));
+                  }
+                }
+                return count;
+              });
+
+      addedDuringRebuild.forEach(next::put);
+      filter = next;
+      inSync = listening;
+      rebuilding = false;
+      // emails added while the new filter was being swapped in
+      addedDuringRebuild.forEach(next::put);
+      addedDuringRebuild.clear();
+
+      entries.set(loaded != null ? loaded : 0);
+      staleEntries.set(0);
+      log.info(
+          "Email index rebuilt: {} emails, capacity {}, {} KB",
+          loaded,
+          capacity,
+          next.sizeInBytes() / 1024);
+    } catch (RuntimeException e) {
+      rebuilding = false;
+      log.error("Failed to rebuild email index: {}", e.getMessage(), e);
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the subset of the given emails that exist in the database, lower-cased.
+   *
+   * @param emails the emails to check, in any case
+   * @return the registered emails
+   */
+  public Set<String> findExisting(Collection<String> emails) {
+    EmailBloomFilter current = trusted() ? filter : null;
+    List<String> candidates =
+        emails.stream()
+            .filter(Objects::nonNull)
+            .map(EmailExistenceIndex::normalize)
+            .distinct()
+            .filter(email -> current == null || current.mightContain(email))
+            .toList();
+
+    Set<String> existing = new HashSet<>();
+    int batchSize = properties.getQueryBatchSize();
+    for (int from = 0; from < candidates.size(); from += batchSize) {
+      List<String> batch = candidates.subList(from, Math.min(from + batchSize, candidates.size()));
+      existing.addAll(userRepository.findExistingEmails(batch));
+    }
+    return existing;
+  }
+
+  /** Records a newly stored email, on every instance. */
+  public void add(String email) {
+    if (email != null) {
+      addAll(List.of(email));
+    }
+  }
+
+  /** Records newly stored emails, on every instance. */
+  public void addAll(Collection<String> emails) {
+    List<String> normalized =
+        emails.stream().filter(Objects::nonNull).map(EmailExistenceIndex::normalize).toList();
+    if (normalized.isEmpty()) {
+      return;
+    }
+    normalized.forEach(this::put);
+    int batchSize = properties.getQueryBatchSize();
+    for (int from = 0; from < normalized.size(); from += batchSize) {
+      List<String> batch = normalized.subList(from, Math.min(from + batchSize, normalized.size()));
+      publish(batch);
+    }
+  }
+
+  /** Emails published by an instance, possibly this one. */
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    String[] lines = new String(message.getBody(), StandardCharsets.UTF_8).split("\n");
+    if (lines.length < 2 || instanceId.equals(lines[0])) {
+      return;
+    }
+    for (int i = 1; i < lines.length; i++) {
+      put(lines[i]);
+    }
+  }
+
+  private void publish(List<String> emails) {
+    try {
+      redisTemplate.convertAndSend(
+          properties.getChannel(), instanceId + "\n" + String.join("\n", emails));
+    } catch (DataAccessException e) {
+      // Redis is usually down for the other instances too, they rebuild once it is back
+      log.warn(
+          "Could not publish {} emails to the other instances: {}", emails.size(), e.getMessage());
+    }
+  }
+
+  private void put(String normalized) {
+    if (rebuilding) {
+      addedDuringRebuild.add(normalized);
+    }
+    EmailBloomFilter current = filter;
+    if (current == null) {
+      return;
+    }
+    current.put(normalized);
+    if (entries.incrementAndGet() > current.expectedInsertions()) {
+      requestRebuild("capacity reached");
+    }
+  }
+
+  /**
+   * @return whether a "definitely absent" answer of the filter can be relied on
+   */
+  private boolean trusted() {
+    if (!listenerContainer.isListening()) {
+      // emails published meanwhile are lost for this instance
+      inSync = false;
+      return false;
+    }
+    if (!inSync) {
+      requestRebuild("missed emails of the other instances");
+    }
+    return inSync && filter != null;
+  }
+
+  /** Records a deleted user; its email stays in the filter until the next rebuild. */
+  public void recordDeletion() {
+    EmailBloomFilter current = filter;
+    if (current != null
+        && staleEntries.incrementAndGet()
+            > current.expectedInsertions() * properties.getMaxStaleRatio()) {
+      requestRebuild("too many deleted emails");
+    }
+  }
+
+  private void requestRebuild(String reason) {
+    if (!rebuilding && !rebuildLock.isLocked()) {
+      log.info("Rebuilding email index: {}", reason);
+      Thread.ofVirtual().name("email-index-rebuild").start(this::rebuild);
+    }
+  }
+
+  private static String normalize(String email) {
+    return email.trim().toLowerCase();
+  }
+}
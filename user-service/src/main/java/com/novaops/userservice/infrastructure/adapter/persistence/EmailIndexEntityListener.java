@@ -0,0 +1,31 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import com.novaops.userservice.infrastructure.entity.UserEntity;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@link EmailExistenceIndex} up to date with the users stored through JPA, whichever
+ * component stores them. The index is optional, so JPA slices can run without it.
+ */
+@Component
+public class EmailIndexEntityListener {
+
+  private final ObjectProvider<EmailExistenceIndex> emailIndex;
+
+  public EmailIndexEntityListener(ObjectProvider<EmailExistenceIndex> emailIndex) {
+    this.emailIndex = emailIndex;
+  }
+
+  @PostPersist
+  void added(UserEntity user) {
+    emailIndex.ifAvailable(index -> index.add(user.getEmail()));
+  }
+
+  @PostRemove
+  void removed(UserEntity user) {
+    emailIndex.ifAvailable(EmailExistenceIndex::recordDeletion);
+  }
+}
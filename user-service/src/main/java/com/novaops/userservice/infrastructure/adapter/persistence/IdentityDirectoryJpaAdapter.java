@@ -0,0 +1,123 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import com.novaops.userservice.config.persistence.IdentityDirectoryProperties;
+import com.novaops.userservice.domain.enums.RoleType;
+import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.domain.port.output.IdentityDirectory;
+import com.novaops.userservice.infrastructure.adapter.specifications.IdpUserSpecifications;
+import com.novaops.userservice.infrastructure.entity.IdpUserEntity;
+import com.novaops.userservice.infrastructure.mapper.IdpUserMapper;
+import com.novaops.userservice.infrastructure.repository.IdpUserJpaRepository;
+import com.novaops.userservice.shared.annotation.PersistenceAdapter;
+import java.util.List;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+@PersistenceAdapter
+@RequiredArgsConstructor
+public class IdentityDirectoryJpaAdapter implements IdentityDirectory {
+
+  private static final Set<String> SORTABLE_PROPERTIES =
+      Set.of("email", "firstName", "lastName", "createdAt");
+
+  private final IdpUserJpaRepository idpUserRepository;
+  private final IdpUserMapper idpUserMapper;
+  private final IdentityDirectoryProperties properties;
+  private final JdbcTemplate jdbcTemplate;
+
+  // the directory stays ready once it has been reconciled, so it is only queried until then
+  private volatile boolean reconciled;
+
+  @Override
+  public boolean isReady() {
+    if (!properties.isEnabled()) {
+      return false;
+    }
+    if (!reconciled) {
+      try {
+        reconciled =
+            Boolean.TRUE.equals(
+                jdbcTemplate.queryForObject(
+                    "SELECT last_reconciled_at IS NOT NULL FROM idp_directory_state WHERE id = 1",
+                    Boolean.class));
+      } catch (DataAccessException e) {
+        return false;
+      }
+    }
+    return reconciled;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Page<AuthUser> findAll(List<RoleType> roles, String search, Pageable pageable) {
+    Specification<IdpUserEntity> specification =
+        IdpUserSpecifications.matchesSearch(search)
+            .and(IdpUserSpecifications.hasAnyRole(roles));
+    return idpUserRepository
+        .findAll(specification, withSupportedSort(pageable))
+        .map(idpUserMapper::toAuthUser);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<AuthUser> findByRole(RoleType roleType) {
+    return idpUserMapper.toAuthUsers(
+        idpUserRepository.findAll(IdpUserSpecifications.hasAnyRole(List.of(roleType))));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<AuthUser> findByGroup(String groupName) {
+    return idpUserMapper.toAuthUsers(
+        idpUserRepository.findAll(IdpUserSpecifications.inGroup(groupName)));
+  }
+
+  /** Each whitespace separated {@code name:value} (or {@code name=value}) must match. */
+  @Override
+  @Transactional(readOnly = true)
+  public List<AuthUser> findByCustomAttribute(String query) {
+    Specification<IdpUserEntity> specification = (root, criteria, cb) -> cb.conjunction();
+    for (String token : query.strip().split("\\s+")) {
+      int separator = indexOfSeparator(token);
+      if (separator <= 0) {
+        continue;
+      }
+      specification =
+          specification.and(
+              IdpUserSpecifications.hasAttribute(
+                  token.substring(0, separator), token.substring(separator + 1)));
+    }
+    return idpUserMapper.toAuthUsers(idpUserRepository.findAll(specification));
+  }
+
+  private static int indexOfSeparator(String token) {
+    int colon = token.indexOf(':');
+    int equals = token.indexOf('=');
+    if (colon < 0 || equals < 0) {
+      return Math.max(colon, equals);
+    }
+    return Math.min(colon, equals);
+  }
+
+  /** Drops sort properties the directory does not store, and breaks ties by id. */
+  private static Pageable withSupportedSort(Pageable pageable) {
+    Sort sort =
+        Sort.by(
+                pageable.getSort().stream()
+                    .filter(order -> SORTABLE_PROPERTIES.contains(order.getProperty()))
+                    .toList())
+            .and(Sort.by("id"));
+    if (pageable.isUnpaged()) {
+      return Pageable.unpaged(sort);
+    }
+    return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+  }
+}
@@ -0,0 +1,264 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import com.novaops.userservice.config.persistence.IdentityDirectoryProperties;
+import com.novaops.userservice.domain.enums.RoleType;
+import com.novaops.userservice.domain.model.AuthUser;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.UserResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the local identity directory in line with Keycloak.
+ *
+ * <p>Changes made through this service and the events read from the <i>keycloak-events</i> topic
+ * are applied as they happen. A full reconciliation runs once the application is ready and then
+ * periodically: it pages through every Keycloak user, with their effective roles resolved by the
+ * {@link RealmRoleResolver} and group membership fetched once per group, and deletes the users it
+ * did not see. Only one instance reconciles at a time.
+ *
+ * <p>Failures are logged and never propagated: Keycloak stays the source of truth and the next
+ * reconciliation repairs whatever was missed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdentityDirectorySynchronizer {
+
+  private final Keycloak keycloak;
+  private final KeycloakRealmMetadata realmMetadata;
+  private final IdentityDirectoryWriter writer;
+  private final IdentityDirectoryProperties properties;
+  private final RealmRoleResolver roleResolver;
+
+  private final ReentrantLock reconcileLock = new ReentrantLock();
+
+  @Value("${keycloak.realm}")
+  private String realm;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    Thread.ofVirtual().name("idp-directory-warmup").start(this::reconcile);
+  }
+
+  @Scheduled(cron = "${app.idp-directory.reconcile-cron:0 */15 * * * *}")
+  public void scheduledReconcile() {
+    reconcile();
+  }
+
+  /** Copies every Keycloak user into the directory. Skipped when another reconciliation runs. */
+  public void reconcile() {
+    if (!properties.isEnabled() || !reconcileLock.tryLock()) {
+      return;
+    }
+    try {
+      if (!writer.tryAcquireLease(properties.getLeaseDuration())) {
+        log.debug("Identity directory is being reconciled by another instance");
+        return;
+      }
+      Instant startedAt = Instant.now();
+      try {
+        int count = copyUsers(keycloak.realm(realm));
+        int deleted = writer.deleteNotSyncedSince(startedAt);
+        writer.completeReconciliation(startedAt);
+        log.info("Identity directory reconciled: {} users, {} removed", count, deleted);
+      } catch (RuntimeException e) {
+        writer.releaseLease();
+        throw e;
+      }
+    } catch (RuntimeException e) {
+      log.error("Failed to reconcile identity directory: {}", e.getMessage(), e);
+    } finally {
+      reconcileLock.unlock();
+    }
+  }
+
+  private int copyUsers(RealmResource realmResource) {
+    RealmRoleResolver.RoleMemberships memberships = roleResolver.resolve(realmResource);
+    Map<String, Set<String>> groupsByUser = new HashMap<>();
+    for (GroupRepresentation group : realmMetadata.groups()) {
+      forEachPage(
+          (first, max) -> realmResource.groups().group(group.getId()).members(first, max),
+          user ->
+              groupsByUser.computeIfAbsent(user.getId(), id -> new HashSet<>()).add(group.getName()));
+    }
+
+    int count = 0;
+    int first = 0;
+    List<UserRepresentation> page;
+    do {
+      page = realmResource.users().list(first, properties.getPageSize());
+      List<IdentityDirectoryWriter.Entry> entries = new ArrayList<>(page.size());
+      for (UserRepresentation user : page) {
+        entries.add(
+            toEntry(
+                user,
+                memberships.rolesOf(user.getId()),
+                groupsByUser.getOrDefault(user.getId(), Set.of())));
+      }
+      writer.write(entries, Instant.now());
+      count += page.size();
+      first += properties.getPageSize();
+    } while (page.size() == properties.getPageSize());
+    return count;
+  }
+
+  private void forEachPage(PageReader reader, Consumer<UserRepresentation> consumer) {
+    int first = 0;
+    List<UserRepresentation> page;
+    do {
+      page = reader.read(first, properties.getPageSize());
+      page.forEach(consumer);
+      first += properties.getPageSize();
+    } while (page.size() == properties.getPageSize());
+  }
+
+  /** Reads the user, with its effective roles and groups, and stores it; deletes it when gone. */
+  public void refresh(String userId) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    try {
+      UserResource userResource = keycloak.realm(realm).users().get(userId);
+      UserRepresentation user = userResource.toRepresentation();
+      Set<RoleType> roles = EnumSet.noneOf(RoleType.class);
+      for (RoleRepresentation role : userResource.roles().realmLevel().listEffective()) {
+        RoleType.fromString(role.getName()).ifPresent(roles::add);
+      }
+      Set<String> groups = new HashSet<>();
+      userResource.groups().forEach(group -> groups.add(group.getName()));
+      writer.write(List.of(toEntry(user, roles, groups)), Instant.now());
+    } catch (WebApplicationException e) {
+      if (e.getResponse().getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+        remove(userId);
+      } else {
+        log.warn("Could not refresh user {} in identity directory: {}", userId, e.getMessage());
+      }
+    } catch (RuntimeException e) {
+      log.warn("Could not refresh user {} in identity directory: {}", userId, e.getMessage());
+    }
+  }
+
+  /** Stores a user changed through this service. Null roles or attributes are kept as they are. */
+  public void save(AuthUser user) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    try {
+      writer.write(List.of(toEntry(user, user.getRoleTypes(), null)), Instant.now());
+    } catch (RuntimeException e) {
+      log.warn("Could not update user {} in identity directory: {}", user.getId(), e.getMessage());
+    }
+  }
+
+  /** Stores users just created in Keycloak, with the roles every user gets by default. */
+  public void saveCreated(List<AuthUser> users) {
+    if (!properties.isEnabled() || users.isEmpty()) {
+      return;
+    }
+    Instant now = Instant.now();
+    try {
+      Set<RoleType> defaultRoles = defaultRoleTypes();
+      List<IdentityDirectoryWriter.Entry> entries = new ArrayList<>(users.size());
+      for (AuthUser user : users) {
+        Set<RoleType> roles = EnumSet.noneOf(RoleType.class);
+        roles.addAll(defaultRoles);
+        if (user.getRoleTypes() != null) {
+          roles.addAll(user.getRoleTypes());
+        }
+        entries.add(
+            toEntry(user.toBuilder().createdAt(now).build(), List.copyOf(roles), Set.of()));
+      }
+      writer.write(entries, now);
+    } catch (RuntimeException e) {
+      log.warn("Could not add {} users to identity directory: {}", users.size(), e.getMessage());
+    }
+  }
+
+  public void setEnabled(String userId, boolean enabled) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    try {
+      writer.setEnabled(UUID.fromString(userId), enabled);
+    } catch (RuntimeException e) {
+      log.warn("Could not update user {} in identity directory: {}", userId, e.getMessage());
+    }
+  }
+
+  public void remove(String userId) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    try {
+      writer.delete(UUID.fromString(userId));
+    } catch (RuntimeException e) {
+      log.warn("Could not remove user {} from identity directory: {}", userId, e.getMessage());
+    }
+  }
+
+  /** Role types granted to every user through the default-roles composite. */
+  private Set<RoleType> defaultRoleTypes() {
+    Set<RoleType> roleTypes = EnumSet.noneOf(RoleType.class);
+    for (RoleRepresentation role : realmMetadata.roleComposites(realmMetadata.defaultRolesName())) {
+      RoleType.fromString(role.getName()).ifPresent(roleTypes::add);
+    }
+    return roleTypes;
+  }
+
+  private static IdentityDirectoryWriter.Entry toEntry(
+      UserRepresentation user, Set<RoleType> roles, Set<String> groups) {
+    return IdentityDirectoryWriter.Entry.builder()
+        .id(UUID.fromString(user.getId()))
+        .username(user.getUsername())
+        .email(user.getEmail())
+        .firstName(user.getFirstName())
+        .lastName(user.getLastName())
+        .enabled(Boolean.TRUE.equals(user.isEnabled()))
+        .emailVerified(Boolean.TRUE.equals(user.isEmailVerified()))
+        .createdAt(
+            user.getCreatedTimestamp() != null
+                ? Instant.ofEpochMilli(user.getCreatedTimestamp())
+                : null)
+        .roles(roles)
+        .groups(groups)
+        .attributes(user.getAttributes() != null ? user.getAttributes() : Map.of())
+        .build();
+  }
+
+  private static IdentityDirectoryWriter.Entry toEntry(
+      AuthUser user, List<RoleType> roles, Set<String> groups) {
+    return IdentityDirectoryWriter.Entry.builder()
+        .id(UUID.fromString(user.getId()))
+        .email(user.getEmail())
+        .firstName(user.getFirstName())
+        .lastName(user.getLastName())
+        .enabled(Boolean.TRUE.equals(user.getEnabled()))
+        .emailVerified(Boolean.TRUE.equals(user.getEmailVerified()))
+        .createdAt(user.getCreatedAt())
+        .roles(roles != null ? Set.copyOf(roles) : null)
+        .groups(groups)
+        .attributes(user.getAttributes())
+        .build();
+  }
+
+  @FunctionalInterface
+  private interface PageReader {
+    List<UserRepresentation> read(int first, int max);
+  }
+}
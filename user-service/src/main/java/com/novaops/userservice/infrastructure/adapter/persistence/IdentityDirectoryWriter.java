@@ -0,0 +1,185 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import com.novaops.userservice.domain.enums.RoleType;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the local copy of the Keycloak users with JDBC batches. Timestamps are stored as UTC
+ * wall-clock time, which is how Hibernate reads them back as {@link Instant}s.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdentityDirectoryWriter {
+
+  // username and creation date are kept when the change does not carry them
+  private static final String UPSERT_USER =
+      """
+      INSERT INTO idp_users (id, username, email, first_name, last_name, enabled, email_verified,
+                             created_at, synced_at)
+      VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+      ON CONFLICT (id) DO UPDATE SET
+          username       = COALESCE(EXCLUDED.username, idp_users.username),
+          email          = EXCLUDED.email,
+          first_name     = EXCLUDED.first_name,
+          last_name      = EXCLUDED.last_name,
+          enabled        = EXCLUDED.enabled,
+          email_verified = EXCLUDED.email_verified,
+          created_at     = COALESCE(EXCLUDED.created_at, idp_users.created_at),
+          synced_at      = EXCLUDED.synced_at
+      """;
+
+  private static final String DELETE_ROLES = "DELETE FROM idp_user_roles WHERE user_id = ?";
+  private static final String INSERT_ROLE =
+      "INSERT INTO idp_user_roles (user_id, role) VALUES (?, ?) ON CONFLICT DO NOTHING";
+  private static final String DELETE_GROUPS = "DELETE FROM idp_user_groups WHERE user_id = ?";
+  private static final String INSERT_GROUP =
+      "INSERT INTO idp_user_groups (user_id, group_name) VALUES (?, ?) ON CONFLICT DO NOTHING";
+  private static final String DELETE_ATTRIBUTES =
+      "DELETE FROM idp_user_attributes WHERE user_id = ?";
+  private static final String INSERT_ATTRIBUTE =
+      "INSERT INTO idp_user_attributes (user_id, name, value) VALUES (?, ?, ?)"
+          + " ON CONFLICT DO NOTHING";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final PlatformTransactionManager transactionManager;
+
+  /**
+   * A user as known by the identity provider. Null {@code roles}, {@code groups} or {@code
+   * attributes} leave the stored ones untouched.
+   */
+  @Builder
+  public record Entry(
+      UUID id,
+      String username,
+      String email,
+      String firstName,
+      String lastName,
+      boolean enabled,
+      boolean emailVerified,
+      Instant createdAt,
+      Set<RoleType> roles,
+      Set<String> groups,
+      Map<String, List<String>> attributes) {}
+
+  /** Inserts or replaces the entries in a single transaction. */
+  public void write(List<Entry> entries, Instant syncedAt) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    LocalDateTime synced = utc(syncedAt);
+    List<Object[]> users = new ArrayList<>(entries.size());
+    List<Object[]> replacedRoles = new ArrayList<>();
+    List<Object[]> roles = new ArrayList<>();
+    List<Object[]> replacedGroups = new ArrayList<>();
+    List<Object[]> groups = new ArrayList<>();
+    List<Object[]> replacedAttributes = new ArrayList<>();
+    List<Object[]> attributes = new ArrayList<>();
+
+    for (Entry entry : entries) {
+      users.add(
+          new Object[] {
+            entry.id(),
+            entry.username(),
+            entry.email() != null ? entry.email().toLowerCase() : null,
+            entry.firstName(),
+            entry.lastName(),
+            entry.enabled(),
+            entry.emailVerified(),
+            entry.createdAt() != null ? utc(entry.createdAt()) : null,
+            synced
+          });
+      if (entry.roles() != null) {
+        replacedRoles.add(new Object[] {entry.id()});
+        entry.roles().forEach(role -> roles.add(new Object[] {entry.id(), role.name()}));
+      }
+      if (entry.groups() != null) {
+        replacedGroups.add(new Object[] {entry.id()});
+        entry.groups().forEach(group -> groups.add(new Object[] {entry.id(), group}));
+      }
+      if (entry.attributes() != null) {
+        replacedAttributes.add(new Object[] {entry.id()});
+        entry
+            .attributes()
+            .forEach(
+                (name, values) ->
+                    values.forEach(
+                        value -> attributes.add(new Object[] {entry.id(), name, value})));
+      }
+    }
+
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              jdbcTemplate.batchUpdate(UPSERT_USER, users);
+              replace(DELETE_ROLES, replacedRoles, INSERT_ROLE, roles);
+              replace(DELETE_GROUPS, replacedGroups, INSERT_GROUP, groups);
+              replace(DELETE_ATTRIBUTES, replacedAttributes, INSERT_ATTRIBUTE, attributes);
+            });
+  }
+
+  private void replace(
+      String deleteSql, List<Object[]> replaced, String insertSql, List<Object[]> rows) {
+    if (!replaced.isEmpty()) {
+      jdbcTemplate.batchUpdate(deleteSql, replaced);
+    }
+    if (!rows.isEmpty()) {
+      jdbcTemplate.batchUpdate(insertSql, rows);
+    }
+  }
+
+  public void setEnabled(UUID id, boolean enabled) {
+    jdbcTemplate.update("UPDATE idp_users SET enabled = ? WHERE id = ?", enabled, id);
+  }
+
+  public void delete(UUID id) {
+    jdbcTemplate.update("DELETE FROM idp_users WHERE id = ?", id);
+  }
+
+  /** Deletes the users a reconciliation started at {@code syncedAt} did not see. */
+  public int deleteNotSyncedSince(Instant syncedAt) {
+    return jdbcTemplate.update("DELETE FROM idp_users WHERE synced_at < ?", utc(syncedAt));
+  }
+
+  /** Takes the reconciliation lease, unless another instance holds it. */
+  public boolean tryAcquireLease(Duration duration) {
+    LocalDateTime now = utc(Instant.now());
+    return jdbcTemplate.update(
+            """
+            UPDATE idp_directory_state SET reconciling_until = ?
+            WHERE id = 1 AND (reconciling_until IS NULL OR reconciling_until < ?)
+            """,
+            now.plus(duration),
+            now)
+        == 1;
+  }
+
+  /** Records a completed reconciliation and releases the lease. */
+  public void completeReconciliation(Instant reconciledAt) {
+    jdbcTemplate.update(
+        "UPDATE idp_directory_state SET last_reconciled_at = ?, reconciling_until = NULL"
+            + " WHERE id = 1",
+        utc(reconciledAt));
+  }
+
+  public void releaseLease() {
+    jdbcTemplate.update("UPDATE idp_directory_state SET reconciling_until = NULL WHERE id = 1");
+  }
+
+  private static LocalDateTime utc(Instant instant) {
+    return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+  }
+}
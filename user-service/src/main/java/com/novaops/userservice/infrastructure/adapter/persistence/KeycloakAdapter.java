@@ -1,22 +1,36 @@
 package com.novaops.userservice.infrastructure.adapter.persistence;
 
+import com.novaops.userservice.config.keycloak.KeycloakMutationProperties;
 import com.novaops.userservice.domain.enums.Locale;
 import com.novaops.userservice.domain.enums.RoleType;
 import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.domain.model.ProvisioningResult;
+import com.novaops.userservice.domain.model.UserOperationResult;
 import com.novaops.userservice.domain.port.output.IdentityProvider;
 import com.novaops.userservice.exception.BadRequestException;
 import com.novaops.userservice.exception.GenericException;
 import com.novaops.userservice.exception.NotFoundException;
+import com.novaops.userservice.infrastructure.adapter.cache.AuthUserCache;
 import com.novaops.userservice.infrastructure.mapper.AuthMapper;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.UserResource;
 import org.keycloak.representations.idm.ClientRepresentation;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.RoleRepresentation;
@@ -39,14 +53,25 @@ public class KeycloakAdapter implements IdentityProvider {
 
   private final Keycloak keycloak;
   private final AuthMapper authMapper;
+  private final KeycloakUserProvisioner provisioner;
+  private final KeycloakRealmMetadata realmMetadata;
+  private final AuthUserCache authUserCache;
+  private final KeycloakMutationProperties mutationProperties;
+  private final IdentityDirectorySynchronizer identityDirectory;
+  private final RealmRoleResolver roleResolver;
 
   private static final String frontendClientId = "novaops-frontend";
+  private static final int MEMBERS_PAGE_SIZE = 500;
 
   @Value("${keycloak.realm}")
   public String realm;
 
   @Override
   public Optional<AuthUser> findById(String id) {
+    return authUserCache.findById(id, this::loadById);
+  }
+
+  private Optional<AuthUser> loadById(String id) {
     UserRepresentation userRepresentation =
         keycloak.realm(realm).users().get(id).toRepresentation();
 
@@ -59,7 +84,7 @@ public class KeycloakAdapter implements IdentityProvider {
   @Override
   public List<AuthUser> findByGroup(String groupName) {
 
-    List<GroupRepresentation> groups = keycloak.realm(realm).groups().groups();
+    List<GroupRepresentation> groups = realmMetadata.groups();
     GroupRepresentation group =
         groups.stream().filter(g -> g.getName().equals(groupName)).findFirst().orElseThrow();
 
@@ -72,49 +97,85 @@ public class KeycloakAdapter implements IdentityProvider {
     return authUsers;
   }
 
+  /**
+   * Lists users straight from Keycloak; listings are served by the identity directory once it is
+   * synchronized, this is the fallback until then. An empty {@code roles} list means no role
+   * filter.
+   *
+   * <p>The effective roles of all users are resolved once per call by the {@link
+   * RealmRoleResolver}, so the number of Keycloak requests does not grow with the page size.
+   * Without a role filter, or when filtering on a role every user holds through the
+   * <i>default-roles</i> composite, the page comes from the Keycloak search. Keycloak cannot search
+   * by role, so filtering on other roles takes their members from the resolved roles, then filters,
+   * sorts and pages them in memory.
+   */
   @Override
   public Page<AuthUser> findAll(List<String> roles, String search, Pageable pageable) {
-
     RealmResource realmResource = keycloak.realm(realm);
+    Set<RoleType> requested = EnumSet.noneOf(RoleType.class);
+    roles.forEach(role -> RoleType.fromString(role).ifPresent(requested::add));
 
-    List<UserRepresentation> users =
-        realmResource.users().search(search, pageable.getPageNumber(), pageable.getPageSize());
-    List<AuthUser> authUsers = new ArrayList<>();
-    for (UserRepresentation user : users) {
-      processUserRoles(user, roles, authUsers, realmResource);
+    RealmRoleResolver.RoleMemberships memberships = roleResolver.resolve(realmResource);
+    if (requested.isEmpty() || requested.stream().anyMatch(memberships.defaultRoles()::contains)) {
+      List<AuthUser> authUsers =
+          realmResource
+              .users()
+              .search(search, (int) pageable.getOffset(), pageable.getPageSize())
+              .stream()
+              .map(authMapper::toAuthUser)
+              .collect(Collectors.toCollection(ArrayList::new));
+      long totalElements = realmResource.users().count(search);
+      sortAuthUsers(authUsers, pageable.getSort());
+      assignRoles(authUsers, memberships);
+      return new PageImpl<>(authUsers, pageable, totalElements);
     }
-    sortAuthUsers(authUsers, pageable.getSort());
-    int totalElements = realmResource.users().count();
-    return new PageImpl<>(authUsers, pageable, totalElements);
+
+    Map<String, UserRepresentation> matching = new LinkedHashMap<>();
+    requested.forEach(
+        roleType ->
+            memberships.membersOf(roleType).stream()
+                .filter(user -> matchesSearch(user, search))
+                .forEach(user -> matching.putIfAbsent(user.getId(), user)));
+    List<AuthUser> filtered =
+        matching.values().stream()
+            .map(authMapper::toAuthUser)
+            .collect(Collectors.toCollection(ArrayList::new));
+    sortAuthUsers(filtered, pageable.getSort());
+    int from = (int) Math.min(pageable.getOffset(), filtered.size());
+    int to = Math.min(from + pageable.getPageSize(), filtered.size());
+    List<AuthUser> page = filtered.subList(from, to);
+    assignRoles(page, memberships);
+    return new PageImpl<>(page, pageable, filtered.size());
   }
 
-  /** Process user roles and add to the list of auth users if the user has the required roles */
-  private void processUserRoles(
-      UserRepresentation user,
-      List<String> roles,
-      List<AuthUser> authUsers,
-      RealmResource realmResource) {
-    List<RoleRepresentation> userRoles =
-        realmResource.users().get(user.getId()).roles().realmLevel().listEffective();
-    List<RoleType> roleTypeEnums = new ArrayList<>();
-    for (RoleRepresentation roleRepresentation : userRoles) {
-      if (roleRepresentation.getName().equals("default-roles-" + realm)) {
-        Set<RoleRepresentation> defaultRoles =
-            realmResource.rolesById().getRoleComposites(roleRepresentation.getId());
-        for (RoleRepresentation defaultRole : defaultRoles) {
-          roleTypeEnums.add(RoleType.fromString(defaultRole.getName()).orElse(null));
-        }
-      } else {
-        roleTypeEnums.add(RoleType.fromString(roleRepresentation.getName()).orElse(null));
-      }
-    }
-    roleTypeEnums = roleTypeEnums.stream().filter(Objects::nonNull).toList();
+  /** Every element of a paged Keycloak listing, fetched page by page. */
+  private static <T> List<T> fetchAllPages(BiFunction<Integer, Integer, List<T>> listing) {
+    List<T> all = new ArrayList<>();
+    List<T> page;
+    int first = 0;
+    do {
+      page = listing.apply(first, MEMBERS_PAGE_SIZE);
+      all.addAll(page);
+      first += MEMBERS_PAGE_SIZE;
+    } while (page.size() == MEMBERS_PAGE_SIZE);
+    return all;
+  }
 
-    if (!roles.isEmpty()
-        && roleTypeEnums.stream().anyMatch(role -> roles.contains(role.toString()))) {
-      AuthUser mappedUser = mapUser(user);
-      authUsers.add(mappedUser);
+  private static void assignRoles(
+      List<AuthUser> authUsers, RealmRoleResolver.RoleMemberships memberships) {
+    authUsers.forEach(
+        authUser -> authUser.setRoleTypes(List.copyOf(memberships.rolesOf(authUser.getId()))));
+  }
+
+  /** Same fields as the Keycloak user search: username, email, first and last name. */
+  private static boolean matchesSearch(UserRepresentation user, String search) {
+    if (search == null || search.isBlank()) {
+      return true;
     }
+    String term = search.strip().toLowerCase();
+    return Stream.of(user.getUsername(), user.getEmail(), user.getFirstName(), user.getLastName())
+        .filter(Objects::nonNull)
+        .anyMatch(value -> value.toLowerCase().contains(term));
   }
 
   private void sortAuthUsers(List<AuthUser> authUsers, Sort sort) {
@@ -139,6 +200,10 @@ public class KeycloakAdapter implements IdentityProvider {
 
   @Override
   public Optional<AuthUser> findByEmail(String email) {
+    return authUserCache.findByEmail(email, this::loadByEmail);
+  }
+
+  private Optional<AuthUser> loadByEmail(String email) {
     List<UserRepresentation> users = keycloak.realm(realm).users().searchByEmail(email, true);
     return getAuthUser(users);
   }
@@ -175,18 +240,21 @@ public class KeycloakAdapter implements IdentityProvider {
   }
 
   /**
-   * This method requires the role <b>view-realm</b> to be enabled for the client service accounts
-   * roles in keycloak
+   * Returns the effective members of the role, every user for a role of the default-roles
+   * composite. This method requires the role <b>view-realm</b> to be enabled for the client service
+   * accounts roles in keycloak
    */
   @Override
   public List<AuthUser> findByRole(RoleType roleType) {
-    List<UserRepresentation> users =
-        keycloak.realm(realm).roles().get(roleType.name()).getUserMembers();
-    List<AuthUser> authUsers = new ArrayList<>();
-    for (UserRepresentation user : users) {
-      AuthUser mappedUser = mapUser(user);
-      authUsers.add(mappedUser);
-    }
+    RealmResource realmResource = keycloak.realm(realm);
+    RealmRoleResolver.RoleMemberships memberships = roleResolver.resolve(realmResource);
+    Collection<UserRepresentation> users =
+        memberships.defaultRoles().contains(roleType)
+            ? fetchAllPages(realmResource.users()::list)
+            : memberships.membersOf(roleType);
+    List<AuthUser> authUsers =
+        users.stream().map(authMapper::toAuthUser).collect(Collectors.toCollection(ArrayList::new));
+    assignRoles(authUsers, memberships);
     return authUsers;
   }
 
@@ -195,6 +263,8 @@ public class KeycloakAdapter implements IdentityProvider {
     log.info("Deleting user with id: {}", id);
     try {
       keycloak.realm(realm).users().delete(id);
+      authUserCache.evict(id);
+      identityDirectory.remove(id);
       log.info("User with id: {} deleted successfully", id);
     } catch (WebApplicationException e) {
       log.error("Error deleting user with id: {}", id, e);
@@ -217,25 +287,15 @@ public class KeycloakAdapter implements IdentityProvider {
       userRepresentation.setRequiredActions(requiredActions);
       Response response = keycloak.realm(realm).users().create(userRepresentation);
       String userId = CreatedResponseUtil.getCreatedId(response);
-      if (roleTypes != null) {
-        roleTypes.forEach(
-            role -> {
-              RoleRepresentation roleRepresentation =
-                  keycloak.realm(realm).roles().get(role.toString()).toRepresentation();
-              keycloak
-                  .realm(realm)
-                  .users()
-                  .get(userId)
-                  .roles()
-                  .realmLevel()
-                  .add(Collections.singletonList(roleRepresentation));
-            });
+      if (roleTypes != null && !roleTypes.isEmpty()) {
+        List<RoleRepresentation> roleRepresentations =
+            roleTypes.stream().map(role -> realmMetadata.role(role.toString())).toList();
+        keycloak.realm(realm).users().get(userId).roles().realmLevel().add(roleRepresentations);
       }
 
       if (sendUpdatePasswordEmail) {
         try {
-          ClientRepresentation clientRepresentation =
-              keycloak.realm(realm).clients().findByClientId(frontendClientId).getFirst();
+          ClientRepresentation clientRepresentation = realmMetadata.client(frontendClientId);
           keycloak
               .realm(realm)
               .users()
@@ -254,24 +314,53 @@ public class KeycloakAdapter implements IdentityProvider {
 
       log.info("User with email: {} created successfully", authUser.getEmail());
 
-      return this.findById(userId)
-          .orElseThrow(
-              () -> new NotFoundException(NotFoundException.NotFoundExceptionType.USER_NOT_FOUND));
+      AuthUser created =
+          this.findById(userId)
+              .orElseThrow(
+                  () ->
+                      new NotFoundException(
+                          NotFoundException.NotFoundExceptionType.USER_NOT_FOUND));
+      identityDirectory.refresh(userId);
+      return created;
     } catch (WebApplicationException e) {
       log.error("Error creating user with email: {}", authUser.getEmail(), e);
       throw new BadRequestException(BadRequestException.BadRequestExceptionType.INVALID_REQUEST);
     }
   }
 
+  @Override
+  public List<ProvisioningResult> createAll(List<AuthUser> users, List<String> requiredActions) {
+    List<ProvisioningResult> results = provisioner.createAll(users, requiredActions);
+    List<AuthUser> created = new ArrayList<>();
+    for (int i = 0; i < results.size(); i++) {
+      ProvisioningResult result = results.get(i);
+      if (result.isCreated() && result.userId() != null) {
+        created.add(users.get(i).toBuilder().id(result.userId()).enabled(true).build());
+      }
+    }
+    identityDirectory.saveCreated(created);
+    return results;
+  }
+
+  @Override
+  public void sendRequiredActionsEmails(List<String> userIds, List<String> actions) {
+    provisioner.sendRequiredActionsEmails(userIds, actions);
+  }
+
+  /**
+   * Applies the change to the current representation and returns it without reading the user
+   * again, unless <b>keycloak.mutations.verify</b> is set. Roles cannot change here, they are taken
+   * from the cache when the user is cached.
+   */
   @Override
   public AuthUser update(AuthUser user) {
-    AuthUser oldUser =
-        this.findById(user.getId())
-            .orElseThrow(
-                () ->
-                    new NotFoundException(NotFoundException.NotFoundExceptionType.USER_NOT_FOUND));
+    UserResource userResource = keycloak.realm(realm).users().get(user.getId());
+    UserRepresentation current = userResource.toRepresentation();
+    if (current == null) {
+      throw new NotFoundException(NotFoundException.NotFoundExceptionType.USER_NOT_FOUND);
+    }
 
-    AuthUser newUser = authMapper.partialUpdate(user, oldUser);
+    AuthUser newUser = authMapper.partialUpdate(user, authMapper.toAuthUser(current));
     UserRepresentation userRepresentation = authMapper.toUserRepresentation(newUser);
     // TODO: update this
     //        if (user.getLocale() != null) {
@@ -283,55 +372,156 @@ public class KeycloakAdapter implements IdentityProvider {
     //        if (user.getProfilePicture() != null) {
     //            userRepresentation.singleAttribute("profilePicture", user.getProfilePicture());
     //        }
-    keycloak.realm(realm).users().get(user.getId()).update(userRepresentation);
-
-    return this.findById(user.getId())
-        .orElseThrow(
-            () -> new NotFoundException(NotFoundException.NotFoundExceptionType.USER_NOT_FOUND));
+    userResource.update(userRepresentation);
+    Optional<AuthUser> cached = authUserCache.peek(user.getId());
+    authUserCache.evict(user.getId());
+
+    if (mutationProperties.isVerify()) {
+      AuthUser verified =
+          this.findById(user.getId())
+              .orElseThrow(
+                  () ->
+                      new NotFoundException(
+                          NotFoundException.NotFoundExceptionType.USER_NOT_FOUND));
+      identityDirectory.save(verified);
+      return verified;
+    }
+    newUser.setRoleTypes(
+        cached.map(AuthUser::getRoleTypes).orElseGet(() -> getUserRoles(user.getId())));
+    identityDirectory.save(newUser);
+    return newUser;
   }
 
   @Override
   public AuthUser enableUser(String userId) {
-    UserRepresentation userRepresentation =
-        keycloak.realm(realm).users().get(userId).toRepresentation();
-    userRepresentation.setEnabled(true);
-    keycloak.realm(realm).users().get(userRepresentation.getId()).update(userRepresentation);
-    UserRepresentation userRepresentationUpdated =
-        keycloak.realm(realm).users().get(userRepresentation.getId()).toRepresentation();
-    return authMapper.toAuthUser(userRepresentationUpdated);
+    return mutate(userId, userRepresentation -> userRepresentation.setEnabled(true));
   }
 
   @Override
   public AuthUser disableUser(String userId) {
-    UserRepresentation userRepresentation =
-        keycloak.realm(realm).users().get(userId).toRepresentation();
-    userRepresentation.setEnabled(false);
-    keycloak.realm(realm).users().get(userRepresentation.getId()).update(userRepresentation);
-    UserRepresentation userRepresentationUpdated =
-        keycloak.realm(realm).users().get(userRepresentation.getId()).toRepresentation();
-    return authMapper.toAuthUser(userRepresentationUpdated);
+    return mutate(userId, userRepresentation -> userRepresentation.setEnabled(false));
   }
 
   @Override
   public AuthUser toggle(String userId) {
-    UserRepresentation userRepresentation =
-        keycloak.realm(realm).users().get(userId).toRepresentation();
-    userRepresentation.setEnabled(!userRepresentation.isEnabled());
-    keycloak.realm(realm).users().get(userRepresentation.getId()).update(userRepresentation);
-    UserRepresentation userRepresentationUpdated =
-        keycloak.realm(realm).users().get(userRepresentation.getId()).toRepresentation();
-    return authMapper.toAuthUser(userRepresentationUpdated);
+    return mutate(
+        userId,
+        userRepresentation -> userRepresentation.setEnabled(!userRepresentation.isEnabled()));
   }
 
   @Override
   public AuthUser updateLocale(String userId, Locale locale) {
-    UserRepresentation userRepresentation =
-        keycloak.realm(realm).users().get(userId).toRepresentation();
-    userRepresentation.singleAttribute("locale", locale.name());
-    keycloak.realm(realm).users().get(userRepresentation.getId()).update(userRepresentation);
-    UserRepresentation userRepresentationUpdated =
-        keycloak.realm(realm).users().get(userRepresentation.getId()).toRepresentation();
-    return authMapper.toAuthUser(userRepresentationUpdated);
+    return mutate(
+        userId, userRepresentation -> userRepresentation.singleAttribute("locale", locale.name()));
+  }
+
+  /**
+   * Enables or disables the users concurrently, at most <b>keycloak.mutations.batch-concurrency</b>
+   * at a time. Users already in the requested state are not updated.
+   */
+  @Override
+  public List<UserOperationResult> setEnabled(List<String> userIds, boolean enabled) {
+    return forEachUser(
+        userIds, "setting enabled=" + enabled, userId -> applyEnabled(userId, enabled));
+  }
+
+  /**
+   * Updates the names concurrently, with the same bound as {@link #setEnabled(List, boolean)}.
+   * Users whose names already match are not updated.
+   */
+  @Override
+  public List<UserOperationResult> updateNames(List<AuthUser> users) {
+    Map<String, AuthUser> byId = new HashMap<>();
+    users.forEach(user -> byId.put(user.getId(), user));
+    return forEachUser(
+        users.stream().map(AuthUser::getId).toList(),
+        "updating names",
+        userId -> applyNames(byId.get(userId)));
+  }
+
+  /**
+   * Applies the action to every user on virtual threads, at most <b>
+   * keycloak.mutations.batch-concurrency</b> at a time, and collects one result per user.
+   */
+  private List<UserOperationResult> forEachUser(
+      List<String> userIds, String operation, Consumer<String> action) {
+    Semaphore permits = new Semaphore(mutationProperties.getBatchConcurrency());
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    try {
+      List<Future<?>> futures = new ArrayList<>(userIds.size());
+      for (String userId : userIds) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  permits.acquire();
+                  try {
+                    action.accept(userId);
+                    return null;
+                  } finally {
+                    permits.release();
+                  }
+                }));
+      }
+
+      List<UserOperationResult> results = new ArrayList<>(userIds.size());
+      for (int i = 0; i < userIds.size(); i++) {
+        String userId = userIds.get(i);
+        try {
+          futures.get(i).get();
+          results.add(UserOperationResult.succeeded(userId));
+        } catch (ExecutionException e) {
+          log.warn("Error {} for user with id: {}", operation, userId, e.getCause());
+          results.add(UserOperationResult.failed(userId, e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          results.add(UserOperationResult.failed(userId, "interrupted"));
+        }
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void applyEnabled(String userId, boolean enabled) {
+    UserResource userResource = keycloak.realm(realm).users().get(userId);
+    UserRepresentation userRepresentation = userResource.toRepresentation();
+    if (!Objects.equals(userRepresentation.isEnabled(), enabled)) {
+      userRepresentation.setEnabled(enabled);
+      userResource.update(userRepresentation);
+      authUserCache.evict(userId);
+      identityDirectory.setEnabled(userId, enabled);
+    }
+  }
+
+  private void applyNames(AuthUser user) {
+    UserResource userResource = keycloak.realm(realm).users().get(user.getId());
+    UserRepresentation userRepresentation = userResource.toRepresentation();
+    if (!Objects.equals(userRepresentation.getFirstName(), user.getFirstName())
+        || !Objects.equals(userRepresentation.getLastName(), user.getLastName())) {
+      userRepresentation.setFirstName(user.getFirstName());
+      userRepresentation.setLastName(user.getLastName());
+      userResource.update(userRepresentation);
+      authUserCache.evict(user.getId());
+      // null roles keep the ones already in the directory
+      identityDirectory.save(authMapper.toAuthUser(userRepresentation));
+    }
+  }
+
+  /** Fetches the user, applies the change, saves it and returns the changed representation. */
+  private AuthUser mutate(String userId, Consumer<UserRepresentation> change) {
+    UserResource userResource = keycloak.realm(realm).users().get(userId);
+    UserRepresentation userRepresentation = userResource.toRepresentation();
+    change.accept(userRepresentation);
+    userResource.update(userRepresentation);
+    authUserCache.evict(userId);
+
+    AuthUser authUser =
+        mutationProperties.isVerify()
+            ? authMapper.toAuthUser(userResource.toRepresentation())
+            : authMapper.toAuthUser(userRepresentation);
+    identityDirectory.save(authUser);
+    return authUser;
   }
 
   private List<RoleType> getUserRoles(String userId) {
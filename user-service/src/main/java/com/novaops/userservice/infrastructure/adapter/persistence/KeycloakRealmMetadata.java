@@ -0,0 +1,96 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import com.novaops.userservice.config.cache.CacheNames;
+import java.util.List;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cached realm level objects (roles, role composites, clients and groups). They almost never
+ * change, so they are fetched once and kept until their TTL expires or an admin event read from
+ * the <i>keycloak-admin-events</i> topic evicts them, instead of being looked up on every user
+ * creation.
+ *
+ * <p>The returned representations are shared between callers and must not be modified.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KeycloakRealmMetadata {
+
+  private final Keycloak keycloak;
+
+  @Value("${keycloak.realm}")
+  private String realm;
+
+  @Cacheable(cacheNames = CacheNames.KEYCLOAK_ROLES)
+  public RoleRepresentation role(String roleName) {
+    log.debug("Loading realm role {}", roleName);
+    return keycloak.realm(realm).roles().get(roleName).toRepresentation();
+  }
+
+  @Cacheable(cacheNames = CacheNames.KEYCLOAK_ROLE_COMPOSITES)
+  public Set<RoleRepresentation> roleComposites(String roleName) {
+    log.debug("Loading composites of realm role {}", roleName);
+    return Set.copyOf(keycloak.realm(realm).roles().get(roleName).getRoleComposites());
+  }
+
+  /** Name of the composite role every user of the realm gets. */
+  public String defaultRolesName() {
+    return "default-roles-" + realm;
+  }
+
+  @Cacheable(cacheNames = CacheNames.KEYCLOAK_CLIENTS)
+  public ClientRepresentation client(String clientId) {
+    log.debug("Loading client {}", clientId);
+    return keycloak.realm(realm).clients().findByClientId(clientId).getFirst();
+  }
+
+  @Cacheable(cacheNames = CacheNames.KEYCLOAK_GROUPS, key = "'all'")
+  public List<GroupRepresentation> groups() {
+    log.debug("Loading realm groups");
+    return List.copyOf(keycloak.realm(realm).groups().groups());
+  }
+
+  @Caching(
+      evict = {
+        @CacheEvict(cacheNames = CacheNames.KEYCLOAK_ROLES),
+        @CacheEvict(cacheNames = CacheNames.KEYCLOAK_ROLE_COMPOSITES)
+      })
+  public void evictRole(String roleName) {
+    log.debug("Evicted realm role {}", roleName);
+  }
+
+  // admin events identify clients by their internal id, not the client id the cache is keyed by
+  @CacheEvict(cacheNames = CacheNames.KEYCLOAK_CLIENTS, allEntries = true)
+  public void evictClients() {
+    log.debug("Evicted clients");
+  }
+
+  @CacheEvict(cacheNames = CacheNames.KEYCLOAK_GROUPS, allEntries = true)
+  public void evictGroups() {
+    log.debug("Evicted realm groups");
+  }
+
+  @CacheEvict(
+      cacheNames = {
+        CacheNames.KEYCLOAK_ROLES,
+        CacheNames.KEYCLOAK_ROLE_COMPOSITES,
+        CacheNames.KEYCLOAK_CLIENTS,
+        CacheNames.KEYCLOAK_GROUPS
+      },
+      allEntries = true)
+  public void evictAll() {
+    log.info("Evicted all cached realm metadata");
+  }
+}
@@ -0,0 +1,285 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.novaops.userservice.config.keycloak.KeycloakProvisioningProperties;
+import com.novaops.userservice.domain.enums.RoleType;
+import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.domain.model.ProvisioningResult;
+import com.novaops.userservice.infrastructure.mapper.AuthMapper;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.CreatedResponseUtil;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.PartialImportRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates users in Keycloak in bulk. Users are sent in batches to the realm partial import
+ * endpoint, which creates them with their realm roles in a single request. When the client service
+ * account is not allowed to use it, or a batch is rejected, users are created one by one with a
+ * bounded number of concurrent requests and cached roles.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KeycloakUserProvisioner {
+
+  private static final String FRONTEND_CLIENT_ID = "novaops-frontend";
+
+  private final Keycloak keycloak;
+  private final AuthMapper authMapper;
+  private final KeycloakProvisioningProperties properties;
+  private final KeycloakRealmMetadata realmMetadata;
+
+  @Value("${keycloak.realm}")
+  private String realm;
+
+  // set once Keycloak refused a partial import, so later batches go straight to single creates
+  private volatile boolean partialImportDenied;
+
+  /**
+   * Creates the users with their {@link AuthUser#getRoleTypes() roles}.
+   *
+   * @return one result per user, in the order of {@code users}
+   */
+  public List<ProvisioningResult> createAll(List<AuthUser> users, List<String> requiredActions) {
+    List<ProvisioningResult> results = new ArrayList<>(users.size());
+    int batchSize = properties.getImportBatchSize();
+    for (int from = 0; from < users.size(); from += batchSize) {
+      List<AuthUser> batch = users.subList(from, Math.min(from + batchSize, users.size()));
+      results.addAll(provision(batch, requiredActions));
+    }
+    log.info(
+        "Provisioned {} users: {} created",
+        users.size(),
+        results.stream().filter(ProvisioningResult::isCreated).count());
+    return results;
+  }
+
+  private List<ProvisioningResult> provision(List<AuthUser> batch, List<String> requiredActions) {
+    if (properties.isPartialImport() && !partialImportDenied) {
+      try {
+        return partialImport(batch, requiredActions);
+      } catch (WebApplicationException e) {
+        if (e.getResponse().getStatus() == Response.Status.FORBIDDEN.getStatusCode()) {
+          partialImportDenied = true;
+          log.warn("Partial import is not allowed for the client service account, using single"
+              + " creates. Grant it the manage-realm role to import users in bulk");
+        } else {
+          log.warn("Partial import of {} users failed, creating them one by one: {}",
+              batch.size(), e.getMessage());
+        }
+      } catch (ProcessingException e) {
+        log.warn("Partial import of {} users failed, creating them one by one: {}",
+            batch.size(), e.getMessage());
+      }
+    }
+    return createConcurrently(batch, requiredActions);
+  }
+
+  private List<ProvisioningResult> partialImport(
+      List<AuthUser> batch, List<String> requiredActions) {
+    List<UserRepresentation> representations = new ArrayList<>(batch.size());
+    for (AuthUser user : batch) {
+      UserRepresentation representation = toRepresentation(user, requiredActions);
+      representation.setRealmRoles(roleNames(user));
+      representations.add(representation);
+    }
+
+    PartialImportRepresentation request = new PartialImportRepresentation();
+    request.setIfResourceExists(PartialImportRepresentation.Policy.SKIP.name());
+    request.setUsers(representations);
+
+    ImportResults importResults;
+    try (Response response = keycloak.realm(realm).partialImport(request)) {
+      if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+        throw new WebApplicationException(response.getStatus());
+      }
+      importResults = response.readEntity(ImportResults.class);
+    }
+
+    // results are keyed by username, which is the lower-cased email in this realm
+    Map<String, ImportResult> byUsername = new HashMap<>();
+    if (importResults.results() != null) {
+      importResults.results().stream()
+          .filter(result -> "USER".equals(result.resourceType()))
+          .forEach(result -> byUsername.put(result.resourceName(), result));
+    }
+
+    List<ProvisioningResult> results = new ArrayList<>(batch.size());
+    for (AuthUser user : batch) {
+      ImportResult result = byUsername.get(user.getEmail().toLowerCase());
+      if (result == null) {
+        results.add(ProvisioningResult.failed(user.getEmail(), "missing from partial import"));
+      } else if ("SKIPPED".equals(result.action())) {
+        results.add(ProvisioningResult.skipped(user.getEmail(), result.id()));
+      } else {
+        results.add(ProvisioningResult.created(user.getEmail(), result.id()));
+      }
+    }
+    return results;
+  }
+
+  private List<ProvisioningResult> createConcurrently(
+      List<AuthUser> batch, List<String> requiredActions) {
+    RealmResource realmResource = keycloak.realm(realm);
+    Map<String, RoleRepresentation> roles = resolveRoles(batch);
+    Semaphore permits = new Semaphore(properties.getConcurrency());
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    try {
+      List<Future<ProvisioningResult>> futures = new ArrayList<>(batch.size());
+      for (AuthUser user : batch) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  permits.acquire();
+                  try {
+                    return create(realmResource, user, requiredActions, roles);
+                  } finally {
+                    permits.release();
+                  }
+                }));
+      }
+
+      List<ProvisioningResult> results = new ArrayList<>(batch.size());
+      for (int i = 0; i < batch.size(); i++) {
+        results.add(await(futures.get(i), batch.get(i)));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private ProvisioningResult create(
+      RealmResource realmResource,
+      AuthUser user,
+      List<String> requiredActions,
+      Map<String, RoleRepresentation> roles) {
+    String userId;
+    try (Response response = realmResource.users().create(toRepresentation(user, requiredActions))) {
+      if (response.getStatus() == Response.Status.CONFLICT.getStatusCode()) {
+        return ProvisioningResult.skipped(user.getEmail(), null);
+      }
+      userId = CreatedResponseUtil.getCreatedId(response);
+    } catch (WebApplicationException | ProcessingException e) {
+      return ProvisioningResult.failed(user.getEmail(), e.getMessage());
+    }
+
+    List<RoleRepresentation> userRoles =
+        roleNames(user).stream().map(roles::get).filter(Objects::nonNull).toList();
+    if (!userRoles.isEmpty()) {
+      try {
+        realmResource.users().get(userId).roles().realmLevel().add(userRoles);
+      } catch (WebApplicationException | ProcessingException e) {
+        // do not leave an identity without its roles behind
+        realmResource.users().delete(userId).close();
+        return ProvisioningResult.failed(user.getEmail(), e.getMessage());
+      }
+    }
+    return ProvisioningResult.created(user.getEmail(), userId);
+  }
+
+  private Map<String, RoleRepresentation> resolveRoles(List<AuthUser> batch) {
+    Map<String, RoleRepresentation> roles = new HashMap<>();
+    batch.stream()
+        .flatMap(user -> roleNames(user).stream())
+        .distinct()
+        .forEach(name -> roles.put(name, realmMetadata.role(name)));
+    return roles;
+  }
+
+  private static ProvisioningResult await(Future<ProvisioningResult> future, AuthUser user) {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      return ProvisioningResult.failed(user.getEmail(), e.getCause().getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return ProvisioningResult.failed(user.getEmail(), "interrupted");
+    }
+  }
+
+  /**
+   * Sends the required actions email to each user on a background thread, at most {@link
+   * KeycloakProvisioningProperties#getEmailsPerSecond()} per second.
+   */
+  public void sendRequiredActionsEmails(List<String> userIds, List<String> actions) {
+    if (userIds.isEmpty()) {
+      return;
+    }
+    List<String> ids = List.copyOf(userIds);
+    Thread.ofVirtual()
+        .name("keycloak-actions-emails")
+        .start(() -> sendThrottled(ids, List.copyOf(actions)));
+  }
+
+  private void sendThrottled(List<String> userIds, List<String> actions) {
+    long intervalNanos = Duration.ofSeconds(1).toNanos() / properties.getEmailsPerSecond();
+    int sent = 0;
+    try {
+      RealmResource realmResource = keycloak.realm(realm);
+      ClientRepresentation client = realmMetadata.client(FRONTEND_CLIENT_ID);
+      long next = System.nanoTime();
+      for (String userId : userIds) {
+        long wait = next - System.nanoTime();
+        if (wait > 0) {
+          Thread.sleep(Duration.ofNanos(wait));
+        }
+        next = Math.max(next, System.nanoTime()) + intervalNanos;
+        try {
+          realmResource
+              .users()
+              .get(userId)
+              .executeActionsEmail(client.getClientId(), client.getRootUrl(), actions);
+          sent++;
+        } catch (WebApplicationException | ProcessingException e) {
+          log.warn("Error sending required actions email to user with id: {}", userId, e);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.error("Error sending required actions emails", e);
+    }
+    log.info("Sent {} of {} required actions emails", sent, userIds.size());
+  }
+
+  private UserRepresentation toRepresentation(AuthUser user, List<String> requiredActions) {
+    UserRepresentation representation = authMapper.toUserRepresentation(user);
+    representation.setUsername(user.getEmail().toLowerCase());
+    representation.setAttributes(user.getAttributes());
+    representation.setRequiredActions(requiredActions);
+    return representation;
+  }
+
+  private static List<String> roleNames(AuthUser user) {
+    if (user.getRoleTypes() == null) {
+      return List.of();
+    }
+    return user.getRoleTypes().stream().map(RoleType::name).distinct().toList();
+  }
+
+  /** Body returned by the partial import endpoint. */
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  record ImportResults(List<ImportResult> results) {}
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  record ImportResult(String action, String resourceType, String resourceName, String id) {}
+}
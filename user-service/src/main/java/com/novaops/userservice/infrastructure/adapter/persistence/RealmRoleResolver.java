@@ -0,0 +1,156 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import com.novaops.userservice.domain.enums.RoleType;
+import java.util.*;
+import java.util.function.BiFunction;
+import lombok.RequiredArgsConstructor;
+import org.keycloak.admin.client.resource.GroupResource;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the effective {@link RoleType roles} of every user of the realm at once, instead of one
+ * role mapping request per user.
+ *
+ * <p>A role is granted by the realm roles that are, directly or through other realm role
+ * composites, a composite of it. Users get it when they hold such a role, or are a member of a
+ * group that, or whose parent group, is mapped to one. Every user gets the roles of the
+ * <i>default-roles</i> composite. The requests made only depend on the number of roles and groups:
+ * one listing of the realm roles and of each group's subgroups, and the members of the roles and
+ * groups that grant something.
+ */
+@Component
+@RequiredArgsConstructor
+public class RealmRoleResolver {
+
+  private static final int PAGE_SIZE = 500;
+
+  private final KeycloakRealmMetadata realmMetadata;
+
+  public RoleMemberships resolve(RealmResource realmResource) {
+    Map<String, RoleRepresentation> realmRoles = new HashMap<>();
+    fetchAllPages((first, max) -> realmResource.roles().list(first, max))
+        .forEach(role -> realmRoles.put(role.getName(), role));
+    Map<String, Set<RoleType>> grants = new HashMap<>();
+    realmRoles.values().forEach(role -> grants.put(role.getName(), granted(role, new HashSet<>())));
+
+    String defaultRolesName = realmMetadata.defaultRolesName();
+    Set<RoleType> defaultRoles = EnumSet.noneOf(RoleType.class);
+    defaultRoles.addAll(grants.getOrDefault(defaultRolesName, Set.of()));
+
+    Map<String, Set<RoleType>> rolesByUser = new HashMap<>();
+    Map<String, UserRepresentation> users = new HashMap<>();
+    grants.forEach(
+        (roleName, roleTypes) -> {
+          // the default roles composite is mapped to every user
+          if (!roleTypes.isEmpty() && !roleName.equals(defaultRolesName)) {
+            fetchAllPages(realmResource.roles().get(roleName)::getUserMembers)
+                .forEach(user -> grant(user, roleTypes, rolesByUser, users));
+          }
+        });
+
+    Deque<GroupGrant> pending = new ArrayDeque<>();
+    fetchAllPages((first, max) -> realmResource.groups().groups(null, first, max, false))
+        .forEach(group -> pending.add(new GroupGrant(group, Set.of())));
+    Set<String> visited = new HashSet<>();
+    while (!pending.isEmpty()) {
+      GroupGrant next = pending.poll();
+      GroupRepresentation group = next.group();
+      if (!visited.add(group.getId())) {
+        continue;
+      }
+      Set<RoleType> roleTypes = EnumSet.noneOf(RoleType.class);
+      roleTypes.addAll(next.inherited());
+      if (group.getRealmRoles() != null) {
+        group.getRealmRoles().forEach(name -> roleTypes.addAll(grants.getOrDefault(name, Set.of())));
+      }
+
+      GroupResource groupResource = realmResource.groups().group(group.getId());
+      if (!roleTypes.isEmpty()) {
+        fetchAllPages(groupResource::members)
+            .forEach(user -> grant(user, roleTypes, rolesByUser, users));
+      }
+      if (group.getSubGroupCount() == null || group.getSubGroupCount() > 0) {
+        fetchAllPages((first, max) -> groupResource.getSubGroups(first, max, false))
+            .forEach(subGroup -> pending.add(new GroupGrant(subGroup, roleTypes)));
+      }
+    }
+    return new RoleMemberships(defaultRoles, rolesByUser, users);
+  }
+
+  /** Role types granted by the realm role, itself included. */
+  private Set<RoleType> granted(RoleRepresentation role, Set<String> visited) {
+    Set<RoleType> roleTypes = EnumSet.noneOf(RoleType.class);
+    if (Boolean.TRUE.equals(role.getClientRole()) || !visited.add(role.getName())) {
+      return roleTypes;
+    }
+    RoleType.fromString(role.getName()).ifPresent(roleTypes::add);
+    if (role.isComposite()) {
+      for (RoleRepresentation composite : realmMetadata.roleComposites(role.getName())) {
+        roleTypes.addAll(granted(composite, visited));
+      }
+    }
+    return roleTypes;
+  }
+
+  private static void grant(
+      UserRepresentation user,
+      Set<RoleType> roleTypes,
+      Map<String, Set<RoleType>> rolesByUser,
+      Map<String, UserRepresentation> users) {
+    rolesByUser
+        .computeIfAbsent(user.getId(), id -> EnumSet.noneOf(RoleType.class))
+        .addAll(roleTypes);
+    users.putIfAbsent(user.getId(), user);
+  }
+
+  /** Every element of a paged Keycloak listing, fetched page by page. */
+  private static <T> List<T> fetchAllPages(BiFunction<Integer, Integer, List<T>> listing) {
+    List<T> all = new ArrayList<>();
+    List<T> page;
+    int first = 0;
+    do {
+      page = listing.apply(first, PAGE_SIZE);
+      all.addAll(page);
+      first += PAGE_SIZE;
+    } while (page.size() == PAGE_SIZE);
+    return all;
+  }
+
+  private record GroupGrant(GroupRepresentation group, Set<RoleType> inherited) {}
+
+  /**
+   * Effective roles of the users of the realm.
+   *
+   * @param defaultRoles the roles every user holds
+   * @param grantedRoles the other roles, by user id; users without any are left out
+   * @param members the users of {@code grantedRoles}, as listed by Keycloak
+   */
+  public record RoleMemberships(
+      Set<RoleType> defaultRoles,
+      Map<String, Set<RoleType>> grantedRoles,
+      Map<String, UserRepresentation> members) {
+
+    public Set<RoleType> rolesOf(String userId) {
+      Set<RoleType> roles = EnumSet.noneOf(RoleType.class);
+      roles.addAll(defaultRoles);
+      roles.addAll(grantedRoles.getOrDefault(userId, Set.of()));
+      return roles;
+    }
+
+    /** Users holding the role, when it is not one of the {@link #defaultRoles()}. */
+    public List<UserRepresentation> membersOf(RoleType roleType) {
+      List<UserRepresentation> users = new ArrayList<>();
+      grantedRoles.forEach(
+          (userId, roles) -> {
+            if (roles.contains(roleType)) {
+              users.add(members.get(userId));
+            }
+          });
+      return users;
+    }
+  }
+}
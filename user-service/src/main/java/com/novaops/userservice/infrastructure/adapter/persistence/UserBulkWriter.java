@@ -0,0 +1,143 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import com.novaops.userservice.config.audit.ApplicationAuditAware;
+import com.novaops.userservice.config.csv.CsvImportProperties;
+import com.novaops.userservice.domain.model.Role;
+import com.novaops.userservice.domain.model.User;
+import com.novaops.userservice.domain.port.output.UserBulkRepository;
+import com.novaops.userservice.shared.annotation.PersistenceAdapter;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes users and their roles with JDBC batches instead of one JPA {@code save} per user. Each
+ * batch runs in its own transaction, so a failure only rolls back the batch it happened in.
+ *
+ * <p>The JPA lifecycle is bypassed: auditing columns and the lower-cased email are set here.
+ */
+@PersistenceAdapter
+@Slf4j
+@RequiredArgsConstructor
+public class UserBulkWriter implements UserBulkRepository {
+
+  private static final String INSERT_USER =
+      """
+      INSERT INTO users (id, email, first_name, last_name, phone_number, address, locale,
+                         created_by, created_at, version)
+      VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+      ON CONFLICT (email) DO NOTHING
+      """;
+
+  private static final String UPSERT_USER =
+      """
+      INSERT INTO users (id, email, first_name, last_name, phone_number, address, locale,
+                         created_by, created_at, version)
+      VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+      ON CONFLICT (email) DO UPDATE SET
+          first_name       = EXCLUDED.first_name,
+          last_name        = EXCLUDED.last_name,
+          phone_number     = COALESCE(EXCLUDED.phone_number, users.phone_number),
+          address          = COALESCE(EXCLUDED.address, users.address),
+          last_modified_by = EXCLUDED.created_by,
+          updated_at       = EXCLUDED.created_at,
+          version          = users.version + 1
+      """;
+
+  // Only attaches the role when the user row is ours and does not have it yet
+  private static final String INSERT_ROLE =
+      """
+      INSERT INTO user_roles (id, user_id, name)
+      SELECT ?, u.id, ? FROM users u
+      WHERE u.id = ?
+        AND NOT EXISTS (SELECT 1 FROM user_roles r WHERE r.user_id = u.id AND r.name = ?)
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final PlatformTransactionManager transactionManager;
+  private final AuditorAware<String> auditorAware;
+  private final CsvImportProperties csvImportProperties;
+  private final EmailExistenceIndex emailIndex;
+
+  /**
+   * Inserts the users, skipping or updating rows whose email already exists.
+   *
+   * @param users users with their final ids; their roles are attached when missing
+   * @param updateExisting update the profile fields of existing rows instead of skipping them
+   * @return the number of user rows written
+   */
+  @Override
+  public int bulkUpsert(List<User> users, boolean updateExisting) {
+    String userSql = updateExisting ? UPSERT_USER : INSERT_USER;
+    String auditor = auditorAware.getCurrentAuditor().orElse(ApplicationAuditAware.SYSTEM);
+    // created_at is a timestamp without time zone, written in UTC whatever the JVM zone
+    LocalDateTime now = LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+    int batchSize = csvImportProperties.getBatchSize();
+
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    int written = 0;
+
+    for (int from = 0; from < users.size(); from += batchSize) {
+      List<User> batch = users.subList(from, Math.min(from + batchSize, users.size()));
+      List<Object[]> userRows = new ArrayList<>(batch.size());
+      List<Object[]> roleRows = new ArrayList<>();
+
+      for (User user : batch) {
+        userRows.add(
+            new Object[] {
+              user.getId(),
+              user.getEmail().toLowerCase(),
+              user.getFirstName(),
+              user.getLastName(),
+              user.getPhoneNumber(),
+              user.getAddress(),
+              user.getLocale() != null ? user.getLocale().name() : null,
+              auditor,
+              now
+            });
+        if (user.getRoles() != null) {
+          for (Role role : user.getRoles()) {
+            String name = role.getName().name();
+            roleRows.add(new Object[] {UUID.randomUUID(), name, user.getId(), name});
+          }
+        }
+      }
+
+      int[] counts =
+          transaction.execute(
+              status -> {
+                int[] userCounts = jdbcTemplate.batchUpdate(userSql, userRows);
+                if (!roleRows.isEmpty()) {
+                  jdbcTemplate.batchUpdate(INSERT_ROLE, roleRows);
+                }
+                return userCounts;
+              });
+      written += countWritten(counts);
+      emailIndex.addAll(batch.stream().map(User::getEmail).toList());
+    }
+
+    log.debug("Bulk wrote {} of {} users", written, users.size());
+    return written;
+  }
+
+  private static int countWritten(int[] counts) {
+    int written = 0;
+    if (counts != null) {
+      for (int count : counts) {
+        // rewritten multi-row inserts report SUCCESS_NO_INFO instead of a row count
+        written += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+      }
+    }
+    return written;
+  }
+}
@@ -0,0 +1,69 @@
+package com.novaops.userservice.infrastructure.adapter.specifications;
+
+import com.novaops.userservice.domain.enums.RoleType;
+import com.novaops.userservice.infrastructure.entity.IdpUserAttribute;
+import com.novaops.userservice.infrastructure.entity.IdpUserEntity;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import java.util.Collection;
+import java.util.UUID;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Specifications for querying IdpUserEntity. Collection filters use {@code EXISTS} subqueries, so
+ * each user is returned once and pages stay exact.
+ */
+public class IdpUserSpecifications {
+
+  private IdpUserSpecifications() {}
+
+  /** Matches the search term against username, email, first and last name. */
+  public static Specification<IdpUserEntity> matchesSearch(String search) {
+    return (root, query, cb) -> {
+      if (search == null || search.isBlank()) {
+        return cb.conjunction();
+      }
+      return cb.like(root.get("searchText"), "%" + search.strip().toLowerCase() + "%");
+    };
+  }
+
+  /** Users holding at least one of the roles; all users when {@code roles} is empty. */
+  public static Specification<IdpUserEntity> hasAnyRole(Collection<RoleType> roles) {
+    return (root, query, cb) -> {
+      if (roles == null || roles.isEmpty()) {
+        return cb.conjunction();
+      }
+      Subquery<UUID> subquery = query.subquery(UUID.class);
+      Root<IdpUserEntity> user = subquery.from(IdpUserEntity.class);
+      Join<IdpUserEntity, RoleType> role = user.join("roles");
+      subquery.select(user.get("id")).where(cb.equal(user, root), role.in(roles));
+      return cb.exists(subquery);
+    };
+  }
+
+  public static Specification<IdpUserEntity> inGroup(String groupName) {
+    return (root, query, cb) -> {
+      Subquery<UUID> subquery = query.subquery(UUID.class);
+      Root<IdpUserEntity> user = subquery.from(IdpUserEntity.class);
+      Join<IdpUserEntity, String> group = user.join("groups");
+      subquery.select(user.get("id")).where(cb.equal(user, root), cb.equal(group, groupName));
+      return cb.exists(subquery);
+    };
+  }
+
+  public static Specification<IdpUserEntity> hasAttribute(String name, String value) {
+    return (root, query, cb) -> {
+      Subquery<UUID> subquery = query.subquery(UUID.class);
+      Root<IdpUserEntity> user = subquery.from(IdpUserEntity.class);
+      Join<IdpUserEntity, IdpUserAttribute> attribute = user.join("attributes");
+      subquery
+          .select(user.get("id"))
+          .where(
+              cb.equal(user, root),
+              cb.equal(attribute.get("name"), name),
+              cb.equal(attribute.get("value"), value));
+      return cb.exists(subquery);
+    };
+  }
+}
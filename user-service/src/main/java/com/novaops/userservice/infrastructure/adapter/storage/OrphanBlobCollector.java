@@ -0,0 +1,153 @@
+package com.novaops.userservice.infrastructure.adapter.storage;
+
+import com.novaops.userservice.config.grpc.StorageGcProperties;
+import com.novaops.userservice.domain.model.BlobPage;
+import com.novaops.userservice.domain.model.StoredBlob;
+import com.novaops.userservice.infrastructure.adapter.persistence.BlobReferenceStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes the files of the storage service that no user references anymore.
+ *
+ * <p>Each run reads up to <b>app.storage-gc.pages-per-run</b> pages of files, pausing
+ * <b>page-interval</b> between two pages, and the next run continues where it stopped, so the
+ * storage is covered a little at a time. Files younger than <b>min-age</b> are kept, as their URL
+ * may not be saved yet. So are the variant files stored before their URLs were recorded, since
+ * their picture cannot be told from their name. Only one instance collects at a time, under a
+ * lease renewed before every page. The deleted files and bytes are counted by the
+ * <i>storage.gc.deleted</i> and <i>storage.gc.reclaimed</i> metrics.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrphanBlobCollector {
+
+  private final StorageBlobClient storageBlobClient;
+  private final BlobReferenceStore blobReferences;
+  private final StorageGcProperties properties;
+  private final MeterRegistry meterRegistry;
+
+  // the storage service names the variants of an image <name>__<variant>.<extension>
+  private static final Pattern VARIANT_NAME = Pattern.compile("__[\\w-]+\\.\\w+$");
+
+  private final ReentrantLock collectLock = new ReentrantLock();
+
+  @Scheduled(cron = "${app.storage-gc.cron:0 30 * * * *}")
+  public void scheduledCollect() {
+    if (properties.isEnabled()) {
+      // pauses between pages, so it does not hold up the other scheduled tasks
+      Thread.ofVirtual().name("orphan-blob-collector").start(this::collect);
+    }
+  }
+
+  /** Runs one collection. Skipped when another collection runs. */
+  public void collect() {
+    if (!properties.isEnabled() || !collectLock.tryLock()) {
+      return;
+    }
+    try {
+      Optional<LocalDateTime> lease = blobReferences.tryAcquireLease(properties.getLeaseDuration());
+      if (lease.isEmpty()) {
+        log.debug("Orphan blobs are being collected by another instance");
+        return;
+      }
+      AtomicReference<LocalDateTime> heldLease = new AtomicReference<>(lease.get());
+      try {
+        collectPages(heldLease);
+      } finally {
+        if (heldLease.get() != null) {
+          blobReferences.releaseLease(heldLease.get());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.error("Failed to collect orphan blobs: {}", e.getMessage(), e);
+    } finally {
+      collectLock.unlock();
+    }
+  }
+
+  /** @param lease the lease held, renewed before every page and cleared when it is lost */
+  private void collectPages(AtomicReference<LocalDateTime> lease) throws InterruptedException {
+    Instant keepAfter = Instant.now().minus(properties.getMinAge());
+    Instant variantsTrackedSince = blobReferences.variantsTrackedSince();
+    String cursor = blobReferences.cursor();
+    int pages = 0;
+    int scanned = 0;
+    int deleted = 0;
+    long reclaimed = 0;
+    do {
+      if (pages > 0) {
+        Thread.sleep(properties.getPageInterval());
+        lease.set(
+            blobReferences.renewLease(lease.get(), properties.getLeaseDuration()).orElse(null));
+        if (lease.get() == null) {
+          log.warn("Lost the orphan blob collection lease, stopping after {} pages", pages);
+          break;
+        }
+      }
+      BlobPage page = storageBlobClient.listBlobs(cursor, properties.getPageSize()).join();
+      scanned += page.blobs().size();
+
+      List<StoredBlob> orphans = orphans(page.blobs(), keepAfter, variantsTrackedSince);
+      if (!orphans.isEmpty()) {
+        List<String> urls = orphans.stream().map(StoredBlob::url).toList();
+        Set<String> failed = new HashSet<>(storageBlobClient.deleteFiles(urls).join());
+        for (StoredBlob orphan : orphans) {
+          if (!failed.contains(orphan.url())) {
+            deleted++;
+            reclaimed += orphan.size();
+          }
+        }
+      }
+
+      cursor = page.nextCursor();
+      blobReferences.saveCursor(cursor);
+      pages++;
+    } while (cursor != null && pages < properties.getPagesPerRun());
+
+    meterRegistry.counter("storage.gc.deleted").increment(deleted);
+    meterRegistry.counter("storage.gc.reclaimed").increment(reclaimed);
+    log.info(
+        "Orphan blobs collected: {} of {} files deleted, {} bytes reclaimed{}",
+        deleted,
+        scanned,
+        reclaimed,
+        cursor == null ? ", storage fully scanned" : "");
+  }
+
+  /** @return the files old enough to be collected that no user references */
+  private List<StoredBlob> orphans(
+      List<StoredBlob> blobs, Instant keepAfter, Instant variantsTrackedSince) {
+    List<StoredBlob> candidates =
+        blobs.stream()
+            .filter(blob -> blob.lastModified().isBefore(keepAfter))
+            .filter(blob -> !isUntrackedVariant(blob, variantsTrackedSince))
+            .toList();
+    if (candidates.isEmpty()) {
+      return List.of();
+    }
+    Set<String> referenced =
+        blobReferences.findReferenced(candidates.stream().map(StoredBlob::url).toList());
+    return candidates.stream().filter(blob -> !referenced.contains(blob.url())).toList();
+  }
+
+  private static boolean isUntrackedVariant(StoredBlob blob, Instant variantsTrackedSince) {
+    return blob.lastModified().isBefore(variantsTrackedSince)
+        && VARIANT_NAME.matcher(blob.url()).find();
+  }
+}
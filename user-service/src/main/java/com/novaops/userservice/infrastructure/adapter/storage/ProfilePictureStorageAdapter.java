@@ -0,0 +1,98 @@
+package com.novaops.userservice.infrastructure.adapter.storage;
+
+import com.novaops.userservice.domain.model.DomainBlob;
+import com.novaops.userservice.domain.model.PresignedUpload;
+import com.novaops.userservice.domain.port.output.ProfilePictureStorage;
+import com.novaops.userservice.exception.NotFoundException;
+import com.novaops.userservice.infrastructure.adapter.persistence.BlobReferenceStore;
+import com.novaops.userservice.infrastructure.entity.UserEntity;
+import com.novaops.userservice.infrastructure.repository.UserJpaRepository;
+import com.novaops.userservice.shared.annotation.PersistenceAdapter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Stores the profile pictures through the storage service clients, and records the files the users
+ * reference in the database.
+ */
+@PersistenceAdapter
+@RequiredArgsConstructor
+@Slf4j
+public class ProfilePictureStorageAdapter implements ProfilePictureStorage {
+
+  private final UserJpaRepository userRepository;
+  private final StorageUploadClient storageUploadClient;
+  private final StorageTransferClient storageTransferClient;
+  private final StorageBlobClient storageBlobClient;
+  private final BlobReferenceStore blobReferences;
+
+  @Override
+  public CompletableFuture<DomainBlob> uploadProfilePicture(MultipartFile file) {
+    return storageUploadClient.upload(file);
+  }
+
+  @Override
+  public CompletableFuture<PresignedUpload> presignProfilePictureUpload(
+      String name, String contentType, long size) {
+    return storageTransferClient.presignUpload(name, contentType, size);
+  }
+
+  @Override
+  public CompletableFuture<DomainBlob> completeProfilePictureUpload(String uploadToken) {
+    return storageTransferClient.completeUpload(uploadToken);
+  }
+
+  @Override
+  @Transactional
+  public List<String> replaceProfilePicture(UUID userId, DomainBlob blob) {
+    UserEntity user =
+        userRepository
+            .findById(userId)
+            .orElseThrow(
+                () -> new NotFoundException(NotFoundException.NotFoundExceptionType.USER_NOT_FOUND));
+    List<String> replaced = new ArrayList<>();
+    if (user.getProfilePicture() != null) {
+      replaced.add(user.getProfilePicture());
+    }
+    user.setProfilePicture(blob.url());
+    userRepository.save(user);
+
+    Map<String, String> variants = blob.variants() != null ? blob.variants() : Map.of();
+    replaced.addAll(blobReferences.replaceVariants(userId, variants));
+    // the same content uploaded again is stored under the same URLs
+    replaced.removeIf(url -> url.equals(blob.url()) || variants.containsValue(url));
+    return replaced;
+  }
+
+  @Override
+  public CompletableFuture<Void> deleteUnreferencedFiles(Collection<String> urls) {
+    Set<String> referenced = blobReferences.findReferenced(urls);
+    List<String> unreferenced =
+        urls.stream().filter(url -> !referenced.contains(url)).distinct().toList();
+    if (unreferenced.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return storageBlobClient
+        .deleteFiles(unreferenced)
+        .thenAccept(
+            failed -> {
+              if (!failed.isEmpty()) {
+                // left to the orphan blob collector
+                log.warn(
+                    "Could not delete {} of {} files: {}",
+                    failed.size(),
+                    unreferenced.size(),
+                    failed);
+              }
+            });
+  }
+}
@@ -0,0 +1,74 @@
+package com.novaops.userservice.infrastructure.adapter.storage;
+
+import com.novaops.userservice.config.grpc.StorageGcProperties;
+import com.novaops.userservice.domain.model.BlobPage;
+import com.novaops.userservice.domain.model.StoredBlob;
+import com.novaops.userservice.exception.StorageException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.novaops.storageservice.proto.DeleteFilesRequest;
+import org.novaops.storageservice.proto.DeleteFilesResponse;
+import org.novaops.storageservice.proto.ListBlobsRequest;
+import org.novaops.storageservice.proto.ListBlobsResponse;
+import org.novaops.storageservice.proto.StorageServiceGrpc;
+import org.springframework.stereotype.Component;
+
+/** Lists and deletes the files of the storage service, without blocking the caller. */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StorageBlobClient {
+
+  private final StorageServiceGrpc.StorageServiceStub storageServiceStub;
+  private final StorageGcProperties properties;
+
+  /**
+   * Deletes the files with one request.
+   *
+   * @param urls the URLs of the files
+   * @return completes with the URLs of the files that could not be deleted
+   */
+  public CompletableFuture<List<String>> deleteFiles(Collection<String> urls) {
+    UnaryCall<DeleteFilesResponse> call = new UnaryCall<>("DeleteFiles");
+    stub().deleteFiles(DeleteFilesRequest.newBuilder().addAllUrls(urls).build(), call);
+    return call.result.thenApply(DeleteFilesResponse::getFailedUrlsList);
+  }
+
+  /**
+   * Reads one page of the files.
+   *
+   * @param cursor the cursor of the page, {@code null} for the first one
+   * @param limit the largest number of files in the page
+   * @return completes with the files and the cursor of the next page
+   */
+  public CompletableFuture<BlobPage> listBlobs(String cursor, int limit) {
+    ListBlobsRequest.Builder request = ListBlobsRequest.newBuilder().setLimit(limit);
+    if (cursor != null) {
+      request.setCursor(cursor);
+    }
+    UnaryCall<ListBlobsResponse> call = new UnaryCall<>("ListBlobs");
+    stub().listBlobs(request.build(), call);
+    return call.result.thenApply(
+        response ->
+            new BlobPage(
+                response.getBlobsList().stream()
+                    .map(
+                        blob ->
+                            new StoredBlob(
+                                blob.getUrl(),
+                                blob.getSize(),
+                                Instant.ofEpochMilli(blob.getLastModified())))
+                    .toList(),
+                response.getNextCursor().isEmpty() ? null : response.getNextCursor()));
+  }
+
+  private StorageServiceGrpc.StorageServiceStub stub() {
+    return storageServiceStub.withDeadlineAfter(
+        properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,76 @@
+package com.novaops.userservice.infrastructure.adapter.storage;
+
+import com.novaops.userservice.config.grpc.StorageUploadProperties;
+import com.novaops.userservice.domain.model.DomainBlob;
+import com.novaops.userservice.domain.model.PresignedUpload;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.novaops.storageservice.proto.Blob;
+import org.novaops.storageservice.proto.CompleteUploadRequest;
+import org.novaops.storageservice.proto.FileInfo;
+import org.novaops.storageservice.proto.PresignUploadRequest;
+import org.novaops.storageservice.proto.PresignUploadResponse;
+import org.novaops.storageservice.proto.StorageServiceGrpc;
+import org.springframework.stereotype.Component;
+
+/**
+ * Presigns the uploads the clients send straight to the storage, so the files go through neither
+ * this service nor the storage service.
+ */
+@Component
+@RequiredArgsConstructor
+public class StorageTransferClient {
+
+  private final StorageServiceGrpc.StorageServiceStub storageServiceStub;
+  private final StorageUploadProperties properties;
+
+  /**
+   * @param name the name of the file
+   * @param contentType the MIME type of the file
+   * @param size the size of the file in bytes
+   * @return completes with the request to send the file with
+   */
+  public CompletableFuture<PresignedUpload> presignUpload(
+      String name, String contentType, long size) {
+    UnaryCall<PresignUploadResponse> call = new UnaryCall<>("PresignUpload");
+    stub()
+        .presignUpload(
+            PresignUploadRequest.newBuilder()
+                .setInfo(FileInfo.newBuilder().setName(name).setContentType(contentType))
+                .setSize(size)
+                .build(),
+            call);
+    return call.result.thenApply(
+        response ->
+            new PresignedUpload(
+                response.getUploadUrl(),
+                response.getMethod(),
+                response.getHeadersMap(),
+                response.getUploadToken(),
+                Instant.ofEpochMilli(response.getExpiresAt())));
+  }
+
+  /**
+   * @param uploadToken the token returned with the presigned upload
+   * @return completes with the stored file, once the storage service has checked it
+   */
+  public CompletableFuture<DomainBlob> completeUpload(String uploadToken) {
+    UnaryCall<Blob> call = new UnaryCall<>("CompleteUpload");
+    stub().completeUpload(CompleteUploadRequest.newBuilder().setUploadToken(uploadToken).build(), call);
+    return call.result.thenApply(
+        blob ->
+            new DomainBlob(
+                blob.getName(),
+                blob.getType(),
+                blob.getUrl(),
+                blob.getSize(),
+                blob.getVariantsMap()));
+  }
+
+  private StorageServiceGrpc.StorageServiceStub stub() {
+    return storageServiceStub.withDeadlineAfter(
+        properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,186 @@
+package com.novaops.userservice.infrastructure.adapter.storage;
+
+import com.google.protobuf.UnsafeByteOperations;
+import com.novaops.userservice.config.grpc.StorageUploadProperties;
+import com.novaops.userservice.domain.model.DomainBlob;
+import com.novaops.userservice.exception.StorageException;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.novaops.storageservice.proto.Blob;
+import org.novaops.storageservice.proto.FileInfo;
+import org.novaops.storageservice.proto.StorageServiceGrpc;
+import org.novaops.storageservice.proto.UploadRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Streams files to the storage service without blocking the caller.
+ *
+ * <p>Chunks are only sent while the call is ready, from its on-ready handler, so a slow storage
+ * service pauses the upload instead of filling the outbound buffer. Chunk sizes adapt between
+ * <b>app.storage-upload.min-chunk-size</b> and <b>max-chunk-size</b>: they double while the
+ * transport keeps accepting data and halve each time it has to wait.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StorageUploadClient {
+
+  private final StorageServiceGrpc.StorageServiceStub storageServiceStub;
+  private final StorageUploadProperties properties;
+
+  /**
+   * Starts uploading the file and returns immediately.
+   *
+   * @param file the file to upload
+   * @return completes with the stored blob, or with a {@link StorageException}
+   */
+  public CompletableFuture<DomainBlob> upload(MultipartFile file) {
+    InputStream inputStream;
+    try {
+      // opened now, while the multipart request is still being handled
+      inputStream = file.getInputStream();
+    } catch (IOException e) {
+      log.error("Could not read file {}", file.getOriginalFilename(), e);
+      return CompletableFuture.failedFuture(
+          new StorageException(StorageException.CloudStorageExceptionType.GENERIC));
+    }
+
+    FileInfo fileInfo =
+        FileInfo.newBuilder()
+            .setName(Objects.toString(file.getOriginalFilename(), ""))
+            .setContentType(Objects.toString(file.getContentType(), ""))
+            .build();
+    Upload upload = new Upload(fileInfo, inputStream);
+    storageServiceStub
+        .withDeadlineAfter(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+        .uploadFile(upload);
+    return upload.result;
+  }
+
+  /** One upload call. gRPC runs all its callbacks one at a time. */
+  private final class Upload implements ClientResponseObserver<UploadRequest, Blob> {
+
+    private final FileInfo fileInfo;
+    private final InputStream inputStream;
+    private final CompletableFuture<DomainBlob> result = new CompletableFuture<>();
+    private final int minChunkSize = (int) properties.getMinChunkSize().toBytes();
+    private final int maxChunkSize =
+        Math.max(minChunkSize, (int) properties.getMaxChunkSize().toBytes());
+
+    private ClientCallStreamObserver<UploadRequest> requestStream;
+    private int chunkSize = minChunkSize;
+    private boolean infoSent;
+    private boolean stalled;
+    private boolean done;
+    private DomainBlob blob;
+
+    private Upload(FileInfo fileInfo, InputStream inputStream) {
+      this.fileInfo = fileInfo;
+      this.inputStream = inputStream;
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<UploadRequest> requestStream) {
+      this.requestStream = requestStream;
+      requestStream.setOnReadyHandler(this::sendWhileReady);
+    }
+
+    private void sendWhileReady() {
+      if (done) {
+        return;
+      }
+      if (stalled) {
+        // the transport could not keep up with the previous chunk size
+        chunkSize = Math.max(minChunkSize, chunkSize / 2);
+        stalled = false;
+      }
+      try {
+        while (requestStream.isReady()) {
+          if (!infoSent) {
+            requestStream.onNext(UploadRequest.newBuilder().setInfo(fileInfo).build());
+            infoSent = true;
+            continue;
+          }
+          // a fresh array per chunk, so it can be wrapped instead of copied
+          byte[] chunk = new byte[chunkSize];
+          int read = inputStream.readNBytes(chunk, 0, chunk.length);
+          if (read > 0) {
+            requestStream.onNext(
+                UploadRequest.newBuilder()
+                    .setChunkData(UnsafeByteOperations.unsafeWrap(chunk, 0, read))
+                    .build());
+          }
+          if (read < chunk.length) {
+            done = true;
+            closeInput();
+            requestStream.onCompleted();
+            return;
+          }
+          if (requestStream.isReady()) {
+            chunkSize = Math.min(maxChunkSize, chunkSize * 2);
+          }
+        }
+        stalled = true;
+      } catch (IOException e) {
+        log.error("Could not read file {}", fileInfo.getName(), e);
+        done = true;
+        closeInput();
+        requestStream.cancel("Could not read the file", e);
+      }
+    }
+
+    @Override
+    public void onNext(Blob grpcBlob) {
+      blob =
+          new DomainBlob(
+              grpcBlob.getName(),
+              grpcBlob.getType(),
+              grpcBlob.getUrl(),
+              grpcBlob.getSize(),
+              grpcBlob.getVariantsMap());
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      done = true;
+      closeInput();
+      Status status = Status.fromThrowable(t);
+      log.error("Upload of {} failed: {}", fileInfo.getName(), status);
+      result.completeExceptionally(
+          new StorageException(
+              switch (status.getCode()) {
+                case DEADLINE_EXCEEDED -> StorageException.CloudStorageExceptionType.TIMEOUT;
+                case RESOURCE_EXHAUSTED ->
+                    StorageException.CloudStorageExceptionType.IMAGE_SIZE_LIMIT_EXCEEDED;
+                default -> StorageException.CloudStorageExceptionType.GENERIC;
+              }));
+    }
+
+    @Override
+    public void onCompleted() {
+      if (blob == null) {
+        result.completeExceptionally(
+            new StorageException(StorageException.CloudStorageExceptionType.GENERIC));
+      } else {
+        result.complete(blob);
+      }
+    }
+
+    private void closeInput() {
+      try {
+        inputStream.close();
+      } catch (IOException e) {
+        log.warn("Could not close file {}: {}", fileInfo.getName(), e.getMessage());
+      }
+    }
+  }
+}
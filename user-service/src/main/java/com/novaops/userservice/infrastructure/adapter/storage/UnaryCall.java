@@ -0,0 +1,50 @@
+package com.novaops.userservice.infrastructure.adapter.storage;
+
+import com.novaops.userservice.exception.StorageException;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+
+/** Completes a future with the single response of a call to the storage service. */
+@Slf4j
+final class UnaryCall<T> implements StreamObserver<T> {
+
+  final CompletableFuture<T> result = new CompletableFuture<>();
+  private final String method;
+
+  UnaryCall(String method) {
+    this.method = method;
+  }
+
+  @Override
+  public void onNext(T response) {
+    result.complete(response);
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    Status status = Status.fromThrowable(t);
+    log.error("{} call to the storage service failed: {}", method, status);
+    result.completeExceptionally(new StorageException(typeOf(status)));
+  }
+
+  @Override
+  public void onCompleted() {
+    if (!result.isDone()) {
+      result.completeExceptionally(
+          new StorageException(StorageException.CloudStorageExceptionType.GENERIC));
+    }
+  }
+
+  private static StorageException.CloudStorageExceptionType typeOf(Status status) {
+    return switch (status.getCode()) {
+      case DEADLINE_EXCEEDED -> StorageException.CloudStorageExceptionType.TIMEOUT;
+      case RESOURCE_EXHAUSTED ->
+          StorageException.CloudStorageExceptionType.IMAGE_SIZE_LIMIT_EXCEEDED;
+      case PERMISSION_DENIED, NOT_FOUND, FAILED_PRECONDITION ->
+          StorageException.CloudStorageExceptionType.INVALID_UPLOAD;
+      default -> StorageException.CloudStorageExceptionType.GENERIC;
+    };
+  }
+}
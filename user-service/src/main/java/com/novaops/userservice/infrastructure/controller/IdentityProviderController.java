@@ -3,8 +3,10 @@ package com.novaops.userservice.infrastructure.controller;
 import com.novaops.userservice.domain.enums.Locale;
 import com.novaops.userservice.domain.enums.RoleType;
 import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.domain.model.UserOperationResult;
 import com.novaops.userservice.domain.port.input.IdentityProviderUseCases;
 import com.novaops.userservice.infrastructure.dto.request.UpdateUserRequest;
+import com.novaops.userservice.infrastructure.dto.request.UpdateUsersStatusRequest;
 import com.novaops.userservice.infrastructure.dto.response.AuthUserDto;
 import com.novaops.userservice.infrastructure.mapper.AuthMapper;
 import com.novaops.userservice.shared.pagination.CustomPage;
@@ -374,8 +376,8 @@ public class IdentityProviderController {
 
     Pageable pageable = PaginationUtils.createPageable(page, size, sort, sortDirection);
 
-    Page<AuthUser> users =
-        this.identityProviderUseCases.findAll(List.of(String.valueOf(roleType)), search, pageable);
+    List<String> roles = roleType == null ? List.of() : List.of(roleType.name());
+    Page<AuthUser> users = this.identityProviderUseCases.findAll(roles, search, pageable);
     CustomPage<AuthUserDto> userspage = PageMapper.toCustomPage(users.map(authMapper::toUserDto));
     return new ResponseEntity<>(userspage, HttpStatus.OK);
   }
@@ -444,6 +446,41 @@ public class IdentityProviderController {
     return new ResponseEntity<>(authMapper.toUserDto(user), HttpStatus.OK);
   }
 
+  /**
+   * Enables or disables many users at once.
+   *
+   * @param request the users and the status to set
+   * @return the outcome for each user
+   */
+  @Operation(
+      summary = "Enable or disable users",
+      description =
+          "Enables or disables many user accounts at once. A user that cannot be updated does not"
+              + " abort the others.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Users processed, see the outcome of each one",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    array =
+                        @ArraySchema(schema = @Schema(implementation = UserOperationResult.class)))),
+        @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content)
+      })
+  @PutMapping("/status")
+  public ResponseEntity<List<UserOperationResult>> updateUsersStatus(
+      @Valid @RequestBody UpdateUsersStatusRequest request) {
+    List<UserOperationResult> results =
+        this.identityProviderUseCases.setEnabled(request.userIds(), request.enabled());
+    return new ResponseEntity<>(results, HttpStatus.OK);
+  }
+
   /** toggle a user's active status. */
   @Operation(
       summary = "Toggle user status",
@@ -1,13 +1,18 @@
 package com.novaops.userservice.infrastructure.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.novaops.userservice.domain.enums.RoleType;
 import com.novaops.userservice.domain.model.DomainBlob;
+import com.novaops.userservice.domain.model.PresignedUpload;
 import com.novaops.userservice.domain.model.User;
 import com.novaops.userservice.domain.model.csv.CsvImportOptions;
 import com.novaops.userservice.domain.model.csv.CsvValidationResult;
 import com.novaops.userservice.domain.port.input.UserUseCases;
+import com.novaops.userservice.infrastructure.dto.request.CompleteProfilePictureRequest;
+import com.novaops.userservice.infrastructure.dto.request.PresignProfilePictureRequest;
 import com.novaops.userservice.infrastructure.dto.request.UpdateUserRequest;
 import com.novaops.userservice.infrastructure.dto.request.UserRequestDto;
+import com.novaops.userservice.infrastructure.dto.response.CsvImportStreamEvent;
 import com.novaops.userservice.infrastructure.dto.response.UserDto;
 import com.novaops.userservice.infrastructure.mapper.UserMapper;
 import com.novaops.userservice.shared.pagination.CustomPage;
@@ -31,8 +36,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static com.novaops.userservice.shared.AuthUtils.getCurrentAuthenticatedUserId;
 
@@ -47,6 +57,7 @@ import static com.novaops.userservice.shared.AuthUtils.getCurrentAuthenticatedUs
 public class UserController {
     private final UserUseCases usersUseCases;
     private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
 
     @Operation(summary = "Create user", description = "Creates a new normal user.")
     @ApiResponses(
@@ -182,20 +193,45 @@ public class UserController {
 
 
     @PostMapping(value = "/upload-profile-picture", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<DomainBlob> uploadProfilePicture(
+    public CompletableFuture<ResponseEntity<DomainBlob>> uploadProfilePicture(
             @RequestParam("file") MultipartFile file) {
         if (file.isEmpty()) {
-            return ResponseEntity.badRequest().build();
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
         UUID userId = getCurrentAuthenticatedUserId();
 
-        try {
-            DomainBlob blob = usersUseCases.uploadProfilePicture(file, userId);
-            return ResponseEntity.ok(blob);
-        } catch (Exception e) {
-            log.error("Failed to upload profile picture", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        // the request thread is released while the picture is streamed to the storage service
+        return usersUseCases
+                .uploadProfilePicture(file, userId)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(
+                        e -> {
+                            log.error("Failed to upload profile picture", e);
+                            return ResponseEntity.internalServerError().build();
+                        });
+    }
+
+    @Operation(
+            summary = "Presign a profile picture upload",
+            description =
+                    "Returns a short-lived URL the client sends the picture to, straight to the storage, and the token to complete the upload with.")
+    @PostMapping("/upload-profile-picture/presign")
+    public CompletableFuture<PresignedUpload> presignProfilePictureUpload(
+            @Valid @RequestBody PresignProfilePictureRequest request) {
+        UUID userId = getCurrentAuthenticatedUserId();
+        return usersUseCases.presignProfilePictureUpload(
+                userId, request.name(), request.contentType(), request.size());
+    }
+
+    @Operation(
+            summary = "Complete a profile picture upload",
+            description =
+                    "Checks the picture sent with a presigned upload and sets it as the profile picture of the current user.")
+    @PostMapping("/upload-profile-picture/complete")
+    public CompletableFuture<DomainBlob> completeProfilePictureUpload(
+            @Valid @RequestBody CompleteProfilePictureRequest request) {
+        UUID userId = getCurrentAuthenticatedUserId();
+        return usersUseCases.completeProfilePictureUpload(userId, request.uploadToken());
     }
 
     @PostMapping(value = "/validate-csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -213,4 +249,47 @@ public class UserController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @Operation(
+            summary = "Import users from CSV (streaming)",
+            description =
+                    "Processes the CSV file in fixed-size chunks and streams one NDJSON line per chunk, followed by a summary line. Memory use does not grow with the file size.")
+    @PostMapping(
+            value = "/validate-csv/stream",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> validateCsvStream(
+            @RequestParam("file") MultipartFile file, @RequestPart("options") CsvImportOptions options) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body =
+                outputStream -> {
+                    try {
+                        CsvValidationResult summary =
+                                usersUseCases.importUsers(
+                                        file,
+                                        options,
+                                        chunk -> writeLine(outputStream, CsvImportStreamEvent.chunk(chunk)));
+                        writeLine(outputStream, CsvImportStreamEvent.summary(summary));
+                    } catch (UncheckedIOException e) {
+                        log.warn("CSV import stream closed by client: {}", e.getMessage());
+                    } catch (Exception e) {
+                        log.error("Failed to stream CSV import", e);
+                        writeLine(outputStream, CsvImportStreamEvent.error(e.getMessage()));
+                    }
+                };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream outputStream, CsvImportStreamEvent event) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(event));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
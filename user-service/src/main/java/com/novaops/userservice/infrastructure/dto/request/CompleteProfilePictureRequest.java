@@ -0,0 +1,6 @@
+package com.novaops.userservice.infrastructure.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record CompleteProfilePictureRequest(
+    @NotBlank(message = "Upload token is required") String uploadToken) {}
@@ -0,0 +1,9 @@
+package com.novaops.userservice.infrastructure.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+
+public record PresignProfilePictureRequest(
+    @NotBlank(message = "File name is required") String name,
+    @NotBlank(message = "Content type is required") String contentType,
+    @Positive(message = "Size must be positive") long size) {}
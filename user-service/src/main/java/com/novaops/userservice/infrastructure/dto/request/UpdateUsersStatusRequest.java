@@ -0,0 +1,13 @@
+package com.novaops.userservice.infrastructure.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record UpdateUsersStatusRequest(
+    @NotEmpty(message = "User IDs are required")
+        @Size(max = 1000, message = "At most 1000 users can be updated at once")
+        List<@NotBlank String> userIds,
+    @NotNull(message = "Enabled status is required") Boolean enabled) {}
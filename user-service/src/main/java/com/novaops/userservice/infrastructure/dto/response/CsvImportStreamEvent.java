@@ -0,0 +1,29 @@
+package com.novaops.userservice.infrastructure.dto.response;
+
+import com.novaops.userservice.domain.model.csv.CsvValidationChunk;
+import com.novaops.userservice.domain.model.csv.CsvValidationResult;
+
+/**
+ * One line of the NDJSON stream returned by the streaming CSV import: a processed chunk, the final
+ * summary, or an error that aborted the import.
+ */
+public record CsvImportStreamEvent(Type type, Object payload) {
+
+  public enum Type {
+    CHUNK,
+    SUMMARY,
+    ERROR
+  }
+
+  public static CsvImportStreamEvent chunk(CsvValidationChunk chunk) {
+    return new CsvImportStreamEvent(Type.CHUNK, chunk);
+  }
+
+  public static CsvImportStreamEvent summary(CsvValidationResult summary) {
+    return new CsvImportStreamEvent(Type.SUMMARY, summary);
+  }
+
+  public static CsvImportStreamEvent error(String message) {
+    return new CsvImportStreamEvent(Type.ERROR, message);
+  }
+}
@@ -0,0 +1,22 @@
+package com.novaops.userservice.infrastructure.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class IdpUserAttribute {
+
+  @Column(name = "name", nullable = false)
+  private String name;
+
+  @Column(name = "value", nullable = false)
+  private String value;
+}
@@ -0,0 +1,69 @@
+package com.novaops.userservice.infrastructure.entity;
+
+import com.novaops.userservice.domain.enums.RoleType;
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Local copy of a Keycloak user, read only. Rows are written with plain SQL by {@code
+ * IdentityDirectoryWriter}.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "idp_users")
+public class IdpUserEntity {
+
+  @Id private UUID id;
+
+  @Column(name = "username")
+  private String username;
+
+  @Column(name = "email")
+  private String email;
+
+  @Column(name = "first_name")
+  private String firstName;
+
+  @Column(name = "last_name")
+  private String lastName;
+
+  @Column(name = "enabled")
+  private boolean enabled;
+
+  @Column(name = "email_verified")
+  private boolean emailVerified;
+
+  @Column(name = "created_at")
+  private Instant createdAt;
+
+  /** Lower-cased username, email and names, backed by a trigram index. */
+  @Column(name = "search_text", insertable = false, updatable = false)
+  private String searchText;
+
+  @ElementCollection(fetch = FetchType.LAZY)
+  @CollectionTable(name = "idp_user_roles", joinColumns = @JoinColumn(name = "user_id"))
+  @Enumerated(EnumType.STRING)
+  @Column(name = "role")
+  @BatchSize(size = 100)
+  private Set<RoleType> roles = new HashSet<>();
+
+  @ElementCollection(fetch = FetchType.LAZY)
+  @CollectionTable(name = "idp_user_groups", joinColumns = @JoinColumn(name = "user_id"))
+  @Column(name = "group_name")
+  @BatchSize(size = 100)
+  private Set<String> groups = new HashSet<>();
+
+  @ElementCollection(fetch = FetchType.LAZY)
+  @CollectionTable(name = "idp_user_attributes", joinColumns = @JoinColumn(name = "user_id"))
+  @BatchSize(size = 100)
+  private Set<IdpUserAttribute> attributes = new HashSet<>();
+}
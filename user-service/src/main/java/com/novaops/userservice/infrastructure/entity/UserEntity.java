@@ -2,6 +2,7 @@ package com.novaops.userservice.infrastructure.entity;
 
 import com.novaops.userservice.domain.enums.Gender;
 import com.novaops.userservice.domain.enums.Locale;
+import com.novaops.userservice.infrastructure.adapter.persistence.EmailIndexEntityListener;
 import com.novaops.userservice.shared.AbstractAuditingEntity;
 import jakarta.persistence.*;
 import java.time.LocalDate;
@@ -21,6 +22,7 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 @Entity
 @Table(name = "users")
+@EntityListeners(EmailIndexEntityListener.class)
 public class UserEntity extends AbstractAuditingEntity {
 
   @Id private UUID id;
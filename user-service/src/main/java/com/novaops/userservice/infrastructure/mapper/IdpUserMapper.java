@@ -0,0 +1,29 @@
+package com.novaops.userservice.infrastructure.mapper;
+
+import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.infrastructure.entity.IdpUserAttribute;
+import com.novaops.userservice.infrastructure.entity.IdpUserEntity;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.mapstruct.*;
+
+@Mapper(
+    componentModel = MappingConstants.ComponentModel.SPRING,
+    unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface IdpUserMapper {
+
+  @Mapping(target = "roleTypes", source = "roles")
+  AuthUser toAuthUser(IdpUserEntity entity);
+
+  List<AuthUser> toAuthUsers(List<IdpUserEntity> entities);
+
+  default Map<String, List<String>> toAttributes(Set<IdpUserAttribute> attributes) {
+    return attributes.stream()
+        .collect(
+            Collectors.groupingBy(
+                IdpUserAttribute::getName,
+                Collectors.mapping(IdpUserAttribute::getValue, Collectors.toList())));
+  }
+}
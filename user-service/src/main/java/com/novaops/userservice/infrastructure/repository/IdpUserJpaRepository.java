@@ -0,0 +1,11 @@
+package com.novaops.userservice.infrastructure.repository;
+
+import com.novaops.userservice.infrastructure.entity.IdpUserEntity;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdpUserJpaRepository
+    extends JpaRepository<IdpUserEntity, UUID>, JpaSpecificationExecutor<IdpUserEntity> {}
@@ -1,12 +1,18 @@
 package com.novaops.userservice.infrastructure.repository;
 
 import com.novaops.userservice.infrastructure.entity.UserEntity;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -16,6 +22,22 @@ public interface UserJpaRepository
 
   Boolean existsByEmail(String email);
 
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
   @Query("SELECT u.email FROM UserEntity u")
-  List<String> findAllEmails();
+  Stream<String> streamAllEmails();
+
+  @Query("SELECT u.email FROM UserEntity u WHERE u.email IN :emails")
+  List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+  List<ExistingUser> findByEmailIn(Collection<String> emails);
+
+  interface ExistingUser {
+    UUID getId();
+
+    String getEmail();
+
+    String getFirstName();
+
+    String getLastName();
+  }
 }
@@ -37,7 +37,16 @@ public class FileValidator {
    * @return true if the file extension is an image extension, false otherwise
    */
   public static boolean isValidImageExtension(MultipartFile file) {
-    var fileName = file.getOriginalFilename();
+    return isValidImageExtension(file.getOriginalFilename());
+  }
+
+  /**
+   * Method to check if a file name has an image extension
+   *
+   * @param fileName the name of the file
+   * @return true if the file extension is an image extension, false otherwise
+   */
+  public static boolean isValidImageExtension(String fileName) {
     String extension = StringUtils.getFilenameExtension(fileName);
     return extension != null && ALLOWED_IMAGE_EXTENSIONS.contains(extension.toLowerCase());
   }
@@ -65,8 +74,16 @@ public class FileValidator {
    * @return true if the content type is an image, false otherwise
    */
   public static boolean isImage(MultipartFile file) {
+    return isImage(file.getContentType());
+  }
 
-    var contentType = file.getContentType();
+  /**
+   * Method to check if a content type is an image
+   *
+   * @param contentType the content type to be checked
+   * @return true if the content type is an image, false otherwise
+   */
+  public static boolean isImage(String contentType) {
     return contentType != null && ALLOWED_IMAGE_CONTENT_TYPES.contains(contentType);
   }
 }
@@ -0,0 +1,67 @@
+-- Read model of the Keycloak users, fed by the keycloak-events topic and a periodic reconciliation
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE TABLE idp_users
+(
+    id             UUID         NOT NULL,
+    username       VARCHAR(255),
+    email          VARCHAR(255),
+    first_name     VARCHAR(255),
+    last_name      VARCHAR(255),
+    enabled        BOOLEAN      NOT NULL DEFAULT TRUE,
+    email_verified BOOLEAN      NOT NULL DEFAULT FALSE,
+    created_at     TIMESTAMP WITHOUT TIME ZONE,
+    synced_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    search_text    TEXT GENERATED ALWAYS AS (
+        lower(coalesce(username, '') || ' ' || coalesce(email, '') || ' ' ||
+              coalesce(first_name, '') || ' ' || coalesce(last_name, ''))) STORED,
+    CONSTRAINT pk_idp_users PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_idp_users_email ON idp_users (lower(email));
+CREATE INDEX idx_idp_users_created_at ON idp_users (created_at);
+CREATE INDEX idx_idp_users_synced_at ON idp_users (synced_at);
+CREATE INDEX idx_idp_users_search ON idp_users USING gin (search_text gin_trgm_ops);
+
+-- effective realm roles, including the ones granted through default-roles-<realm>
+CREATE TABLE idp_user_roles
+(
+    user_id UUID        NOT NULL,
+    role    VARCHAR(64) NOT NULL,
+    CONSTRAINT pk_idp_user_roles PRIMARY KEY (user_id, role),
+    CONSTRAINT fk_idp_user_roles_on_user FOREIGN KEY (user_id) REFERENCES idp_users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_idp_user_roles_role ON idp_user_roles (role, user_id);
+
+CREATE TABLE idp_user_groups
+(
+    user_id    UUID         NOT NULL,
+    group_name VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_idp_user_groups PRIMARY KEY (user_id, group_name),
+    CONSTRAINT fk_idp_user_groups_on_user FOREIGN KEY (user_id) REFERENCES idp_users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_idp_user_groups_group ON idp_user_groups (group_name, user_id);
+
+CREATE TABLE idp_user_attributes
+(
+    user_id UUID         NOT NULL,
+    name    VARCHAR(255) NOT NULL,
+    value   VARCHAR(2048) NOT NULL,
+    CONSTRAINT pk_idp_user_attributes PRIMARY KEY (user_id, name, value),
+    CONSTRAINT fk_idp_user_attributes_on_user FOREIGN KEY (user_id) REFERENCES idp_users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_idp_user_attributes_name_value ON idp_user_attributes (name, value);
+
+-- single row: when the projection was last fully reconciled, and the reconciliation lease
+CREATE TABLE idp_directory_state
+(
+    id                 SMALLINT NOT NULL,
+    last_reconciled_at TIMESTAMP WITHOUT TIME ZONE,
+    reconciling_until  TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_idp_directory_state PRIMARY KEY (id)
+);
+
+INSERT INTO idp_directory_state (id) VALUES (1);
@@ -0,0 +1,26 @@
+-- Files of the storage service referenced by users, looked up by the orphan blob collector
+CREATE INDEX idx_users_profile_picture ON users (profile_picture);
+
+-- resized copies of the profile pictures, stored next to them by the storage service
+CREATE TABLE profile_picture_variants
+(
+    user_id UUID          NOT NULL,
+    name    VARCHAR(64)   NOT NULL,
+    url     VARCHAR(2048) NOT NULL,
+    CONSTRAINT pk_profile_picture_variants PRIMARY KEY (user_id, name),
+    CONSTRAINT fk_profile_picture_variants_on_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_profile_picture_variants_url ON profile_picture_variants (url);
+
+-- single row: where the orphan blob collector stopped, and its lease
+CREATE TABLE blob_gc_state
+(
+    id                SMALLINT NOT NULL,
+    next_cursor       VARCHAR(2048),
+    collecting_until  TIMESTAMP WITHOUT TIME ZONE,
+    last_completed_at TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_blob_gc_state PRIMARY KEY (id)
+);
+
+INSERT INTO blob_gc_state (id) VALUES (1);
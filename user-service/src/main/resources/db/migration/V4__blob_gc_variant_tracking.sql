@@ -0,0 +1,5 @@
+-- Variants stored before profile_picture_variants existed were never recorded: the orphan blob
+-- collector keeps the variant files older than this instead of deleting them
+ALTER TABLE blob_gc_state ADD COLUMN variants_tracked_since TIMESTAMP WITHOUT TIME ZONE;
+
+UPDATE blob_gc_state SET variants_tracked_since = timezone('UTC', now()) WHERE id = 1;
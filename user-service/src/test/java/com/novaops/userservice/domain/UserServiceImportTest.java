@@ -0,0 +1,406 @@
+package com.novaops.userservice.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.domain.model.ProvisioningResult;
+import com.novaops.userservice.domain.model.User;
+import com.novaops.userservice.domain.model.UserOperationResult;
+import com.novaops.userservice.domain.model.csv.CsvImportOptions;
+import com.novaops.userservice.domain.model.csv.CsvValidationChunk;
+import com.novaops.userservice.domain.model.csv.CsvValidationResult;
+import com.novaops.userservice.domain.port.output.IdentityProvider;
+import com.novaops.userservice.domain.port.output.ProfilePictureStorage;
+import com.novaops.userservice.domain.port.output.UserBulkRepository;
+import com.novaops.userservice.domain.port.output.UserCsvLoader;
+import com.novaops.userservice.domain.port.output.UserRepository;
+import com.novaops.userservice.domain.service.UserService;
+import com.novaops.userservice.exception.GenericException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceImportTest {
+
+  private static final List<String> UPDATE_PASSWORD = List.of("UPDATE_PASSWORD");
+
+  @Mock private UserRepository usersRepository;
+
+  @Mock private IdentityProvider idpService;
+
+  @Mock private UserCsvLoader userCsvLoader;
+
+  @Mock private UserBulkRepository bulkUsers;
+
+  @Mock private ProfilePictureStorage profilePictures;
+
+  private UserService userService;
+
+  private final MockMultipartFile file =
+      new MockMultipartFile("file", "users.csv", "text/csv", new byte[] {1});
+
+  /** The rows of the users table, keyed by lower-cased email. */
+  private final Map<String, User> stored = new HashMap<>();
+
+  @BeforeEach
+  void setUp() {
+    userService =
+        new UserService(usersRepository, idpService, userCsvLoader, bulkUsers, profilePictures);
+    lenient()
+        .when(usersRepository.findByEmails(anyCollection()))
+        .thenAnswer(
+            invocation -> {
+              Collection<String> emails = invocation.getArgument(0);
+              Map<String, User> found = new HashMap<>();
+              emails.stream()
+                  .map(String::toLowerCase)
+                  .filter(stored::containsKey)
+                  .forEach(email -> found.put(email, stored.get(email)));
+              return found;
+            });
+  }
+
+  @Test
+  @DisplayName("importUsers should create the new users and leave existing ones untouched")
+  void importUsers_SkipInvalidRows_CreatesNewUsers() throws Exception {
+
+    // Arrange
+    storedUser("taken@example.com", "Taken", "User");
+    streamChunks(chunk(0, user("john@example.com"), user("taken@example.com")));
+    whenCreateAllProvisions();
+    whenBulkUpsertStores();
+    CsvImportOptions options =
+        CsvImportOptions.builder().skipInvalidRows(true).sendWelcomeEmails(true).build();
+
+    // Act
+    CsvValidationResult result = userService.importUsers(file, options, chunk -> {});
+
+    // Assert
+    List<User> written = captureWritten();
+    assertEquals(List.of("john@example.com"), written.stream().map(User::getEmail).toList());
+    assertEquals(1, result.getSuccessfulImports());
+    assertEquals(0, result.getSkippedRecords());
+    String createdId = written.getFirst().getId().toString();
+    verify(idpService).sendRequiredActionsEmails(List.of(createdId), UPDATE_PASSWORD);
+    verify(idpService, never()).updateNames(anyList());
+  }
+
+  @Test
+  @DisplayName("importUsers should count the users the identity provider could not create")
+  void importUsers_ProvisioningFails_CountsFailure() throws Exception {
+
+    // Arrange
+    streamChunks(chunk(0, user("john@example.com"), user("jane@example.com")));
+    when(idpService.createAll(anyList(), eq(UPDATE_PASSWORD)))
+        .thenReturn(
+            List.of(
+                ProvisioningResult.created("john@example.com", UUID.randomUUID().toString()),
+                ProvisioningResult.failed("jane@example.com", "timeout")));
+    whenBulkUpsertStores();
+    CsvImportOptions options = CsvImportOptions.builder().skipInvalidRows(true).build();
+
+    // Act
+    CsvValidationResult result = userService.importUsers(file, options, chunk -> {});
+
+    // Assert
+    assertEquals(
+        List.of("john@example.com"), captureWritten().stream().map(User::getEmail).toList());
+    assertEquals(1, result.getSuccessfulImports());
+    assertEquals(0, result.getSkippedRecords());
+    assertEquals(1, result.getFailedImports());
+  }
+
+  @Test
+  @DisplayName("importUsers should skip, not fail, the users that already have an identity")
+  void importUsers_IdentityExists_CountsSkipped() throws Exception {
+
+    // Arrange
+    streamChunks(chunk(0, user("john@example.com"), user("jane@example.com")));
+    String janeId = UUID.randomUUID().toString();
+    when(idpService.createAll(anyList(), eq(UPDATE_PASSWORD)))
+        .thenReturn(
+            List.of(
+                ProvisioningResult.created("john@example.com", UUID.randomUUID().toString()),
+                ProvisioningResult.skipped("jane@example.com", janeId)));
+    whenBulkUpsertStores();
+    CsvImportOptions options =
+        CsvImportOptions.builder().skipInvalidRows(true).sendWelcomeEmails(true).build();
+
+    // Act
+    CsvValidationResult result = userService.importUsers(file, options, chunk -> {});
+
+    // Assert
+    List<User> written = captureWritten();
+    assertEquals(List.of("john@example.com"), written.stream().map(User::getEmail).toList());
+    assertEquals(1, result.getSuccessfulImports());
+    assertEquals(1, result.getSkippedRecords());
+    assertEquals(0, result.getFailedImports());
+    // the existing identity is neither deleted nor sent a welcome email
+    verify(idpService, never()).deleteById(janeId);
+    verify(idpService)
+        .sendRequiredActionsEmails(List.of(written.getFirst().getId().toString()), UPDATE_PASSWORD);
+  }
+
+  @Test
+  @DisplayName("importUsers should rename existing users in the identity provider only when needed")
+  void importUsers_UpdateExisting_RenamesChangedUsers() throws Exception {
+
+    // Arrange
+    User same = storedUser("same@example.com", "Same", "Name");
+    User renamed = storedUser("renamed@example.com", "Old", "Name");
+    User sameRow = user("same@example.com");
+    sameRow.setFirstName("Same");
+    sameRow.setLastName("Name");
+    User renamedRow = user("renamed@example.com");
+    streamChunks(chunk(0, sameRow, renamedRow));
+    when(idpService.updateNames(anyList()))
+        .thenReturn(List.of(UserOperationResult.succeeded(renamed.getId().toString())));
+    whenBulkUpsertStores();
+    CsvImportOptions options =
+        CsvImportOptions.builder().skipInvalidRows(true).updateExistingUsers(true).build();
+
+    // Act
+    CsvValidationResult result = userService.importUsers(file, options, chunk -> {});
+
+    // Assert
+    ArgumentCaptor<List<AuthUser>> renames = ArgumentCaptor.captor();
+    verify(idpService).updateNames(renames.capture());
+    assertEquals(
+        List.of(renamed.getId().toString()),
+        renames.getValue().stream().map(AuthUser::getId).toList());
+    verify(idpService, never()).createAll(anyList(), anyList());
+    List<User> written = captureWritten();
+    assertEquals(
+        List.of(same.getId(), renamed.getId()), written.stream().map(User::getId).toList());
+    assertTrue(written.stream().allMatch(user -> user.getRoles().isEmpty()));
+    assertEquals(2, result.getSuccessfulImports());
+  }
+
+  @Test
+  @DisplayName("importUsers should delete the new identities of a chunk that could not be saved")
+  void importUsers_BulkWriteFails_DeletesNewIdentities() throws Exception {
+
+    // Arrange
+    streamChunks(chunk(0, user("john@example.com")));
+    whenCreateAllProvisions();
+    when(bulkUsers.bulkUpsert(anyList(), anyBoolean()))
+        .thenThrow(new IllegalStateException("db down"));
+    CsvImportOptions options = CsvImportOptions.builder().skipInvalidRows(true).build();
+
+    // Act
+    assertThrows(
+        GenericException.class, () -> userService.importUsers(file, options, chunk -> {}));
+
+    // Assert
+    String createdId = captureWritten().getFirst().getId().toString();
+    verify(idpService).deleteById(createdId);
+  }
+
+  @Test
+  @DisplayName("importUsers should delete the new identity of a user registered since the lookup")
+  void importUsers_RegisteredMeanwhile_DeletesNewIdentity() throws Exception {
+
+    // Arrange
+    streamChunks(chunk(0, user("john@example.com"), user("jane@example.com")));
+    whenCreateAllProvisions();
+    // jane@example.com is registered before the import writes that row, which is then skipped
+    when(bulkUsers.bulkUpsert(anyList(), anyBoolean()))
+        .thenAnswer(
+            invocation -> {
+              List<User> users = invocation.getArgument(0);
+              storedUser("jane@example.com", "Jane", "Doe");
+              stored.put("john@example.com", users.getFirst());
+              return 1;
+            });
+    CsvImportOptions options =
+        CsvImportOptions.builder().skipInvalidRows(true).sendWelcomeEmails(true).build();
+
+    // Act
+    CsvValidationResult result = userService.importUsers(file, options, chunk -> {});
+
+    // Assert
+    List<User> written = captureWritten();
+    String johnId = written.get(0).getId().toString();
+    String janeId = written.get(1).getId().toString();
+    verify(idpService).deleteById(janeId);
+    verify(idpService).sendRequiredActionsEmails(List.of(johnId), UPDATE_PASSWORD);
+    assertEquals(1, result.getSuccessfulImports());
+    assertEquals(1, result.getSkippedRecords());
+    assertEquals(0, result.getFailedImports());
+  }
+
+  @Test
+  @DisplayName("importUsers should count the rows rejected when a valid file is read again")
+  void importUsers_AllOrNothing_CountsSecondPassRejections() throws Exception {
+
+    // Arrange
+    List<CsvValidationChunk> firstPass =
+        List.of(chunk(0, user("john@example.com"), user("jane@example.com")));
+    CsvValidationChunk secondPass = chunk(0, user("john@example.com"));
+    secondPass.setErrorRecordCount(1);
+    when(userCsvLoader.streamAndValidateCsvUsers(eq(file), any(), any()))
+        .thenAnswer(invocation -> replay(invocation.getArgument(2), firstPass, 2))
+        .thenAnswer(invocation -> replay(invocation.getArgument(2), List.of(secondPass), 2));
+    whenCreateAllProvisions();
+    whenBulkUpsertStores();
+    CsvImportOptions options = CsvImportOptions.builder().skipInvalidRows(false).build();
+    List<CsvValidationChunk> streamed = new ArrayList<>();
+
+    // Act
+    CsvValidationResult result = userService.importUsers(file, options, streamed::add);
+
+    // Assert
+    assertEquals(firstPass, streamed);
+    assertEquals(1, result.getSuccessfulImports());
+    assertEquals(1, result.getSkippedRecords());
+  }
+
+  @Test
+  @DisplayName("importUsers should say how many users were imported when a later chunk fails")
+  void importUsers_AllOrNothing_ReportsImportedBeforeFailure() throws Exception {
+
+    // Arrange
+    List<CsvValidationChunk> chunks =
+        List.of(chunk(0, user("john@example.com")), chunk(1, user("jane@example.com")));
+    when(userCsvLoader.streamAndValidateCsvUsers(eq(file), any(), any()))
+        .thenAnswer(invocation -> replay(invocation.getArgument(2), chunks, 2));
+    whenCreateAllProvisions();
+    when(bulkUsers.bulkUpsert(anyList(), anyBoolean()))
+        .thenAnswer(
+            invocation -> {
+              List<User> users = invocation.getArgument(0);
+              users.forEach(user -> stored.put(user.getEmail(), user));
+              return users.size();
+            })
+        .thenThrow(new IllegalStateException("db down"));
+    CsvImportOptions options = CsvImportOptions.builder().skipInvalidRows(false).build();
+
+    // Act
+    GenericException exception =
+        assertThrows(
+            GenericException.class, () -> userService.importUsers(file, options, chunk -> {}));
+
+    // Assert
+    assertTrue(exception.getMessage().startsWith("1 users were imported before the import failed"));
+  }
+
+  @Test
+  @DisplayName("importUsers should not persist anything when the file is invalid")
+  void importUsers_AllOrNothing_InvalidFile_PersistsNothing() throws Exception {
+
+    // Arrange
+    CsvValidationChunk invalid = chunk(0, user("john@example.com"));
+    invalid.setErrorRecordCount(1);
+    when(userCsvLoader.streamAndValidateCsvUsers(eq(file), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              Consumer<CsvValidationChunk> consumer = invocation.getArgument(2);
+              consumer.accept(invalid);
+              return CsvValidationResult.builder().isValid(false).errorRecordCount(1).build();
+            });
+    CsvImportOptions options = CsvImportOptions.builder().skipInvalidRows(false).build();
+
+    // Act
+    CsvValidationResult result = userService.importUsers(file, options, chunk -> {});
+
+    // Assert
+    verify(idpService, never()).createAll(anyList(), anyList());
+    verify(bulkUsers, never()).bulkUpsert(anyList(), anyBoolean());
+    assertEquals(0, result.getSuccessfulImports());
+    assertEquals(1, result.getSkippedRecords());
+  }
+
+  private void streamChunks(CsvValidationChunk... chunks) throws Exception {
+    when(userCsvLoader.streamAndValidateCsvUsers(eq(file), any(), any()))
+        .thenAnswer(invocation -> replay(invocation.getArgument(2), List.of(chunks), 0));
+  }
+
+  private static CsvValidationResult replay(
+      Consumer<CsvValidationChunk> consumer, List<CsvValidationChunk> chunks, int validRecords) {
+    chunks.forEach(consumer);
+    return CsvValidationResult.builder().isValid(true).validRecordCount(validRecords).build();
+  }
+
+  private void whenCreateAllProvisions() {
+    when(idpService.createAll(anyList(), eq(UPDATE_PASSWORD)))
+        .thenAnswer(
+            invocation -> {
+              List<AuthUser> users = invocation.getArgument(0);
+              return users.stream()
+                  .map(
+                      user ->
+                          ProvisioningResult.created(user.getEmail(), UUID.randomUUID().toString()))
+                  .toList();
+            });
+  }
+
+  private void whenBulkUpsertStores() {
+    when(bulkUsers.bulkUpsert(anyList(), anyBoolean()))
+        .thenAnswer(
+            invocation -> {
+              List<User> users = invocation.getArgument(0);
+              users.forEach(user -> stored.putIfAbsent(user.getEmail(), user));
+              return users.size();
+            });
+  }
+
+  private List<User> captureWritten() {
+    ArgumentCaptor<List<User>> written = ArgumentCaptor.captor();
+    verify(bulkUsers).bulkUpsert(written.capture(), anyBoolean());
+    return written.getValue();
+  }
+
+  private User storedUser(String email, String firstName, String lastName) {
+    User user =
+        User.builder()
+            .id(UUID.randomUUID())
+            .email(email)
+            .firstName(firstName)
+            .lastName(lastName)
+            .build();
+    stored.put(email, user);
+    return user;
+  }
+
+  private static User user(String email) {
+    return User.builder()
+        .email(email)
+        .firstName(email.substring(0, email.indexOf('@')))
+        .lastName("Imported")
+        .build();
+  }
+
+  private static CsvValidationChunk chunk(int index, User... users) {
+    return CsvValidationChunk.builder()
+        .chunkIndex(index)
+        .users(new ArrayList<>(List.of(users)))
+        .errors(List.of())
+        .warnings(List.of())
+        .validRecordCount(users.length)
+        .build();
+  }
+}
@@ -0,0 +1,86 @@
+package com.novaops.userservice.infrastructure.adapter.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novaops.userservice.config.cache.AuthUserCacheProperties;
+import com.novaops.userservice.domain.model.AuthUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+@ExtendWith(MockitoExtension.class)
+class AuthUserCacheTest {
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private ValueOperations<String, String> valueOperations;
+
+  private AuthUserCache authUserCache;
+  private AuthUser user;
+
+  @BeforeEach
+  void setUp() {
+    authUserCache =
+        new AuthUserCache(
+            redisTemplate,
+            new ObjectMapper().findAndRegisterModules(),
+            new AuthUserCacheProperties(),
+            new SimpleMeterRegistry());
+    user = AuthUser.builder().id("42").email("Jane@Example.com").firstName("Jane").build();
+  }
+
+  @Test
+  @DisplayName("findById should serve repeated reads from the near-cache")
+  void findById_NearCacheHit() {
+    // Arrange
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    AtomicInteger loads = new AtomicInteger();
+
+    // Act
+    authUserCache.findById("42", id -> {
+      loads.incrementAndGet();
+      return Optional.of(user);
+    });
+    Optional<AuthUser> cached = authUserCache.findById("42", id -> {
+      loads.incrementAndGet();
+      return Optional.of(user);
+    });
+
+    // Assert
+    assertTrue(cached.isPresent());
+    assertEquals("Jane", cached.get().getFirstName());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  @DisplayName("findById should fall back to the loader and stop calling Redis once it failed")
+  void findById_RedisDown_FallsBackToLoader() {
+    // Arrange
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(anyString()))
+        .thenThrow(new RedisConnectionFailureException("connection refused"));
+
+    // Act
+    Optional<AuthUser> loaded = authUserCache.findById("42", id -> Optional.of(user));
+    authUserCache.evict("42");
+    Optional<AuthUser> reloaded = authUserCache.findById("42", id -> Optional.of(user));
+
+    // Assert
+    assertTrue(loaded.isPresent());
+    assertTrue(reloaded.isPresent());
+    verify(valueOperations, times(1)).get(anyString());
+    verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+  }
+}
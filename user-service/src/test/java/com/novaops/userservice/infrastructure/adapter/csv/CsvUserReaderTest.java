@@ -0,0 +1,170 @@
+package com.novaops.userservice.infrastructure.adapter.csv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+import com.novaops.userservice.config.csv.CsvImportProperties;
+import com.novaops.userservice.domain.enums.ValidationErrorType;
+import com.novaops.userservice.domain.model.User;
+import com.novaops.userservice.domain.model.csv.CsvImportOptions;
+import com.novaops.userservice.domain.model.csv.CsvValidationChunk;
+import com.novaops.userservice.domain.model.csv.CsvValidationError;
+import com.novaops.userservice.domain.model.csv.CsvValidationResult;
+import com.novaops.userservice.infrastructure.adapter.persistence.EmailExistenceIndex;
+import com.novaops.userservice.infrastructure.mapper.UserMapper;
+import jakarta.validation.Validation;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+@ExtendWith(MockitoExtension.class)
+class CsvUserReaderTest {
+
+  private static final String CSV =
+      """
+      firstName,lastName,email,phoneNumber,address,role
+      John,Doe,john@example.com,12345678,Tunis,USER
+      Jane,Doe,jane@example.com,123,Tunis,USER
+      Jane,Roe,jane@example.com,87654321,Sfax,USER
+      Johnny,Doe,JOHN@example.com,11112222,Tunis,USER
+      Mark,Smith,mark@example.com,33334444,Sousse,ADMIN
+      Taken,User,taken@example.com,55556666,Tunis,USER
+      Anna,Lee,anna@example.com,77778888,Bizerte,USER
+      """;
+
+  @Mock private EmailExistenceIndex emailIndex;
+
+  private CsvUserReader csvUserReader;
+
+  @BeforeEach
+  void setUp() {
+    CsvImportProperties properties = new CsvImportProperties();
+    properties.setChunkSize(2);
+    properties.setParallelism(3);
+
+    csvUserReader =
+        new CsvUserReader(
+            emailIndex,
+            new CsvUserValidator(Validation.buildDefaultValidatorFactory().getValidator()),
+            Mappers.getMapper(UserMapper.class),
+            properties);
+  }
+
+  @Test
+  @DisplayName("streamAndValidateCsvUsers should keep line order and find duplicates across chunks")
+  void streamAndValidateCsvUsers_DetectsDuplicatesAcrossChunks() throws Exception {
+
+    // Arrange
+    when(emailIndex.findExisting(anyCollection()))
+        .thenAnswer(
+            invocation -> {
+              Collection<String> emails = invocation.getArgument(0);
+              return emails.contains("taken@example.com") ? Set.of("taken@example.com") : Set.of();
+            });
+    MockMultipartFile file =
+        new MockMultipartFile("file", "users.csv", "text/csv", CSV.getBytes(StandardCharsets.UTF_8));
+    CsvImportOptions options = CsvImportOptions.builder().skipInvalidRows(true).build();
+    List<CsvValidationChunk> chunks = new ArrayList<>();
+
+    // Act
+    CsvValidationResult result =
+        csvUserReader.streamAndValidateCsvUsers(file, options, chunks::add);
+
+    // Assert
+    assertEquals(
+        List.of(0, 1, 2, 3), chunks.stream().map(CsvValidationChunk::getChunkIndex).toList());
+    assertEquals(
+        List.of("john@example.com", "jane@example.com", "mark@example.com", "anna@example.com"),
+        chunks.stream().flatMap(c -> c.getUsers().stream()).map(User::getEmail).toList());
+
+    List<CsvValidationError> errors = chunks.stream().flatMap(c -> c.getErrors().stream()).toList();
+    assertEquals(
+        List.of(2L, 4L, 6L), errors.stream().map(CsvValidationError::getLineNumber).toList());
+    assertEquals("phoneNumber", errors.get(0).getField());
+    assertEquals(ValidationErrorType.DUPLICATE_EMAIL, errors.get(1).getType());
+    assertEquals(ValidationErrorType.DUPLICATE_EMAIL, errors.get(2).getType());
+
+    assertFalse(result.isValid());
+    assertEquals(7, result.getTotalRecords());
+    assertEquals(4, result.getValidRecordCount());
+    assertEquals(3, result.getErrorRecordCount());
+  }
+
+  @Test
+  @DisplayName("streamAndValidateCsvUsers should stop at the first unparsable row unless skipping")
+  void streamAndValidateCsvUsers_FailsFastOnParseError() throws Exception {
+
+    // Arrange
+    String csv =
+        """
+        firstName,lastName,email,phoneNumber,address,role
+        John,Doe,john@example.com,12345678,Tunis,USER
+        Jane,Doe,jane@example.com,87654321,Tunis,NOT_A_ROLE
+        Mark,Smith,mark@example.com,33334444,Sousse,ADMIN
+        """;
+    MockMultipartFile file =
+        new MockMultipartFile("file", "users.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+    CsvImportOptions options = CsvImportOptions.builder().skipInvalidRows(false).build();
+
+    // Act
+    CsvValidationResult result = csvUserReader.parseAndValidateCsvUsers(file, options);
+
+    // Assert
+    assertEquals(2, result.getTotalRecords());
+    assertEquals(1, result.getErrors().size());
+    assertEquals(ValidationErrorType.SOMETHING_WENT_WRONG, result.getErrors().getFirst().getType());
+  }
+
+  @Test
+  @DisplayName("streamAndValidateCsvUsers should stop at the first row past the row limit")
+  void streamAndValidateCsvUsers_StopsAtMaxRows() throws Exception {
+
+    // Arrange
+    CsvImportProperties properties = new CsvImportProperties();
+    properties.setChunkSize(2);
+    properties.setMaxRows(2);
+    CsvUserReader limitedReader =
+        new CsvUserReader(
+            emailIndex,
+            new CsvUserValidator(Validation.buildDefaultValidatorFactory().getValidator()),
+            Mappers.getMapper(UserMapper.class),
+            properties);
+    when(emailIndex.findExisting(anyCollection())).thenReturn(Set.of());
+    String csv =
+        """
+        firstName,lastName,email,phoneNumber,address,role
+        John,Doe,john@example.com,12345678,Tunis,USER
+        Mark,Smith,mark@example.com,33334444,Sousse,ADMIN
+        Anna,Lee,anna@example.com,77778888,Bizerte,USER
+        Jane,Roe,jane@example.com,87654321,Sfax,USER
+        """;
+    MockMultipartFile file =
+        new MockMultipartFile("file", "users.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+    CsvImportOptions options = CsvImportOptions.builder().skipInvalidRows(true).build();
+
+    // Act
+    CsvValidationResult result = limitedReader.parseAndValidateCsvUsers(file, options);
+
+    // Assert
+    assertFalse(result.isValid());
+    assertEquals(
+        List.of("john@example.com", "mark@example.com"),
+        result.getUsers().stream().map(User::getEmail).toList());
+    assertEquals(1, result.getErrors().size());
+    assertEquals(3, result.getErrors().getFirst().getLineNumber());
+    assertEquals(ValidationErrorType.TOO_MANY_ROWS, result.getErrors().getFirst().getType());
+    assertEquals(3, result.getTotalRecords());
+  }
+}
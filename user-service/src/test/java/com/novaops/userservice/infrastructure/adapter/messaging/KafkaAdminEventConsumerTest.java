@@ -0,0 +1,78 @@
+package com.novaops.userservice.infrastructure.adapter.messaging;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.novaops.userservice.infrastructure.adapter.cache.AuthUserCache;
+import com.novaops.userservice.infrastructure.adapter.persistence.IdentityDirectorySynchronizer;
+import com.novaops.userservice.infrastructure.adapter.persistence.KeycloakRealmMetadata;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaAdminEventConsumerTest {
+
+  @Mock private KeycloakRealmMetadata realmMetadata;
+
+  @Mock private AuthUserCache authUserCache;
+
+  @Mock private IdentityDirectorySynchronizer identityDirectory;
+
+  @InjectMocks private KafkaAdminEventConsumer consumer;
+
+  @Test
+  @DisplayName("consume should evict a realm role changed by name")
+  void consume_RoleUpdated_EvictsRole() {
+    consumer.consume(event("UPDATE", "REALM_ROLE", "roles/ADMIN/composites"));
+
+    verify(realmMetadata).evictRole("ADMIN");
+  }
+
+  @Test
+  @DisplayName("consume should evict every role when the role name is unknown or it is deleted")
+  void consume_RoleByIdOrDeleted_EvictsAll() {
+    consumer.consume(event("UPDATE", "REALM_ROLE", "roles-by-id/4f2c/composites"));
+    consumer.consume(event("DELETE", "REALM_ROLE", "roles/manager"));
+
+    verify(realmMetadata, times(2)).evictAll();
+  }
+
+  @Test
+  @DisplayName("consume should evict groups and clients when they change")
+  void consume_GroupOrClientChanged_EvictsThem() {
+    consumer.consume(event("CREATE", "GROUP", "groups/8d1e/children"));
+    consumer.consume(event("UPDATE", "CLIENT", "clients/0b7a"));
+
+    verify(realmMetadata).evictGroups();
+    verify(realmMetadata).evictClients();
+  }
+
+  @Test
+  @DisplayName("consume should refresh a user whose role mappings changed")
+  void consume_UserRoleMappingChanged_RefreshesUser() {
+    consumer.consume(event("CREATE", "REALM_ROLE_MAPPING", "users/42/role-mappings/realm"));
+
+    verify(authUserCache).evict("42");
+    verify(identityDirectory).refresh("42");
+    verifyNoInteractions(realmMetadata);
+  }
+
+  @Test
+  @DisplayName("consume should ignore failed changes")
+  void consume_FailedChange_Ignored() {
+    consumer.consume(
+        new KeycloakAdminEvent("1", 0, "realm", "UPDATE", "GROUP", "groups/8d1e", "forbidden"));
+
+    verifyNoInteractions(realmMetadata, authUserCache, identityDirectory);
+  }
+
+  private static KeycloakAdminEvent event(
+      String operationType, String resourceType, String resourcePath) {
+    return new KeycloakAdminEvent("1", 0, "realm", operationType, resourceType, resourcePath, null);
+  }
+}
@@ -0,0 +1,33 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class EmailBloomFilterTest {
+
+  @Test
+  @DisplayName("mightContain should never miss an added email and stay near the target error rate")
+  void mightContain_NoFalseNegatives() {
+
+    // Arrange
+    EmailBloomFilter filter = EmailBloomFilter.create(10_000, 0.01);
+    IntStream.range(0, 10_000).forEach(i -> filter.put("user" + i + "@example.com"));
+
+    // Act
+    long falseNegatives =
+        IntStream.range(0, 10_000)
+            .filter(i -> !filter.mightContain("user" + i + "@example.com"))
+            .count();
+    long falsePositives =
+        IntStream.range(0, 10_000)
+            .filter(i -> filter.mightContain("other" + i + "@example.org"))
+            .count();
+
+    // Assert
+    assertTrue(falseNegatives == 0, "added emails must always be reported");
+    assertTrue(falsePositives < 300, "false positive rate too high: " + falsePositives);
+  }
+}
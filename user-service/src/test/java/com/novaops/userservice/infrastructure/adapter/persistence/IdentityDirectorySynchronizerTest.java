@@ -0,0 +1,196 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.novaops.userservice.config.persistence.IdentityDirectoryProperties;
+import com.novaops.userservice.domain.enums.RoleType;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.GroupResource;
+import org.keycloak.admin.client.resource.GroupsResource;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RoleResource;
+import org.keycloak.admin.client.resource.RolesResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class IdentityDirectorySynchronizerTest {
+
+  private static final String REALM = "novaops";
+  private static final String DEFAULT_ROLES = "default-roles-novaops";
+  private static final int PAGE_SIZE = 500;
+
+  @Mock private Keycloak keycloak;
+
+  @Mock private RealmResource realmResource;
+
+  @Mock private RolesResource rolesResource;
+
+  @Mock private GroupsResource groupsResource;
+
+  @Mock private UsersResource usersResource;
+
+  @Mock private KeycloakRealmMetadata realmMetadata;
+
+  @Mock private IdentityDirectoryWriter writer;
+
+  private IdentityDirectorySynchronizer synchronizer;
+
+  private final UserRepresentation alice = user("alice");
+  private final UserRepresentation bob = user("bob");
+  private final UserRepresentation carol = user("carol");
+
+  @BeforeEach
+  void setUp() {
+    IdentityDirectoryProperties properties = new IdentityDirectoryProperties();
+    properties.setPageSize(PAGE_SIZE);
+    synchronizer =
+        new IdentityDirectorySynchronizer(
+            keycloak, realmMetadata, writer, properties, new RealmRoleResolver(realmMetadata));
+    ReflectionTestUtils.setField(synchronizer, "realm", REALM);
+    when(keycloak.realm(REALM)).thenReturn(realmResource);
+    when(realmResource.roles()).thenReturn(rolesResource);
+    when(realmResource.groups()).thenReturn(groupsResource);
+    when(realmResource.users()).thenReturn(usersResource);
+    when(writer.tryAcquireLease(any())).thenReturn(true);
+    when(realmMetadata.defaultRolesName()).thenReturn(DEFAULT_ROLES);
+  }
+
+  @Test
+  @DisplayName("reconcile should store the roles granted through groups, subgroups and composites")
+  void reconcile_StoresEffectiveRoles() {
+
+    // Arrange
+    RoleRepresentation admin = role("ADMIN", false);
+    RoleRepresentation userRole = role("USER", false);
+    // manager is a composite of ADMIN, mapped to the ops group
+    RoleRepresentation manager = role("manager", true);
+    RoleRepresentation defaultRoles = role(DEFAULT_ROLES, true);
+    when(rolesResource.list(0, PAGE_SIZE))
+        .thenReturn(List.of(admin, userRole, manager, defaultRoles));
+    when(realmMetadata.roleComposites("manager")).thenReturn(Set.of(admin));
+    when(realmMetadata.roleComposites(DEFAULT_ROLES)).thenReturn(Set.of(userRole));
+    whenRoleMembers("ADMIN", alice);
+    whenRoleMembers("USER");
+    whenRoleMembers("manager");
+
+    GroupRepresentation ops = group("ops", 1L, "manager");
+    GroupRepresentation onCall = group("on-call", 0L);
+    GroupRepresentation sales = group("sales", 0L);
+    when(groupsResource.groups(null, 0, PAGE_SIZE, false)).thenReturn(List.of(ops, sales));
+    GroupResource opsResource = whenGroupMembers(ops);
+    when(opsResource.getSubGroups(0, PAGE_SIZE, false)).thenReturn(List.of(onCall));
+    whenGroupMembers(onCall, bob);
+    whenGroupMembers(sales, carol);
+    when(realmMetadata.groups()).thenReturn(List.of(ops, sales));
+
+    when(usersResource.list(0, PAGE_SIZE)).thenReturn(List.of(alice, bob, carol));
+
+    // Act
+    synchronizer.reconcile();
+
+    // Assert
+    Map<String, IdentityDirectoryWriter.Entry> written = written();
+    assertThat(written.get("alice").roles()).containsExactlyInAnyOrder(RoleType.ADMIN, RoleType.USER);
+    assertThat(written.get("bob").roles()).containsExactlyInAnyOrder(RoleType.ADMIN, RoleType.USER);
+    assertThat(written.get("carol").roles()).containsExactly(RoleType.USER);
+    assertThat(written.get("carol").groups()).containsExactly("sales");
+    // no role lookup per user, and the default roles are not listed member by member
+    verify(usersResource, never()).get(anyString());
+    verify(rolesResource, never()).get(DEFAULT_ROLES);
+    verify(writer).completeReconciliation(any());
+  }
+
+  @Test
+  @DisplayName("reconcile should only list the members of groups granting a role once for the roles")
+  void reconcile_SkipsGroupsWithoutRoles() {
+
+    // Arrange
+    when(rolesResource.list(0, PAGE_SIZE)).thenReturn(List.of(role("ADMIN", false)));
+    whenRoleMembers("ADMIN");
+    GroupRepresentation sales = group("sales", 0L);
+    when(groupsResource.groups(null, 0, PAGE_SIZE, false)).thenReturn(List.of(sales));
+    GroupResource salesResource = whenGroupMembers(sales, carol);
+    when(realmMetadata.groups()).thenReturn(List.of(sales));
+    when(usersResource.list(0, PAGE_SIZE)).thenReturn(List.of(carol));
+
+    // Act
+    synchronizer.reconcile();
+
+    // Assert
+    assertThat(written().get("carol").roles()).isEmpty();
+    // only the group membership listing of the reconciliation itself
+    verify(salesResource, times(1)).members(0, PAGE_SIZE);
+    verify(salesResource, never()).getSubGroups(any(), any(), any());
+  }
+
+  private void whenRoleMembers(String roleName, UserRepresentation... members) {
+    RoleResource roleResource = mock(RoleResource.class);
+    when(rolesResource.get(roleName)).thenReturn(roleResource);
+    when(roleResource.getUserMembers(0, PAGE_SIZE)).thenReturn(List.of(members));
+  }
+
+  private GroupResource whenGroupMembers(GroupRepresentation group, UserRepresentation... members) {
+    GroupResource groupResource = mock(GroupResource.class);
+    when(groupsResource.group(group.getId())).thenReturn(groupResource);
+    when(groupResource.members(0, PAGE_SIZE)).thenReturn(List.of(members));
+    return groupResource;
+  }
+
+  /** The written entries, by username. */
+  private Map<String, IdentityDirectoryWriter.Entry> written() {
+    ArgumentCaptor<List<IdentityDirectoryWriter.Entry>> entries = ArgumentCaptor.captor();
+    verify(writer).write(entries.capture(), any());
+    return entries.getValue().stream()
+        .collect(Collectors.toMap(IdentityDirectoryWriter.Entry::username, Function.identity()));
+  }
+
+  private static RoleRepresentation role(String name, boolean composite) {
+    RoleRepresentation role = new RoleRepresentation();
+    role.setName(name);
+    role.setComposite(composite);
+    role.setClientRole(false);
+    return role;
+  }
+
+  private static GroupRepresentation group(String name, Long subGroupCount, String... realmRoles) {
+    GroupRepresentation group = new GroupRepresentation();
+    group.setId(UUID.randomUUID().toString());
+    group.setName(name);
+    group.setSubGroupCount(subGroupCount);
+    group.setRealmRoles(List.of(realmRoles));
+    return group;
+  }
+
+  private static UserRepresentation user(String username) {
+    UserRepresentation user = new UserRepresentation();
+    user.setId(UUID.randomUUID().toString());
+    user.setUsername(username);
+    user.setEmail(username + "@example.com");
+    user.setEnabled(true);
+    return user;
+  }
+}
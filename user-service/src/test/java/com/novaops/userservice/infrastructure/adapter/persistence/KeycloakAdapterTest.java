@@ -0,0 +1,309 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.novaops.userservice.config.keycloak.KeycloakMutationProperties;
+import com.novaops.userservice.domain.enums.RoleType;
+import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.domain.model.UserOperationResult;
+import com.novaops.userservice.infrastructure.adapter.cache.AuthUserCache;
+import com.novaops.userservice.infrastructure.mapper.AuthMapper;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.UserResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakAdapterTest {
+
+  private static final String REALM = "novaops";
+
+  @Mock private Keycloak keycloak;
+
+  @Mock private RealmResource realmResource;
+
+  @Mock private UsersResource usersResource;
+
+  @Mock private KeycloakUserProvisioner provisioner;
+
+  @Mock private KeycloakRealmMetadata realmMetadata;
+
+  @Mock private AuthUserCache authUserCache;
+
+  @Mock private IdentityDirectorySynchronizer identityDirectory;
+
+  @Mock private RealmRoleResolver roleResolver;
+
+  private final KeycloakMutationProperties mutationProperties = new KeycloakMutationProperties();
+
+  private KeycloakAdapter keycloakAdapter;
+
+  private final UserRepresentation alice = user("alice");
+  private final UserRepresentation bob = user("bob");
+  private final UserRepresentation carol = user("carol");
+
+  @BeforeEach
+  void setUp() {
+    keycloakAdapter =
+        new KeycloakAdapter(
+            keycloak,
+            Mappers.getMapper(AuthMapper.class),
+            provisioner,
+            realmMetadata,
+            authUserCache,
+            mutationProperties,
+            identityDirectory,
+            roleResolver);
+    keycloakAdapter.realm = REALM;
+    when(keycloak.realm(REALM)).thenReturn(realmResource);
+  }
+
+  @Test
+  @DisplayName("findAll should set the roles of the page without a lookup per user")
+  void findAll_NoRoleFilter_AssignsResolvedRoles() {
+
+    // Arrange
+    when(roleResolver.resolve(realmResource)).thenReturn(memberships());
+    when(realmResource.users()).thenReturn(usersResource);
+    when(usersResource.search("example", 0, 2)).thenReturn(List.of(alice, carol));
+    when(usersResource.count("example")).thenReturn(3);
+
+    // Act
+    Page<AuthUser> page = keycloakAdapter.findAll(List.of(), "example", PageRequest.of(0, 2));
+
+    // Assert
+    assertThat(page.getTotalElements()).isEqualTo(3);
+    assertThat(page.getContent().getFirst().getRoleTypes())
+        .containsExactlyInAnyOrder(RoleType.ADMIN, RoleType.USER);
+    assertThat(page.getContent().get(1).getRoleTypes()).containsExactly(RoleType.USER);
+    verify(usersResource, never()).get(anyString());
+  }
+
+  @Test
+  @DisplayName("findAll should filter, sort and page the members of a role in memory")
+  void findAll_RoleFilter_PagesResolvedMembers() {
+
+    // Arrange
+    when(roleResolver.resolve(realmResource)).thenReturn(memberships());
+
+    // Act
+    Page<AuthUser> page =
+        keycloakAdapter.findAll(
+            List.of("ADMIN"), "", PageRequest.of(1, 1, Sort.by(Sort.Direction.DESC, "email")));
+
+    // Assert
+    assertThat(page.getTotalElements()).isEqualTo(2);
+    assertThat(page.getContent()).extracting(AuthUser::getEmail).containsExactly("alice@example.com");
+    assertThat(page.getContent().getFirst().getRoleTypes())
+        .containsExactlyInAnyOrder(RoleType.ADMIN, RoleType.USER);
+    verify(realmResource, never()).users();
+  }
+
+  @Test
+  @DisplayName("findByRole should return every user for a default role")
+  void findByRole_DefaultRole_ListsEveryUser() {
+
+    // Arrange
+    when(roleResolver.resolve(realmResource)).thenReturn(memberships());
+    when(realmResource.users()).thenReturn(usersResource);
+    when(usersResource.list(0, 500)).thenReturn(List.of(alice, bob, carol));
+
+    // Act
+    List<AuthUser> users = keycloakAdapter.findByRole(RoleType.USER);
+
+    // Assert
+    assertThat(users).extracting(AuthUser::getEmail).hasSize(3);
+    assertThat(users.get(1).getRoleTypes()).containsExactlyInAnyOrder(RoleType.ADMIN, RoleType.USER);
+  }
+
+  @Test
+  @DisplayName("enableUser should update the fetched user without reading it back")
+  void enableUser_UpdatesWithoutReadingBack() {
+
+    // Arrange
+    alice.setEnabled(false);
+    UserResource aliceResource = whenUser(alice);
+
+    // Act
+    AuthUser enabled = keycloakAdapter.enableUser(alice.getId());
+
+    // Assert
+    assertThat(enabled.getEnabled()).isTrue();
+    ArgumentCaptor<UserRepresentation> updated = ArgumentCaptor.captor();
+    verify(aliceResource).update(updated.capture());
+    assertThat(updated.getValue().isEnabled()).isTrue();
+    verify(aliceResource, times(1)).toRepresentation();
+    verify(authUserCache).evict(alice.getId());
+    verify(identityDirectory).save(enabled);
+  }
+
+  @Test
+  @DisplayName("update should keep the roles of the cached user instead of looking them up")
+  void update_CachedUser_KeepsCachedRoles() {
+
+    // Arrange
+    UserResource aliceResource = whenUser(alice);
+    AuthUser cached = Mappers.getMapper(AuthMapper.class).toAuthUser(alice);
+    cached.setRoleTypes(List.of(RoleType.ADMIN));
+    when(authUserCache.peek(alice.getId())).thenReturn(Optional.of(cached));
+    AuthUser change = new AuthUser();
+    change.setId(alice.getId());
+    change.setFirstName("Alicia");
+
+    // Act
+    AuthUser updated = keycloakAdapter.update(change);
+
+    // Assert
+    assertThat(updated.getFirstName()).isEqualTo("Alicia");
+    assertThat(updated.getRoleTypes()).containsExactly(RoleType.ADMIN);
+    verify(aliceResource).update(any());
+    verify(aliceResource, times(1)).toRepresentation();
+    verify(aliceResource, never()).roles();
+  }
+
+  @Test
+  @DisplayName("setEnabled should report each user, skip the ones already set and go on after a failure")
+  void setEnabled_PartialFailure_ReportsEachUser() {
+
+    // Arrange
+    alice.setEnabled(false);
+    bob.setEnabled(true);
+    carol.setEnabled(false);
+    UserResource aliceResource = whenUser(alice);
+    UserResource bobResource = whenUser(bob);
+    UserResource carolResource = whenUser(carol);
+    doThrow(new IllegalStateException("Keycloak is down")).when(carolResource).update(any());
+
+    // Act
+    List<UserOperationResult> results =
+        keycloakAdapter.setEnabled(List.of(alice.getId(), bob.getId(), carol.getId()), true);
+
+    // Assert
+    assertThat(results)
+        .containsExactly(
+            UserOperationResult.succeeded(alice.getId()),
+            UserOperationResult.succeeded(bob.getId()),
+            UserOperationResult.failed(carol.getId(), "Keycloak is down"));
+    verify(aliceResource).update(any());
+    verify(bobResource, never()).update(any());
+    verify(identityDirectory).setEnabled(alice.getId(), true);
+    verify(identityDirectory, never()).setEnabled(carol.getId(), true);
+  }
+
+  @Test
+  @DisplayName("setEnabled should not run more updates at once than the batch concurrency")
+  void setEnabled_ManyUsers_BoundedConcurrency() {
+
+    // Arrange
+    mutationProperties.setBatchConcurrency(2);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<String> userIds = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      UserRepresentation user = user("user" + i);
+      user.setEnabled(true);
+      UserResource userResource = whenUser(user);
+      doAnswer(
+              invocation -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return null;
+              })
+          .when(userResource)
+          .update(any());
+      userIds.add(user.getId());
+    }
+
+    // Act
+    List<UserOperationResult> results = keycloakAdapter.setEnabled(userIds, false);
+
+    // Assert
+    assertThat(results).hasSize(8).allMatch(UserOperationResult::success);
+    assertThat(maxRunning.get()).isBetween(1, 2);
+  }
+
+  @Test
+  @DisplayName("updateNames should only update the users whose names changed")
+  void updateNames_UnchangedNames_Skipped() {
+
+    // Arrange
+    UserResource aliceResource = whenUser(alice);
+    UserResource bobResource = whenUser(bob);
+    AuthUser renamed = new AuthUser();
+    renamed.setId(alice.getId());
+    renamed.setFirstName("Alicia");
+    renamed.setLastName("Doe");
+    AuthUser unchanged = new AuthUser();
+    unchanged.setId(bob.getId());
+    unchanged.setFirstName("bob");
+    unchanged.setLastName("Doe");
+
+    // Act
+    List<UserOperationResult> results = keycloakAdapter.updateNames(List.of(renamed, unchanged));
+
+    // Assert
+    assertThat(results).allMatch(UserOperationResult::success);
+    verify(aliceResource).update(any());
+    verify(bobResource, never()).update(any());
+    verify(authUserCache, never()).evict(bob.getId());
+  }
+
+  /** Registers the user, before any worker thread looks it up. */
+  private UserResource whenUser(UserRepresentation user) {
+    UserResource userResource = mock(UserResource.class);
+    when(realmResource.users()).thenReturn(usersResource);
+    when(usersResource.get(user.getId())).thenReturn(userResource);
+    when(userResource.toRepresentation()).thenReturn(user);
+    return userResource;
+  }
+
+  /** Every user holds USER by default, alice and bob also hold ADMIN. */
+  private RealmRoleResolver.RoleMemberships memberships() {
+    return new RealmRoleResolver.RoleMemberships(
+        EnumSet.of(RoleType.USER),
+        Map.of(alice.getId(), Set.of(RoleType.ADMIN), bob.getId(), Set.of(RoleType.ADMIN)),
+        Map.of(alice.getId(), alice, bob.getId(), bob));
+  }
+
+  private static UserRepresentation user(String username) {
+    UserRepresentation user = new UserRepresentation();
+    user.setId(UUID.randomUUID().toString());
+    user.setUsername(username);
+    user.setEmail(username + "@example.com");
+    user.setFirstName(username);
+    user.setLastName("Doe");
+    user.setEnabled(true);
+    user.setCreatedTimestamp(System.currentTimeMillis());
+    return user;
+  }
+}
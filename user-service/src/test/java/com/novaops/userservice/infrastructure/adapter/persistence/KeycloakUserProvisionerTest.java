@@ -0,0 +1,305 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.novaops.userservice.config.keycloak.KeycloakProvisioningProperties;
+import com.novaops.userservice.domain.enums.ProvisioningStatus;
+import com.novaops.userservice.domain.enums.RoleType;
+import com.novaops.userservice.domain.model.AuthUser;
+import com.novaops.userservice.domain.model.ProvisioningResult;
+import com.novaops.userservice.infrastructure.adapter.persistence.KeycloakUserProvisioner.ImportResult;
+import com.novaops.userservice.infrastructure.adapter.persistence.KeycloakUserProvisioner.ImportResults;
+import com.novaops.userservice.infrastructure.mapper.AuthMapper;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RoleMappingResource;
+import org.keycloak.admin.client.resource.RoleScopeResource;
+import org.keycloak.admin.client.resource.UserResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.PartialImportRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakUserProvisionerTest {
+
+  private static final String REALM = "novaops";
+  private static final List<String> UPDATE_PASSWORD = List.of("UPDATE_PASSWORD");
+
+  @Mock private Keycloak keycloak;
+
+  @Mock private RealmResource realmResource;
+
+  @Mock private UsersResource usersResource;
+
+  @Mock private KeycloakRealmMetadata realmMetadata;
+
+  private KeycloakProvisioningProperties properties;
+
+  private KeycloakUserProvisioner provisioner;
+
+  /** Realm role mappings of the users created one by one, by user id. */
+  private final Map<String, RoleScopeResource> realmRoles = new ConcurrentHashMap<>();
+
+  @BeforeEach
+  void setUp() {
+    properties = new KeycloakProvisioningProperties();
+    properties.setImportBatchSize(2);
+    provisioner =
+        new KeycloakUserProvisioner(
+            keycloak, Mappers.getMapper(AuthMapper.class), properties, realmMetadata);
+    ReflectionTestUtils.setField(provisioner, "realm", REALM);
+    when(keycloak.realm(REALM)).thenReturn(realmResource);
+  }
+
+  @Test
+  @DisplayName("createAll should import each batch at once, with the users' roles")
+  void createAll_PartialImport_MapsResults() {
+
+    // Arrange
+    Response firstBatch =
+        imported(
+            new ImportResult("ADDED", "USER", "john@example.com", "id-john"),
+            new ImportResult("SKIPPED", "USER", "jane@example.com", "id-jane"),
+            new ImportResult("ADDED", "ROLE", "mark@example.com", "id-role"));
+    Response secondBatch =
+        imported(new ImportResult("ADDED", "USER", "anna@example.com", "id-anna"));
+    when(realmResource.partialImport(any())).thenReturn(firstBatch).thenReturn(secondBatch);
+    List<AuthUser> users =
+        List.of(
+            user("John@Example.com", RoleType.ADMIN),
+            user("jane@example.com", RoleType.USER),
+            user("mark@example.com", RoleType.USER),
+            user("anna@example.com", RoleType.USER));
+
+    // Act
+    List<ProvisioningResult> results = provisioner.createAll(users, UPDATE_PASSWORD);
+
+    // Assert
+    assertEquals(
+        List.of(
+            ProvisioningResult.created("John@Example.com", "id-john"),
+            ProvisioningResult.skipped("jane@example.com", "id-jane"),
+            ProvisioningResult.failed("mark@example.com", "missing from partial import"),
+            ProvisioningResult.created("anna@example.com", "id-anna")),
+        results);
+    ArgumentCaptor<PartialImportRepresentation> requests = ArgumentCaptor.captor();
+    verify(realmResource, times(2)).partialImport(requests.capture());
+    PartialImportRepresentation first = requests.getAllValues().getFirst();
+    assertEquals(PartialImportRepresentation.Policy.SKIP.name(), first.getIfResourceExists());
+    UserRepresentation john = first.getUsers().getFirst();
+    assertEquals("john@example.com", john.getUsername());
+    assertEquals(List.of("ADMIN"), john.getRealmRoles());
+    assertEquals(UPDATE_PASSWORD, john.getRequiredActions());
+    verify(realmResource, never()).users();
+  }
+
+  @Test
+  @DisplayName("createAll should create users one by one once partial import is forbidden")
+  void createAll_PartialImportForbidden_FallsBackToSingleCreates() {
+
+    // Arrange
+    when(realmResource.partialImport(any())).thenReturn(Response.status(403).build());
+    whenUsersCreated("john@example.com", "jane@example.com", "mark@example.com");
+    RoleRepresentation userRole = role("USER");
+    when(realmMetadata.role("USER")).thenReturn(userRole);
+    List<AuthUser> users =
+        List.of(
+            user("john@example.com", RoleType.USER),
+            user("jane@example.com", RoleType.USER),
+            user("mark@example.com", RoleType.USER));
+
+    // Act
+    List<ProvisioningResult> results = provisioner.createAll(users, UPDATE_PASSWORD);
+
+    // Assert
+    assertEquals(
+        List.of(
+            ProvisioningResult.created("john@example.com", "id-john@example.com"),
+            ProvisioningResult.created("jane@example.com", "id-jane@example.com"),
+            ProvisioningResult.created("mark@example.com", "id-mark@example.com")),
+        results);
+    // the second batch does not try the partial import again
+    verify(realmResource, times(1)).partialImport(any());
+    verify(realmRoles.get("id-mark@example.com")).add(List.of(userRole));
+  }
+
+  @Test
+  @DisplayName("createAll should retry the partial import on the next batch after another failure")
+  void createAll_PartialImportFails_FallsBackForThatBatchOnly() {
+
+    // Arrange
+    Response secondBatch =
+        imported(new ImportResult("ADDED", "USER", "mark@example.com", "id-mark"));
+    when(realmResource.partialImport(any()))
+        .thenThrow(new ProcessingException("connection reset"))
+        .thenReturn(secondBatch);
+    whenUsersCreated("john@example.com", "jane@example.com");
+    List<AuthUser> users =
+        List.of(user("john@example.com"), user("jane@example.com"), user("mark@example.com"));
+
+    // Act
+    List<ProvisioningResult> results = provisioner.createAll(users, UPDATE_PASSWORD);
+
+    // Assert
+    assertEquals(
+        List.of(
+            ProvisioningResult.created("john@example.com", "id-john@example.com"),
+            ProvisioningResult.created("jane@example.com", "id-jane@example.com"),
+            ProvisioningResult.created("mark@example.com", "id-mark")),
+        results);
+    verify(realmResource, times(2)).partialImport(any());
+  }
+
+  @Test
+  @DisplayName("createAll should skip existing users and undo users whose roles fail")
+  void createAll_SingleCreates_SkipsConflictsAndUndoesRoleFailures() {
+
+    // Arrange
+    properties.setPartialImport(false);
+    when(realmResource.users()).thenReturn(usersResource);
+    when(usersResource.create(any()))
+        .thenAnswer(
+            invocation -> {
+              UserRepresentation representation = invocation.getArgument(0);
+              return switch (representation.getUsername()) {
+                case "jane@example.com" -> Response.status(409).build();
+                case "mark@example.com" -> Response.status(500).build();
+                default -> created(representation.getUsername());
+              };
+            });
+    RoleScopeResource failingRoles = roleScope("id-john@example.com");
+    doThrow(new ProcessingException("timeout")).when(failingRoles).add(any());
+    when(usersResource.delete("id-john@example.com")).thenReturn(Response.noContent().build());
+    when(realmMetadata.role("USER")).thenReturn(role("USER"));
+    List<AuthUser> users =
+        List.of(
+            user("john@example.com", RoleType.USER),
+            user("jane@example.com", RoleType.USER),
+            user("mark@example.com", RoleType.USER));
+
+    // Act
+    List<ProvisioningResult> results = provisioner.createAll(users, UPDATE_PASSWORD);
+
+    // Assert
+    assertEquals(
+        List.of(
+            ProvisioningStatus.FAILED, ProvisioningStatus.SKIPPED, ProvisioningStatus.FAILED),
+        results.stream().map(ProvisioningResult::status).toList());
+    verify(usersResource).delete("id-john@example.com");
+    verify(realmResource, never()).partialImport(any());
+  }
+
+  @Test
+  @DisplayName("createAll should not run more single creates at once than configured")
+  void createAll_SingleCreates_BoundsConcurrency() {
+
+    // Arrange
+    properties.setPartialImport(false);
+    properties.setImportBatchSize(20);
+    properties.setConcurrency(3);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    when(realmResource.users()).thenReturn(usersResource);
+    when(usersResource.create(any()))
+        .thenAnswer(
+            invocation -> {
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              Thread.sleep(20);
+              inFlight.decrementAndGet();
+              UserRepresentation representation = invocation.getArgument(0);
+              return created(representation.getUsername());
+            });
+    List<AuthUser> users =
+        IntStream.range(0, 20).mapToObj(i -> user("user" + i + "@example.com")).toList();
+
+    // Act
+    List<ProvisioningResult> results = provisioner.createAll(users, UPDATE_PASSWORD);
+
+    // Assert
+    assertEquals(20, results.stream().filter(ProvisioningResult::isCreated).count());
+    assertTrue(maxInFlight.get() <= 3, "at most 3 creates in flight, was " + maxInFlight.get());
+  }
+
+  /** Creates each user with the id {@code id-<email>}; their role mappings are stubbed upfront. */
+  private void whenUsersCreated(String... emails) {
+    for (String email : emails) {
+      roleScope("id-" + email);
+    }
+    when(realmResource.users()).thenReturn(usersResource);
+    when(usersResource.create(any()))
+        .thenAnswer(
+            invocation -> {
+              UserRepresentation representation = invocation.getArgument(0);
+              return created(representation.getUsername());
+            });
+  }
+
+  private RoleScopeResource roleScope(String userId) {
+    return realmRoles.computeIfAbsent(
+        userId,
+        id -> {
+          UserResource userResource = mock(UserResource.class);
+          RoleMappingResource roleMappings = mock(RoleMappingResource.class);
+          RoleScopeResource scope = mock(RoleScopeResource.class);
+          lenient().when(usersResource.get(id)).thenReturn(userResource);
+          lenient().when(userResource.roles()).thenReturn(roleMappings);
+          lenient().when(roleMappings.realmLevel()).thenReturn(scope);
+          return scope;
+        });
+  }
+
+  private static Response created(String username) {
+    return Response.created(URI.create("http://keycloak/admin/realms/novaops/users/id-" + username))
+        .build();
+  }
+
+  private static Response imported(ImportResult... results) {
+    Response response = mock(Response.class);
+    when(response.getStatusInfo()).thenReturn(Response.Status.OK);
+    when(response.readEntity(ImportResults.class)).thenReturn(new ImportResults(List.of(results)));
+    return response;
+  }
+
+  private static RoleRepresentation role(String name) {
+    RoleRepresentation role = new RoleRepresentation();
+    role.setName(name);
+    return role;
+  }
+
+  private static AuthUser user(String email, RoleType... roles) {
+    return AuthUser.builder()
+        .email(email)
+        .firstName("First")
+        .lastName("Last")
+        .roleTypes(List.of(roles))
+        .enabled(true)
+        .build();
+  }
+}
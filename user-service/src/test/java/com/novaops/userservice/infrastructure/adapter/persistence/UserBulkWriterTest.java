@@ -0,0 +1,176 @@
+package com.novaops.userservice.infrastructure.adapter.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.novaops.userservice.config.csv.CsvImportProperties;
+import com.novaops.userservice.domain.enums.RoleType;
+import com.novaops.userservice.domain.model.Role;
+import com.novaops.userservice.domain.model.User;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase
+// each batch commits on its own, as in production
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserBulkWriterTest {
+
+  @Container @ServiceConnection
+  static PostgreSQLContainer<?> postgreSQLContainer =
+      new PostgreSQLContainer<>("postgres:17-alpine");
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  private EmailExistenceIndex emailIndex;
+
+  private UserBulkWriter userBulkWriter;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update("DELETE FROM user_roles");
+    jdbcTemplate.update("DELETE FROM users");
+
+    CsvImportProperties properties = new CsvImportProperties();
+    properties.setBatchSize(2);
+    emailIndex = mock(EmailExistenceIndex.class);
+    userBulkWriter =
+        new UserBulkWriter(
+            jdbcTemplate, transactionManager, () -> Optional.of("importer"), properties, emailIndex);
+  }
+
+  @Test
+  void bulkUpsert_InsertsUsersWithTheirRoles() {
+    User john = user("John@Example.com", "John", RoleType.USER, RoleType.ADMIN);
+    User jane = user("jane@example.com", "Jane", RoleType.USER);
+
+    userBulkWriter.bulkUpsert(List.of(john, jane), false);
+
+    Map<String, Object> row =
+        jdbcTemplate.queryForMap("SELECT * FROM users WHERE id = ?", john.getId());
+    assertThat(row.get("email")).isEqualTo("john@example.com");
+    assertThat(row.get("first_name")).isEqualTo("John");
+    assertThat(row.get("created_by")).isEqualTo("importer");
+    assertThat(row.get("created_at")).isNotNull();
+    assertThat(rolesOf(john)).containsExactlyInAnyOrder("USER", "ADMIN");
+    assertThat(rolesOf(jane)).containsExactly("USER");
+    verify(emailIndex).addAll(List.of("John@Example.com", "jane@example.com"));
+  }
+
+  @Test
+  void bulkUpsert_WithoutUpdate_LeavesExistingUsersUntouched() {
+    User existing = user("john@example.com", "John", RoleType.USER);
+    userBulkWriter.bulkUpsert(List.of(existing), false);
+
+    User imported = user("john@example.com", "Johnny", RoleType.ADMIN);
+    userBulkWriter.bulkUpsert(List.of(imported), false);
+
+    assertThat(count("SELECT count(*) FROM users")).isEqualTo(1);
+    assertThat(firstNameOf("john@example.com")).isEqualTo("John");
+    // the roles of the skipped row are not attached to the existing one
+    assertThat(rolesOf(existing)).containsExactly("USER");
+    assertThat(rolesOf(imported)).isEmpty();
+  }
+
+  @Test
+  void bulkUpsert_WithUpdate_UpdatesExistingProfiles() {
+    User existing = user("john@example.com", "John", RoleType.USER);
+    existing.setPhoneNumber("12345678");
+    userBulkWriter.bulkUpsert(List.of(existing), false);
+
+    User imported = user("john@example.com", "Johnny");
+    imported.setId(existing.getId());
+    imported.setAddress("Tunis");
+    userBulkWriter.bulkUpsert(List.of(imported), true);
+
+    Map<String, Object> row =
+        jdbcTemplate.queryForMap("SELECT * FROM users WHERE id = ?", existing.getId());
+    assertThat(row.get("first_name")).isEqualTo("Johnny");
+    assertThat(row.get("address")).isEqualTo("Tunis");
+    // a missing value does not erase the stored one
+    assertThat(row.get("phone_number")).isEqualTo("12345678");
+    assertThat(row.get("last_modified_by")).isEqualTo("importer");
+    assertThat(((Number) row.get("version")).intValue()).isEqualTo(1);
+  }
+
+  @Test
+  void bulkUpsert_DoesNotAttachARoleTwice() {
+    User john = user("john@example.com", "John", RoleType.USER);
+    userBulkWriter.bulkUpsert(List.of(john), false);
+
+    userBulkWriter.bulkUpsert(List.of(john), true);
+
+    assertThat(rolesOf(john)).containsExactly("USER");
+  }
+
+  @Test
+  void bulkUpsert_CommitsEachBatchOnItsOwn() {
+    User first = user("first@example.com", "First", RoleType.USER);
+    User second = user("second@example.com", "Second", RoleType.USER);
+    User third = user("third@example.com", "Third", RoleType.USER);
+    // last_name is mandatory, so the second batch fails
+    User invalid = user("invalid@example.com", "Invalid", RoleType.USER);
+    invalid.setLastName(null);
+    User fifth = user("fifth@example.com", "Fifth", RoleType.USER);
+
+    assertThatThrownBy(
+            () -> userBulkWriter.bulkUpsert(List.of(first, second, third, invalid, fifth), false))
+        .isInstanceOf(DataIntegrityViolationException.class);
+
+    assertThat(jdbcTemplate.queryForList("SELECT email FROM users ORDER BY email", String.class))
+        .containsExactly("first@example.com", "second@example.com");
+    assertThat(rolesOf(first)).containsExactly("USER");
+    assertThat(rolesOf(third)).isEmpty();
+    verify(emailIndex).addAll(List.of("first@example.com", "second@example.com"));
+  }
+
+  private List<String> rolesOf(User user) {
+    return jdbcTemplate.queryForList(
+        "SELECT name FROM user_roles WHERE user_id = ?", String.class, user.getId());
+  }
+
+  private String firstNameOf(String email) {
+    return jdbcTemplate.queryForObject(
+        "SELECT first_name FROM users WHERE email = ?", String.class, email);
+  }
+
+  private int count(String sql) {
+    Integer count = jdbcTemplate.queryForObject(sql, Integer.class);
+    return count == null ? 0 : count;
+  }
+
+  private static User user(String email, String firstName, RoleType... roles) {
+    return User.builder()
+        .id(UUID.randomUUID())
+        .email(email)
+        .firstName(firstName)
+        .lastName("Doe")
+        .roles(
+            Arrays.stream(roles)
+                .map(role -> Role.builder().id(UUID.randomUUID()).name(role).build())
+                .toList())
+        .build();
+  }
+}
@@ -0,0 +1,172 @@
+package com.novaops.userservice.infrastructure.adapter.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.novaops.userservice.config.grpc.StorageGcProperties;
+import com.novaops.userservice.domain.model.BlobPage;
+import com.novaops.userservice.domain.model.StoredBlob;
+import com.novaops.userservice.infrastructure.adapter.persistence.BlobReferenceStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class OrphanBlobCollectorTest {
+
+  private static final Instant OLD = Instant.now().minus(3, ChronoUnit.DAYS);
+  private static final LocalDateTime LEASE = LocalDateTime.now().plusMinutes(30);
+
+  @Mock private StorageBlobClient storageBlobClient;
+
+  @Mock private BlobReferenceStore blobReferences;
+
+  private final StorageGcProperties properties = new StorageGcProperties();
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private OrphanBlobCollector collector;
+
+  @BeforeEach
+  void setUp() {
+    properties.setEnabled(true);
+    properties.setPageSize(2);
+    properties.setPageInterval(Duration.ZERO);
+    collector =
+        new OrphanBlobCollector(storageBlobClient, blobReferences, properties, meterRegistry);
+    lenient().when(blobReferences.tryAcquireLease(any())).thenReturn(Optional.of(LEASE));
+    lenient()
+        .when(blobReferences.variantsTrackedSince())
+        .thenReturn(Instant.now().minus(1, ChronoUnit.DAYS));
+  }
+
+  @Test
+  @DisplayName("collect should delete only the old files that no user references")
+  void collect_Page_DeletesUnreferencedOldFiles() {
+
+    // Arrange
+    StoredBlob orphan = blob("/files/orphan.pdf", 100, OLD);
+    StoredBlob referenced = blob("/images/avatar.png", 200, OLD);
+    StoredBlob recent = blob("/images/new.png", 300, Instant.now());
+    StoredBlob untrackedVariant = blob("/images/avatar__thumb.png", 400, OLD);
+    whenListed(null, new BlobPage(List.of(orphan, referenced, recent, untrackedVariant), null));
+    when(blobReferences.findReferenced(List.of(orphan.url(), referenced.url())))
+        .thenReturn(Set.of(referenced.url()));
+    when(storageBlobClient.deleteFiles(List.of(orphan.url())))
+        .thenReturn(CompletableFuture.completedFuture(List.of()));
+
+    // Act
+    collector.collect();
+
+    // Assert
+    assertThat(meterRegistry.counter("storage.gc.deleted").count()).isEqualTo(1);
+    assertThat(meterRegistry.counter("storage.gc.reclaimed").count()).isEqualTo(100);
+    verify(blobReferences).saveCursor(null);
+    verify(blobReferences).releaseLease(LEASE);
+  }
+
+  @Test
+  @DisplayName("collect should count only the files actually deleted and go on with the next page")
+  void collect_SomeDeletesFail_ContinuesWithNextPage() {
+
+    // Arrange
+    StoredBlob first = blob("/files/first.pdf", 100, OLD);
+    StoredBlob locked = blob("/files/locked.pdf", 200, OLD);
+    StoredBlob last = blob("/files/last.pdf", 300, OLD);
+    whenListed(null, new BlobPage(List.of(first, locked), "page-2"));
+    whenListed("page-2", new BlobPage(List.of(last), null));
+    when(blobReferences.renewLease(LEASE, properties.getLeaseDuration()))
+        .thenReturn(Optional.of(LEASE));
+    when(blobReferences.findReferenced(anyCollection())).thenReturn(Set.of());
+    when(storageBlobClient.deleteFiles(List.of(first.url(), locked.url())))
+        .thenReturn(CompletableFuture.completedFuture(List.of(locked.url())));
+    when(storageBlobClient.deleteFiles(List.of(last.url())))
+        .thenReturn(CompletableFuture.completedFuture(List.of()));
+
+    // Act
+    collector.collect();
+
+    // Assert
+    assertThat(meterRegistry.counter("storage.gc.deleted").count()).isEqualTo(2);
+    assertThat(meterRegistry.counter("storage.gc.reclaimed").count()).isEqualTo(400);
+    verify(blobReferences).saveCursor("page-2");
+    verify(blobReferences).saveCursor(null);
+  }
+
+  @Test
+  @DisplayName("collect should stop after the pages of one run and resume from the saved cursor")
+  void collect_PagesPerRun_StopsAndKeepsCursor() {
+
+    // Arrange
+    properties.setPagesPerRun(1);
+    when(blobReferences.cursor()).thenReturn("page-5");
+    when(storageBlobClient.listBlobs("page-5", 2))
+        .thenReturn(CompletableFuture.completedFuture(new BlobPage(List.of(), "page-6")));
+
+    // Act
+    collector.collect();
+
+    // Assert
+    verify(storageBlobClient).listBlobs(anyString(), anyInt());
+    verify(blobReferences).saveCursor("page-6");
+    verify(blobReferences, never()).renewLease(any(), any());
+  }
+
+  @Test
+  @DisplayName("collect should stop when its lease was taken over, without releasing it")
+  void collect_LeaseLost_Stops() {
+
+    // Arrange
+    whenListed(null, new BlobPage(List.of(), "page-2"));
+    when(blobReferences.renewLease(LEASE, properties.getLeaseDuration()))
+        .thenReturn(Optional.empty());
+
+    // Act
+    collector.collect();
+
+    // Assert
+    verify(storageBlobClient).listBlobs(any(), anyInt());
+    verify(blobReferences, never()).releaseLease(any());
+  }
+
+  @Test
+  @DisplayName("collect should do nothing while another instance holds the lease")
+  void collect_LeaseHeldElsewhere_Skips() {
+
+    // Arrange
+    when(blobReferences.tryAcquireLease(any())).thenReturn(Optional.empty());
+
+    // Act
+    collector.collect();
+
+    // Assert
+    verify(storageBlobClient, never()).listBlobs(any(), anyInt());
+  }
+
+  private void whenListed(String cursor, BlobPage page) {
+    when(storageBlobClient.listBlobs(cursor, 2)).thenReturn(CompletableFuture.completedFuture(page));
+  }
+
+  private static StoredBlob blob(String url, long size, Instant lastModified) {
+    return new StoredBlob(url, size, lastModified);
+  }
+}
@@ -0,0 +1,265 @@
+package com.novaops.userservice.infrastructure.adapter.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import com.novaops.userservice.config.grpc.StorageUploadProperties;
+import com.novaops.userservice.domain.model.DomainBlob;
+import com.novaops.userservice.exception.StorageException;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.novaops.storageservice.proto.Blob;
+import org.novaops.storageservice.proto.StorageServiceGrpc;
+import org.novaops.storageservice.proto.UploadRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+@ExtendWith(MockitoExtension.class)
+class StorageUploadClientTest {
+
+  @Mock private StorageServiceGrpc.StorageServiceStub storageServiceStub;
+
+  private final RequestStream requestStream = new RequestStream();
+
+  private ClientResponseObserver<UploadRequest, Blob> call;
+
+  private StorageUploadClient storageUploadClient;
+
+  @BeforeEach
+  void setUp() {
+    StorageUploadProperties properties = new StorageUploadProperties();
+    properties.setMinChunkSize(DataSize.ofBytes(4));
+    properties.setMaxChunkSize(DataSize.ofBytes(16));
+    storageUploadClient = new StorageUploadClient(storageServiceStub, properties);
+    when(storageServiceStub.withDeadlineAfter(anyLong(), any(TimeUnit.class)))
+        .thenReturn(storageServiceStub);
+    doAnswer(
+            invocation -> {
+              call = invocation.getArgument(0);
+              call.beforeStart(requestStream);
+              return null;
+            })
+        .when(storageServiceStub)
+        .uploadFile(any());
+  }
+
+  @Test
+  @DisplayName("upload should send the info, then chunks growing up to the maximum size")
+  void upload_ChannelKeepsUp_GrowsChunks() throws Exception {
+
+    // Arrange
+    byte[] content = content(50);
+
+    // Act
+    CompletableFuture<DomainBlob> result = storageUploadClient.upload(file(content));
+    requestStream.readyFor(100);
+    call.onNext(Blob.newBuilder().setName("avatar.png").setUrl("http://cdn/avatar.png").build());
+    call.onCompleted();
+
+    // Assert
+    assertThat(requestStream.sent.getFirst().hasInfo()).isTrue();
+    assertThat(requestStream.chunkSizes()).containsExactly(4, 8, 16, 16, 6);
+    assertThat(requestStream.data()).isEqualTo(content);
+    assertThat(requestStream.completed).isTrue();
+    assertThat(result.get().url()).isEqualTo("http://cdn/avatar.png");
+  }
+
+  @Test
+  @DisplayName("upload should pause while the channel is not ready and resume with smaller chunks")
+  void upload_ChannelStalls_PausesAndShrinksChunks() throws Exception {
+
+    // Arrange
+    byte[] content = content(30);
+
+    // Act
+    storageUploadClient.upload(file(content));
+    // the info and two chunks fit before the transport has to wait
+    requestStream.readyFor(3);
+    int sentBeforeStall = requestStream.sent.size();
+    requestStream.runOnReady();
+    int sentWhileNotReady = requestStream.sent.size();
+    requestStream.readyFor(100);
+
+    // Assert
+    assertThat(sentBeforeStall).isEqualTo(3);
+    assertThat(sentWhileNotReady).isEqualTo(3);
+    // 4 then 8, the stall halves 8 back to 4 before growing again
+    assertThat(requestStream.chunkSizes()).containsExactly(4, 8, 4, 8, 6);
+    assertThat(requestStream.data()).isEqualTo(content);
+    assertThat(requestStream.completed).isTrue();
+  }
+
+  @Test
+  @DisplayName("upload should fail with a size limit error when the storage service refuses the file")
+  void upload_ResourceExhausted_FailsWithSizeLimit() {
+
+    // Arrange
+    ClosingInputStream input = new ClosingInputStream(content(100));
+
+    // Act
+    CompletableFuture<DomainBlob> result = storageUploadClient.upload(file(input));
+    requestStream.readyFor(2);
+    call.onError(Status.RESOURCE_EXHAUSTED.asRuntimeException());
+    requestStream.readyFor(100);
+
+    // Assert
+    assertThat(result)
+        .failsWithin(1, TimeUnit.SECONDS)
+        .withThrowableOfType(ExecutionException.class)
+        .havingCause()
+        .isInstanceOf(StorageException.class)
+        .hasFieldOrPropertyWithValue(
+            "messageKey",
+            StorageException.CloudStorageExceptionType.IMAGE_SIZE_LIMIT_EXCEEDED.getMessageKey());
+    assertThat(input.closed).isTrue();
+    // nothing more is sent once the call failed
+    assertThat(requestStream.sent).hasSize(2);
+  }
+
+  @Test
+  @DisplayName("upload should cancel the call when the file cannot be read")
+  void upload_ReadFails_Cancels() {
+
+    // Arrange
+    InputStream failing =
+        new InputStream() {
+          @Override
+          public int read() throws IOException {
+            throw new IOException("disk error");
+          }
+        };
+
+    // Act
+    storageUploadClient.upload(file(failing));
+    requestStream.readyFor(100);
+
+    // Assert
+    assertThat(requestStream.cancelled).isTrue();
+    assertThat(requestStream.completed).isFalse();
+  }
+
+  private static MockMultipartFile file(byte[] content) {
+    return new MockMultipartFile("file", "avatar.png", "image/png", content);
+  }
+
+  private static MockMultipartFile file(InputStream input) {
+    return new MockMultipartFile("file", "avatar.png", "image/png", new byte[0]) {
+      @Override
+      public InputStream getInputStream() {
+        return input;
+      }
+    };
+  }
+
+  private static byte[] content(int size) {
+    byte[] content = new byte[size];
+    for (int i = 0; i < size; i++) {
+      content[i] = (byte) i;
+    }
+    return content;
+  }
+
+  /** The outbound side of the call, ready for a given number of messages. */
+  private static final class RequestStream extends ClientCallStreamObserver<UploadRequest> {
+
+    private final List<UploadRequest> sent = new ArrayList<>();
+    private Runnable onReadyHandler;
+    private int ready;
+    private boolean completed;
+    private boolean cancelled;
+
+    void readyFor(int messages) {
+      ready = messages;
+      runOnReady();
+    }
+
+    void runOnReady() {
+      onReadyHandler.run();
+    }
+
+    List<Integer> chunkSizes() {
+      return sent.stream()
+          .filter(UploadRequest::hasChunkData)
+          .map(request -> request.getChunkData().size())
+          .toList();
+    }
+
+    byte[] data() {
+      ByteArrayOutputStream data = new ByteArrayOutputStream();
+      sent.stream()
+          .filter(UploadRequest::hasChunkData)
+          .forEach(request -> data.writeBytes(request.getChunkData().toByteArray()));
+      return data.toByteArray();
+    }
+
+    @Override
+    public boolean isReady() {
+      return ready > 0;
+    }
+
+    @Override
+    public void setOnReadyHandler(Runnable onReadyHandler) {
+      this.onReadyHandler = onReadyHandler;
+    }
+
+    @Override
+    public void onNext(UploadRequest value) {
+      sent.add(value);
+      ready--;
+    }
+
+    @Override
+    public void onCompleted() {
+      completed = true;
+    }
+
+    @Override
+    public void cancel(String message, Throwable cause) {
+      cancelled = true;
+    }
+
+    @Override
+    public void onError(Throwable t) {}
+
+    @Override
+    public void disableAutoInboundFlowControl() {}
+
+    @Override
+    public void request(int count) {}
+
+    @Override
+    public void setMessageCompression(boolean enable) {}
+  }
+
+  private static final class ClosingInputStream extends java.io.ByteArrayInputStream {
+
+    private boolean closed;
+
+    ClosingInputStream(byte[] content) {
+      super(content);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}